@@ -0,0 +1,76 @@
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import io.rsocket.frame.PayloadFrameCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode(Mode.Throughput)
+@Fork(value = 1)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Thread)
+public class PayloadCompressionPerf {
+
+  @Param({"1024", "16384", "262144"})
+  int size;
+
+  ByteBufAllocator allocator;
+  ByteBuf data;
+  ByteBuf compressedFrame;
+
+  @Setup
+  public void setup() {
+    allocator = ByteBufAllocator.DEFAULT;
+
+    // JSON-like payload, as repetitive as typical API responses
+    final StringBuilder json = new StringBuilder(size);
+    for (int i = 0; json.length() < size; i++) {
+      json.append("{\"id\":").append(i).append(",\"status\":\"SHIPPED\",\"region\":\"eu\"},");
+    }
+    json.setLength(size);
+    data = allocator.directBuffer(size).writeBytes(json.toString().getBytes(CharsetUtil.UTF_8));
+
+    compressedFrame =
+        PayloadCompressionCodec.encodeFrame(
+            allocator, PayloadCompressor.DEFLATE, 0, frame(data.retainedSlice()));
+  }
+
+  @TearDown
+  public void tearDown() {
+    data.release();
+    compressedFrame.release();
+  }
+
+  @Benchmark
+  public void encodeUncompressed(Blackhole bh) {
+    final ByteBuf frame = frame(data.retainedSlice());
+    bh.consume(frame.readableBytes());
+    frame.release();
+  }
+
+  @Benchmark
+  public void encodeCompressed(Blackhole bh) {
+    final ByteBuf frame =
+        PayloadCompressionCodec.encodeFrame(
+            allocator, PayloadCompressor.DEFLATE, 0, frame(data.retainedSlice()));
+    // the wire size, to be compared with the size of the uncompressed frame
+    bh.consume(frame.readableBytes());
+    frame.release();
+  }
+
+  @Benchmark
+  public void decodeCompressed(Blackhole bh) {
+    final ByteBuf frame =
+        PayloadCompressionCodec.decodeFrame(allocator, PayloadCompressor.DEFLATE, compressedFrame);
+    bh.consume(frame.readableBytes());
+    frame.release();
+  }
+
+  ByteBuf frame(ByteBuf data) {
+    return PayloadFrameCodec.encode(allocator, 1, false, false, true, Unpooled.EMPTY_BUFFER, data);
+  }
+}
@@ -0,0 +1,88 @@
+package io.rsocket.keepalive;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
+import io.rsocket.internal.TimerWheel;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the cost of idle connections whose keepalive ticks are scheduled with a {@code
+ * Flux.interval} per connection with the cost of sharing a {@link TimerWheel}: the heap retained
+ * per connection, and the process CPU time spent per second while all connections are idle.
+ *
+ * <p>Run with {@code ./gradlew benchmarks:jmh --include=KeepAliveTimerPerf}. The costs are reported
+ * as the secondary results {@code retainedBytesPerConnection} and {@code cpuMillisPerIdleSecond}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(value = 1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class KeepAliveTimerPerf {
+
+  static final long IDLE_MILLIS = 5000;
+
+  @Param({"interval", "wheel"})
+  String timer;
+
+  @Param({"10000", "100000"})
+  int connections;
+
+  @Param({"1000", "20000"})
+  int keepAliveIntervalMillis;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Usage {
+    public double retainedBytesPerConnection;
+    public double cpuMillisPerIdleSecond;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      retainedBytesPerConnection = 0;
+      cpuMillisPerIdleSecond = 0;
+    }
+  }
+
+  @Benchmark
+  public void idleConnections(Usage usage) throws InterruptedException {
+    final TimerWheel timerWheel = timer.equals("wheel") ? TimerWheel.shared() : null;
+    final long heapBefore = usedHeap();
+
+    final List<KeepAliveSupport> keepAlives = new ArrayList<>(connections);
+    for (int i = 0; i < connections; i++) {
+      final KeepAliveSupport keepAlive =
+          new KeepAliveSupport.ClientKeepAliveSupport(
+                  ByteBufAllocator.DEFAULT, keepAliveIntervalMillis, Integer.MAX_VALUE, timerWheel)
+              .onSendKeepAliveFrame(ReferenceCountUtil::safeRelease);
+      keepAlives.add(keepAlive.start());
+    }
+
+    usage.retainedBytesPerConnection = (double) (usedHeap() - heapBefore) / connections;
+
+    final long cpuBefore = processCpuNanos();
+    Thread.sleep(IDLE_MILLIS);
+    usage.cpuMillisPerIdleSecond = (processCpuNanos() - cpuBefore) / 1e6 / (IDLE_MILLIS / 1000d);
+
+    for (KeepAliveSupport keepAlive : keepAlives) {
+      keepAlive.stop();
+    }
+  }
+
+  static long usedHeap() {
+    final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+  static long processCpuNanos() {
+    return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+        .getProcessCpuTime();
+  }
+}
@@ -0,0 +1,98 @@
+package io.rsocket.loadbalance;
+
+import io.rsocket.RSocket;
+import io.rsocket.frame.FrameType;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the cost of selecting an {@link RSocket} from pools of different sizes, including the
+ * bookkeeping that every request causes for the given strategy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Thread)
+public class LoadbalanceStrategyPerf {
+
+  @Param({"10", "100", "10000"})
+  int targets;
+
+  List<RSocket> sockets;
+
+  WeightedLoadbalanceStrategy weightedStrategy;
+  Map<RSocket, WeightedStatsRequestInterceptor> weightedStats;
+
+  LeastOutstandingRequestsLoadbalanceStrategy leastOutstandingStrategy;
+  Map<RSocket, LeastOutstandingRequestsLoadbalanceStrategy.Tracker> trackers;
+
+  RoundRobinLoadbalanceStrategy roundRobinStrategy;
+
+  @Setup
+  public void setUp() {
+    sockets = new ArrayList<>(targets);
+    weightedStats = new IdentityHashMap<>(targets);
+    trackers = new IdentityHashMap<>(targets);
+
+    leastOutstandingStrategy = LeastOutstandingRequestsLoadbalanceStrategy.create();
+    roundRobinStrategy = new RoundRobinLoadbalanceStrategy();
+
+    for (int i = 0; i < targets; i++) {
+      final RSocket rSocket = new RSocket() {};
+      sockets.add(rSocket);
+      weightedStats.put(rSocket, new WeightedStatsRequestInterceptor());
+      trackers.put(rSocket, leastOutstandingStrategy.track(rSocket));
+    }
+
+    weightedStrategy =
+        WeightedLoadbalanceStrategy.builder().weightedStatsResolver(weightedStats::get).build();
+
+    // put some load on the pool so that the selection does not always hit the same socket
+    for (int i = 0; i < targets * 4; i++) {
+      final RSocket rSocket = sockets.get(ThreadLocalRandom.current().nextInt(targets));
+      weightedStats.get(rSocket).onStart(i, FrameType.REQUEST_RESPONSE, null);
+      trackers.get(rSocket).onStart(i, FrameType.REQUEST_RESPONSE, null);
+    }
+  }
+
+  @Benchmark
+  public void roundRobin(Blackhole bh) {
+    bh.consume(roundRobinStrategy.select(sockets));
+  }
+
+  @Benchmark
+  public void weighted(Blackhole bh) {
+    final RSocket rSocket = weightedStrategy.select(sockets);
+    final WeightedStatsRequestInterceptor stats = weightedStats.get(rSocket);
+    stats.onStart(1, FrameType.REQUEST_RESPONSE, null);
+    stats.onTerminate(1, FrameType.REQUEST_RESPONSE, null);
+    bh.consume(rSocket);
+  }
+
+  @Benchmark
+  public void leastOutstandingRequests(Blackhole bh) {
+    final RSocket rSocket = leastOutstandingStrategy.select(sockets);
+    final LeastOutstandingRequestsLoadbalanceStrategy.Tracker tracker = trackers.get(rSocket);
+    tracker.onStart(1, FrameType.REQUEST_RESPONSE, null);
+    tracker.onTerminate(1, FrameType.REQUEST_RESPONSE, null);
+    bh.consume(rSocket);
+  }
+}
@@ -0,0 +1,67 @@
+package io.rsocket.metadata;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode(Mode.Throughput)
+@Fork(value = 1)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Thread)
+public class CompositeMetadataPerf {
+
+  ByteBuf metadata;
+  CompositeMetadataReader reader;
+
+  @Setup
+  public void setup() {
+    CompositeByteBuf compositeMetadata = ByteBufAllocator.DEFAULT.compositeBuffer();
+    // routing, tracing and auth entries, as carried by a typical request
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        compositeMetadata,
+        ByteBufAllocator.DEFAULT,
+        WellKnownMimeType.MESSAGE_RSOCKET_ROUTING,
+        Unpooled.copiedBuffer("\u000Eorders.created", CharsetUtil.US_ASCII));
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        compositeMetadata,
+        ByteBufAllocator.DEFAULT,
+        WellKnownMimeType.MESSAGE_RSOCKET_TRACING_ZIPKIN,
+        Unpooled.wrappedBuffer(new byte[17]));
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        compositeMetadata,
+        ByteBufAllocator.DEFAULT,
+        "application/x.custom.auth",
+        Unpooled.copiedBuffer("token", CharsetUtil.US_ASCII));
+
+    metadata = Unpooled.copiedBuffer(compositeMetadata);
+    compositeMetadata.release();
+    reader = new CompositeMetadataReader();
+  }
+
+  @TearDown
+  public void tearDown() {
+    metadata.release();
+  }
+
+  @Benchmark
+  public void iterator(final Blackhole bh) {
+    for (CompositeMetadata.Entry entry : new CompositeMetadata(metadata, false)) {
+      bh.consume(entry.getMimeType());
+      bh.consume(entry.getContent().readableBytes());
+    }
+  }
+
+  @Benchmark
+  public void flyweightReader(final Blackhole bh) {
+    final CompositeMetadataReader reader = this.reader.reset(metadata);
+    while (reader.next()) {
+      bh.consume(reader.hasMimeId() ? reader.mimeId() : reader.mimeLength());
+      bh.consume(reader.contentLength());
+    }
+  }
+}
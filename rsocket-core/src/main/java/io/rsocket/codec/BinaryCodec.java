@@ -0,0 +1,185 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Reference {@link Encoder} and {@link Decoder} for a compact binary format, made of fields written
+ * one after another by a {@link Writer} and read back in the same order by a {@link Reader}. The
+ * static helpers of this class write integers as zig-zag variable length integers, and strings and
+ * byte arrays prefixed by their length, as in the wire format of Protocol Buffers without field
+ * tags.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * BinaryCodec<Order> codec =
+ *     BinaryCodec.of(
+ *         (order, buf) -> {
+ *           BinaryCodec.writeVarLong(buf, order.id());
+ *           BinaryCodec.writeString(buf, order.item());
+ *         },
+ *         buf -> new Order(BinaryCodec.readVarLong(buf), BinaryCodec.readString(buf)));
+ *
+ * Mono<Order> order = client.requestResponse(request, requestCodec, codec);
+ * }</pre>
+ *
+ * @param <T> the type of encoded and decoded values
+ * @since 1.1.1
+ */
+public final class BinaryCodec<T> implements Encoder<T>, Decoder<T> {
+
+  /** Codec for strings, encoded in UTF-8 without length prefix. */
+  public static final BinaryCodec<String> UTF8 =
+      of(
+          (value, buf) -> ByteBufUtil.writeUtf8(buf, value),
+          buf -> buf.toString(StandardCharsets.UTF_8));
+
+  /** Codec for byte arrays, written as is without length prefix. */
+  public static final BinaryCodec<byte[]> BYTES =
+      of((bytes, buf) -> buf.writeBytes(bytes), ByteBufUtil::getBytes);
+
+  private final int initialCapacity;
+  private final Writer<? super T> writer;
+  private final Reader<? extends T> reader;
+
+  private BinaryCodec(int initialCapacity, Writer<? super T> writer, Reader<? extends T> reader) {
+    this.initialCapacity = initialCapacity;
+    this.writer = writer;
+    this.reader = reader;
+  }
+
+  /** Create a codec with the given writer and reader. */
+  public static <T> BinaryCodec<T> of(Writer<? super T> writer, Reader<? extends T> reader) {
+    return of(256, writer, reader);
+  }
+
+  /**
+   * Create a codec with the given writer and reader, writing into buffers of the given initial
+   * capacity which expand as needed.
+   */
+  public static <T> BinaryCodec<T> of(
+      int initialCapacity, Writer<? super T> writer, Reader<? extends T> reader) {
+    if (initialCapacity < 0) {
+      throw new IllegalArgumentException("initialCapacity must not be negative");
+    }
+    return new BinaryCodec<>(
+        initialCapacity, Objects.requireNonNull(writer), Objects.requireNonNull(reader));
+  }
+
+  @Override
+  public ByteBuf encode(ByteBufAllocator allocator, T value) {
+    final ByteBuf target = allocator.buffer(initialCapacity);
+    try {
+      writer.write(value, target);
+      return target;
+    } catch (Throwable t) {
+      target.release();
+      throw t;
+    }
+  }
+
+  @Override
+  public T decode(ByteBuf source) {
+    // read from a duplicate, so that the reader index of the source is left as is
+    return reader.read(source.duplicate());
+  }
+
+  /** Write the given value as a zig-zag variable length integer of 1 to 10 bytes. */
+  public static void writeVarLong(ByteBuf target, long value) {
+    long zigZag = (value << 1) ^ (value >> 63);
+    while ((zigZag & ~0x7FL) != 0) {
+      target.writeByte((int) ((zigZag & 0x7F) | 0x80));
+      zigZag >>>= 7;
+    }
+    target.writeByte((int) zigZag);
+  }
+
+  /** Read a zig-zag variable length integer written by {@link #writeVarLong(ByteBuf, long)}. */
+  public static long readVarLong(ByteBuf source) {
+    long zigZag = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      final byte b = source.readByte();
+      zigZag |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+      }
+    }
+    throw new IllegalArgumentException("Malformed variable length integer");
+  }
+
+  /** Write the given string in UTF-8, prefixed by its length in bytes. */
+  public static void writeString(ByteBuf target, CharSequence value) {
+    writeVarLong(target, ByteBufUtil.utf8Bytes(value));
+    ByteBufUtil.writeUtf8(target, value);
+  }
+
+  /** Read a string written by {@link #writeString(ByteBuf, CharSequence)}. */
+  public static String readString(ByteBuf source) {
+    final int length = readLength(source);
+    final String value = source.toString(source.readerIndex(), length, StandardCharsets.UTF_8);
+    source.skipBytes(length);
+    return value;
+  }
+
+  /** Write the given bytes, prefixed by their length. */
+  public static void writeBytes(ByteBuf target, byte[] value) {
+    writeVarLong(target, value.length);
+    target.writeBytes(value);
+  }
+
+  /** Read bytes written by {@link #writeBytes(ByteBuf, byte[])}. */
+  public static byte[] readBytes(ByteBuf source) {
+    final byte[] value = new byte[readLength(source)];
+    source.readBytes(value);
+    return value;
+  }
+
+  private static int readLength(ByteBuf source) {
+    final long length = readVarLong(source);
+    if (length < 0 || length > source.readableBytes()) {
+      throw new IllegalArgumentException("Malformed length: " + length);
+    }
+    return (int) length;
+  }
+
+  /**
+   * Writes the fields of a value.
+   *
+   * @param <T> the type of written values
+   */
+  @FunctionalInterface
+  public interface Writer<T> {
+
+    void write(T value, ByteBuf target);
+  }
+
+  /**
+   * Reads the fields of a value, in the order they have been written.
+   *
+   * @param <T> the type of read values
+   */
+  @FunctionalInterface
+  public interface Reader<T> {
+
+    T read(ByteBuf source);
+  }
+}
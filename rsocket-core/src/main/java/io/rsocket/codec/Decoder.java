@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.rsocket.Payload;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Deserializes values of type {@code T} directly from a {@link ByteBuf}, such as a slice of the
+ * data of a received {@link Payload}, without copying it to a {@code byte[]} first.
+ *
+ * @param <T> the type of decoded values
+ * @since 1.1.1
+ */
+@FunctionalInterface
+public interface Decoder<T> {
+
+  /**
+   * Decode a value from the readable bytes of the given buffer. The buffer is only valid for the
+   * duration of the call, and must be neither retained nor released.
+   *
+   * @param source the buffer to decode
+   * @return the decoded value, or {@code null} if it decodes to no value
+   */
+  @Nullable
+  T decode(ByteBuf source);
+
+  /** Decode a value from the data of the given {@link Payload}, releasing it. */
+  @Nullable
+  default T decodePayload(Payload payload) {
+    try {
+      return decode(payload.sliceData());
+    } finally {
+      payload.release();
+    }
+  }
+}
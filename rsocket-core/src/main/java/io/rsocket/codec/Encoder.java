@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.Payload;
+import io.rsocket.util.ByteBufPayload;
+
+/**
+ * Serializes values of type {@code T} directly into a {@link ByteBuf} obtained from the given
+ * allocator, typically the pooled allocator of the connection, so that the serialized form is not
+ * copied again on its way to the transport.
+ *
+ * @param <T> the type of values to encode
+ * @since 1.1.1
+ */
+@FunctionalInterface
+public interface Encoder<T> {
+
+  /**
+   * Encode the given value into a new buffer obtained from the given allocator.
+   *
+   * @param allocator the allocator to obtain the buffer from
+   * @param value the value to encode
+   * @return the buffer holding the encoded value, owned by the caller
+   */
+  ByteBuf encode(ByteBufAllocator allocator, T value);
+
+  /** Encode the given value as the data of a new {@link Payload} without metadata. */
+  default Payload encodePayload(ByteBufAllocator allocator, T value) {
+    return ByteBufPayload.create(encode(allocator, value));
+  }
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Reference {@link Encoder} and {@link Decoder} for JSON, without dependencies on a JSON library.
+ * Values are written directly into the target buffer, and parsed directly from the source buffer.
+ *
+ * <p>Encodes {@code null}, {@link CharSequence}, {@link Boolean}, {@link Number}, {@link Map} with
+ * keys converted with {@link String#valueOf(Object)}, {@link Iterable} and arrays of objects.
+ * Decodes objects into a {@link LinkedHashMap}, arrays into an {@link ArrayList}, integral
+ * numbers into a {@link Long} if they fit and other numbers into a {@link Double}. Applications
+ * using a JSON library can implement {@code Encoder} and {@code Decoder} on top of its streaming
+ * API instead, e.g. with {@link io.netty.buffer.ByteBufOutputStream}.
+ *
+ * @since 1.1.1
+ */
+public final class JsonCodec implements Encoder<Object>, Decoder<Object> {
+
+  public static final JsonCodec INSTANCE = new JsonCodec();
+
+  static final int MAX_DEPTH = 512;
+
+  static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+  private JsonCodec() {}
+
+  @Override
+  public ByteBuf encode(ByteBufAllocator allocator, @Nullable Object value) {
+    final ByteBuf target = allocator.buffer(256);
+    try {
+      write(value, target, 0);
+      return target;
+    } catch (Throwable t) {
+      target.release();
+      throw t;
+    }
+  }
+
+  @Override
+  @Nullable
+  public Object decode(ByteBuf source) {
+    final Parser parser = new Parser(source);
+    final Object value = parser.readValue(0);
+    parser.skipWhitespace();
+    if (parser.index != parser.endIndex) {
+      throw parser.malformed();
+    }
+    return value;
+  }
+
+  static void write(@Nullable Object value, ByteBuf target, int depth) {
+    if (depth > MAX_DEPTH) {
+      throw new IllegalArgumentException("JSON nesting is deeper than " + MAX_DEPTH);
+    }
+    if (value == null) {
+      target.writeCharSequence("null", StandardCharsets.US_ASCII);
+    } else if (value instanceof CharSequence) {
+      writeString((CharSequence) value, target);
+    } else if (value instanceof Boolean) {
+      target.writeCharSequence(value.toString(), StandardCharsets.US_ASCII);
+    } else if (value instanceof Number) {
+      if ((value instanceof Double && !Double.isFinite((Double) value))
+          || (value instanceof Float && !Float.isFinite((Float) value))) {
+        throw new IllegalArgumentException("JSON does not support " + value);
+      }
+      target.writeCharSequence(value.toString(), StandardCharsets.US_ASCII);
+    } else if (value instanceof Map) {
+      target.writeByte('{');
+      boolean first = true;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        if (!first) {
+          target.writeByte(',');
+        }
+        first = false;
+        writeString(String.valueOf(entry.getKey()), target);
+        target.writeByte(':');
+        write(entry.getValue(), target, depth + 1);
+      }
+      target.writeByte('}');
+    } else if (value instanceof Iterable) {
+      target.writeByte('[');
+      boolean first = true;
+      for (Object element : (Iterable<?>) value) {
+        if (!first) {
+          target.writeByte(',');
+        }
+        first = false;
+        write(element, target, depth + 1);
+      }
+      target.writeByte(']');
+    } else if (value instanceof Object[]) {
+      final Object[] elements = (Object[]) value;
+      target.writeByte('[');
+      for (int i = 0; i < elements.length; i++) {
+        if (i > 0) {
+          target.writeByte(',');
+        }
+        write(elements[i], target, depth + 1);
+      }
+      target.writeByte(']');
+    } else {
+      throw new IllegalArgumentException("Unsupported JSON type: " + value.getClass().getName());
+    }
+  }
+
+  static void writeString(CharSequence value, ByteBuf target) {
+    target.writeByte('"');
+    int start = 0;
+    final int length = value.length();
+    for (int i = 0; i < length; i++) {
+      final char c = value.charAt(i);
+      if (c >= 0x20 && c != '"' && c != '\\') {
+        continue;
+      }
+      ByteBufUtil.writeUtf8(target, value, start, i);
+      start = i + 1;
+      target.writeByte('\\');
+      switch (c) {
+        case '"':
+        case '\\':
+          target.writeByte(c);
+          break;
+        case '\n':
+          target.writeByte('n');
+          break;
+        case '\r':
+          target.writeByte('r');
+          break;
+        case '\t':
+          target.writeByte('t');
+          break;
+        case '\b':
+          target.writeByte('b');
+          break;
+        case '\f':
+          target.writeByte('f');
+          break;
+        default:
+          target.writeByte('u').writeByte('0').writeByte('0');
+          target.writeByte(HEX_DIGITS[c >> 4]).writeByte(HEX_DIGITS[c & 0xF]);
+      }
+    }
+    ByteBufUtil.writeUtf8(target, value, start, length);
+    target.writeByte('"');
+  }
+
+  static final class Parser {
+
+    final ByteBuf source;
+    final int endIndex;
+    int index;
+
+    Parser(ByteBuf source) {
+      this.source = source;
+      this.index = source.readerIndex();
+      this.endIndex = source.writerIndex();
+    }
+
+    @Nullable
+    Object readValue(int depth) {
+      if (depth > MAX_DEPTH) {
+        throw new IllegalArgumentException("JSON nesting is deeper than " + MAX_DEPTH);
+      }
+      skipWhitespace();
+      switch (peek()) {
+        case '{':
+          return readObject(depth);
+        case '[':
+          return readArray(depth);
+        case '"':
+          return readString();
+        case 't':
+          readLiteral("true");
+          return Boolean.TRUE;
+        case 'f':
+          readLiteral("false");
+          return Boolean.FALSE;
+        case 'n':
+          readLiteral("null");
+          return null;
+        default:
+          return readNumber();
+      }
+    }
+
+    Map<String, Object> readObject(int depth) {
+      final Map<String, Object> object = new LinkedHashMap<>();
+      index++;
+      skipWhitespace();
+      if (peek() == '}') {
+        index++;
+        return object;
+      }
+      while (true) {
+        skipWhitespace();
+        if (peek() != '"') {
+          throw malformed();
+        }
+        final String key = readString();
+        skipWhitespace();
+        expect(':');
+        object.put(key, readValue(depth + 1));
+        skipWhitespace();
+        if (peek() == ',') {
+          index++;
+        } else {
+          expect('}');
+          return object;
+        }
+      }
+    }
+
+    List<Object> readArray(int depth) {
+      final List<Object> array = new ArrayList<>();
+      index++;
+      skipWhitespace();
+      if (peek() == ']') {
+        index++;
+        return array;
+      }
+      while (true) {
+        array.add(readValue(depth + 1));
+        skipWhitespace();
+        if (peek() == ',') {
+          index++;
+        } else {
+          expect(']');
+          return array;
+        }
+      }
+    }
+
+    String readString() {
+      index++;
+      int start = index;
+      StringBuilder builder = null;
+      while (true) {
+        final byte b = next();
+        if (b == '"') {
+          final String segment = source.toString(start, index - 1 - start, StandardCharsets.UTF_8);
+          return builder == null ? segment : builder.append(segment).toString();
+        }
+        if (b == '\\') {
+          if (builder == null) {
+            builder = new StringBuilder();
+          }
+          builder.append(source.toString(start, index - 1 - start, StandardCharsets.UTF_8));
+          builder.append(readEscape());
+          start = index;
+        } else if (b >= 0 && b < 0x20) {
+          throw malformed();
+        }
+      }
+    }
+
+    char readEscape() {
+      final byte b = next();
+      switch (b) {
+        case '"':
+        case '\\':
+        case '/':
+          return (char) b;
+        case 'n':
+          return '\n';
+        case 'r':
+          return '\r';
+        case 't':
+          return '\t';
+        case 'b':
+          return '\b';
+        case 'f':
+          return '\f';
+        case 'u':
+          int c = 0;
+          for (int i = 0; i < 4; i++) {
+            final int digit = Character.digit(next(), 16);
+            if (digit < 0) {
+              throw malformed();
+            }
+            c = (c << 4) | digit;
+          }
+          return (char) c;
+        default:
+          throw malformed();
+      }
+    }
+
+    Number readNumber() {
+      final int start = index;
+      boolean integral = true;
+      while (index < endIndex) {
+        final byte b = source.getByte(index);
+        if (b == '.' || b == 'e' || b == 'E') {
+          integral = false;
+        } else if (!(b >= '0' && b <= '9') && b != '-' && b != '+') {
+          break;
+        }
+        index++;
+      }
+      if (start == index) {
+        throw malformed();
+      }
+      final String number = source.toString(start, index - start, StandardCharsets.US_ASCII);
+      try {
+        if (integral) {
+          try {
+            return Long.parseLong(number);
+          } catch (NumberFormatException e) {
+            // does not fit into a long
+          }
+        }
+        return Double.parseDouble(number);
+      } catch (NumberFormatException e) {
+        throw malformed();
+      }
+    }
+
+    void readLiteral(String literal) {
+      for (int i = 0; i < literal.length(); i++) {
+        if (next() != literal.charAt(i)) {
+          throw malformed();
+        }
+      }
+    }
+
+    void skipWhitespace() {
+      while (index < endIndex) {
+        final byte b = source.getByte(index);
+        if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+          return;
+        }
+        index++;
+      }
+    }
+
+    void expect(char c) {
+      if (next() != c) {
+        throw malformed();
+      }
+    }
+
+    byte peek() {
+      if (index >= endIndex) {
+        throw malformed();
+      }
+      return source.getByte(index);
+    }
+
+    byte next() {
+      final byte b = peek();
+      index++;
+      return b;
+    }
+
+    IllegalArgumentException malformed() {
+      return new IllegalArgumentException(
+          "Malformed JSON at index " + (index - source.readerIndex()));
+    }
+  }
+}
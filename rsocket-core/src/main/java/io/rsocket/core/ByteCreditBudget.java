@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+/**
+ * Receiving side of byte-credit flow control for one {@link RSocketRequester}. Each stream reserves
+ * its byte window from the connection window when it starts, and gives it back once it is removed.
+ */
+final class ByteCreditBudget {
+
+  final long streamWindow;
+
+  // guarded by this
+  long available;
+
+  ByteCreditBudget(ByteFlowControl byteFlowControl) {
+    this.streamWindow = byteFlowControl.getStreamWindow();
+    this.available = byteFlowControl.getConnectionWindow();
+  }
+
+  /**
+   * Reserve the byte window of a new stream, which is the stream window if the connection window
+   * has enough bytes left, or else what is left of it but at least one byte.
+   */
+  synchronized long reserve() {
+    final long window = Math.max(1, Math.min(streamWindow, available));
+    available -= window;
+    return window;
+  }
+
+  synchronized void release(long window) {
+    available += window;
+  }
+}
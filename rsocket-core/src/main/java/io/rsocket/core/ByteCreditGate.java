@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import reactor.core.publisher.Operators;
+
+/**
+ * Sending side of byte-credit flow control for one stream. It holds back the demand received with
+ * {@code REQUEST_N} and passes it on to the publisher of the stream only as far as the byte credits
+ * granted by the receiver allow, estimating the size of upcoming payloads from the average size of
+ * the payloads sent so far. Each method returns the demand to pass on to the publisher.
+ */
+final class ByteCreditGate {
+
+  // guarded by this
+  long credits;
+  long pendingRequestN;
+  long outstanding;
+  double averagePayloadBytes;
+
+  synchronized long onRequestN(long n) {
+    pendingRequestN = Operators.addCap(pendingRequestN, n);
+    return drain();
+  }
+
+  synchronized long onCredits(long bytes) {
+    credits = Operators.addCap(credits, bytes);
+    return drain();
+  }
+
+  synchronized long onSent(long bytes) {
+    credits -= bytes;
+    if (outstanding > 0) {
+      outstanding--;
+    }
+    averagePayloadBytes =
+        averagePayloadBytes == 0 ? bytes : averagePayloadBytes * 0.875 + bytes * 0.125;
+    return drain();
+  }
+
+  long drain() {
+    if (pendingRequestN == 0 || credits <= 0) {
+      return 0;
+    }
+
+    final long affordable =
+        averagePayloadBytes > 0 ? Math.max(1, (long) (credits / averagePayloadBytes)) : 1;
+    final long n = Math.min(pendingRequestN, affordable - outstanding);
+    if (n <= 0) {
+      return 0;
+    }
+
+    if (pendingRequestN != Long.MAX_VALUE) {
+      pendingRequestN -= n;
+    }
+    outstanding += n;
+    return n;
+  }
+}
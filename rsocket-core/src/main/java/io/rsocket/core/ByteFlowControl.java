@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.rsocket.frame.ByteCreditFrameCodec;
+
+/**
+ * Simple holder of configuration settings for byte-credit flow control of the request-stream
+ * interactions of an {@link RSocketConnector}. In addition to the number of payloads granted with
+ * {@code REQUEST_N}, the requester grants its responder a number of payload bytes per stream with
+ * {@link ByteCreditFrameCodec byte-credit frames}, and replenishes them as payloads are received,
+ * so that streams of large payloads do not take more memory than streams of small ones with the
+ * same demand.
+ *
+ * <p>The bytes granted to all streams of a connection together are bounded as well. Once the
+ * connection window is used up, further streams are granted a single byte, which lets them receive
+ * one payload at a time. A responder may overrun the credits by at most one payload, since it does
+ * not know the size of a payload before it has been produced.
+ *
+ * <p>Responders of this version honour byte credits once the requester announces them when the
+ * connection is established. Responders which do not understand them ignore them.
+ *
+ * @since 1.1.1
+ */
+public class ByteFlowControl {
+
+  private long streamWindow = 1024 * 1024;
+  private long connectionWindow = 16 * 1024 * 1024;
+
+  public ByteFlowControl() {}
+
+  /**
+   * The maximum number of payload bytes in flight per stream.
+   *
+   * <p>By default this is 1 MiB.
+   *
+   * @param streamWindow the max number of bytes in flight per stream
+   * @return the same instance for method chaining
+   */
+  public ByteFlowControl streamWindow(long streamWindow) {
+    if (streamWindow <= 0) {
+      throw new IllegalArgumentException("streamWindow must be positive");
+    }
+    this.streamWindow = streamWindow;
+    return this;
+  }
+
+  /**
+   * The maximum number of payload bytes in flight for all streams of a connection together.
+   *
+   * <p>By default this is 16 MiB.
+   *
+   * @param connectionWindow the max number of bytes in flight per connection
+   * @return the same instance for method chaining
+   */
+  public ByteFlowControl connectionWindow(long connectionWindow) {
+    if (connectionWindow <= 0) {
+      throw new IllegalArgumentException("connectionWindow must be positive");
+    }
+    this.connectionWindow = connectionWindow;
+    return this;
+  }
+
+  // Package private accessors
+
+  long getStreamWindow() {
+    return streamWindow;
+  }
+
+  long getConnectionWindow() {
+    return connectionWindow;
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import io.rsocket.DuplexConnection;
+import io.rsocket.RSocketErrorException;
+import io.rsocket.exceptions.ConnectionErrorException;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.frame.FrameHeaderCodec;
+import io.rsocket.internal.BaseDuplexConnection;
+import io.rsocket.resume.ResumableDuplexConnection;
+import java.net.SocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Attributes the memory held by one connection to it, shared by the requester and the responder of
+ * the connection, and checks it against the budgets of its {@link MemoryLimits}.
+ *
+ * <p>The bytes of inbound fragments held for reassembly are attributed to their streams, and are
+ * released once the last fragment of a stream has been received or the stream is removed. The bytes
+ * of outbound frames queued for sending and kept for resumption are sampled from the connection
+ * whenever a frame is sent through {@link #sampleOnSend(DuplexConnection)} or received. All of them
+ * are released once the connection is closed.
+ */
+final class ConnectionMemoryAccountant implements ConnectionMemoryUsage {
+
+  static final RejectedException GLOBAL_LIMIT_EXCEEDED =
+      new RejectedException("Memory limit of all connections exceeded");
+
+  final MemoryLimits limits;
+  final DuplexConnection connection;
+  @Nullable final BaseDuplexConnection transportConnection;
+  @Nullable final ResumableDuplexConnection resumableConnection;
+
+  // guarded by this
+  final IntObjectMap<StreamUsage> streams = new IntObjectHashMap<>();
+  boolean released;
+
+  volatile long reassemblyBytes;
+  volatile long queuedBytes;
+  volatile long resumeBytes;
+
+  /**
+   * @param limits the budgets to apply
+   * @param connection the connection before the requester and the responder are multiplexed on it,
+   *     whose outbound frames are only accounted if it is a {@link ResumableDuplexConnection} or a
+   *     {@link BaseDuplexConnection} which has not been wrapped by an interceptor
+   */
+  ConnectionMemoryAccountant(MemoryLimits limits, DuplexConnection connection) {
+    this.limits = limits;
+    this.connection = connection;
+    this.transportConnection =
+        connection instanceof BaseDuplexConnection ? (BaseDuplexConnection) connection : null;
+    this.resumableConnection =
+        connection instanceof ResumableDuplexConnection
+            ? (ResumableDuplexConnection) connection
+            : null;
+    limits.connections.add(this);
+  }
+
+  /**
+   * Account for an inbound frame once it has been handled.
+   *
+   * @param streamId the id of the stream of the frame
+   * @param frame the frame
+   * @param support the requester or responder which handled the frame
+   * @return {@code false} if the connection is past its budget
+   */
+  boolean onInboundFrame(int streamId, ByteBuf frame, RequesterResponderSupport support) {
+    if (FrameHeaderCodec.hasFollows(frame)) {
+      // the fragment is held for reassembly as long as the stream is active
+      if (support.get(streamId) != null) {
+        reserve(streamId, frame.readableBytes());
+      }
+    } else if (reassemblyBytes != 0) {
+      release(streamId);
+    }
+    sampleOutboundFrames();
+    return getConnectionBytes() <= limits.getMaxConnectionBytes();
+  }
+
+  synchronized boolean reserve(int streamId, long bytes) {
+    StreamUsage usage = streams.get(streamId);
+    if (usage == null) {
+      usage = new StreamUsage();
+      streams.put(streamId, usage);
+    }
+    usage.bytes += bytes;
+
+    reassemblyBytes += bytes;
+    limits.usedBytes.addAndGet(bytes);
+
+    return getConnectionBytes() <= limits.getMaxConnectionBytes();
+  }
+
+  synchronized void release(int streamId) {
+    final StreamUsage usage = streams.remove(streamId);
+    if (usage != null) {
+      reassemblyBytes -= usage.bytes;
+      limits.usedBytes.addAndGet(-usage.bytes);
+    }
+  }
+
+  /**
+   * Decorate the connection the requester and the responder send their frames through, so that the
+   * bytes of outbound frames are sampled after each frame is sent.
+   */
+  DuplexConnection sampleOnSend(DuplexConnection source) {
+    return new SamplingDuplexConnection(source, this);
+  }
+
+  /** Bring the bytes of the outbound frames of the connection up to date. */
+  void sampleOutboundFrames() {
+    final long queuedBytes;
+    final long resumeBytes;
+    final ResumableDuplexConnection resumableConnection = this.resumableConnection;
+    if (resumableConnection != null) {
+      queuedBytes = resumableConnection.getQueuedBytes();
+      resumeBytes = resumableConnection.getCachedBytes();
+    } else if (transportConnection != null) {
+      queuedBytes = transportConnection.getQueuedBytes();
+      resumeBytes = 0;
+    } else {
+      return;
+    }
+    if (queuedBytes == this.queuedBytes && resumeBytes == this.resumeBytes) {
+      return;
+    }
+
+    synchronized (this) {
+      final long delta = queuedBytes + resumeBytes - this.queuedBytes - this.resumeBytes;
+      // frames may still be sent while the connection is closing
+      if (delta != 0 && !released) {
+        this.queuedBytes = queuedBytes;
+        this.resumeBytes = resumeBytes;
+        limits.usedBytes.addAndGet(delta);
+      }
+    }
+  }
+
+  synchronized void releaseAll() {
+    final long connectionBytes = getConnectionBytes();
+    if (connectionBytes != 0) {
+      reassemblyBytes = 0;
+      queuedBytes = 0;
+      resumeBytes = 0;
+      limits.usedBytes.addAndGet(-connectionBytes);
+    }
+    streams.clear();
+    released = true;
+    limits.connections.remove(this);
+  }
+
+  /** Whether all connections sharing the {@link MemoryLimits} are over the global budget. */
+  boolean isGlobalLimitExceeded() {
+    return limits.getUsedBytes() > limits.getMaxGlobalBytes();
+  }
+
+  @Override
+  public synchronized long getStreamBytes(int streamId) {
+    final StreamUsage usage = streams.get(streamId);
+    return usage == null ? 0 : usage.bytes;
+  }
+
+  @Override
+  public synchronized Map<Integer, Long> getStreamBytes() {
+    final Map<Integer, Long> streamBytes = new HashMap<>(streams.size() * 2);
+    for (IntObjectMap.PrimitiveEntry<StreamUsage> entry : streams.entries()) {
+      streamBytes.put(entry.key(), entry.value().bytes);
+    }
+    return streamBytes;
+  }
+
+  long getConnectionBytes() {
+    return reassemblyBytes + queuedBytes + resumeBytes;
+  }
+
+  @Override
+  public SocketAddress remoteAddress() {
+    return connection.remoteAddress();
+  }
+
+  @Override
+  public long getReassemblyBytes() {
+    return reassemblyBytes;
+  }
+
+  @Override
+  public long getQueuedBytes() {
+    return queuedBytes;
+  }
+
+  @Override
+  public long getResumeBytes() {
+    return resumeBytes;
+  }
+
+  @Override
+  public long getUsedBytes() {
+    return getConnectionBytes();
+  }
+
+  ConnectionErrorException connectionLimitExceeded() {
+    limits.closedConnections.increment();
+    return new ConnectionErrorException(
+        "Memory limit of "
+            + limits.getMaxConnectionBytes()
+            + " bytes per connection exceeded with "
+            + getConnectionBytes()
+            + " bytes");
+  }
+
+  static final class StreamUsage {
+    long bytes;
+  }
+
+  static final class SamplingDuplexConnection implements DuplexConnection {
+
+    final DuplexConnection source;
+    final ConnectionMemoryAccountant accountant;
+
+    SamplingDuplexConnection(DuplexConnection source, ConnectionMemoryAccountant accountant) {
+      this.source = source;
+      this.accountant = accountant;
+    }
+
+    @Override
+    public void sendFrame(int streamId, ByteBuf frame) {
+      source.sendFrame(streamId, frame);
+      accountant.sampleOutboundFrames();
+    }
+
+    @Override
+    public void sendErrorAndClose(RSocketErrorException e) {
+      source.sendErrorAndClose(e);
+    }
+
+    @Override
+    public Flux<ByteBuf> receive() {
+      return source.receive();
+    }
+
+    @Override
+    public ByteBufAllocator alloc() {
+      return source.alloc();
+    }
+
+    @Override
+    public SocketAddress remoteAddress() {
+      return source.remoteAddress();
+    }
+
+    @Override
+    public Mono<Void> onClose() {
+      return source.onClose();
+    }
+
+    @Override
+    public void dispose() {
+      source.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return source.isDisposed();
+    }
+  }
+}
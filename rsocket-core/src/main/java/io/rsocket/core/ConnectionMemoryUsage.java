@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import java.net.SocketAddress;
+import java.util.Map;
+
+/**
+ * The memory held by one connection of an {@link RSocketServer} or {@link RSocketConnector}
+ * configured with {@link MemoryLimits}, as listed by {@link MemoryLimits#getConnections()}.
+ *
+ * <p>The bytes of outbound frames are sampled whenever the connection sends or receives a frame,
+ * and are only known for a resumable connection, or for a transport connection based on {@link
+ * io.rsocket.internal.BaseDuplexConnection} which has not been wrapped by a {@link
+ * io.rsocket.plugins.DuplexConnectionInterceptor}. They are {@code 0} otherwise.
+ *
+ * @since 1.1.1
+ */
+public interface ConnectionMemoryUsage {
+
+  /** Return the address of the remote peer of the connection. */
+  SocketAddress remoteAddress();
+
+  /** Return the number of bytes of inbound fragments held until their payload is reassembled. */
+  long getReassemblyBytes();
+
+  /**
+   * Return the number of bytes of inbound fragments held for the given stream, or {@code 0} if it
+   * holds none.
+   */
+  long getStreamBytes(int streamId);
+
+  /**
+   * Return a snapshot of the number of bytes of inbound fragments held by each stream which holds
+   * any, by stream id.
+   */
+  Map<Integer, Long> getStreamBytes();
+
+  /** Return the number of bytes of outbound frames queued for sending, as last sampled. */
+  long getQueuedBytes();
+
+  /** Return the number of bytes of outbound frames kept for resumption, as last sampled. */
+  long getResumeBytes();
+
+  /** Return the number of bytes held by the connection in total. */
+  long getUsedBytes();
+}
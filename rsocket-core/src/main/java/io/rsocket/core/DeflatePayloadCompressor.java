@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link PayloadCompressor} based on {@link Deflater} and {@link Inflater}, which are reused per
+ * thread. Direct buffers are streamed through fixed size chunks, so that compressing a large
+ * payload does not copy it to the heap as a whole.
+ */
+final class DeflatePayloadCompressor implements PayloadCompressor {
+
+  static final int CHUNK_SIZE = 8192;
+
+  static final FastThreadLocal<State> STATE =
+      new FastThreadLocal<State>() {
+        @Override
+        protected State initialValue() {
+          return new State();
+        }
+
+        @Override
+        protected void onRemoval(State state) {
+          state.deflater.end();
+          state.inflater.end();
+        }
+      };
+
+  @Override
+  public String name() {
+    return "deflate";
+  }
+
+  @Override
+  public void compress(ByteBuf source, ByteBuf target) {
+    final State state = STATE.get();
+    final Deflater deflater = state.deflater;
+    final byte[] input = state.input;
+    final byte[] output = state.output;
+    deflater.reset();
+
+    int index = source.readerIndex();
+    final int endIndex = source.writerIndex();
+    while (index < endIndex) {
+      final int length;
+      if (source.hasArray()) {
+        length = endIndex - index;
+        deflater.setInput(source.array(), source.arrayOffset() + index, length);
+      } else {
+        length = Math.min(input.length, endIndex - index);
+        source.getBytes(index, input, 0, length);
+        deflater.setInput(input, 0, length);
+      }
+      index += length;
+      while (!deflater.needsInput()) {
+        target.writeBytes(output, 0, deflater.deflate(output));
+      }
+    }
+
+    deflater.finish();
+    while (!deflater.finished()) {
+      target.writeBytes(output, 0, deflater.deflate(output));
+    }
+  }
+
+  @Override
+  public void decompress(ByteBuf source, ByteBuf target, int length) {
+    final State state = STATE.get();
+    final Inflater inflater = state.inflater;
+    final byte[] input = state.input;
+    final byte[] output = state.output;
+    inflater.reset();
+
+    int index = source.readerIndex();
+    final int endIndex = source.writerIndex();
+    int remaining = length;
+    try {
+      while (!inflater.finished()) {
+        if (inflater.needsInput()) {
+          if (index == endIndex) {
+            throw new IllegalStateException("compressed payload is truncated");
+          }
+          final int inputLength = Math.min(input.length, endIndex - index);
+          source.getBytes(index, input, 0, inputLength);
+          inflater.setInput(input, 0, inputLength);
+          index += inputLength;
+        }
+        // ask for one more byte than expected to detect payloads longer than announced
+        final int inflated = inflater.inflate(output, 0, Math.min(output.length, remaining + 1));
+        if (inflated > remaining || inflater.needsDictionary()) {
+          throw new IllegalStateException("compressed payload is malformed");
+        }
+        target.writeBytes(output, 0, inflated);
+        remaining -= inflated;
+      }
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("compressed payload is malformed", e);
+    }
+
+    if (remaining != 0) {
+      throw new IllegalStateException("compressed payload is shorter than announced");
+    }
+  }
+
+  static final class State {
+    final Deflater deflater = new Deflater();
+    final Inflater inflater = new Inflater();
+    final byte[] input = new byte[CHUNK_SIZE];
+    final byte[] output = new byte[CHUNK_SIZE];
+  }
+}
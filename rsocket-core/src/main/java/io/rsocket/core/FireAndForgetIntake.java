@@ -0,0 +1,166 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Simple holder of configuration settings for a bounded intake of fire-and-forget requests in an
+ * {@link RSocketServer}. Each connection queues the requests it receives and hands them to the
+ * responder {@link RSocket} with a bounded concurrency, so that a spike of fire-and-forget traffic
+ * does not pile up unbounded work on the server. Once the queue is full, requests are dropped
+ * according to the {@link DropPolicy}.
+ *
+ * <p>The counters of an instance add up the requests of all connections it is configured for.
+ *
+ * @since 1.1.1
+ */
+public class FireAndForgetIntake {
+
+  /** Which request to drop when a fire-and-forget request arrives at a full queue. */
+  public enum DropPolicy {
+    /** Drop the request that has just arrived. */
+    DROP_NEWEST,
+    /** Drop the request that has waited the longest, and queue the one that has just arrived. */
+    DROP_OLDEST
+  }
+
+  private int capacity = 256;
+  private int concurrency = 1;
+  private DropPolicy dropPolicy = DropPolicy.DROP_NEWEST;
+  private int maxBatchSize = 1;
+  @Nullable private Function<? super Flux<Payload>, ? extends Mono<Void>> batchHandler;
+
+  private final LongAdder received = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  public FireAndForgetIntake() {}
+
+  /**
+   * The maximum number of requests waiting to be handled on a connection.
+   *
+   * <p>By default this is 256.
+   *
+   * @param capacity the max number of waiting requests
+   * @return the same instance for method chaining
+   */
+  public FireAndForgetIntake capacity(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.capacity = capacity;
+    return this;
+  }
+
+  /**
+   * The maximum number of requests, or batches of requests, handled concurrently on a connection,
+   * i.e. how many of the {@code Mono<Void>} returned by the handler may be pending at once.
+   *
+   * <p>By default requests are handled one at a time.
+   *
+   * @param concurrency the max number of requests handled concurrently
+   * @return the same instance for method chaining
+   */
+  public FireAndForgetIntake concurrency(int concurrency) {
+    if (concurrency <= 0) {
+      throw new IllegalArgumentException("concurrency must be positive");
+    }
+    this.concurrency = concurrency;
+    return this;
+  }
+
+  /**
+   * Which request to drop when the queue is full.
+   *
+   * <p>By default this is {@link DropPolicy#DROP_NEWEST}.
+   *
+   * @param dropPolicy the policy to apply
+   * @return the same instance for method chaining
+   */
+  public FireAndForgetIntake dropPolicy(DropPolicy dropPolicy) {
+    this.dropPolicy = Objects.requireNonNull(dropPolicy);
+    return this;
+  }
+
+  /**
+   * Hand consecutive waiting requests, up to the given number, as one {@link Flux} to the given
+   * handler rather than one by one to {@link RSocket#fireAndForget(Payload)}. The handler is
+   * shared by all connections and is responsible for releasing the payloads.
+   *
+   * <p>By default requests are not batched.
+   *
+   * @param maxBatchSize the max number of requests in a batch
+   * @param batchHandler the handler of the batches
+   * @return the same instance for method chaining
+   */
+  public FireAndForgetIntake batching(
+      int maxBatchSize, Function<? super Flux<Payload>, ? extends Mono<Void>> batchHandler) {
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("maxBatchSize must be positive");
+    }
+    this.maxBatchSize = maxBatchSize;
+    this.batchHandler = Objects.requireNonNull(batchHandler);
+    return this;
+  }
+
+  /** Return the number of fire-and-forget requests received so far. */
+  public long getReceivedCount() {
+    return received.sum();
+  }
+
+  /** Return the number of fire-and-forget requests dropped so far. */
+  public long getDroppedCount() {
+    return dropped.sum();
+  }
+
+  // Package private accessors
+
+  int getCapacity() {
+    return capacity;
+  }
+
+  int getConcurrency() {
+    return concurrency;
+  }
+
+  DropPolicy getDropPolicy() {
+    return dropPolicy;
+  }
+
+  int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  @Nullable
+  Function<? super Flux<Payload>, ? extends Mono<Void>> getBatchHandler() {
+    return batchHandler;
+  }
+
+  void onReceived() {
+    received.increment();
+  }
+
+  void onDropped() {
+    dropped.increment();
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.netty.util.ReferenceCountUtil;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.exceptions.RejectedException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Queues the fire-and-forget requests of one {@link RSocketResponder} according to a {@link
+ * FireAndForgetIntake}. The {@code Mono<Void>} returned for a request completes, or fails, once
+ * the request has been handled, or fails with a {@link RejectedException} if it has been dropped.
+ */
+final class FireAndForgetQueue {
+
+  static final RejectedException DROPPED =
+      new RejectedException("Fire-and-forget request dropped by the intake");
+
+  final FireAndForgetIntake intake;
+  final RSocket handler;
+  final int capacity;
+  final int concurrency;
+  final int maxBatchSize;
+  final boolean dropOldest;
+  @Nullable final Function<? super Flux<Payload>, ? extends Mono<Void>> batchHandler;
+
+  // guarded by this
+  final ArrayDeque<Entry> queue = new ArrayDeque<>();
+  int active;
+  boolean draining;
+  boolean disposed;
+
+  FireAndForgetQueue(FireAndForgetIntake intake, RSocket handler) {
+    this.intake = intake;
+    this.handler = handler;
+    this.capacity = intake.getCapacity();
+    this.concurrency = intake.getConcurrency();
+    this.maxBatchSize = intake.getMaxBatchSize();
+    this.dropOldest = intake.getDropPolicy() == FireAndForgetIntake.DropPolicy.DROP_OLDEST;
+    this.batchHandler = intake.getBatchHandler();
+  }
+
+  Mono<Void> enqueue(Payload payload) {
+    return new Entry(payload);
+  }
+
+  void offer(Entry entry) {
+    intake.onReceived();
+
+    final Entry dropped;
+    synchronized (this) {
+      if (disposed) {
+        dropped = entry;
+      } else if (queue.size() < capacity) {
+        queue.offer(entry);
+        dropped = null;
+      } else if (dropOldest) {
+        dropped = queue.poll();
+        queue.offer(entry);
+      } else {
+        dropped = entry;
+      }
+    }
+
+    if (dropped != null) {
+      intake.onDropped();
+      dropped.terminate(DROPPED);
+    }
+
+    drain();
+  }
+
+  void drain() {
+    synchronized (this) {
+      if (draining) {
+        // the draining thread re-checks the queue under the lock before it leaves
+        return;
+      }
+      draining = true;
+    }
+
+    for (; ; ) {
+      final Entry next;
+      final List<Entry> batch;
+      synchronized (this) {
+        if (active >= concurrency || queue.isEmpty()) {
+          draining = false;
+          return;
+        }
+        active++;
+        if (batchHandler == null) {
+          next = queue.poll();
+          batch = null;
+        } else {
+          next = null;
+          batch = new ArrayList<>(Math.min(maxBatchSize, queue.size()));
+          while (batch.size() < maxBatchSize && !queue.isEmpty()) {
+            batch.add(queue.poll());
+          }
+        }
+      }
+
+      if (batch == null) {
+        handle(next);
+      } else {
+        handle(batch);
+      }
+    }
+  }
+
+  void handle(Entry entry) {
+    Mono<Void> source;
+    try {
+      source = handler.fireAndForget(entry.payload);
+    } catch (Throwable t) {
+      source = Mono.error(t);
+    }
+    source.subscribe(new Completion(entry, null));
+  }
+
+  void handle(List<Entry> batch) {
+    final List<Payload> payloads = new ArrayList<>(batch.size());
+    for (Entry entry : batch) {
+      payloads.add(entry.payload);
+    }
+
+    Mono<Void> source;
+    try {
+      source = batchHandler.apply(Flux.fromIterable(payloads));
+    } catch (Throwable t) {
+      source = Mono.error(t);
+    }
+    source.subscribe(new Completion(null, batch));
+  }
+
+  void release() {
+    synchronized (this) {
+      active--;
+    }
+    drain();
+  }
+
+  void dispose() {
+    final List<Entry> discarded;
+    synchronized (this) {
+      if (disposed) {
+        return;
+      }
+      disposed = true;
+      discarded = new ArrayList<>(queue);
+      queue.clear();
+    }
+
+    for (Entry entry : discarded) {
+      entry.terminate(new CancellationException("Disposed"));
+    }
+  }
+
+  final class Entry extends Mono<Void> implements Subscription {
+
+    final Payload payload;
+
+    CoreSubscriber<? super Void> actual;
+
+    Entry(Payload payload) {
+      this.payload = payload;
+    }
+
+    @Override
+    public void subscribe(CoreSubscriber<? super Void> actual) {
+      this.actual = actual;
+      actual.onSubscribe(this);
+      offer(this);
+    }
+
+    /** Terminate a request that has not been handed to the handler, releasing its payload. */
+    void terminate(Throwable t) {
+      ReferenceCountUtil.safeRelease(payload);
+      actual.onError(t);
+    }
+
+    @Override
+    public void request(long n) {}
+
+    @Override
+    public void cancel() {}
+  }
+
+  final class Completion implements CoreSubscriber<Void> {
+
+    @Nullable final Entry entry;
+    @Nullable final List<Entry> batch;
+
+    Completion(@Nullable Entry entry, @Nullable List<Entry> batch) {
+      this.entry = entry;
+      this.batch = batch;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      s.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(Void voidVal) {}
+
+    @Override
+    public void onError(Throwable t) {
+      release();
+      if (entry != null) {
+        entry.actual.onError(t);
+      } else {
+        for (Entry batched : batch) {
+          batched.actual.onError(t);
+        }
+      }
+    }
+
+    @Override
+    public void onComplete() {
+      release();
+      if (entry != null) {
+        entry.actual.onComplete();
+      } else {
+        for (Entry batched : batch) {
+          batched.actual.onComplete();
+        }
+      }
+    }
+  }
+}
@@ -28,4 +28,7 @@ interface FrameHandler {
   void handleCancel();
 
   void handleRequestN(long n);
+
+  /** Handle the payload bytes granted to the stream by a byte-credit frame. */
+  default void handleByteCredit(long credits) {}
 }
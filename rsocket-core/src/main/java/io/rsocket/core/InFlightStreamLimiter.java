@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.rsocket.exceptions.RejectedException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the number of streams that {@link RSocketResponder}s handle concurrently, both for each
+ * connection and for all connections of a server together. The per connection count is kept by
+ * the responder itself, under the same lock as its active streams, while the server count is shared
+ * by all responders of a server.
+ */
+final class InFlightStreamLimiter {
+
+  static final RejectedException CONNECTION_LIMIT_EXCEEDED =
+      new RejectedException("Too many concurrent streams on this connection");
+  static final RejectedException SERVER_LIMIT_EXCEEDED =
+      new RejectedException("Too many concurrent streams on this server");
+
+  final int maxPerConnection;
+  final int maxPerServer;
+  final AtomicInteger inFlight = new AtomicInteger();
+
+  InFlightStreamLimiter(int maxPerConnection, int maxPerServer) {
+    this.maxPerConnection = maxPerConnection;
+    this.maxPerServer = maxPerServer;
+  }
+
+  boolean tryAcquire() {
+    final AtomicInteger inFlight = this.inFlight;
+    for (; ; ) {
+      final int current = inFlight.get();
+      if (current >= maxPerServer) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  boolean isExceeded() {
+    return inFlight.get() >= maxPerServer;
+  }
+
+  void release(int permits) {
+    inFlight.addAndGet(-permits);
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simple holder of configuration settings for the accounting of the direct memory that a connection
+ * holds on to, both per connection and for all connections that share the same instance together.
+ * This covers the inbound fragments held while a payload is reassembled, as well as the outbound
+ * frames queued for sending and those kept for resumption, as described by {@link
+ * ConnectionMemoryUsage}.
+ *
+ * <p>A connection which takes itself past its own budget, whether by sending fragments or by not
+ * reading what is sent to it, is closed with a connection {@code ERROR} frame, since it is the one
+ * at fault. While all connections together are over the global budget, the responders reject new
+ * requests with a {@link io.rsocket.exceptions.RejectedException} instead, so that they do not take
+ * on more work until memory has been released.
+ *
+ * <p>The instance also exposes the memory in use, both in total and per connection, and the number
+ * of closed connections, which can be registered as gauges with a metrics library. Share a single
+ * instance between an {@link RSocketServer} and any {@link RSocketConnector} to apply the global
+ * budget to all of them.
+ *
+ * @since 1.1.1
+ */
+public class MemoryLimits {
+
+  private long maxConnectionBytes = Long.MAX_VALUE;
+  private long maxGlobalBytes = Long.MAX_VALUE;
+
+  final AtomicLong usedBytes = new AtomicLong();
+  final LongAdder closedConnections = new LongAdder();
+  final Set<ConnectionMemoryAccountant> connections = ConcurrentHashMap.newKeySet();
+
+  public MemoryLimits() {}
+
+  /**
+   * The maximum number of bytes that a connection may hold on to.
+   *
+   * <p>By default this is not limited.
+   *
+   * @param maxConnectionBytes the max number of bytes per connection
+   * @return the same instance for method chaining
+   */
+  public MemoryLimits maxConnectionBytes(long maxConnectionBytes) {
+    if (maxConnectionBytes <= 0) {
+      throw new IllegalArgumentException("maxConnectionBytes must be positive");
+    }
+    this.maxConnectionBytes = maxConnectionBytes;
+    return this;
+  }
+
+  /**
+   * The maximum number of bytes that all connections sharing this instance may hold on to together.
+   *
+   * <p>By default this is not limited.
+   *
+   * @param maxGlobalBytes the max number of bytes for all connections
+   * @return the same instance for method chaining
+   */
+  public MemoryLimits maxGlobalBytes(long maxGlobalBytes) {
+    if (maxGlobalBytes <= 0) {
+      throw new IllegalArgumentException("maxGlobalBytes must be positive");
+    }
+    this.maxGlobalBytes = maxGlobalBytes;
+    return this;
+  }
+
+  /** Return the number of bytes currently held by all connections sharing this instance. */
+  public long getUsedBytes() {
+    return usedBytes.get();
+  }
+
+  /** Return the memory held by each of the open connections sharing this instance. */
+  public Collection<ConnectionMemoryUsage> getConnections() {
+    return Collections.unmodifiableCollection(connections);
+  }
+
+  /** Return the number of connections closed so far for exceeding a budget. */
+  public long getClosedConnectionCount() {
+    return closedConnections.sum();
+  }
+
+  // Package private accessors
+
+  long getMaxConnectionBytes() {
+    return maxConnectionBytes;
+  }
+
+  long getMaxGlobalBytes() {
+    return maxGlobalBytes;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.rsocket.frame.MetadataDictionaryFrameCodec;
+
+/**
+ * Simple holder of configuration settings for the compression of composite metadata with a
+ * connection-scoped dictionary, similar to the dynamic table of HPACK. Once negotiated with {@link
+ * MetadataDictionaryFrameCodec metadata dictionary frames}, each entry of the composite metadata
+ * of a request frame sent by the client is either a reference to an entry sent before, or a
+ * literal entry which both sides add to their dictionary. Repeated routes, mime types and auth
+ * entries thus take a single byte per request.
+ *
+ * <p>Compression only applies when the metadata mime type of the connection is composite
+ * metadata, to the request frames that the client sends to the server which are not fragmented.
+ * The server decodes them into composite metadata made of its dictionary buffers and slices of the
+ * frame, without copying them.
+ *
+ * <p>The client offers its dictionary size when it connects, and a server enabling the feature
+ * accepts offers within its own limits. Servers which do not support the feature ignore the offer,
+ * in which case the metadata is sent as is.
+ *
+ * @since 1.1.1
+ */
+public class MetadataDictionary {
+
+  static final int MAX_ENTRIES = 127;
+
+  private int maxEntries = 64;
+  private int maxEntryBytes = 256;
+
+  public MetadataDictionary() {}
+
+  /**
+   * The maximum number of entries of the dictionary. Once it is full, each new entry replaces the
+   * oldest one.
+   *
+   * <p>By default this is 64.
+   *
+   * @param maxEntries the max number of entries, at most 127
+   * @return the same instance for method chaining
+   */
+  public MetadataDictionary maxEntries(int maxEntries) {
+    if (maxEntries <= 0 || maxEntries > MAX_ENTRIES) {
+      throw new IllegalArgumentException("maxEntries must be between 1 and " + MAX_ENTRIES);
+    }
+    this.maxEntries = maxEntries;
+    return this;
+  }
+
+  /**
+   * The maximum size in bytes of a metadata entry, including its mime type, to add to the
+   * dictionary. Larger entries are always sent as is.
+   *
+   * <p>By default this is 256.
+   *
+   * @param maxEntryBytes the max size of an entry of the dictionary
+   * @return the same instance for method chaining
+   */
+  public MetadataDictionary maxEntryBytes(int maxEntryBytes) {
+    if (maxEntryBytes <= 0) {
+      throw new IllegalArgumentException("maxEntryBytes must be positive");
+    }
+    this.maxEntryBytes = maxEntryBytes;
+    return this;
+  }
+
+  // Package private accessors
+
+  int getMaxEntries() {
+    return maxEntries;
+  }
+
+  int getMaxEntryBytes() {
+    return maxEntryBytes;
+  }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.frame.FrameHeaderCodec;
+import io.rsocket.frame.FrameType;
+import io.rsocket.metadata.CompositeMetadataReader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes and decodes the composite metadata of request frames with a connection-scoped {@link
+ * MetadataDictionary}. Each entry of the composite metadata is prefixed by one byte which is
+ * either:
+ *
+ * <ul>
+ *   <li>{@code 0x80 | index}: the entry is the dictionary entry with the given index, and nothing
+ *       follows
+ *   <li>{@link #LITERAL_INDEXED}: the entry follows as is, and is added to the dictionary
+ *   <li>{@link #LITERAL}: the entry follows as is, and is not added to the dictionary
+ * </ul>
+ *
+ * Both sides add entries to the slots of their dictionary in turn, replacing the oldest entry once
+ * it is full, so that they agree on the index of each entry as long as frames are decoded in the
+ * order they have been encoded.
+ */
+final class MetadataDictionaryCodec {
+
+  static final int INDEXED = 0x80;
+  static final int LITERAL_INDEXED = 0x7F;
+  static final int LITERAL = 0x7E;
+
+  private MetadataDictionaryCodec() {}
+
+  /** Whether the metadata of the given frame is subject to dictionary compression. */
+  static boolean isCompressible(ByteBuf frame) {
+    final int flags = FrameHeaderCodec.flags(frame);
+    if ((flags & FrameHeaderCodec.FLAGS_M) == 0 || (flags & FrameHeaderCodec.FLAGS_F) != 0) {
+      return false;
+    }
+    switch (FrameHeaderCodec.frameType(frame)) {
+      case REQUEST_FNF:
+      case REQUEST_RESPONSE:
+      case REQUEST_STREAM:
+      case REQUEST_CHANNEL:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /** Return the length of the fields preceding the metadata length of a request frame. */
+  static int metadataLengthOffset(ByteBuf frame) {
+    final FrameType frameType = FrameHeaderCodec.frameType(frame);
+    return frameType == FrameType.REQUEST_STREAM || frameType == FrameType.REQUEST_CHANNEL
+        ? FrameHeaderCodec.size() + Integer.BYTES
+        : FrameHeaderCodec.size();
+  }
+
+  /** Return the length of the composite metadata entry starting at the given index. */
+  static int entryLength(ByteBuf metadata, int index, int endIndex) {
+    if (index >= endIndex) {
+      throw malformed();
+    }
+    final byte mimeIdOrLength = metadata.getByte(index);
+    final int headerLength =
+        (mimeIdOrLength & 0x80) != 0 ? 1 : Byte.toUnsignedInt(mimeIdOrLength) + 2;
+    if (endIndex - index < headerLength + 3) {
+      throw malformed();
+    }
+    final int length = headerLength + 3 + metadata.getUnsignedMedium(index + headerLength);
+    if (endIndex - index < length) {
+      throw malformed();
+    }
+    return length;
+  }
+
+  static IllegalStateException malformed() {
+    return new IllegalStateException("dictionary metadata is malformed");
+  }
+
+  /** Sending side, which must encode frames in the order they are sent. */
+  static final class Encoder {
+
+    final int maxEntryBytes;
+    final ByteBuf[] entries;
+    final Map<ByteBuf, Integer> indices = new HashMap<>();
+    final CompositeMetadataReader reader = new CompositeMetadataReader();
+    int nextSlot;
+
+    Encoder(int maxEntries, int maxEntryBytes) {
+      this.maxEntryBytes = maxEntryBytes;
+      this.entries = new ByteBuf[maxEntries];
+    }
+
+    /**
+     * Encode the given request frame into a new frame made of slices of the given frame and of the
+     * encoded metadata, releasing the given frame.
+     */
+    ByteBuf encodeFrame(ByteBufAllocator allocator, ByteBuf frame) {
+      try {
+        final int startIndex = frame.readerIndex();
+        final int lengthOffset = metadataLengthOffset(frame);
+        final int metadataIndex = startIndex + lengthOffset + 3;
+        final int metadataLength = frame.getUnsignedMedium(startIndex + lengthOffset);
+        final int dataIndex = metadataIndex + metadataLength;
+        final int dataLength = frame.writerIndex() - dataIndex;
+
+        final ByteBuf metadata = allocator.buffer(3 + metadataLength);
+        try {
+          metadata.writeMedium(0);
+          encode(frame.slice(metadataIndex, metadataLength), metadata);
+          metadata.setMedium(0, metadata.readableBytes() - 3);
+        } catch (Throwable t) {
+          metadata.release();
+          throw t;
+        }
+
+        final CompositeByteBuf encoded =
+            allocator
+                .compositeBuffer(3)
+                .addComponent(true, frame.retainedSlice(startIndex, lengthOffset))
+                .addComponent(true, metadata);
+        if (dataLength > 0) {
+          encoded.addComponent(true, frame.retainedSlice(dataIndex, dataLength));
+        }
+        return encoded;
+      } finally {
+        frame.release();
+      }
+    }
+
+    void encode(ByteBuf metadata, ByteBuf target) {
+      final CompositeMetadataReader reader = this.reader.reset(metadata);
+      int entryIndex = metadata.readerIndex();
+      while (reader.next()) {
+        final int nextEntryIndex = reader.contentIndex() + reader.contentLength();
+        final int entryLength = nextEntryIndex - entryIndex;
+        final ByteBuf entry = metadata.slice(entryIndex, entryLength);
+
+        final Integer index = indices.get(entry);
+        if (index != null) {
+          target.writeByte(INDEXED | index);
+        } else if (entryLength <= maxEntryBytes) {
+          target.writeByte(LITERAL_INDEXED).writeBytes(entry, entry.readerIndex(), entryLength);
+          add(entry);
+        } else {
+          target.writeByte(LITERAL).writeBytes(entry, entry.readerIndex(), entryLength);
+        }
+        entryIndex = nextEntryIndex;
+      }
+    }
+
+    void add(ByteBuf entry) {
+      final int slot = nextSlot;
+      nextSlot = slot + 1 == entries.length ? 0 : slot + 1;
+
+      final ByteBuf evicted = entries[slot];
+      if (evicted != null) {
+        indices.remove(evicted);
+      }
+      final ByteBuf copy = Unpooled.copiedBuffer(entry);
+      entries[slot] = copy;
+      indices.put(copy, slot);
+    }
+  }
+
+  /** Receiving side, which must decode frames in the order they are received. */
+  static final class Decoder {
+
+    final int maxEntryBytes;
+    final ByteBuf[] entries;
+    int nextSlot;
+
+    Decoder(int maxEntries, int maxEntryBytes) {
+      this.maxEntryBytes = maxEntryBytes;
+      this.entries = new ByteBuf[maxEntries];
+    }
+
+    /**
+     * Decode the given request frame into a frame made of slices of the given frame and of the
+     * dictionary entries. The given frame is not released.
+     */
+    ByteBuf decodeFrame(ByteBufAllocator allocator, ByteBuf frame) {
+      final int startIndex = frame.readerIndex();
+      final int lengthOffset = metadataLengthOffset(frame);
+      final int metadataIndex = startIndex + lengthOffset + 3;
+      final int metadataLength = frame.getUnsignedMedium(startIndex + lengthOffset);
+      final int dataIndex = metadataIndex + metadataLength;
+      final int dataLength = frame.writerIndex() - dataIndex;
+
+      final CompositeByteBuf decoded = allocator.compositeBuffer();
+      try {
+        decode(frame, metadataIndex, dataIndex, decoded);
+        final ByteBuf header =
+            allocator
+                .buffer(lengthOffset + 3)
+                .writeBytes(frame, startIndex, lengthOffset)
+                .writeMedium(decoded.readableBytes());
+        decoded.addComponent(true, 0, header);
+        if (dataLength > 0) {
+          decoded.addComponent(true, frame.retainedSlice(dataIndex, dataLength));
+        }
+        return decoded;
+      } catch (Throwable t) {
+        decoded.release();
+        throw t;
+      }
+    }
+
+    void decode(ByteBuf source, int index, int endIndex, CompositeByteBuf target) {
+      while (index < endIndex) {
+        final int marker = source.getUnsignedByte(index++);
+        if ((marker & INDEXED) != 0) {
+          final int slot = marker & ~INDEXED;
+          final ByteBuf entry = slot < entries.length ? entries[slot] : null;
+          if (entry == null) {
+            throw malformed();
+          }
+          target.addComponent(true, entry.retainedDuplicate());
+        } else if (marker == LITERAL_INDEXED || marker == LITERAL) {
+          final int entryLength = entryLength(source, index, endIndex);
+          if (marker == LITERAL_INDEXED) {
+            if (entryLength > maxEntryBytes) {
+              throw malformed();
+            }
+            add(source.slice(index, entryLength));
+          }
+          target.addComponent(true, source.retainedSlice(index, entryLength));
+          index += entryLength;
+        } else {
+          throw malformed();
+        }
+      }
+    }
+
+    void add(ByteBuf entry) {
+      final int slot = nextSlot;
+      nextSlot = slot + 1 == entries.length ? 0 : slot + 1;
+
+      final ByteBuf evicted = entries[slot];
+      if (evicted != null) {
+        evicted.release();
+      }
+      entries[slot] = Unpooled.copiedBuffer(entry);
+    }
+  }
+}
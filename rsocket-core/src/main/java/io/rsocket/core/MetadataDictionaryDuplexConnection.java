@@ -0,0 +1,230 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.DuplexConnection;
+import io.rsocket.RSocketErrorException;
+import io.rsocket.exceptions.ConnectionErrorException;
+import io.rsocket.frame.MetadataDictionaryFrameCodec;
+import java.net.SocketAddress;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+
+/**
+ * {@link DuplexConnection} decorator which negotiates and applies {@link MetadataDictionary}
+ * compression. On the client it offers its dictionary, and encodes the request frames it sends once
+ * the server has accepted. On the server it accepts offers within its own limits, and decodes the
+ * request frames it receives once the client has started to encode them.
+ */
+final class MetadataDictionaryDuplexConnection implements DuplexConnection {
+
+  final DuplexConnection source;
+  final boolean isClient;
+  final int maxEntries;
+  final int maxEntryBytes;
+
+  // client side, guarded by this
+  @Nullable MetadataDictionaryCodec.Encoder encoder;
+
+  // server side, only accessed by the receiving thread
+  @Nullable MetadataDictionaryCodec.Decoder decoder;
+  boolean started;
+
+  private MetadataDictionaryDuplexConnection(
+      DuplexConnection source, MetadataDictionary dictionary, boolean isClient) {
+    this.source = source;
+    this.isClient = isClient;
+    this.maxEntries = dictionary.getMaxEntries();
+    this.maxEntryBytes = dictionary.getMaxEntryBytes();
+  }
+
+  static DuplexConnection client(DuplexConnection source, MetadataDictionary dictionary) {
+    final MetadataDictionaryDuplexConnection connection =
+        new MetadataDictionaryDuplexConnection(source, dictionary, true);
+    source.sendFrame(
+        0,
+        MetadataDictionaryFrameCodec.encodeOffer(
+            source.alloc(), connection.maxEntries, connection.maxEntryBytes));
+    return connection;
+  }
+
+  static DuplexConnection server(DuplexConnection source, MetadataDictionary dictionary) {
+    return new MetadataDictionaryDuplexConnection(source, dictionary, false);
+  }
+
+  @Override
+  public void sendFrame(int streamId, ByteBuf frame) {
+    if (isClient && MetadataDictionaryCodec.isCompressible(frame)) {
+      // frames must be encoded in the order they are sent, and none must be sent as is after
+      // the start frame
+      synchronized (this) {
+        final MetadataDictionaryCodec.Encoder encoder = this.encoder;
+        source.sendFrame(
+            streamId, encoder != null ? encoder.encodeFrame(source.alloc(), frame) : frame);
+      }
+      return;
+    }
+    source.sendFrame(streamId, frame);
+  }
+
+  @Override
+  public void sendErrorAndClose(RSocketErrorException e) {
+    source.sendErrorAndClose(e);
+  }
+
+  @Override
+  public Flux<ByteBuf> receive() {
+    return new Flux<ByteBuf>() {
+      @Override
+      public void subscribe(CoreSubscriber<? super ByteBuf> actual) {
+        source.receive().subscribe(new ReceiveSubscriber(actual));
+      }
+    };
+  }
+
+  @Override
+  public ByteBufAllocator alloc() {
+    return source.alloc();
+  }
+
+  @Override
+  public SocketAddress remoteAddress() {
+    return source.remoteAddress();
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return source.onClose();
+  }
+
+  @Override
+  public void dispose() {
+    source.dispose();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return source.isDisposed();
+  }
+
+  /** Return whether the given frame has been consumed by the negotiation. */
+  boolean handleNegotiation(ByteBuf frame) {
+    if (!MetadataDictionaryFrameCodec.isMetadataDictionary(frame)) {
+      return false;
+    }
+    switch (MetadataDictionaryFrameCodec.kind(frame)) {
+      case MetadataDictionaryFrameCodec.OFFER:
+        final int offeredEntries = MetadataDictionaryFrameCodec.maxEntries(frame);
+        final int offeredEntryBytes = MetadataDictionaryFrameCodec.maxEntryBytes(frame);
+        if (!isClient
+            && decoder == null
+            && offeredEntries > 0
+            && offeredEntries <= maxEntries
+            && offeredEntryBytes > 0
+            && offeredEntryBytes <= maxEntryBytes) {
+          decoder = new MetadataDictionaryCodec.Decoder(offeredEntries, offeredEntryBytes);
+          source.sendFrame(0, MetadataDictionaryFrameCodec.encodeAccept(source.alloc()));
+        }
+        break;
+      case MetadataDictionaryFrameCodec.ACCEPT:
+        if (isClient) {
+          synchronized (this) {
+            if (encoder == null) {
+              source.sendFrame(0, MetadataDictionaryFrameCodec.encodeStart(source.alloc()));
+              encoder = new MetadataDictionaryCodec.Encoder(maxEntries, maxEntryBytes);
+            }
+          }
+        }
+        break;
+      case MetadataDictionaryFrameCodec.START:
+        started = !isClient && decoder != null;
+        break;
+      default:
+        // ignore unknown kinds
+    }
+    return true;
+  }
+
+  final class ReceiveSubscriber implements CoreSubscriber<ByteBuf>, Subscription {
+
+    final CoreSubscriber<? super ByteBuf> actual;
+
+    Subscription s;
+
+    ReceiveSubscriber(CoreSubscriber<? super ByteBuf> actual) {
+      this.actual = actual;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      this.s = s;
+      actual.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(ByteBuf frame) {
+      if (handleNegotiation(frame)) {
+        return;
+      }
+
+      final MetadataDictionaryCodec.Decoder decoder =
+          MetadataDictionaryDuplexConnection.this.decoder;
+      if (!started || decoder == null || !MetadataDictionaryCodec.isCompressible(frame)) {
+        actual.onNext(frame);
+        return;
+      }
+
+      final ByteBuf decoded;
+      try {
+        decoded = decoder.decodeFrame(source.alloc(), frame);
+      } catch (Throwable t) {
+        sendErrorAndClose(new ConnectionErrorException("Failed to decode metadata dictionary", t));
+        return;
+      }
+
+      try {
+        actual.onNext(decoded);
+      } finally {
+        decoded.release();
+      }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      actual.onError(t);
+    }
+
+    @Override
+    public void onComplete() {
+      actual.onComplete();
+    }
+
+    @Override
+    public void request(long n) {
+      s.request(n);
+    }
+
+    @Override
+    public void cancel() {
+      s.cancel();
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.rsocket.frame.PayloadCompressionFrameCodec;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Simple holder of configuration settings for the compression of the metadata and data of request
+ * and payload frames. The client offers its {@link PayloadCompressor compressors} with {@link
+ * PayloadCompressionFrameCodec payload compression frames} when it connects, and a server enabling
+ * the feature accepts the first of its own compressors that the client offered. From then on, both
+ * sides compress the metadata and data of each frame they send which is at least {@link
+ * #threshold(int) threshold} bytes long, and which compression makes smaller.
+ *
+ * <p>Compression applies to each frame on its own, after fragmentation on the sending side and
+ * before reassembly and {@link io.rsocket.frame.decoder.PayloadDecoder payload decoding} on the
+ * receiving side, and decompresses into buffers of the connection allocator. Servers which do not
+ * support the feature ignore the offer, in which case payloads are sent as is.
+ *
+ * <p>Frames which are not compressed carry one byte more than without the feature, so with payload
+ * compression configured, the {@code mtu} used for fragmentation and the max frame length checked
+ * for outbound payloads are one byte less than configured, whether or not compression is
+ * negotiated.
+ *
+ * @since 1.1.1
+ */
+public class PayloadCompression {
+
+  private PayloadCompressor[] compressors = {PayloadCompressor.DEFLATE};
+  private int threshold = 1024;
+
+  public PayloadCompression() {}
+
+  /**
+   * The compressors to negotiate, in order of preference.
+   *
+   * <p>By default this is {@link PayloadCompressor#DEFLATE}.
+   *
+   * @param compressors the compressors to negotiate, with distinct names
+   * @return the same instance for method chaining
+   */
+  public PayloadCompression compressors(PayloadCompressor... compressors) {
+    if (compressors.length == 0) {
+      throw new IllegalArgumentException("At least one compressor is required");
+    }
+    for (PayloadCompressor compressor : compressors) {
+      final String name = Objects.requireNonNull(compressor).name();
+      if (name.isEmpty() || name.indexOf(',') >= 0) {
+        throw new IllegalArgumentException("Invalid compressor name: " + name);
+      }
+    }
+    this.compressors = Arrays.copyOf(compressors, compressors.length);
+    return this;
+  }
+
+  /**
+   * The minimum size in bytes of the metadata and data of a frame to compress. Smaller frames are
+   * sent as is, as compressing them saves little and costs CPU.
+   *
+   * <p>By default this is 1024.
+   *
+   * @param threshold the min size of the metadata and data to compress
+   * @return the same instance for method chaining
+   */
+  public PayloadCompression threshold(int threshold) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("threshold must not be negative");
+    }
+    this.threshold = threshold;
+    return this;
+  }
+
+  // Package private accessors
+
+  PayloadCompressor[] getCompressors() {
+    return compressors;
+  }
+
+  int getThreshold() {
+    return threshold;
+  }
+
+  String getCompressorNames() {
+    final StringBuilder names = new StringBuilder();
+    for (PayloadCompressor compressor : compressors) {
+      if (names.length() > 0) {
+        names.append(',');
+      }
+      names.append(compressor.name());
+    }
+    return names.toString();
+  }
+}
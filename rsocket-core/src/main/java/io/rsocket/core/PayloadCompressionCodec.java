@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.frame.FrameHeaderCodec;
+import io.rsocket.frame.FrameLengthCodec;
+import io.rsocket.frame.FrameType;
+
+/**
+ * Compresses and decompresses the body of request and payload frames, i.e. the metadata length,
+ * metadata and data following the header and the initial request n. Once compression is enabled in
+ * a direction, the body of each such frame is prefixed by one byte which is either:
+ *
+ * <ul>
+ *   <li>{@link #UNCOMPRESSED}: the body follows as is
+ *   <li>{@link #COMPRESSED}: the length of the body follows as an int, and then the body compressed
+ *       with the negotiated {@link PayloadCompressor}
+ * </ul>
+ */
+final class PayloadCompressionCodec {
+
+  static final byte UNCOMPRESSED = 0;
+  static final byte COMPRESSED = 1;
+
+  static final ByteBuf UNCOMPRESSED_MARKER =
+      Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(new byte[] {UNCOMPRESSED}).asReadOnly());
+
+  private PayloadCompressionCodec() {}
+
+  /**
+   * Return the given limit on the length of outbound frames less the byte which prefixes the body
+   * of uncompressed frames, or {@code 0} if there is no limit. Compressed frames are only sent when
+   * they are shorter than the frame they replace.
+   */
+  static int reserveMarker(int frameLengthLimit) {
+    return frameLengthLimit > 0 ? frameLengthLimit - 1 : 0;
+  }
+
+  /** Whether the body of the given frame is subject to compression. */
+  static boolean isCompressible(ByteBuf frame) {
+    switch (FrameHeaderCodec.frameType(frame)) {
+      case REQUEST_FNF:
+      case REQUEST_RESPONSE:
+      case REQUEST_STREAM:
+      case REQUEST_CHANNEL:
+      case NEXT:
+      case NEXT_COMPLETE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  static int bodyOffset(ByteBuf frame) {
+    final FrameType frameType = FrameHeaderCodec.frameType(frame);
+    return frameType == FrameType.REQUEST_STREAM || frameType == FrameType.REQUEST_CHANNEL
+        ? FrameHeaderCodec.size() + Integer.BYTES
+        : FrameHeaderCodec.size();
+  }
+
+  /** Encode the given frame into a new frame, releasing the given one. */
+  static ByteBuf encodeFrame(
+      ByteBufAllocator allocator, PayloadCompressor compressor, int threshold, ByteBuf frame) {
+    try {
+      final int startIndex = frame.readerIndex();
+      final int bodyOffset = bodyOffset(frame);
+      final int bodyIndex = startIndex + bodyOffset;
+      final int bodyLength = frame.writerIndex() - bodyIndex;
+
+      if (bodyLength >= threshold) {
+        final ByteBuf compressed = allocator.buffer(bodyOffset + 1 + Integer.BYTES + bodyLength);
+        try {
+          compressed
+              .writeBytes(frame, startIndex, bodyOffset)
+              .writeByte(COMPRESSED)
+              .writeInt(bodyLength);
+          compressor.compress(frame.slice(bodyIndex, bodyLength), compressed);
+        } catch (Throwable t) {
+          compressed.release();
+          throw t;
+        }
+        if (compressed.readableBytes() < bodyOffset + 1 + bodyLength) {
+          return compressed;
+        }
+        compressed.release();
+      }
+
+      return allocator
+          .compositeBuffer(3)
+          .addComponent(true, frame.retainedSlice(startIndex, bodyOffset))
+          .addComponent(true, UNCOMPRESSED_MARKER.duplicate())
+          .addComponent(true, frame.retainedSlice(bodyIndex, bodyLength));
+    } finally {
+      frame.release();
+    }
+  }
+
+  /** Decode the given frame into a new frame. The given frame is not released. */
+  static ByteBuf decodeFrame(
+      ByteBufAllocator allocator, PayloadCompressor compressor, ByteBuf frame) {
+    final int startIndex = frame.readerIndex();
+    final int bodyOffset = bodyOffset(frame);
+    final int bodyIndex = startIndex + bodyOffset;
+    final int endIndex = frame.writerIndex();
+    if (bodyIndex >= endIndex) {
+      throw new IllegalStateException("compressed frame is malformed");
+    }
+
+    switch (frame.getByte(bodyIndex)) {
+      case UNCOMPRESSED:
+        return allocator
+            .compositeBuffer(2)
+            .addComponent(true, frame.retainedSlice(startIndex, bodyOffset))
+            .addComponent(true, frame.retainedSlice(bodyIndex + 1, endIndex - bodyIndex - 1));
+      case COMPRESSED:
+        final int compressedIndex = bodyIndex + 1 + Integer.BYTES;
+        if (compressedIndex > endIndex) {
+          throw new IllegalStateException("compressed frame is malformed");
+        }
+        // a frame body is never longer than a frame
+        final int bodyLength = frame.getInt(bodyIndex + 1);
+        if (bodyLength < 0 || bodyLength > FrameLengthCodec.FRAME_LENGTH_MASK) {
+          throw new IllegalStateException("compressed frame is malformed");
+        }
+        final ByteBuf decoded = allocator.buffer(bodyOffset + bodyLength);
+        try {
+          decoded.writeBytes(frame, startIndex, bodyOffset);
+          compressor.decompress(
+              frame.slice(compressedIndex, endIndex - compressedIndex), decoded, bodyLength);
+          return decoded;
+        } catch (Throwable t) {
+          decoded.release();
+          throw t;
+        }
+      default:
+        throw new IllegalStateException("compressed frame is malformed");
+    }
+  }
+}
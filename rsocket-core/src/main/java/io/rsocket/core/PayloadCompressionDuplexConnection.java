@@ -0,0 +1,248 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.DuplexConnection;
+import io.rsocket.RSocketErrorException;
+import io.rsocket.exceptions.ConnectionErrorException;
+import io.rsocket.frame.PayloadCompressionFrameCodec;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+
+/**
+ * {@link DuplexConnection} decorator which negotiates and applies {@link PayloadCompression}. Each
+ * side starts to compress the frames it sends right after the frame which tells the peer to expect
+ * them, i.e. the accept frame for the server and the start frame for the client, and starts to
+ * decompress the frames it receives right after the corresponding frame of the peer.
+ */
+final class PayloadCompressionDuplexConnection implements DuplexConnection {
+
+  final DuplexConnection source;
+  final boolean isClient;
+  final PayloadCompressor[] compressors;
+  final int threshold;
+
+  // guarded by this
+  @Nullable PayloadCompressor sendCompressor;
+
+  // only accessed by the receiving thread
+  @Nullable PayloadCompressor acceptedCompressor;
+  @Nullable PayloadCompressor receiveCompressor;
+
+  private PayloadCompressionDuplexConnection(
+      DuplexConnection source, PayloadCompression compression, boolean isClient) {
+    this.source = source;
+    this.isClient = isClient;
+    this.compressors = compression.getCompressors();
+    this.threshold = compression.getThreshold();
+  }
+
+  static DuplexConnection client(DuplexConnection source, PayloadCompression compression) {
+    source.sendFrame(
+        0,
+        PayloadCompressionFrameCodec.encodeOffer(
+            source.alloc(), compression.getCompressorNames()));
+    return new PayloadCompressionDuplexConnection(source, compression, true);
+  }
+
+  static DuplexConnection server(DuplexConnection source, PayloadCompression compression) {
+    return new PayloadCompressionDuplexConnection(source, compression, false);
+  }
+
+  @Override
+  public void sendFrame(int streamId, ByteBuf frame) {
+    if (PayloadCompressionCodec.isCompressible(frame)) {
+      // no frame must be sent as is after the frame telling the peer to decompress them
+      synchronized (this) {
+        final PayloadCompressor compressor = this.sendCompressor;
+        source.sendFrame(
+            streamId,
+            compressor != null
+                ? PayloadCompressionCodec.encodeFrame(source.alloc(), compressor, threshold, frame)
+                : frame);
+      }
+      return;
+    }
+    source.sendFrame(streamId, frame);
+  }
+
+  @Override
+  public void sendErrorAndClose(RSocketErrorException e) {
+    source.sendErrorAndClose(e);
+  }
+
+  @Override
+  public Flux<ByteBuf> receive() {
+    return new Flux<ByteBuf>() {
+      @Override
+      public void subscribe(CoreSubscriber<? super ByteBuf> actual) {
+        source.receive().subscribe(new ReceiveSubscriber(actual));
+      }
+    };
+  }
+
+  @Override
+  public ByteBufAllocator alloc() {
+    return source.alloc();
+  }
+
+  @Override
+  public SocketAddress remoteAddress() {
+    return source.remoteAddress();
+  }
+
+  @Override
+  public Mono<Void> onClose() {
+    return source.onClose();
+  }
+
+  @Override
+  public void dispose() {
+    source.dispose();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return source.isDisposed();
+  }
+
+  @Nullable
+  PayloadCompressor find(String name) {
+    for (PayloadCompressor compressor : compressors) {
+      if (compressor.name().equals(name)) {
+        return compressor;
+      }
+    }
+    return null;
+  }
+
+  /** Return whether the given frame has been consumed by the negotiation. */
+  boolean handleNegotiation(ByteBuf frame) {
+    if (!PayloadCompressionFrameCodec.isPayloadCompression(frame)) {
+      return false;
+    }
+    switch (PayloadCompressionFrameCodec.kind(frame)) {
+      case PayloadCompressionFrameCodec.OFFER:
+        if (!isClient && acceptedCompressor == null) {
+          final List<String> offered =
+              Arrays.asList(PayloadCompressionFrameCodec.names(frame).split(","));
+          for (PayloadCompressor compressor : compressors) {
+            if (offered.contains(compressor.name())) {
+              acceptedCompressor = compressor;
+              synchronized (this) {
+                source.sendFrame(
+                    0,
+                    PayloadCompressionFrameCodec.encodeAccept(source.alloc(), compressor.name()));
+                sendCompressor = compressor;
+              }
+              break;
+            }
+          }
+        }
+        break;
+      case PayloadCompressionFrameCodec.ACCEPT:
+        final PayloadCompressor accepted = find(PayloadCompressionFrameCodec.names(frame));
+        if (isClient && accepted != null && receiveCompressor == null) {
+          receiveCompressor = accepted;
+          synchronized (this) {
+            source.sendFrame(0, PayloadCompressionFrameCodec.encodeStart(source.alloc()));
+            sendCompressor = accepted;
+          }
+        }
+        break;
+      case PayloadCompressionFrameCodec.START:
+        if (!isClient) {
+          receiveCompressor = acceptedCompressor;
+        }
+        break;
+      default:
+        // ignore unknown kinds
+    }
+    return true;
+  }
+
+  final class ReceiveSubscriber implements CoreSubscriber<ByteBuf>, Subscription {
+
+    final CoreSubscriber<? super ByteBuf> actual;
+
+    Subscription s;
+
+    ReceiveSubscriber(CoreSubscriber<? super ByteBuf> actual) {
+      this.actual = actual;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      this.s = s;
+      actual.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(ByteBuf frame) {
+      if (handleNegotiation(frame)) {
+        return;
+      }
+
+      final PayloadCompressor compressor = receiveCompressor;
+      if (compressor == null || !PayloadCompressionCodec.isCompressible(frame)) {
+        actual.onNext(frame);
+        return;
+      }
+
+      final ByteBuf decoded;
+      try {
+        decoded = PayloadCompressionCodec.decodeFrame(source.alloc(), compressor, frame);
+      } catch (Throwable t) {
+        sendErrorAndClose(new ConnectionErrorException("Failed to decompress frame", t));
+        return;
+      }
+
+      try {
+        actual.onNext(decoded);
+      } finally {
+        decoded.release();
+      }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      actual.onError(t);
+    }
+
+    @Override
+    public void onComplete() {
+      actual.onComplete();
+    }
+
+    @Override
+    public void request(long n) {
+      s.request(n);
+    }
+
+    @Override
+    public void cancel() {
+      s.cancel();
+    }
+  }
+}
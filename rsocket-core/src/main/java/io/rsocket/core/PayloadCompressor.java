@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Compression algorithm for the metadata and data of frames, negotiated per connection by {@link
+ * PayloadCompression}. Implementations must be thread-safe, as they are shared by all connections.
+ *
+ * @since 1.1.1
+ */
+public interface PayloadCompressor {
+
+  /** Compressor based on {@link java.util.zip.Deflater} with the default compression level. */
+  PayloadCompressor DEFLATE = new DeflatePayloadCompressor();
+
+  /** Return the name under which the compressor is negotiated with the peer. */
+  String name();
+
+  /**
+   * Compress the readable bytes of the given source into the given target, without modifying the
+   * reader index of the source.
+   *
+   * @param source the bytes to compress
+   * @param target the buffer to write compressed bytes into, which expands as needed
+   */
+  void compress(ByteBuf source, ByteBuf target);
+
+  /**
+   * Decompress the readable bytes of the given source into the given target, without modifying
+   * the reader index of the source.
+   *
+   * @param source the bytes to decompress
+   * @param target the buffer to write the decompressed bytes into
+   * @param length the number of decompressed bytes
+   * @throws IllegalStateException if the source is malformed or does not decompress to the given
+   *     length
+   */
+  void decompress(ByteBuf source, ByteBuf target, int length);
+}
@@ -15,8 +15,11 @@
  */
 package io.rsocket.core;
 
+import io.netty.buffer.ByteBufAllocator;
 import io.rsocket.Payload;
 import io.rsocket.RSocket;
+import io.rsocket.codec.Decoder;
+import io.rsocket.codec.Encoder;
 import org.reactivestreams.Publisher;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
@@ -109,6 +112,54 @@ public interface RSocketClient extends Disposable {
    */
   Mono<Void> metadataPush(Mono<Payload> payloadMono);
 
+  /**
+   * Perform a Request-Response interaction with typed values, encoding the request straight into a
+   * buffer of the {@link ByteBufAllocator#DEFAULT default allocator}, which transports use unless
+   * configured otherwise, and decoding the response from the received buffer.
+   *
+   * @param request the request value, encoded per subscriber
+   * @param encoder the encoder of the request
+   * @param decoder the decoder of the response
+   * @return a {@code Mono} of the decoded response
+   * @since 1.1.1
+   */
+  default <T, R> Mono<R> requestResponse(
+      T request, Encoder<? super T> encoder, Decoder<? extends R> decoder) {
+    return requestResponse(
+            Mono.fromSupplier(() -> encoder.encodePayload(ByteBufAllocator.DEFAULT, request)))
+        .handle(
+            (payload, sink) -> {
+              final R value = decoder.decodePayload(payload);
+              if (value != null) {
+                sink.next(value);
+              }
+            });
+  }
+
+  /**
+   * Perform a Request-Stream interaction with typed values, encoding the request straight into a
+   * buffer of the {@link ByteBufAllocator#DEFAULT default allocator}, which transports use unless
+   * configured otherwise, and decoding each element of the stream from the received buffer.
+   *
+   * @param request the request value, encoded per subscriber
+   * @param encoder the encoder of the request
+   * @param decoder the decoder of the elements of the stream
+   * @return a {@code Flux} of the decoded elements
+   * @since 1.1.1
+   */
+  default <T, R> Flux<R> requestStream(
+      T request, Encoder<? super T> encoder, Decoder<? extends R> decoder) {
+    return requestStream(
+            Mono.fromSupplier(() -> encoder.encodePayload(ByteBufAllocator.DEFAULT, request)))
+        .handle(
+            (payload, sink) -> {
+              final R value = decoder.decodePayload(payload);
+              if (value != null) {
+                sink.next(value);
+              }
+            });
+  }
+
   /**
    * Create an {@link RSocketClient} that obtains shared connections as needed, when requests are
    * made, from the given {@code Mono<RSocket>} source.
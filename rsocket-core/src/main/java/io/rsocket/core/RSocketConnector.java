@@ -28,11 +28,13 @@
 import io.rsocket.SocketAcceptor;
 import io.rsocket.frame.SetupFrameCodec;
 import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.internal.TimerWheel;
 import io.rsocket.keepalive.KeepAliveHandler;
 import io.rsocket.lease.LeaseStats;
 import io.rsocket.lease.Leases;
 import io.rsocket.lease.RequesterLeaseHandler;
 import io.rsocket.lease.ResponderLeaseHandler;
+import io.rsocket.metadata.WellKnownMimeType;
 import io.rsocket.plugins.DuplexConnectionInterceptor;
 import io.rsocket.plugins.InitializingInterceptorRegistry;
 import io.rsocket.plugins.InterceptorRegistry;
@@ -91,12 +93,18 @@ public class RSocketConnector {
   private InitializingInterceptorRegistry interceptors = new InitializingInterceptorRegistry();
 
   private Retry retrySpec;
+  @Nullable private Duration warmStandbyDelay;
   private Resume resume;
   private Supplier<Leases<?>> leasesSupplier;
 
   private int mtu = 0;
   private int maxInboundPayloadSize = Integer.MAX_VALUE;
   private PayloadDecoder payloadDecoder = PayloadDecoder.DEFAULT;
+  private boolean sharedKeepAliveTimer;
+  @Nullable private ByteFlowControl byteFlowControl;
+  @Nullable private MemoryLimits memoryLimits;
+  @Nullable private MetadataDictionary metadataDictionary;
+  @Nullable private PayloadCompression payloadCompression;
 
   private RSocketConnector() {}
 
@@ -239,6 +247,26 @@ public RSocketConnector keepAlive(Duration interval, Duration maxLifeTime) {
     return this;
   }
 
+  /**
+   * Enable driving {@code KEEPALIVE} frames and timeout checks for all connections from a single
+   * coarse-grained timer shared in the JVM, instead of a periodic task scheduled for each
+   * connection. This reduces the memory footprint of each connection, and the scheduler load when
+   * many connections send {@code KEEPALIVE} frames every few seconds, at the cost of a tick
+   * precision of 10 milliseconds. Since the timer ticks every 10 milliseconds as long as any
+   * connection uses it, it costs more CPU than per connection tasks for a few connections or long
+   * keepalive intervals.
+   *
+   * <p>By default this is not enabled.
+   *
+   * @param enabled whether to use the shared keepalive timer
+   * @return the same instance for method chaining
+   * @since 1.1.1
+   */
+  public RSocketConnector sharedKeepAliveTimer(boolean enabled) {
+    this.sharedKeepAliveTimer = enabled;
+    return this;
+  }
+
   /**
    * Configure interception at one of the following levels:
    *
@@ -368,6 +396,26 @@ public RSocketConnector reconnect(Retry retry) {
     return this;
   }
 
+  /**
+   * When {@link #reconnect(Retry) reconnect} is enabled, keep a spare connection that is already
+   * connected and set up, and swap it in as soon as the shared {@code RSocket} is lost, so that
+   * failing over does not have to wait for a connect and setup round-trip. After every swap a new
+   * spare is connected in the background, after a delay randomized between half and one and a half
+   * times the given delay so that many clients do not reconnect to the server at the same time.
+   *
+   * <p>Note that this doubles the number of connections to the server.
+   *
+   * <p>By default this is not enabled.
+   *
+   * @param replenishDelay the average delay before connecting a new spare connection
+   * @return the same instance for method chaining
+   * @since 1.1.1
+   */
+  public RSocketConnector warmStandby(Duration replenishDelay) {
+    this.warmStandbyDelay = Objects.requireNonNull(replenishDelay);
+    return this;
+  }
+
   /**
    * Enables the Resume capability of the RSocket protocol where if the client gets disconnected,
    * the connection is re-acquired and any interrupted streams are resumed automatically. For this
@@ -478,6 +526,81 @@ public RSocketConnector payloadDecoder(PayloadDecoder decoder) {
     return this;
   }
 
+  /**
+   * Enables byte-credit flow control for request-stream interactions, which bounds the number of
+   * payload bytes in flight per stream and per connection in addition to the number of payloads
+   * requested.
+   *
+   * <p>Example usage:
+   *
+   * <pre>{@code
+   * RSocketConnector.create()
+   *     .byteFlowControl(new ByteFlowControl().streamWindow(256 * 1024))
+   *     .connect(transport);
+   * }</pre>
+   *
+   * <p>By default this is not enabled.
+   *
+   * @param byteFlowControl the byte-credit flow control settings
+   * @return the same instance for method chaining
+   * @since 1.1.1
+   */
+  public RSocketConnector byteFlowControl(ByteFlowControl byteFlowControl) {
+    Objects.requireNonNull(byteFlowControl);
+    this.byteFlowControl = byteFlowControl;
+    return this;
+  }
+
+  /**
+   * Enable the accounting of the memory that the connection holds on to for inbound fragments being
+   * reassembled and for outbound frames, see {@link MemoryLimits}. The connection is closed with a
+   * connection {@code ERROR} frame when it goes past its budget, and requests from the server are
+   * rejected while all connections sharing the given instance are over the global budget.
+   *
+   * <p>By default this is not enabled.
+   *
+   * @param memoryLimits the budgets to apply
+   * @return the same instance for method chaining
+   * @since 1.1.1
+   */
+  public RSocketConnector memoryLimits(MemoryLimits memoryLimits) {
+    this.memoryLimits = Objects.requireNonNull(memoryLimits);
+    return this;
+  }
+
+  /**
+   * Offer to compress the composite metadata of the requests sent to the server with a dictionary
+   * of the metadata entries sent before, so that repeated routes and mime types take one byte per
+   * request. This only applies when the {@link #metadataMimeType(String) metadata mime type} is
+   * composite metadata, and once the server has accepted the offer.
+   *
+   * <p>By default this is not enabled.
+   *
+   * @param metadataDictionary the dictionary settings to offer
+   * @return the same instance for method chaining
+   * @since 1.1.1
+   */
+  public RSocketConnector metadataDictionary(MetadataDictionary metadataDictionary) {
+    this.metadataDictionary = Objects.requireNonNull(metadataDictionary);
+    return this;
+  }
+
+  /**
+   * Offer to compress the metadata and data of the frames exchanged with the server, with the
+   * first of the given compressors that the server supports. Frames are compressed one by one when
+   * their metadata and data are longer than the configured threshold.
+   *
+   * <p>By default this is not enabled.
+   *
+   * @param payloadCompression the compression settings to offer
+   * @return the same instance for method chaining
+   * @since 1.1.1
+   */
+  public RSocketConnector payloadCompression(PayloadCompression payloadCompression) {
+    this.payloadCompression = Objects.requireNonNull(payloadCompression);
+    return this;
+  }
+
   /**
    * Connect with the given transport and obtain a live {@link RSocket} to use for making requests.
    * Each subscriber to the returned {@code Mono} receives a new connection, if neither {@link
@@ -515,6 +638,13 @@ public Mono<RSocket> connect(Supplier<ClientTransport> transportSupplier) {
         .flatMap(
             ct -> {
               int maxFrameLength = ct.maxFrameLength();
+              // leave room for the byte which payload compression adds to uncompressed frames
+              final int outboundMtu =
+                  payloadCompression != null ? PayloadCompressionCodec.reserveMarker(mtu) : mtu;
+              final int outboundMaxFrameLength =
+                  payloadCompression != null
+                      ? PayloadCompressionCodec.reserveMarker(maxFrameLength)
+                      : maxFrameLength;
 
               Mono<DuplexConnection> connectionMono =
                   Mono.fromCallable(
@@ -600,7 +730,11 @@ public Mono<RSocket> connect(Supplier<ClientTransport> transportSupplier) {
                                             resume.isCleanupStoreOnKeepAlive());
                                     keepAliveHandler =
                                         new KeepAliveHandler.ResumableKeepAliveHandler(
-                                            resumableDuplexConnection, session, session);
+                                            resumableDuplexConnection,
+                                            session,
+                                            session,
+                                            resume.getPositionAckBytes(),
+                                            resume.getPositionAckDelay());
                                     wrappedConnection = resumableDuplexConnection;
                                   } else {
                                     keepAliveHandler =
@@ -609,9 +743,21 @@ public Mono<RSocket> connect(Supplier<ClientTransport> transportSupplier) {
                                     wrappedConnection = clientServerConnection;
                                   }
 
+                                  final ConnectionMemoryAccountant memoryAccountant =
+                                      memoryLimits != null
+                                          ? new ConnectionMemoryAccountant(
+                                              memoryLimits, wrappedConnection)
+                                          : null;
+
+                                  DuplexConnection inputConnection =
+                                      wrapWithExtensions(wrappedConnection);
+                                  if (memoryAccountant != null) {
+                                    inputConnection =
+                                        memoryAccountant.sampleOnSend(inputConnection);
+                                  }
                                   ClientServerInputMultiplexer multiplexer =
                                       new ClientServerInputMultiplexer(
-                                          wrappedConnection, interceptors, true);
+                                          inputConnection, interceptors, true);
 
                                   Leases<?> leases = leaseEnabled ? leasesSupplier.get() : null;
                                   RequesterLeaseHandler requesterLeaseHandler =
@@ -625,14 +771,17 @@ public Mono<RSocket> connect(Supplier<ClientTransport> transportSupplier) {
                                           multiplexer.asClientConnection(),
                                           payloadDecoder,
                                           StreamIdSupplier.clientSupplier(),
-                                          mtu,
-                                          maxFrameLength,
+                                          outboundMtu,
+                                          outboundMaxFrameLength,
                                           maxInboundPayloadSize,
                                           (int) keepAliveInterval.toMillis(),
                                           (int) keepAliveMaxLifeTime.toMillis(),
                                           keepAliveHandler,
                                           interceptors::initRequesterRequestInterceptor,
-                                          requesterLeaseHandler);
+                                          requesterLeaseHandler,
+                                          sharedKeepAliveTimer ? TimerWheel.shared() : null,
+                                          byteFlowControl,
+                                          memoryAccountant);
 
                                   RSocket wrappedRSocketRequester =
                                       interceptors.initRequester(rSocketRequester);
@@ -668,10 +817,13 @@ public Mono<RSocket> connect(Supplier<ClientTransport> transportSupplier) {
                                                     wrappedRSocketHandler,
                                                     payloadDecoder,
                                                     responderLeaseHandler,
-                                                    mtu,
-                                                    maxFrameLength,
+                                                    outboundMtu,
+                                                    outboundMaxFrameLength,
                                                     maxInboundPayloadSize,
-                                                    interceptors::initResponderRequestInterceptor);
+                                                    interceptors::initResponderRequestInterceptor,
+                                                    null,
+                                                    null,
+                                                    memoryAccountant);
 
                                             return wrappedRSocketRequester;
                                           })
@@ -682,11 +834,30 @@ public Mono<RSocket> connect(Supplier<ClientTransport> transportSupplier) {
         .as(
             source -> {
               if (retrySpec != null) {
+                Mono<RSocket> reconnectSource = source.retryWhen(retrySpec);
+                if (warmStandbyDelay != null) {
+                  reconnectSource = new WarmStandbyMono(reconnectSource, warmStandbyDelay);
+                }
                 return new ReconnectMono<>(
-                    source.retryWhen(retrySpec), Disposable::dispose, INVALIDATE_FUNCTION);
+                    reconnectSource, Disposable::dispose, INVALIDATE_FUNCTION);
               } else {
                 return source;
               }
             });
   }
+
+  private DuplexConnection wrapWithExtensions(DuplexConnection connection) {
+    final PayloadCompression payloadCompression = this.payloadCompression;
+    if (payloadCompression != null) {
+      connection = PayloadCompressionDuplexConnection.client(connection, payloadCompression);
+    }
+    final MetadataDictionary metadataDictionary = this.metadataDictionary;
+    if (metadataDictionary != null
+        && WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA
+            .getString()
+            .equals(metadataMimeType)) {
+      connection = MetadataDictionaryDuplexConnection.client(connection, metadataDictionary);
+    }
+    return connection;
+  }
 }
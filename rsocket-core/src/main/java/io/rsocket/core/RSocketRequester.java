@@ -24,11 +24,14 @@
 import io.rsocket.RSocket;
 import io.rsocket.exceptions.ConnectionErrorException;
 import io.rsocket.exceptions.Exceptions;
+import io.rsocket.frame.ByteCreditFrameCodec;
 import io.rsocket.frame.ErrorFrameCodec;
 import io.rsocket.frame.FrameHeaderCodec;
 import io.rsocket.frame.FrameType;
 import io.rsocket.frame.RequestNFrameCodec;
 import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.internal.TimerWheel;
+import io.rsocket.internal.jfr.RSocketFlightRecorder;
 import io.rsocket.keepalive.KeepAliveFramesAcceptor;
 import io.rsocket.keepalive.KeepAliveHandler;
 import io.rsocket.keepalive.KeepAliveSupport;
@@ -66,6 +69,8 @@ class RSocketRequester extends RequesterResponderSupport implements RSocket {
   private final RequesterLeaseHandler leaseHandler;
   private final KeepAliveFramesAcceptor keepAliveFramesAcceptor;
   private final MonoProcessor<Void> onClose;
+  @Nullable private final ByteCreditBudget byteCreditBudget;
+  @Nullable private final ConnectionMemoryAccountant memoryAccountant;
 
   RSocketRequester(
       DuplexConnection connection,
@@ -79,6 +84,66 @@ class RSocketRequester extends RequesterResponderSupport implements RSocket {
       @Nullable KeepAliveHandler keepAliveHandler,
       Function<RSocket, RequestInterceptor> requestInterceptorFunction,
       RequesterLeaseHandler leaseHandler) {
+    this(
+        connection,
+        payloadDecoder,
+        streamIdSupplier,
+        mtu,
+        maxFrameLength,
+        maxInboundPayloadSize,
+        keepAliveTickPeriod,
+        keepAliveAckTimeout,
+        keepAliveHandler,
+        requestInterceptorFunction,
+        leaseHandler,
+        null);
+  }
+
+  RSocketRequester(
+      DuplexConnection connection,
+      PayloadDecoder payloadDecoder,
+      StreamIdSupplier streamIdSupplier,
+      int mtu,
+      int maxFrameLength,
+      int maxInboundPayloadSize,
+      int keepAliveTickPeriod,
+      int keepAliveAckTimeout,
+      @Nullable KeepAliveHandler keepAliveHandler,
+      Function<RSocket, RequestInterceptor> requestInterceptorFunction,
+      RequesterLeaseHandler leaseHandler,
+      @Nullable TimerWheel keepAliveTimerWheel) {
+    this(
+        connection,
+        payloadDecoder,
+        streamIdSupplier,
+        mtu,
+        maxFrameLength,
+        maxInboundPayloadSize,
+        keepAliveTickPeriod,
+        keepAliveAckTimeout,
+        keepAliveHandler,
+        requestInterceptorFunction,
+        leaseHandler,
+        keepAliveTimerWheel,
+        null,
+        null);
+  }
+
+  RSocketRequester(
+      DuplexConnection connection,
+      PayloadDecoder payloadDecoder,
+      StreamIdSupplier streamIdSupplier,
+      int mtu,
+      int maxFrameLength,
+      int maxInboundPayloadSize,
+      int keepAliveTickPeriod,
+      int keepAliveAckTimeout,
+      @Nullable KeepAliveHandler keepAliveHandler,
+      Function<RSocket, RequestInterceptor> requestInterceptorFunction,
+      RequesterLeaseHandler leaseHandler,
+      @Nullable TimerWheel keepAliveTimerWheel,
+      @Nullable ByteFlowControl byteFlowControl,
+      @Nullable ConnectionMemoryAccountant memoryAccountant) {
     super(
         mtu,
         maxFrameLength,
@@ -90,6 +155,9 @@ class RSocketRequester extends RequesterResponderSupport implements RSocket {
 
     this.leaseHandler = leaseHandler;
     this.onClose = MonoProcessor.create();
+    this.byteCreditBudget =
+        byteFlowControl != null ? new ByteCreditBudget(byteFlowControl) : null;
+    this.memoryAccountant = memoryAccountant;
 
     // DO NOT Change the order here. The Send processor must be subscribed to before receiving
     connection.onClose().subscribe(null, this::tryTerminateOnConnectionError, this::tryShutdown);
@@ -98,7 +166,9 @@ class RSocketRequester extends RequesterResponderSupport implements RSocket {
 
     if (keepAliveTickPeriod != 0 && keepAliveHandler != null) {
       KeepAliveSupport keepAliveSupport =
-          new ClientKeepAliveSupport(this.getAllocator(), keepAliveTickPeriod, keepAliveAckTimeout);
+          new ClientKeepAliveSupport(
+              this.getAllocator(), keepAliveTickPeriod, keepAliveAckTimeout, keepAliveTimerWheel);
+      keepAliveSupport.onRoundTripTime(this::onKeepAliveRoundTrip);
       this.keepAliveFramesAcceptor =
           keepAliveHandler.start(
               keepAliveSupport,
@@ -107,6 +177,11 @@ class RSocketRequester extends RequesterResponderSupport implements RSocket {
     } else {
       keepAliveFramesAcceptor = null;
     }
+
+    if (byteFlowControl != null) {
+      // announces that the streams of this requester start without byte credits
+      connection.sendFrame(0, ByteCreditFrameCodec.encode(getAllocator(), 0, 0));
+    }
   }
 
   @Override
@@ -144,7 +219,9 @@ public Mono<Void> metadataPush(Payload payload) {
   public int getNextStreamId() {
     RequesterLeaseHandler leaseHandler = this.leaseHandler;
     if (!leaseHandler.useLease()) {
-      throw reactor.core.Exceptions.propagate(leaseHandler.leaseError());
+      final Throwable leaseError = leaseHandler.leaseError();
+      RSocketFlightRecorder.leaseRejected(0, true, leaseError);
+      throw reactor.core.Exceptions.propagate(leaseError);
     }
 
     int nextStreamId = super.getNextStreamId();
@@ -161,7 +238,9 @@ public int getNextStreamId() {
   public int addAndGetNextStreamId(FrameHandler frameHandler) {
     RequesterLeaseHandler leaseHandler = this.leaseHandler;
     if (!leaseHandler.useLease()) {
-      throw reactor.core.Exceptions.propagate(leaseHandler.leaseError());
+      final Throwable leaseError = leaseHandler.leaseError();
+      RSocketFlightRecorder.leaseRejected(0, true, leaseError);
+      throw reactor.core.Exceptions.propagate(leaseError);
     }
 
     int nextStreamId = super.addAndGetNextStreamId(frameHandler);
@@ -180,6 +259,13 @@ public double availability() {
     return Math.min(getDuplexConnection().availability(), leaseHandler.availability());
   }
 
+  private void onKeepAliveRoundTrip(long roundTripTimeNanos) {
+    final RequestInterceptor requestInterceptor = getRequestInterceptor();
+    if (requestInterceptor != null) {
+      requestInterceptor.onKeepAliveRoundTrip(roundTripTimeNanos);
+    }
+  }
+
   @Override
   public void dispose() {
     tryShutdown();
@@ -195,6 +281,28 @@ public Mono<Void> onClose() {
     return onClose;
   }
 
+  @Override
+  @Nullable
+  ByteCreditBudget getByteCreditBudget() {
+    return byteCreditBudget;
+  }
+
+  @Override
+  public synchronized boolean remove(int streamId, FrameHandler frameHandler) {
+    if (super.remove(streamId, frameHandler)) {
+      final ByteCreditBudget byteCreditBudget = this.byteCreditBudget;
+      if (byteCreditBudget != null && frameHandler instanceof RequestStreamRequesterFlux) {
+        byteCreditBudget.release(((RequestStreamRequesterFlux) frameHandler).byteWindow);
+      }
+      final ConnectionMemoryAccountant memoryAccountant = this.memoryAccountant;
+      if (memoryAccountant != null) {
+        memoryAccountant.release(streamId);
+      }
+      return true;
+    }
+    return false;
+  }
+
   private void handleIncomingFrames(ByteBuf frame) {
     try {
       int streamId = FrameHeaderCodec.streamId(frame);
@@ -203,6 +311,11 @@ private void handleIncomingFrames(ByteBuf frame) {
         handleStreamZero(type, frame);
       } else {
         handleFrame(streamId, type, frame);
+
+        final ConnectionMemoryAccountant memoryAccountant = this.memoryAccountant;
+        if (memoryAccountant != null && !memoryAccountant.onInboundFrame(streamId, frame, this)) {
+          getDuplexConnection().sendErrorAndClose(memoryAccountant.connectionLimitExceeded());
+        }
       }
     } catch (Throwable t) {
       LOGGER.error("Unexpected error during frame handling", t);
@@ -334,6 +447,10 @@ private void terminate(Throwable e) {
       requestInterceptor.dispose();
     }
     leaseHandler.dispose();
+    final ConnectionMemoryAccountant memoryAccountant = this.memoryAccountant;
+    if (memoryAccountant != null) {
+      memoryAccountant.releaseAll();
+    }
 
     synchronized (this) {
       activeStreams
@@ -21,6 +21,8 @@
 import io.rsocket.Payload;
 import io.rsocket.RSocket;
 import io.rsocket.exceptions.ConnectionErrorException;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.frame.ByteCreditFrameCodec;
 import io.rsocket.frame.ErrorFrameCodec;
 import io.rsocket.frame.FrameHeaderCodec;
 import io.rsocket.frame.FrameType;
@@ -30,6 +32,7 @@
 import io.rsocket.frame.RequestResponseFrameCodec;
 import io.rsocket.frame.RequestStreamFrameCodec;
 import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.internal.jfr.RSocketFlightRecorder;
 import io.rsocket.lease.ResponderLeaseHandler;
 import io.rsocket.plugins.RequestInterceptor;
 import java.nio.channels.ClosedChannelException;
@@ -43,6 +46,7 @@
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
 
 /** Responder side of RSocket. Receives {@link ByteBuf}s from a peer's {@link RSocketRequester} */
 class RSocketResponder extends RequesterResponderSupport implements RSocket {
@@ -56,6 +60,13 @@ class RSocketResponder extends RequesterResponderSupport implements RSocket {
   private final ResponderLeaseHandler leaseHandler;
   private final Disposable leaseHandlerDisposable;
 
+  @Nullable private final InFlightStreamLimiter streamLimiter;
+  @Nullable private final FireAndForgetQueue fireAndForgetQueue;
+  @Nullable private final ConnectionMemoryAccountant memoryAccountant;
+  // guarded by this
+  private int inFlightStreams;
+  private volatile boolean byteCreditEnabled;
+
   private volatile Throwable terminationError;
   private static final AtomicReferenceFieldUpdater<RSocketResponder, Throwable> TERMINATION_ERROR =
       AtomicReferenceFieldUpdater.newUpdater(
@@ -70,6 +81,32 @@ class RSocketResponder extends RequesterResponderSupport implements RSocket {
       int maxFrameLength,
       int maxInboundPayloadSize,
       Function<RSocket, ? extends RequestInterceptor> requestInterceptorFunction) {
+    this(
+        connection,
+        requestHandler,
+        payloadDecoder,
+        leaseHandler,
+        mtu,
+        maxFrameLength,
+        maxInboundPayloadSize,
+        requestInterceptorFunction,
+        null,
+        null,
+        null);
+  }
+
+  RSocketResponder(
+      DuplexConnection connection,
+      RSocket requestHandler,
+      PayloadDecoder payloadDecoder,
+      ResponderLeaseHandler leaseHandler,
+      int mtu,
+      int maxFrameLength,
+      int maxInboundPayloadSize,
+      Function<RSocket, ? extends RequestInterceptor> requestInterceptorFunction,
+      @Nullable InFlightStreamLimiter streamLimiter,
+      @Nullable FireAndForgetIntake fireAndForgetIntake,
+      @Nullable ConnectionMemoryAccountant memoryAccountant) {
     super(
         mtu,
         maxFrameLength,
@@ -83,6 +120,13 @@ class RSocketResponder extends RequesterResponderSupport implements RSocket {
 
     this.leaseHandler = leaseHandler;
 
+    this.streamLimiter = streamLimiter;
+    this.fireAndForgetQueue =
+        fireAndForgetIntake != null
+            ? new FireAndForgetQueue(fireAndForgetIntake, requestHandler)
+            : null;
+    this.memoryAccountant = memoryAccountant;
+
     // DO NOT Change the order here. The Send processor must be subscribed to before receiving
     // connections
     connection.receive().subscribe(this::handleFrame, e -> {});
@@ -112,6 +156,11 @@ private void tryTerminate(Supplier<Throwable> errorSupplier) {
 
   @Override
   public Mono<Void> fireAndForget(Payload payload) {
+    final FireAndForgetQueue fireAndForgetQueue = this.fireAndForgetQueue;
+    if (fireAndForgetQueue != null) {
+      return fireAndForgetQueue.enqueue(payload);
+    }
+
     try {
       return requestHandler.fireAndForget(payload);
     } catch (Throwable t) {
@@ -170,9 +219,24 @@ public Mono<Void> onClose() {
     return getDuplexConnection().onClose();
   }
 
+  @Override
+  boolean isByteCreditEnabled() {
+    return byteCreditEnabled;
+  }
+
   final void doOnDispose() {
     cleanUpSendingSubscriptions();
 
+    final ConnectionMemoryAccountant memoryAccountant = this.memoryAccountant;
+    if (memoryAccountant != null) {
+      memoryAccountant.releaseAll();
+    }
+
+    final FireAndForgetQueue fireAndForgetQueue = this.fireAndForgetQueue;
+    if (fireAndForgetQueue != null) {
+      fireAndForgetQueue.dispose();
+    }
+
     getDuplexConnection().dispose();
     final RequestInterceptor requestInterceptor = getRequestInterceptor();
     if (requestInterceptor != null) {
@@ -184,6 +248,11 @@ final void doOnDispose() {
 
   private synchronized void cleanUpSendingSubscriptions() {
     activeStreams.values().forEach(FrameHandler::handleCancel);
+    final InFlightStreamLimiter streamLimiter = this.streamLimiter;
+    if (streamLimiter != null) {
+      streamLimiter.release(inFlightStreams);
+      inFlightStreams = 0;
+    }
     activeStreams.clear();
   }
 
@@ -261,18 +330,37 @@ final void handleFrame(ByteBuf frame) {
                       streamId,
                       new IllegalStateException("Setup frame received post setup.")));
           break;
+        case EXT:
+          if (ByteCreditFrameCodec.isByteCredit(frame)) {
+            if (streamId == 0) {
+              byteCreditEnabled = true;
+            } else {
+              receiver = super.get(streamId);
+              if (receiver != null) {
+                receiver.handleByteCredit(ByteCreditFrameCodec.credits(frame));
+              }
+            }
+            break;
+          }
+          if (FrameHeaderCodec.hasIgnore(frame)) {
+            // an extension this side does not support, e.g. the offer of a feature which is not
+            // enabled on this server
+            break;
+          }
+          sendUnexpectedFrameError(streamId, frameType);
+          break;
         case LEASE:
         default:
-          getDuplexConnection()
-              .sendFrame(
-                  streamId,
-                  ErrorFrameCodec.encode(
-                      super.getAllocator(),
-                      streamId,
-                      new IllegalStateException(
-                          "ServerRSocket: Unexpected frame type: " + frameType)));
+          sendUnexpectedFrameError(streamId, frameType);
           break;
       }
+
+      final ConnectionMemoryAccountant memoryAccountant = this.memoryAccountant;
+      if (memoryAccountant != null
+          && streamId != 0
+          && !memoryAccountant.onInboundFrame(streamId, frame, this)) {
+        getDuplexConnection().sendErrorAndClose(memoryAccountant.connectionLimitExceeded());
+      }
     } catch (Throwable t) {
       LOGGER.error("Unexpected error during frame handling", t);
       getDuplexConnection()
@@ -290,6 +378,13 @@ final void handleFireAndForget(int streamId, ByteBuf frame) {
     if (leaseHandler.useLease()) {
 
       if (FrameHeaderCodec.hasFollows(frame)) {
+        // fragmented requests are tracked until reassembled, so they count as streams
+        final RejectedException rejection = tryAcquireStream();
+        if (rejection != null) {
+          rejectFireAndForget(rejection, frame);
+          return;
+        }
+
         final RequestInterceptor requestInterceptor = this.getRequestInterceptor();
         if (requestInterceptor != null) {
           requestInterceptor.onStart(
@@ -301,6 +396,12 @@ final void handleFireAndForget(int streamId, ByteBuf frame) {
 
         this.add(streamId, subscriber);
       } else {
+        final RejectedException rejection = checkStreamLimit();
+        if (rejection != null) {
+          rejectFireAndForget(rejection, frame);
+          return;
+        }
+
         final RequestInterceptor requestInterceptor = this.getRequestInterceptor();
         if (requestInterceptor != null) {
           requestInterceptor.onStart(
@@ -326,6 +427,16 @@ final void handleFireAndForget(int streamId, ByteBuf frame) {
 
   final void handleRequestResponse(int streamId, ByteBuf frame) {
     if (leaseHandler.useLease()) {
+      final RejectedException rejection = tryAcquireStream();
+      if (rejection != null) {
+        rejectStream(
+            streamId,
+            FrameType.REQUEST_RESPONSE,
+            RequestResponseFrameCodec.metadata(frame),
+            rejection);
+        return;
+      }
+
       final RequestInterceptor requestInterceptor = this.getRequestInterceptor();
       if (requestInterceptor != null) {
         requestInterceptor.onStart(
@@ -358,6 +469,13 @@ final void handleRequestResponse(int streamId, ByteBuf frame) {
 
   final void handleStream(int streamId, ByteBuf frame, long initialRequestN) {
     if (leaseHandler.useLease()) {
+      final RejectedException rejection = tryAcquireStream();
+      if (rejection != null) {
+        rejectStream(
+            streamId, FrameType.REQUEST_STREAM, RequestStreamFrameCodec.metadata(frame), rejection);
+        return;
+      }
+
       final RequestInterceptor requestInterceptor = this.getRequestInterceptor();
       if (requestInterceptor != null) {
         requestInterceptor.onStart(
@@ -390,6 +508,16 @@ final void handleStream(int streamId, ByteBuf frame, long initialRequestN) {
 
   final void handleChannel(int streamId, ByteBuf frame, long initialRequestN, boolean complete) {
     if (leaseHandler.useLease()) {
+      final RejectedException rejection = tryAcquireStream();
+      if (rejection != null) {
+        rejectStream(
+            streamId,
+            FrameType.REQUEST_CHANNEL,
+            RequestChannelFrameCodec.metadata(frame),
+            rejection);
+        return;
+      }
+
       final RequestInterceptor requestInterceptor = this.getRequestInterceptor();
       if (requestInterceptor != null) {
         requestInterceptor.onStart(
@@ -424,19 +552,123 @@ final void handleChannel(int streamId, ByteBuf frame, long initialRequestN, bool
     }
   }
 
+  /**
+   * Reserve a slot for a new stream within the limits of the {@link InFlightStreamLimiter} and the
+   * global budget of the {@link ConnectionMemoryAccountant}.
+   *
+   * @return {@code null} if the slot has been reserved, or the reason for rejecting the stream
+   */
+  @Nullable
+  private synchronized RejectedException tryAcquireStream() {
+    final ConnectionMemoryAccountant memoryAccountant = this.memoryAccountant;
+    if (memoryAccountant != null && memoryAccountant.isGlobalLimitExceeded()) {
+      return ConnectionMemoryAccountant.GLOBAL_LIMIT_EXCEEDED;
+    }
+    final InFlightStreamLimiter streamLimiter = this.streamLimiter;
+    if (streamLimiter == null) {
+      return null;
+    }
+    if (inFlightStreams >= streamLimiter.maxPerConnection) {
+      return InFlightStreamLimiter.CONNECTION_LIMIT_EXCEEDED;
+    }
+    if (!streamLimiter.tryAcquire()) {
+      return InFlightStreamLimiter.SERVER_LIMIT_EXCEEDED;
+    }
+    inFlightStreams++;
+    return null;
+  }
+
+  /** Same as {@link #tryAcquireStream()} for requests that are not tracked as streams. */
+  @Nullable
+  private synchronized RejectedException checkStreamLimit() {
+    final ConnectionMemoryAccountant memoryAccountant = this.memoryAccountant;
+    if (memoryAccountant != null && memoryAccountant.isGlobalLimitExceeded()) {
+      return ConnectionMemoryAccountant.GLOBAL_LIMIT_EXCEEDED;
+    }
+    final InFlightStreamLimiter streamLimiter = this.streamLimiter;
+    if (streamLimiter == null) {
+      return null;
+    }
+    if (inFlightStreams >= streamLimiter.maxPerConnection) {
+      return InFlightStreamLimiter.CONNECTION_LIMIT_EXCEEDED;
+    }
+    if (streamLimiter.isExceeded()) {
+      return InFlightStreamLimiter.SERVER_LIMIT_EXCEEDED;
+    }
+    return null;
+  }
+
+  private void releaseStream() {
+    final InFlightStreamLimiter streamLimiter = this.streamLimiter;
+    if (streamLimiter != null) {
+      inFlightStreams--;
+      streamLimiter.release(1);
+    }
+  }
+
+  private void rejectStream(
+      int streamId,
+      FrameType requestType,
+      @Nullable ByteBuf metadata,
+      RejectedException rejection) {
+    final RequestInterceptor requestInterceptor = this.getRequestInterceptor();
+    if (requestInterceptor != null) {
+      requestInterceptor.onReject(rejection, requestType, metadata);
+    }
+    getDuplexConnection()
+        .sendFrame(streamId, ErrorFrameCodec.encode(getAllocator(), streamId, rejection));
+  }
+
+  private void rejectFireAndForget(RejectedException rejection, ByteBuf frame) {
+    final RequestInterceptor requestInterceptor = this.getRequestInterceptor();
+    if (requestInterceptor != null) {
+      requestInterceptor.onReject(
+          rejection, FrameType.REQUEST_FNF, RequestFireAndForgetFrameCodec.metadata(frame));
+    }
+  }
+
   private void sendLeaseRejection(int streamId, Throwable leaseError) {
+    RSocketFlightRecorder.leaseRejected(streamId, false, leaseError);
     getDuplexConnection()
         .sendFrame(streamId, ErrorFrameCodec.encode(getAllocator(), streamId, leaseError));
   }
 
+  private void sendUnexpectedFrameError(int streamId, FrameType frameType) {
+    getDuplexConnection()
+        .sendFrame(
+            streamId,
+            ErrorFrameCodec.encode(
+                getAllocator(),
+                streamId,
+                new IllegalStateException("ServerRSocket: Unexpected frame type: " + frameType)));
+  }
+
   private void handleMetadataPush(Mono<Void> result) {
     result.subscribe(MetadataPushResponderSubscriber.INSTANCE);
   }
 
+  @Override
+  public synchronized boolean remove(int streamId, FrameHandler frameHandler) {
+    if (super.remove(streamId, frameHandler)) {
+      releaseStream();
+      final ConnectionMemoryAccountant memoryAccountant = this.memoryAccountant;
+      if (memoryAccountant != null) {
+        memoryAccountant.release(streamId);
+      }
+      return true;
+    }
+    return false;
+  }
+
   private boolean add(int streamId, FrameHandler frameHandler) {
     FrameHandler existingHandler;
     synchronized (this) {
       existingHandler = super.activeStreams.putIfAbsent(streamId, frameHandler);
+      if (existingHandler != null) {
+        releaseStream();
+      } else {
+        onStreamStarted(streamId, frameHandler);
+      }
     }
 
     if (existingHandler != null) {
@@ -34,9 +34,11 @@
 import io.rsocket.frame.FrameHeaderCodec;
 import io.rsocket.frame.SetupFrameCodec;
 import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.internal.TimerWheel;
 import io.rsocket.lease.Leases;
 import io.rsocket.lease.RequesterLeaseHandler;
 import io.rsocket.lease.ResponderLeaseHandler;
+import io.rsocket.metadata.WellKnownMimeType;
 import io.rsocket.plugins.DuplexConnectionInterceptor;
 import io.rsocket.plugins.InitializingInterceptorRegistry;
 import io.rsocket.plugins.InterceptorRegistry;
@@ -46,6 +48,7 @@
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
 
 /**
  * The main class for starting an RSocket server.
@@ -71,6 +74,14 @@ public final class RSocketServer {
   private int mtu = 0;
   private int maxInboundPayloadSize = Integer.MAX_VALUE;
   private PayloadDecoder payloadDecoder = PayloadDecoder.DEFAULT;
+  private boolean sharedKeepAliveTimer;
+  @Nullable private SetupAdmission setupAdmission;
+  private int maxInFlightStreamsPerConnection = Integer.MAX_VALUE;
+  private int maxInFlightStreamsPerServer = Integer.MAX_VALUE;
+  @Nullable private FireAndForgetIntake fireAndForgetIntake;
+  @Nullable private MemoryLimits memoryLimits;
+  @Nullable private MetadataDictionary metadataDictionary;
+  @Nullable private PayloadCompression payloadCompression;
 
   private RSocketServer() {}
 
@@ -202,6 +213,139 @@ public RSocketServer lease(Supplier<Leases<?>> supplier) {
     return this;
   }
 
+  /**
+   * Enable driving {@code KEEPALIVE} frames and timeout checks for all connections from a single
+   * coarse-grained timer shared in the JVM, instead of a periodic task scheduled for each
+   * connection. This reduces the memory footprint of each connection, and the scheduler load when
+   * many connections send {@code KEEPALIVE} frames every few seconds, at the cost of a tick
+   * precision of 10 milliseconds. Since the timer ticks every 10 milliseconds as long as any
+   * connection uses it, it costs more CPU than per connection tasks for a few connections or long
+   * keepalive intervals.
+   *
+   * <p>By default this is not enabled.
+   *
+   * @param enabled whether to use the shared keepalive timer
+   * @return the same instance for method chaining
+   * @since 1.1.1
+   */
+  public RSocketServer sharedKeepAliveTimer(boolean enabled) {
+    this.sharedKeepAliveTimer = enabled;
+    return this;
+  }
+
+  /**
+   * Enable admission control for {@code SETUP} frames, which bounds how many connection setups are
+   * processed concurrently and how fast they are started. Setups beyond the limits are queued for a
+   * bounded time and otherwise rejected with a {@link RejectedSetupException}, so that a storm of
+   * reconnecting clients does not degrade established connections.
+   *
+   * <p>The limits apply per {@link #bind(ServerTransport) bound} server, or per connection acceptor
+   * obtained from {@link #asConnectionAcceptor()}. {@code RESUME} frames are not subject to them.
+   *
+   * <p>By default this is not enabled.
+   *
+   * @param setupAdmission the admission limits to apply
+   * @return the same instance for method chaining
+   * @since 1.1.1
+   */
+  public RSocketServer setupAdmission(SetupAdmission setupAdmission) {
+    this.setupAdmission = Objects.requireNonNull(setupAdmission);
+    return this;
+  }
+
+  /**
+   * Bound the number of streams the server handles concurrently, per connection and for all
+   * connections together. Requests beyond the limits are answered right away with an {@code ERROR}
+   * frame of type {@code REJECTED}, before their payload is decoded or the responder {@code
+   * RSocket} is invoked, so that clients may retry them elsewhere or later. Fire-and-forget
+   * requests beyond the limits are dropped, as they have no stream to reject.
+   *
+   * <p>The server limit applies per {@link #bind(ServerTransport) bound} server, or per connection
+   * acceptor obtained from {@link #asConnectionAcceptor()}.
+   *
+   * <p>By default this is not limited.
+   *
+   * @param maxPerConnection the max number of concurrent streams of a connection
+   * @param maxPerServer the max number of concurrent streams of all connections together
+   * @return the same instance for method chaining
+   * @since 1.1.1
+   */
+  public RSocketServer maxInFlightStreams(int maxPerConnection, int maxPerServer) {
+    if (maxPerConnection <= 0 || maxPerServer <= 0) {
+      throw new IllegalArgumentException("maxInFlightStreams limits must be positive");
+    }
+    this.maxInFlightStreamsPerConnection = maxPerConnection;
+    this.maxInFlightStreamsPerServer = maxPerServer;
+    return this;
+  }
+
+  /**
+   * Enable a bounded intake of fire-and-forget requests. Each connection queues the requests it
+   * receives, up to the configured capacity, and hands them to the responder {@code RSocket} with a
+   * bounded concurrency, optionally in batches. Requests arriving at a full queue are dropped
+   * according to the {@link FireAndForgetIntake.DropPolicy} and counted in the given instance.
+   *
+   * <p>By default this is not enabled and fire-and-forget requests are handled as they arrive.
+   *
+   * @param fireAndForgetIntake the intake settings to apply
+   * @return the same instance for method chaining
+   * @since 1.1.1
+   */
+  public RSocketServer fireAndForgetIntake(FireAndForgetIntake fireAndForgetIntake) {
+    this.fireAndForgetIntake = Objects.requireNonNull(fireAndForgetIntake);
+    return this;
+  }
+
+  /**
+   * Enable the accounting of the memory that connections hold on to for inbound fragments being
+   * reassembled and for outbound frames, see {@link MemoryLimits}. A connection going past its
+   * budget is closed with a connection {@code ERROR} frame, and new requests are rejected while all
+   * connections together are over the global budget. The memory in use is exposed by the given
+   * instance.
+   *
+   * <p>By default this is not enabled.
+   *
+   * @param memoryLimits the budgets to apply
+   * @return the same instance for method chaining
+   * @since 1.1.1
+   */
+  public RSocketServer memoryLimits(MemoryLimits memoryLimits) {
+    this.memoryLimits = Objects.requireNonNull(memoryLimits);
+    return this;
+  }
+
+  /**
+   * Accept the offers of clients to compress the composite metadata of their requests with a
+   * dictionary of the metadata entries sent before. Offers of dictionaries larger than the given
+   * settings are declined, in which case the client sends metadata as is.
+   *
+   * <p>By default this is not enabled, and offers are ignored.
+   *
+   * @param metadataDictionary the largest dictionary settings to accept
+   * @return the same instance for method chaining
+   * @since 1.1.1
+   */
+  public RSocketServer metadataDictionary(MetadataDictionary metadataDictionary) {
+    this.metadataDictionary = Objects.requireNonNull(metadataDictionary);
+    return this;
+  }
+
+  /**
+   * Accept the offers of clients to compress the metadata and data of the frames exchanged with
+   * them. The first of the given compressors that the client offered is used, and offers without
+   * any of them are declined.
+   *
+   * <p>By default this is not enabled, and offers are ignored.
+   *
+   * @param payloadCompression the compression settings to accept
+   * @return the same instance for method chaining
+   * @since 1.1.1
+   */
+  public RSocketServer payloadCompression(PayloadCompression payloadCompression) {
+    this.payloadCompression = Objects.requireNonNull(payloadCompression);
+    return this;
+  }
+
   /**
    * When this is set, frames reassembler control maximum payload size which can be reassembled.
    *
@@ -288,12 +432,23 @@ public <T extends Closeable> Mono<T> bind(ServerTransport<T> transport) {
         new Supplier<Mono<T>>() {
           final ServerSetup serverSetup = serverSetup();
 
+          @Nullable final SetupAdmissionController admissionController = setupAdmissionController();
+
+          @Nullable final InFlightStreamLimiter streamLimiter = streamLimiter();
+
           @Override
           public Mono<T> get() {
             int maxFrameLength = transport.maxFrameLength();
             assertValidateSetup(maxFrameLength, maxInboundPayloadSize, mtu);
             return transport
-                .start(duplexConnection -> acceptor(serverSetup, duplexConnection, maxFrameLength))
+                .start(
+                    duplexConnection ->
+                        acceptor(
+                            serverSetup,
+                            admissionController,
+                            streamLimiter,
+                            duplexConnection,
+                            maxFrameLength))
                 .doOnNext(c -> c.onClose().doFinally(v -> serverSetup.dispose()).subscribe());
           }
         });
@@ -327,15 +482,39 @@ public ServerTransport.ConnectionAcceptor asConnectionAcceptor(int maxFrameLengt
     return new ServerTransport.ConnectionAcceptor() {
       private final ServerSetup serverSetup = serverSetup();
 
+      @Nullable
+      private final SetupAdmissionController admissionController = setupAdmissionController();
+
+      @Nullable private final InFlightStreamLimiter streamLimiter = streamLimiter();
+
       @Override
       public Mono<Void> apply(DuplexConnection connection) {
-        return acceptor(serverSetup, connection, maxFrameLength);
+        return acceptor(
+            serverSetup, admissionController, streamLimiter, connection, maxFrameLength);
       }
     };
   }
 
+  @Nullable
+  private SetupAdmissionController setupAdmissionController() {
+    return setupAdmission != null ? new SetupAdmissionController(setupAdmission) : null;
+  }
+
+  @Nullable
+  private InFlightStreamLimiter streamLimiter() {
+    if (maxInFlightStreamsPerConnection == Integer.MAX_VALUE
+        && maxInFlightStreamsPerServer == Integer.MAX_VALUE) {
+      return null;
+    }
+    return new InFlightStreamLimiter(maxInFlightStreamsPerConnection, maxInFlightStreamsPerServer);
+  }
+
   private Mono<Void> acceptor(
-      ServerSetup serverSetup, DuplexConnection sourceConnection, int maxFrameLength) {
+      ServerSetup serverSetup,
+      @Nullable SetupAdmissionController admissionController,
+      @Nullable InFlightStreamLimiter streamLimiter,
+      DuplexConnection sourceConnection,
+      int maxFrameLength) {
 
     final DuplexConnection interceptedConnection =
         interceptors.initConnection(DuplexConnectionInterceptor.Type.SOURCE, sourceConnection);
@@ -347,7 +526,13 @@ private Mono<Void> acceptor(
               final ByteBuf startFrame = tuple2.getT1();
               final DuplexConnection clientServerConnection = tuple2.getT2();
 
-              return accept(serverSetup, startFrame, clientServerConnection, maxFrameLength);
+              return accept(
+                  serverSetup,
+                  admissionController,
+                  streamLimiter,
+                  startFrame,
+                  clientServerConnection,
+                  maxFrameLength);
             });
   }
 
@@ -358,12 +543,35 @@ private Mono<Void> acceptResume(
 
   private Mono<Void> accept(
       ServerSetup serverSetup,
+      @Nullable SetupAdmissionController admissionController,
+      @Nullable InFlightStreamLimiter streamLimiter,
       ByteBuf startFrame,
       DuplexConnection clientServerConnection,
       int maxFrameLength) {
     switch (FrameHeaderCodec.frameType(startFrame)) {
       case SETUP:
-        return acceptSetup(serverSetup, startFrame, clientServerConnection, maxFrameLength);
+        if (admissionController != null) {
+          // the transport releases the frame once it is delivered, keep it while setup waits
+          startFrame.retain();
+          return admissionController
+              .admit(
+                  () ->
+                      acceptSetup(
+                          serverSetup,
+                          streamLimiter,
+                          startFrame,
+                          clientServerConnection,
+                          maxFrameLength))
+              .doFinally(signalType -> startFrame.release())
+              .onErrorResume(
+                  RejectedSetupException.class,
+                  e -> {
+                    serverSetup.sendError(clientServerConnection, e);
+                    return Mono.empty();
+                  });
+        }
+        return acceptSetup(
+            serverSetup, streamLimiter, startFrame, clientServerConnection, maxFrameLength);
       case RESUME:
         return acceptResume(serverSetup, startFrame, clientServerConnection);
       default:
@@ -376,6 +584,7 @@ private Mono<Void> accept(
 
   private Mono<Void> acceptSetup(
       ServerSetup serverSetup,
+      @Nullable InFlightStreamLimiter streamLimiter,
       ByteBuf setupFrame,
       DuplexConnection clientServerConnection,
       int maxFrameLength) {
@@ -394,14 +603,41 @@ private Mono<Void> acceptSetup(
       return Mono.empty();
     }
 
+    // leave room for the byte which payload compression adds to uncompressed frames
+    final int outboundMtu =
+        payloadCompression != null ? PayloadCompressionCodec.reserveMarker(mtu) : mtu;
+    final int outboundMaxFrameLength =
+        payloadCompression != null
+            ? PayloadCompressionCodec.reserveMarker(maxFrameLength)
+            : maxFrameLength;
+
     return serverSetup.acceptRSocketSetup(
         setupFrame,
         clientServerConnection,
         (keepAliveHandler, wrappedDuplexConnection) -> {
           ConnectionSetupPayload setupPayload =
               new DefaultConnectionSetupPayload(setupFrame.retain());
+          DuplexConnection inputConnection =
+              payloadCompression != null
+                  ? PayloadCompressionDuplexConnection.server(
+                      wrappedDuplexConnection, payloadCompression)
+                  : wrappedDuplexConnection;
+          if (metadataDictionary != null
+              && WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA
+                  .getString()
+                  .equals(setupPayload.metadataMimeType())) {
+            inputConnection =
+                MetadataDictionaryDuplexConnection.server(inputConnection, metadataDictionary);
+          }
+          final ConnectionMemoryAccountant memoryAccountant =
+              memoryLimits != null
+                  ? new ConnectionMemoryAccountant(memoryLimits, wrappedDuplexConnection)
+                  : null;
+          if (memoryAccountant != null) {
+            inputConnection = memoryAccountant.sampleOnSend(inputConnection);
+          }
           final ClientServerInputMultiplexer multiplexer =
-              new ClientServerInputMultiplexer(wrappedDuplexConnection, interceptors, false);
+              new ClientServerInputMultiplexer(inputConnection, interceptors, false);
 
           Leases<?> leases = leaseEnabled ? leasesSupplier.get() : null;
           RequesterLeaseHandler requesterLeaseHandler =
@@ -414,14 +650,17 @@ private Mono<Void> acceptSetup(
                   multiplexer.asServerConnection(),
                   payloadDecoder,
                   StreamIdSupplier.serverSupplier(),
-                  mtu,
-                  maxFrameLength,
+                  outboundMtu,
+                  outboundMaxFrameLength,
                   maxInboundPayloadSize,
                   setupPayload.keepAliveInterval(),
                   setupPayload.keepAliveMaxLifetime(),
                   keepAliveHandler,
                   interceptors::initRequesterRequestInterceptor,
-                  requesterLeaseHandler);
+                  requesterLeaseHandler,
+                  sharedKeepAliveTimer ? TimerWheel.shared() : null,
+                  null,
+                  memoryAccountant);
 
           RSocket wrappedRSocketRequester = interceptors.initRequester(rSocketRequester);
 
@@ -450,10 +689,13 @@ private Mono<Void> acceptSetup(
                             wrappedRSocketHandler,
                             payloadDecoder,
                             responderLeaseHandler,
-                            mtu,
-                            maxFrameLength,
+                            outboundMtu,
+                            outboundMaxFrameLength,
                             maxInboundPayloadSize,
-                            interceptors::initResponderRequestInterceptor);
+                            interceptors::initResponderRequestInterceptor,
+                            streamLimiter,
+                            fireAndForgetIntake,
+                            memoryAccountant);
                   })
               .doFinally(signalType -> setupPayload.release())
               .then();
@@ -466,11 +708,13 @@ private ServerSetup serverSetup() {
 
   ServerSetup createSetup() {
     return new ServerSetup.ResumableServerSetup(
-        new SessionManager(),
+        new SessionManager(resume.getSessionDuration()),
         resume.getSessionDuration(),
         resume.getStreamTimeout(),
         resume.getStoreFactory(SERVER_TAG),
-        resume.isCleanupStoreOnKeepAlive());
+        resume.isCleanupStoreOnKeepAlive(),
+        resume.getPositionAckBytes(),
+        resume.getPositionAckDelay());
   }
 
   private RSocketErrorException rejectedSetupError(Throwable err) {
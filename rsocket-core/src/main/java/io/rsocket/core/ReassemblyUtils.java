@@ -32,6 +32,7 @@
 import io.rsocket.frame.FrameLengthCodec;
 import io.rsocket.frame.FrameType;
 import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.internal.jfr.RSocketFlightRecorder;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import org.reactivestreams.Subscription;
 import reactor.core.CoreSubscriber;
@@ -208,7 +209,11 @@ static CompositeByteBuf addFollowingFrame(
     synchronized (frames) {
       if (frames.refCnt() > 0) {
         followingFrame.retain();
-        return frames.addComponent(true, followingFrame);
+        frames.addComponent(true, followingFrame);
+        if (!hasFollows) {
+          RSocketFlightRecorder.reassembled(frames);
+        }
+        return frames;
       } else {
         throw new IllegalReferenceCountException(0);
       }
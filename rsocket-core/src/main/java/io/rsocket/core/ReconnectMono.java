@@ -254,6 +254,9 @@ protected void doOnValueResolved(T value) {
     @Override
     protected void doOnDispose() {
       this.mainSubscriber.dispose();
+      if (this.parent.source instanceof Disposable) {
+        ((Disposable) this.parent.source).dispose();
+      }
     }
 
     @Override
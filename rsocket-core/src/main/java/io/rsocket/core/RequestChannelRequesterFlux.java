@@ -68,6 +68,10 @@ final class RequestChannelRequesterFlux extends Flux<Payload>
   static final AtomicLongFieldUpdater<RequestChannelRequesterFlux> STATE =
       AtomicLongFieldUpdater.newUpdater(RequestChannelRequesterFlux.class, "state");
 
+  volatile long requestNCredits;
+  static final AtomicLongFieldUpdater<RequestChannelRequesterFlux> REQUEST_N_CREDITS =
+      AtomicLongFieldUpdater.newUpdater(RequestChannelRequesterFlux.class, "requestNCredits");
+
   int streamId;
 
   Context cachedContext;
@@ -137,9 +141,8 @@ public final void request(long n) {
     if (hasRequested(previousState)) {
       if (isFirstFrameSent(previousState)
           && !isMaxAllowedRequestN(extractRequestN(previousState))) {
-        final int streamId = this.streamId;
-        final ByteBuf requestNFrame = RequestNFrameCodec.encode(this.allocator, streamId, n);
-        this.connection.sendFrame(streamId, requestNFrame);
+        RequestNUtils.sendRequestN(
+            REQUEST_N_CREDITS, this, n, this.streamId, this.allocator, this.connection);
       }
       return;
     }
@@ -239,6 +242,7 @@ void sendFirstPayload(Payload firstPayload, long initialRequestN) {
       requestInterceptor.onStart(streamId, FrameType.REQUEST_CHANNEL, firstPayload.metadata());
     }
 
+    RequestNUtils.addOutstanding(REQUEST_N_CREDITS, this, initialRequestN);
     try {
       sendReleasingPayload(
           streamId,
@@ -292,12 +296,14 @@ void sendFirstPayload(Payload firstPayload, long initialRequestN) {
 
     long requestN = extractRequestN(previousState);
     if (isMaxAllowedRequestN(requestN)) {
+      RequestNUtils.addOutstanding(REQUEST_N_CREDITS, this, requestN);
       final ByteBuf requestNFrame = RequestNFrameCodec.encode(allocator, streamId, requestN);
       connection.sendFrame(streamId, requestNFrame);
       return;
     }
 
     if (requestN > initialRequestN) {
+      RequestNUtils.addOutstanding(REQUEST_N_CREDITS, this, requestN - initialRequestN);
       final ByteBuf requestNFrame =
           RequestNFrameCodec.encode(allocator, streamId, requestN - initialRequestN);
       connection.sendFrame(streamId, requestNFrame);
@@ -569,6 +575,8 @@ public final void handlePayload(Payload value) {
         return;
       }
 
+      RequestNUtils.onPayloadReceived(
+          REQUEST_N_CREDITS, this, this.streamId, this.allocator, this.connection);
       this.inboundSubscriber.onNext(value);
     }
   }
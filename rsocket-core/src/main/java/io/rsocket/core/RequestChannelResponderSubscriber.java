@@ -73,6 +73,10 @@ final class RequestChannelResponderSubscriber extends Flux<Payload>
   static final AtomicLongFieldUpdater<RequestChannelResponderSubscriber> STATE =
       AtomicLongFieldUpdater.newUpdater(RequestChannelResponderSubscriber.class, "state");
 
+  volatile long requestNCredits;
+  static final AtomicLongFieldUpdater<RequestChannelResponderSubscriber> REQUEST_N_CREDITS =
+      AtomicLongFieldUpdater.newUpdater(RequestChannelResponderSubscriber.class, "requestNCredits");
+
   Payload firstPayload;
 
   Subscription outboundSubscription;
@@ -227,9 +231,8 @@ public void request(long n) {
     if (hasRequested(previousState)) {
       if (isFirstFrameSent(previousState)
           && !isMaxAllowedRequestN(StateUtils.extractRequestN(previousState))) {
-        final int streamId = this.streamId;
-        final ByteBuf requestNFrame = RequestNFrameCodec.encode(this.allocator, streamId, n);
-        this.connection.sendFrame(streamId, requestNFrame);
+        RequestNUtils.sendRequestN(
+            REQUEST_N_CREDITS, this, n, this.streamId, this.allocator, this.connection);
       }
       return;
     }
@@ -270,12 +273,14 @@ public void request(long n) {
     long requestN = StateUtils.extractRequestN(previousState);
     if (isMaxAllowedRequestN(requestN)) {
       final int streamId = this.streamId;
+      RequestNUtils.addOutstanding(REQUEST_N_CREDITS, this, requestN);
       final ByteBuf requestNFrame = RequestNFrameCodec.encode(allocator, streamId, requestN);
       this.connection.sendFrame(streamId, requestNFrame);
     } else {
       long firstRequestN = requestN - 1;
       if (firstRequestN > 0) {
         final int streamId = this.streamId;
+        RequestNUtils.addOutstanding(REQUEST_N_CREDITS, this, firstRequestN);
         final ByteBuf requestNFrame =
             RequestNFrameCodec.encode(this.allocator, streamId, firstRequestN);
         this.connection.sendFrame(streamId, requestNFrame);
@@ -416,6 +421,8 @@ final void handlePayload(Payload p) {
         return;
       }
 
+      RequestNUtils.onPayloadReceived(
+          REQUEST_N_CREDITS, this, this.streamId, this.allocator, this.connection);
       this.inboundSubscriber.onNext(p);
     }
   }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.DuplexConnection;
+import io.rsocket.frame.RequestNFrameCodec;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import reactor.core.publisher.Operators;
+
+class RequestNUtils {
+
+  /** Pending value once a {@code REQUEST_N} frame with unbounded demand has been sent. */
+  static final long UNBOUNDED_SENT = Long.MIN_VALUE;
+
+  static final long CREDITS_MASK = 0xFFFF_FFFFL;
+
+  /**
+   * Record credits granted to the remote peer by a frame sent directly, such as the initial request
+   * of a stream, so that further credits are batched against the window they open. Call before the
+   * frame is sent, since payloads may be received as soon as it is out.
+   *
+   * @param updater the updater of the field holding the credits of the stream
+   * @param instance the stream
+   * @param n the credits that the frame grants
+   */
+  static <T> void addOutstanding(AtomicLongFieldUpdater<T> updater, T instance, long n) {
+    for (; ; ) {
+      final long state = updater.get(instance);
+      if (state == UNBOUNDED_SENT) {
+        return;
+      }
+
+      final long outstanding = Operators.addCap(outstanding(state), n);
+      final long next =
+          outstanding >= Integer.MAX_VALUE ? UNBOUNDED_SENT : state(outstanding, pending(state));
+      if (updater.compareAndSet(instance, state, next)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Send the given credits as a {@code REQUEST_N} frame once enough of them have been batched.
+   *
+   * <p>The credits are held back while the remote peer still has more credits left than have been
+   * batched, i.e. until they make up at least half of the window of the stream, and then go out as
+   * a single frame carrying their sum. A consumer which requests a few elements at a time, such as
+   * {@code limitRate} with a low tide, therefore does not send a frame for each of them. The
+   * credits are sent as they are once they are unbounded, and further credits are not sent at all.
+   *
+   * @param updater the updater of the field holding the credits of the stream
+   * @param instance the stream
+   * @param n the credits to send
+   */
+  static <T> void sendRequestN(
+      AtomicLongFieldUpdater<T> updater,
+      T instance,
+      long n,
+      int streamId,
+      ByteBufAllocator allocator,
+      DuplexConnection connection) {
+    for (; ; ) {
+      final long state = updater.get(instance);
+      if (state == UNBOUNDED_SENT) {
+        return;
+      }
+
+      final long outstanding = outstanding(state);
+      final long pending = Operators.addCap(pending(state), n);
+      if (outstanding + pending >= Integer.MAX_VALUE) {
+        if (updater.compareAndSet(instance, state, UNBOUNDED_SENT)) {
+          connection.sendFrame(streamId, RequestNFrameCodec.encode(allocator, streamId, pending));
+          return;
+        }
+      } else if (pending >= outstanding) {
+        if (updater.compareAndSet(instance, state, state(outstanding + pending, 0))) {
+          connection.sendFrame(streamId, RequestNFrameCodec.encode(allocator, streamId, pending));
+          return;
+        }
+      } else if (updater.compareAndSet(instance, state, state(outstanding, pending))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Take the credit of a payload received on the stream, and send the batched credits if they now
+   * make up at least half of the window, so that the remote peer never runs out of credits while
+   * some are held back.
+   *
+   * @param updater the updater of the field holding the credits of the stream
+   * @param instance the stream
+   */
+  static <T> void onPayloadReceived(
+      AtomicLongFieldUpdater<T> updater,
+      T instance,
+      int streamId,
+      ByteBufAllocator allocator,
+      DuplexConnection connection) {
+    for (; ; ) {
+      final long state = updater.get(instance);
+      final long outstanding = outstanding(state);
+      if (state == UNBOUNDED_SENT || outstanding == 0) {
+        return;
+      }
+
+      final long pending = pending(state);
+      if (pending != 0 && pending >= outstanding - 1) {
+        if (updater.compareAndSet(instance, state, state(outstanding - 1 + pending, 0))) {
+          connection.sendFrame(streamId, RequestNFrameCodec.encode(allocator, streamId, pending));
+          return;
+        }
+      } else if (updater.compareAndSet(instance, state, state(outstanding - 1, pending))) {
+        return;
+      }
+    }
+  }
+
+  static long state(long outstanding, long pending) {
+    return outstanding << 32 | pending;
+  }
+
+  static long outstanding(long state) {
+    return state >>> 32;
+  }
+
+  static long pending(long state) {
+    return state & CREDITS_MASK;
+  }
+}
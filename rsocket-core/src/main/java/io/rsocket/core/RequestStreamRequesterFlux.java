@@ -27,8 +27,11 @@
 import io.netty.util.IllegalReferenceCountException;
 import io.rsocket.DuplexConnection;
 import io.rsocket.Payload;
+import io.rsocket.frame.ByteCreditFrameCodec;
 import io.rsocket.frame.CancelFrameCodec;
+import io.rsocket.frame.FrameHeaderCodec;
 import io.rsocket.frame.FrameType;
+import io.rsocket.frame.PayloadFrameCodec;
 import io.rsocket.frame.RequestNFrameCodec;
 import io.rsocket.frame.decoder.PayloadDecoder;
 import io.rsocket.plugins.RequestInterceptor;
@@ -60,11 +63,19 @@ final class RequestStreamRequesterFlux extends Flux<Payload>
   static final AtomicLongFieldUpdater<RequestStreamRequesterFlux> STATE =
       AtomicLongFieldUpdater.newUpdater(RequestStreamRequesterFlux.class, "state");
 
+  volatile long requestNCredits;
+  static final AtomicLongFieldUpdater<RequestStreamRequesterFlux> REQUEST_N_CREDITS =
+      AtomicLongFieldUpdater.newUpdater(RequestStreamRequesterFlux.class, "requestNCredits");
+
   int streamId;
   CoreSubscriber<? super Payload> inboundSubscriber;
   CompositeByteBuf frames;
   boolean done;
 
+  // byte credits granted to the responder, 0 if byte-credit flow control is disabled
+  long byteWindow;
+  long receivedBytes;
+
   RequestStreamRequesterFlux(Payload payload, RequesterResponderSupport requesterResponderSupport) {
     this.allocator = requesterResponderSupport.getAllocator();
     this.payload = payload;
@@ -140,9 +151,8 @@ public final void request(long n) {
     if (hasRequested(previousState)) {
       if (isFirstFrameSent(previousState)
           && !isMaxAllowedRequestN(extractRequestN(previousState))) {
-        final int streamId = this.streamId;
-        final ByteBuf requestNFrame = RequestNFrameCodec.encode(this.allocator, streamId, n);
-        this.connection.sendFrame(streamId, requestNFrame);
+        RequestNUtils.sendRequestN(
+            REQUEST_N_CREDITS, this, n, this.streamId, this.allocator, this.connection);
       }
       return;
     }
@@ -155,6 +165,10 @@ void sendFirstPayload(Payload payload, long initialRequestN) {
     final RequesterResponderSupport sm = this.requesterResponderSupport;
     final DuplexConnection connection = this.connection;
     final ByteBufAllocator allocator = this.allocator;
+    final ByteCreditBudget byteCreditBudget = sm.getByteCreditBudget();
+    if (byteCreditBudget != null) {
+      this.byteWindow = byteCreditBudget.reserve();
+    }
 
     final int streamId;
     try {
@@ -162,6 +176,9 @@ void sendFirstPayload(Payload payload, long initialRequestN) {
       this.streamId = streamId;
     } catch (Throwable t) {
       this.done = true;
+      if (byteCreditBudget != null) {
+        byteCreditBudget.release(this.byteWindow);
+      }
       final long previousState = markTerminated(STATE, this);
 
       final Throwable ut = Exceptions.unwrap(t);
@@ -183,6 +200,7 @@ void sendFirstPayload(Payload payload, long initialRequestN) {
       requestInterceptor.onStart(streamId, FrameType.REQUEST_STREAM, payload.metadata());
     }
 
+    RequestNUtils.addOutstanding(REQUEST_N_CREDITS, this, initialRequestN);
     try {
       sendReleasingPayload(
           streamId,
@@ -207,6 +225,11 @@ void sendFirstPayload(Payload payload, long initialRequestN) {
       return;
     }
 
+    final long byteWindow = this.byteWindow;
+    if (byteWindow > 0) {
+      connection.sendFrame(streamId, ByteCreditFrameCodec.encode(allocator, streamId, byteWindow));
+    }
+
     long previousState = markFirstFrameSent(STATE, this);
     if (isTerminated(previousState)) {
       if (this.done) {
@@ -230,12 +253,14 @@ void sendFirstPayload(Payload payload, long initialRequestN) {
 
     long requestN = extractRequestN(previousState);
     if (isMaxAllowedRequestN(requestN)) {
+      RequestNUtils.addOutstanding(REQUEST_N_CREDITS, this, requestN);
       final ByteBuf requestNFrame = RequestNFrameCodec.encode(allocator, streamId, requestN);
       connection.sendFrame(streamId, requestNFrame);
       return;
     }
 
     if (requestN > initialRequestN) {
+      RequestNUtils.addOutstanding(REQUEST_N_CREDITS, this, requestN - initialRequestN);
       final ByteBuf requestNFrame =
           RequestNFrameCodec.encode(allocator, streamId, requestN - initialRequestN);
       connection.sendFrame(streamId, requestNFrame);
@@ -274,6 +299,8 @@ public final void handlePayload(Payload p) {
       return;
     }
 
+    RequestNUtils.onPayloadReceived(
+        REQUEST_N_CREDITS, this, this.streamId, this.allocator, this.connection);
     this.inboundSubscriber.onNext(p);
   }
 
@@ -331,6 +358,10 @@ public final void handleError(Throwable cause) {
 
   @Override
   public void handleNext(ByteBuf frame, boolean hasFollows, boolean isLastPayload) {
+    if (this.byteWindow > 0 && !isLastPayload) {
+      replenishByteCredits(frame);
+    }
+
     handleNextSupport(
         STATE,
         this,
@@ -344,6 +375,22 @@ public void handleNext(ByteBuf frame, boolean hasFollows, boolean isLastPayload)
         isLastPayload);
   }
 
+  void replenishByteCredits(ByteBuf frame) {
+    long receivedBytes = this.receivedBytes + PayloadFrameCodec.data(frame).readableBytes();
+    if (FrameHeaderCodec.hasMetadata(frame)) {
+      receivedBytes += PayloadFrameCodec.metadata(frame).readableBytes();
+    }
+
+    // grants the received bytes back in batches of half a window to limit the number of frames
+    if (receivedBytes >= Math.max(1, this.byteWindow >> 1)) {
+      final int streamId = this.streamId;
+      this.connection.sendFrame(
+          streamId, ByteCreditFrameCodec.encode(this.allocator, streamId, receivedBytes));
+      receivedBytes = 0;
+    }
+    this.receivedBytes = receivedBytes;
+  }
+
   @Override
   public CompositeByteBuf getFrames() {
     return this.frames;
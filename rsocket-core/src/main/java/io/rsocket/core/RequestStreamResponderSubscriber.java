@@ -62,6 +62,8 @@
 
   final RSocket handler;
 
+  @Nullable final ByteCreditGate byteCreditGate;
+
   volatile Subscription s;
   static final AtomicReferenceFieldUpdater<RequestStreamResponderSubscriber, Subscription> S =
       AtomicReferenceFieldUpdater.newUpdater(
@@ -87,6 +89,8 @@ public RequestStreamResponderSubscriber(
     this.payloadDecoder = requesterResponderSupport.getPayloadDecoder();
     this.requestInterceptor = requesterResponderSupport.getRequestInterceptor();
     this.handler = handler;
+    this.byteCreditGate =
+        requesterResponderSupport.isByteCreditEnabled() ? new ByteCreditGate() : null;
     this.frames =
         ReassemblyUtils.addFollowingFrame(
             allocator.compositeBuffer(), firstFrame, true, maxInboundPayloadSize);
@@ -103,6 +107,8 @@ public RequestStreamResponderSubscriber(
     this.requesterResponderSupport = requesterResponderSupport;
     this.connection = requesterResponderSupport.getDuplexConnection();
     this.requestInterceptor = requesterResponderSupport.getRequestInterceptor();
+    this.byteCreditGate =
+        requesterResponderSupport.isByteCreditEnabled() ? new ByteCreditGate() : null;
 
     this.payloadDecoder = null;
     this.handler = null;
@@ -114,7 +120,12 @@ public void onSubscribe(Subscription subscription) {
     if (Operators.validate(this.s, subscription)) {
       final long firstRequest = this.firstRequest;
       S.lazySet(this, subscription);
-      subscription.request(firstRequest);
+      final ByteCreditGate byteCreditGate = this.byteCreditGate;
+      final long n =
+          byteCreditGate == null ? firstRequest : byteCreditGate.onRequestN(firstRequest);
+      if (n > 0) {
+        subscription.request(n);
+      }
     }
   }
 
@@ -169,6 +180,12 @@ public void onNext(Payload p) {
       return;
     }
 
+    final ByteCreditGate byteCreditGate = this.byteCreditGate;
+    final long payloadBytes =
+        byteCreditGate == null
+            ? 0
+            : p.data().readableBytes() + (p.hasMetadata() ? p.metadata().readableBytes() : 0);
+
     try {
       sendReleasingPayload(streamId, FrameType.NEXT, mtu, p, sender, allocator, false);
     } catch (Throwable t) {
@@ -180,6 +197,14 @@ public void onNext(Payload p) {
       if (requestInterceptor != null) {
         requestInterceptor.onTerminate(streamId, FrameType.REQUEST_STREAM, t);
       }
+      return;
+    }
+
+    if (byteCreditGate != null) {
+      final long n = byteCreditGate.onSent(payloadBytes);
+      if (n > 0) {
+        this.s.request(n);
+      }
     }
   }
 
@@ -259,7 +284,30 @@ public void onComplete() {
 
   @Override
   public void handleRequestN(long n) {
-    this.s.request(n);
+    final ByteCreditGate byteCreditGate = this.byteCreditGate;
+    if (byteCreditGate == null) {
+      this.s.request(n);
+      return;
+    }
+
+    final long r = byteCreditGate.onRequestN(n);
+    if (r > 0) {
+      this.s.request(r);
+    }
+  }
+
+  @Override
+  public void handleByteCredit(long credits) {
+    final ByteCreditGate byteCreditGate = this.byteCreditGate;
+    if (byteCreditGate == null) {
+      return;
+    }
+
+    final long n = byteCreditGate.onCredits(credits);
+    final Subscription s = this.s;
+    if (n > 0 && s != null) {
+      s.request(n);
+    }
   }
 
   @Override
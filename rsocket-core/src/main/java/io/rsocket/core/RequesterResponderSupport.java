@@ -6,6 +6,7 @@
 import io.rsocket.DuplexConnection;
 import io.rsocket.RSocket;
 import io.rsocket.frame.decoder.PayloadDecoder;
+import io.rsocket.internal.jfr.RSocketFlightRecorder;
 import io.rsocket.plugins.RequestInterceptor;
 import java.util.function.Function;
 import reactor.util.annotation.Nullable;
@@ -23,6 +24,9 @@ class RequesterResponderSupport {
   @Nullable final StreamIdSupplier streamIdSupplier;
   final IntObjectMap<FrameHandler> activeStreams;
 
+  // flight recorder events of active streams, guarded by this and only allocated once recorded
+  @Nullable IntObjectMap<Object> streamEvents;
+
   public RequesterResponderSupport(
       int mtu,
       int maxFrameLength,
@@ -41,6 +45,19 @@ public RequesterResponderSupport(
     this.streamIdSupplier = streamIdSupplier;
     this.connection = connection;
     this.requestInterceptor = requestInterceptorFunction.apply((RSocket) this);
+
+    // each side has a single requester per connection
+    if (streamIdSupplier != null) {
+      final Object connectionEvent = RSocketFlightRecorder.beginConnection(connection);
+      if (connectionEvent != null) {
+        connection
+            .onClose()
+            .subscribe(
+                null,
+                e -> RSocketFlightRecorder.endConnection(connectionEvent),
+                () -> RSocketFlightRecorder.endConnection(connectionEvent));
+      }
+    }
   }
 
   public int getMtu() {
@@ -72,6 +89,17 @@ public RequestInterceptor getRequestInterceptor() {
     return requestInterceptor;
   }
 
+  /** The budget of byte credits to grant to inbound streams, if byte credits are enabled. */
+  @Nullable
+  ByteCreditBudget getByteCreditBudget() {
+    return null;
+  }
+
+  /** Whether the remote peer grants byte credits to the outbound streams it initiated. */
+  boolean isByteCreditEnabled() {
+    return false;
+  }
+
   /**
    * Issues next {@code streamId}
    *
@@ -104,6 +132,7 @@ public int addAndGetNextStreamId(FrameHandler frameHandler) {
         final int streamId = streamIdSupplier.nextStreamId(activeStreams);
 
         activeStreams.put(streamId, frameHandler);
+        onStreamStarted(streamId, frameHandler);
 
         return streamId;
       }
@@ -132,6 +161,33 @@ public synchronized FrameHandler get(int streamId) {
    *     instance equals to the passed one
    */
   public synchronized boolean remove(int streamId, FrameHandler frameHandler) {
-    return this.activeStreams.remove(streamId, frameHandler);
+    if (this.activeStreams.remove(streamId, frameHandler)) {
+      final IntObjectMap<Object> streamEvents = this.streamEvents;
+      if (streamEvents != null) {
+        RSocketFlightRecorder.endStream(streamEvents.remove(streamId));
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Begins the flight recorder event of a stream added to the active streams, must be called while
+   * holding the lock of this instance.
+   *
+   * @param streamId of the added stream
+   * @param frameHandler of the added stream
+   */
+  void onStreamStarted(int streamId, FrameHandler frameHandler) {
+    final Object streamEvent =
+        RSocketFlightRecorder.beginStream(streamId, frameHandler, streamIdSupplier != null);
+    if (streamEvent != null) {
+      IntObjectMap<Object> streamEvents = this.streamEvents;
+      if (streamEvents == null) {
+        streamEvents = new IntObjectHashMap<>();
+        this.streamEvents = streamEvents;
+      }
+      streamEvents.put(streamId, streamEvent);
+    }
   }
 }
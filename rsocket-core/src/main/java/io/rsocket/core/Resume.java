@@ -25,6 +25,7 @@
 import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.util.annotation.Nullable;
 import reactor.util.retry.Retry;
 
 /**
@@ -39,6 +40,8 @@ public class Resume {
 
   /* Storage */
   private boolean cleanupStoreOnKeepAlive;
+  private long positionAckBytes;
+  @Nullable private Duration positionAckDelay;
   private Function<? super ByteBuf, ? extends ResumableFramesStore> storeFactory;
   private Duration streamTimeout = Duration.ofSeconds(10);
 
@@ -81,6 +84,32 @@ public Resume cleanupStoreOnKeepAlive() {
     return this;
   }
 
+  /**
+   * Acknowledge the position of received frames to the other side as soon as the given number of
+   * bytes has been received, or at the latest after the given delay, rather than only with the
+   * next {@code KEEPALIVE} frame. On high-throughput connections this lets the other side release
+   * frames from its {@link #storeFactory(Function) store} without waiting for a full keepalive
+   * interval, provided that it has {@link #cleanupStoreOnKeepAlive()} enabled.
+   *
+   * <p>By default this is disabled and positions are acknowledged only with {@code KEEPALIVE}
+   * frames sent on the keepalive interval.
+   *
+   * @param bytesThreshold the number of received bytes that triggers an acknowledgement, or {@code
+   *     0} to only acknowledge after the delay
+   * @param maxDelay the maximum delay of an acknowledgement, or {@code null} to only acknowledge
+   *     when the threshold is reached
+   * @return the same instance for method chaining
+   * @since 1.1.1
+   */
+  public Resume positionAck(long bytesThreshold, @Nullable Duration maxDelay) {
+    if (bytesThreshold < 0) {
+      throw new IllegalArgumentException("bytesThreshold must not be negative");
+    }
+    this.positionAckBytes = bytesThreshold;
+    this.positionAckDelay = maxDelay;
+    return this;
+  }
+
   /**
    * Configure a factory to create the storage for buffering (or persisting) a window of frames that
    * may need to be sent again to resume after a dropped connection.
@@ -157,6 +186,15 @@ boolean isCleanupStoreOnKeepAlive() {
     return cleanupStoreOnKeepAlive;
   }
 
+  long getPositionAckBytes() {
+    return positionAckBytes;
+  }
+
+  @Nullable
+  Duration getPositionAckDelay() {
+    return positionAckDelay;
+  }
+
   Function<? super ByteBuf, ? extends ResumableFramesStore> getStoreFactory(String tag) {
     return storeFactory != null
         ? storeFactory
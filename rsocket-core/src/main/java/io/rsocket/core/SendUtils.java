@@ -33,6 +33,7 @@
 import io.rsocket.frame.RequestFireAndForgetFrameCodec;
 import io.rsocket.frame.RequestResponseFrameCodec;
 import io.rsocket.frame.RequestStreamFrameCodec;
+import io.rsocket.internal.jfr.RSocketFlightRecorder;
 import java.util.function.Consumer;
 import reactor.core.publisher.Operators;
 import reactor.util.context.Context;
@@ -74,6 +75,12 @@ static void sendReleasingPayload(
     if (fragmentable) {
       final ByteBuf slicedData = data.slice();
       final ByteBuf slicedMetadata = hasMetadata ? metadata.slice() : Unpooled.EMPTY_BUFFER;
+      final Object fragmentationEvent =
+          RSocketFlightRecorder.beginFragmentation(
+              streamId,
+              frameType,
+              mtu,
+              slicedData.readableBytes() + slicedMetadata.readableBytes());
 
       final ByteBuf first;
       try {
@@ -86,6 +93,7 @@ static void sendReleasingPayload(
       }
 
       connection.sendFrame(streamId, first);
+      int fragments = 1;
 
       boolean complete = frameType == FrameType.NEXT_COMPLETE;
       while (slicedData.isReadable() || slicedMetadata.isReadable()) {
@@ -99,7 +107,9 @@ static void sendReleasingPayload(
           throw e;
         }
         connection.sendFrame(streamId, following);
+        fragments++;
       }
+      RSocketFlightRecorder.endFragmentation(fragmentationEvent, fragments);
 
       try {
         payload.release();
@@ -190,6 +200,12 @@ static void sendReleasingPayload(
     if (fragmentable) {
       final ByteBuf slicedData = data.slice();
       final ByteBuf slicedMetadata = hasMetadata ? metadata.slice() : Unpooled.EMPTY_BUFFER;
+      final Object fragmentationEvent =
+          RSocketFlightRecorder.beginFragmentation(
+              streamId,
+              frameType,
+              mtu,
+              slicedData.readableBytes() + slicedMetadata.readableBytes());
 
       final ByteBuf first;
       try {
@@ -209,6 +225,7 @@ static void sendReleasingPayload(
       }
 
       connection.sendFrame(streamId, first);
+      int fragments = 1;
 
       while (slicedData.isReadable() || slicedMetadata.isReadable()) {
         final ByteBuf following;
@@ -221,7 +238,9 @@ static void sendReleasingPayload(
           throw e;
         }
         connection.sendFrame(streamId, following);
+        fragments++;
       }
+      RSocketFlightRecorder.endFragmentation(fragmentationEvent, fragments);
 
       try {
         payload.release();
@@ -32,6 +32,7 @@
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
 import reactor.util.function.Tuple2;
 
 abstract class ServerSetup {
@@ -84,18 +85,24 @@ static class ResumableServerSetup extends ServerSetup {
     private final Duration resumeStreamTimeout;
     private final Function<? super ByteBuf, ? extends ResumableFramesStore> resumeStoreFactory;
     private final boolean cleanupStoreOnKeepAlive;
+    private final long positionAckBytes;
+    @Nullable private final Duration positionAckDelay;
 
     ResumableServerSetup(
         SessionManager sessionManager,
         Duration resumeSessionDuration,
         Duration resumeStreamTimeout,
         Function<? super ByteBuf, ? extends ResumableFramesStore> resumeStoreFactory,
-        boolean cleanupStoreOnKeepAlive) {
+        boolean cleanupStoreOnKeepAlive,
+        long positionAckBytes,
+        @Nullable Duration positionAckDelay) {
       this.sessionManager = sessionManager;
       this.resumeSessionDuration = resumeSessionDuration;
       this.resumeStreamTimeout = resumeStreamTimeout;
       this.resumeStoreFactory = resumeStoreFactory;
       this.cleanupStoreOnKeepAlive = cleanupStoreOnKeepAlive;
+      this.positionAckBytes = positionAckBytes;
+      this.positionAckDelay = positionAckDelay;
     }
 
     @Override
@@ -123,7 +130,11 @@ public Mono<Void> acceptRSocketSetup(
 
         return then.apply(
             new ResumableKeepAliveHandler(
-                resumableDuplexConnection, serverRSocketSession, serverRSocketSession),
+                resumableDuplexConnection,
+                serverRSocketSession,
+                serverRSocketSession,
+                positionAckBytes,
+                positionAckDelay),
             resumableDuplexConnection);
       } else {
         return then.apply(new DefaultKeepAliveHandler(duplexConnection), duplexConnection);
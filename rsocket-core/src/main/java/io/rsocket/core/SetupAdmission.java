@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.rsocket.SocketAcceptor;
+import io.rsocket.exceptions.RejectedSetupException;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Simple holder of configuration settings for admission control of {@code SETUP} frames in an
+ * {@link RSocketServer}. It bounds the number of setups, i.e. invocations of the {@link
+ * SocketAcceptor}, that are processed concurrently and the rate at which they are started, so that
+ * a storm of reconnecting clients does not compete for the event loops with the traffic of
+ * established connections. Setups that exceed the limits wait in a bounded queue for a bounded
+ * time, and are rejected with a {@link RejectedSetupException} once the queue is full or the time
+ * is up, which the clients may treat as a signal to back off.
+ *
+ * @since 1.1.1
+ */
+public class SetupAdmission {
+
+  private int maxConcurrentSetups = Integer.MAX_VALUE;
+  private int maxSetupsPerSecond = 0;
+  private int maxPendingSetups = 1024;
+  private Duration maxPendingTime = Duration.ofSeconds(5);
+
+  public SetupAdmission() {}
+
+  /**
+   * The maximum number of setups that are processed concurrently.
+   *
+   * <p>By default this is not limited.
+   *
+   * @param maxConcurrentSetups the max number of concurrent setups
+   * @return the same instance for method chaining
+   */
+  public SetupAdmission maxConcurrentSetups(int maxConcurrentSetups) {
+    if (maxConcurrentSetups <= 0) {
+      throw new IllegalArgumentException("maxConcurrentSetups must be positive");
+    }
+    this.maxConcurrentSetups = maxConcurrentSetups;
+    return this;
+  }
+
+  /**
+   * The maximum number of setups started per second. Setups are admitted evenly over time, with
+   * bursts of up to one second worth of setups.
+   *
+   * <p>By default this is not limited.
+   *
+   * @param maxSetupsPerSecond the max number of setups per second, or {@code 0} for no limit
+   * @return the same instance for method chaining
+   */
+  public SetupAdmission maxSetupsPerSecond(int maxSetupsPerSecond) {
+    if (maxSetupsPerSecond < 0) {
+      throw new IllegalArgumentException("maxSetupsPerSecond must not be negative");
+    }
+    this.maxSetupsPerSecond = maxSetupsPerSecond;
+    return this;
+  }
+
+  /**
+   * The maximum number of setups waiting to be admitted, and how long each of them may wait before
+   * it is rejected.
+   *
+   * <p>By default up to 1024 setups wait for up to 5 seconds.
+   *
+   * @param maxPendingSetups the max number of waiting setups, or {@code 0} to reject right away
+   * @param maxPendingTime the max time a setup may wait
+   * @return the same instance for method chaining
+   */
+  public SetupAdmission pending(int maxPendingSetups, Duration maxPendingTime) {
+    if (maxPendingSetups < 0) {
+      throw new IllegalArgumentException("maxPendingSetups must not be negative");
+    }
+    this.maxPendingSetups = maxPendingSetups;
+    this.maxPendingTime = Objects.requireNonNull(maxPendingTime);
+    return this;
+  }
+
+  // Package private accessors
+
+  int getMaxConcurrentSetups() {
+    return maxConcurrentSetups;
+  }
+
+  int getMaxSetupsPerSecond() {
+    return maxSetupsPerSecond;
+  }
+
+  int getMaxPendingSetups() {
+    return maxPendingSetups;
+  }
+
+  Duration getMaxPendingTime() {
+    return maxPendingTime;
+  }
+}
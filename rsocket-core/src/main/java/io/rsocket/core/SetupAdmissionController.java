@@ -0,0 +1,221 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.core;
+
+import io.rsocket.exceptions.RejectedSetupException;
+import io.rsocket.internal.TimerWheel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Enforces the limits of a {@link SetupAdmission} for all connections accepted by one {@link
+ * RSocketServer} connection acceptor. Concurrency is bounded with a counter of permits and the rate
+ * with a token bucket, waiting setups are kept in a FIFO queue and their deadlines are tracked on
+ * a {@link TimerWheel}.
+ */
+final class SetupAdmissionController {
+
+  final int maxConcurrentSetups;
+  final double tokensPerMilli;
+  final double maxTokens;
+  final int maxPendingSetups;
+  final long maxPendingMillis;
+  final Scheduler clock;
+  final TimerWheel timerWheel;
+  final DrainTask drainTask = new DrainTask();
+
+  // guarded by this
+  final ArrayDeque<Pending> pending = new ArrayDeque<>();
+  int active;
+  double tokens;
+  long lastRefillMillis;
+
+  SetupAdmissionController(SetupAdmission admission) {
+    this(admission, Schedulers.parallel(), TimerWheel.shared());
+  }
+
+  SetupAdmissionController(SetupAdmission admission, Scheduler clock, TimerWheel timerWheel) {
+    final int maxSetupsPerSecond = admission.getMaxSetupsPerSecond();
+    this.maxConcurrentSetups = admission.getMaxConcurrentSetups();
+    this.tokensPerMilli = maxSetupsPerSecond > 0 ? maxSetupsPerSecond / 1000d : 0;
+    this.maxTokens = Math.max(1, maxSetupsPerSecond);
+    this.maxPendingSetups = admission.getMaxPendingSetups();
+    this.maxPendingMillis = admission.getMaxPendingTime().toMillis();
+    this.clock = clock;
+    this.timerWheel = timerWheel;
+    this.tokens = maxTokens;
+    this.lastRefillMillis = clock.now(TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Run the given setup once it is admitted. The returned {@link Mono} fails with a {@link
+   * RejectedSetupException} if the setup is rejected instead.
+   */
+  Mono<Void> admit(Supplier<Mono<Void>> setup) {
+    return Mono.<Pending>create(this::onSetup)
+        .flatMap(
+            admitted ->
+                start(admitted)
+                    ? Mono.defer(setup).doFinally(signalType -> release())
+                    : Mono.empty());
+  }
+
+  void onSetup(MonoSink<Pending> sink) {
+    final Pending pending = new Pending(sink);
+    // releases the permit of a setup which is cancelled once admitted but before it starts
+    sink.onCancel(() -> cancel(pending));
+    synchronized (this) {
+      if (pending.cancelled) {
+        return;
+      } else if (this.pending.isEmpty() && tryAcquire()) {
+        pending.admitted = true;
+      } else if (this.pending.size() < maxPendingSetups) {
+        this.pending.offer(pending);
+        timerWheel.schedule(pending, maxPendingMillis);
+        scheduleDrain();
+        return;
+      } else {
+        sink.error(new RejectedSetupException("too many pending setups"));
+        return;
+      }
+    }
+
+    sink.success(pending);
+  }
+
+  /** Hand the permit of an admitted setup over to it, unless it was cancelled in the meantime. */
+  synchronized boolean start(Pending pending) {
+    if (pending.cancelled) {
+      return false;
+    }
+    pending.started = true;
+    return true;
+  }
+
+  void release() {
+    synchronized (this) {
+      active--;
+    }
+    drain();
+  }
+
+  void drain() {
+    List<Pending> admitted = null;
+    synchronized (this) {
+      while (!pending.isEmpty() && tryAcquire()) {
+        final Pending next = pending.poll();
+        next.admitted = true;
+        timerWheel.cancel(next);
+        if (admitted == null) {
+          admitted = new ArrayList<>();
+        }
+        admitted.add(next);
+      }
+      if (!pending.isEmpty()) {
+        scheduleDrain();
+      }
+    }
+
+    if (admitted != null) {
+      for (Pending next : admitted) {
+        next.sink.success(next);
+      }
+    }
+  }
+
+  boolean tryAcquire() {
+    if (active >= maxConcurrentSetups) {
+      return false;
+    }
+    if (tokensPerMilli > 0) {
+      final long now = clock.now(TimeUnit.MILLISECONDS);
+      tokens = Math.min(maxTokens, tokens + (now - lastRefillMillis) * tokensPerMilli);
+      lastRefillMillis = now;
+      if (tokens < 1) {
+        return false;
+      }
+      tokens--;
+    }
+    active++;
+    return true;
+  }
+
+  /** Schedule a drain for when the next token is available, if the rate is what blocks setups. */
+  void scheduleDrain() {
+    if (tokensPerMilli > 0 && active < maxConcurrentSetups && !drainTask.isScheduled()) {
+      final long delayMillis = (long) Math.ceil((1 - tokens) / tokensPerMilli);
+      timerWheel.schedule(drainTask, Math.max(1, delayMillis));
+    }
+  }
+
+  void cancel(Pending pending) {
+    final boolean queued;
+    final boolean release;
+    synchronized (this) {
+      pending.cancelled = true;
+      queued = this.pending.remove(pending);
+      release = pending.admitted && !pending.started;
+    }
+    if (queued) {
+      timerWheel.cancel(pending);
+    } else if (release) {
+      release();
+    }
+  }
+
+  void expire(Pending pending) {
+    synchronized (this) {
+      if (!this.pending.remove(pending)) {
+        return;
+      }
+    }
+    pending.sink.error(new RejectedSetupException("setup was not admitted in time"));
+  }
+
+  final class Pending extends TimerWheel.Task {
+
+    final MonoSink<Pending> sink;
+
+    // guarded by the controller
+    boolean admitted;
+    boolean started;
+    boolean cancelled;
+
+    Pending(MonoSink<Pending> sink) {
+      this.sink = sink;
+    }
+
+    @Override
+    public void run() {
+      expire(this);
+    }
+  }
+
+  final class DrainTask extends TimerWheel.Task {
+
+    @Override
+    public void run() {
+      drain();
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.core;
+
+import io.rsocket.RSocket;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.CoreSubscriber;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Source for {@link ReconnectMono} that keeps a spare, already set up {@link RSocket} in standby.
+ * When the active {@code RSocket} is lost, the next subscriber is handed the spare immediately
+ * rather than waiting for a connect and setup round-trip, and a new spare is connected in the
+ * background. Replenishing is delayed by a random amount between half and one and a half times the
+ * configured delay, so that a fleet of clients does not reconnect to the server in lockstep.
+ */
+final class WarmStandbyMono extends Mono<RSocket> implements Disposable {
+
+  static final Logger logger = LoggerFactory.getLogger(WarmStandbyMono.class);
+
+  final Mono<RSocket> source;
+  final long replenishDelayMillis;
+  final Scheduler scheduler;
+
+  volatile RSocket standby;
+
+  static final AtomicReferenceFieldUpdater<WarmStandbyMono, RSocket> STANDBY =
+      AtomicReferenceFieldUpdater.newUpdater(WarmStandbyMono.class, RSocket.class, "standby");
+
+  volatile int replenishing;
+
+  static final AtomicIntegerFieldUpdater<WarmStandbyMono> REPLENISHING =
+      AtomicIntegerFieldUpdater.newUpdater(WarmStandbyMono.class, "replenishing");
+
+  volatile boolean disposed;
+
+  WarmStandbyMono(Mono<RSocket> source, Duration replenishDelay) {
+    this(source, replenishDelay, Schedulers.parallel());
+  }
+
+  WarmStandbyMono(Mono<RSocket> source, Duration replenishDelay, Scheduler scheduler) {
+    this.source = source;
+    this.replenishDelayMillis = replenishDelay.toMillis();
+    this.scheduler = scheduler;
+  }
+
+  @Override
+  public void subscribe(CoreSubscriber<? super RSocket> actual) {
+    final RSocket standby = STANDBY.getAndSet(this, null);
+    if (standby != null && !standby.isDisposed()) {
+      logger.debug("Swapping in standby RSocket {}", standby);
+      replenish();
+      actual.onSubscribe(Operators.scalarSubscription(actual, standby));
+      return;
+    }
+
+    source.doOnSuccess(__ -> replenish()).subscribe(actual);
+  }
+
+  /** Return the spare {@link RSocket}, if there is one. */
+  @Nullable
+  RSocket standby() {
+    return standby;
+  }
+
+  void replenish() {
+    if (disposed || standby != null || !REPLENISHING.compareAndSet(this, 0, 1)) {
+      return;
+    }
+
+    final long delayMillis =
+        replenishDelayMillis / 2 + ThreadLocalRandom.current().nextLong(replenishDelayMillis + 1);
+
+    Mono.delay(Duration.ofMillis(delayMillis), scheduler)
+        .then(source)
+        .subscribe(this::onStandbyConnected, this::onStandbyError);
+  }
+
+  void onStandbyConnected(RSocket rSocket) {
+    final boolean stored = STANDBY.compareAndSet(this, null, rSocket);
+    REPLENISHING.set(this, 0);
+    if (!stored) {
+      rSocket.dispose();
+      return;
+    }
+    if (disposed && STANDBY.compareAndSet(this, rSocket, null)) {
+      rSocket.dispose();
+      return;
+    }
+    logger.debug("Standby RSocket {} is ready", rSocket);
+    rSocket
+        .onClose()
+        .subscribe(null, __ -> onStandbyClosed(rSocket), () -> onStandbyClosed(rSocket));
+  }
+
+  void onStandbyError(Throwable t) {
+    // the source has exhausted its retries, try again on the next swap
+    REPLENISHING.set(this, 0);
+    logger.debug("Failed to connect standby RSocket", t);
+  }
+
+  void onStandbyClosed(RSocket rSocket) {
+    if (STANDBY.compareAndSet(this, rSocket, null)) {
+      logger.debug("Standby RSocket {} has been closed", rSocket);
+      replenish();
+    }
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+    final RSocket standby = STANDBY.getAndSet(this, null);
+    if (standby != null) {
+      standby.dispose();
+    }
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return disposed;
+  }
+}
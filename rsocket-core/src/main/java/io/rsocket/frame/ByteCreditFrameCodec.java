@@ -0,0 +1,38 @@
+package io.rsocket.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * Codec for the {@code EXT} frames of byte-credit flow control. Such frames carry the number of
+ * payload bytes, i.e. data and metadata, that the receiver of a stream grants to its sender in
+ * addition to the number of payloads granted with {@code REQUEST_N}. A frame on stream {@code 0}
+ * announces that the streams initiated by its sender are subject to byte credits, starting with
+ * none. The frames are flagged to be ignored by peers which do not understand them.
+ *
+ * @since 1.1.1
+ */
+public class ByteCreditFrameCodec {
+
+  /** The extended type of byte-credit frames. */
+  public static final int EXTENDED_TYPE = 0x0B_C0_00_01;
+
+  private ByteCreditFrameCodec() {}
+
+  public static ByteBuf encode(ByteBufAllocator allocator, int streamId, long credits) {
+    if (credits < 0) {
+      throw new IllegalArgumentException("credits must not be negative");
+    }
+    return ExtensionFrameCodec.encode(
+        allocator, streamId, EXTENDED_TYPE, null, allocator.buffer(Long.BYTES).writeLong(credits));
+  }
+
+  public static boolean isByteCredit(ByteBuf byteBuf) {
+    return ExtensionFrameCodec.extendedType(byteBuf) == EXTENDED_TYPE;
+  }
+
+  public static long credits(ByteBuf byteBuf) {
+    final ByteBuf data = ExtensionFrameCodec.data(byteBuf);
+    return data.readableBytes() < Long.BYTES ? 0 : data.getLong(data.readerIndex());
+  }
+}
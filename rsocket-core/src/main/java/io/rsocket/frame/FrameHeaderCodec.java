@@ -64,6 +64,10 @@ public static boolean hasComplete(ByteBuf byteBuf) {
     return (flags(byteBuf) & FLAGS_C) == FLAGS_C;
   }
 
+  public static boolean hasIgnore(ByteBuf byteBuf) {
+    return (flags(byteBuf) & FLAGS_I) == FLAGS_I;
+  }
+
   public static int streamId(ByteBuf byteBuf) {
     byteBuf.markReaderIndex();
     int streamId = byteBuf.readInt();
@@ -0,0 +1,63 @@
+package io.rsocket.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * Codec for the {@code EXT} frames on stream {@code 0} which negotiate metadata dictionary
+ * compression for the request frames that a client sends to a server. The client offers the size
+ * of its dictionary right after {@code SETUP}, a server which supports it accepts the offer, and
+ * the client starts to compress the metadata of the request frames it sends after the start frame.
+ * The frames are flagged to be ignored by peers which do not understand them.
+ *
+ * @since 1.1.1
+ */
+public class MetadataDictionaryFrameCodec {
+
+  /** The extended type of metadata dictionary frames. */
+  public static final int EXTENDED_TYPE = 0x0B_C0_00_02;
+
+  public static final byte OFFER = 1;
+  public static final byte ACCEPT = 2;
+  public static final byte START = 3;
+
+  private MetadataDictionaryFrameCodec() {}
+
+  public static ByteBuf encodeOffer(ByteBufAllocator allocator, int maxEntries, int maxEntryBytes) {
+    final ByteBuf data =
+        allocator.buffer(1 + Integer.BYTES * 2).writeByte(OFFER).writeInt(maxEntries);
+    data.writeInt(maxEntryBytes);
+    return ExtensionFrameCodec.encode(allocator, 0, EXTENDED_TYPE, null, data);
+  }
+
+  public static ByteBuf encodeAccept(ByteBufAllocator allocator) {
+    return ExtensionFrameCodec.encode(
+        allocator, 0, EXTENDED_TYPE, null, allocator.buffer(1).writeByte(ACCEPT));
+  }
+
+  public static ByteBuf encodeStart(ByteBufAllocator allocator) {
+    return ExtensionFrameCodec.encode(
+        allocator, 0, EXTENDED_TYPE, null, allocator.buffer(1).writeByte(START));
+  }
+
+  public static boolean isMetadataDictionary(ByteBuf byteBuf) {
+    return FrameHeaderCodec.streamId(byteBuf) == 0
+        && FrameHeaderCodec.frameType(byteBuf) == FrameType.EXT
+        && ExtensionFrameCodec.extendedType(byteBuf) == EXTENDED_TYPE;
+  }
+
+  public static byte kind(ByteBuf byteBuf) {
+    final ByteBuf data = ExtensionFrameCodec.data(byteBuf);
+    return data.isReadable() ? data.getByte(data.readerIndex()) : 0;
+  }
+
+  public static int maxEntries(ByteBuf byteBuf) {
+    final ByteBuf data = ExtensionFrameCodec.data(byteBuf);
+    return data.getInt(data.readerIndex() + 1);
+  }
+
+  public static int maxEntryBytes(ByteBuf byteBuf) {
+    final ByteBuf data = ExtensionFrameCodec.data(byteBuf);
+    return data.getInt(data.readerIndex() + 1 + Integer.BYTES);
+  }
+}
@@ -0,0 +1,64 @@
+package io.rsocket.frame;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codec for the {@code EXT} frames on stream {@code 0} which negotiate payload compression. The
+ * client offers the names of the compressors it supports right after {@code SETUP}, a server which
+ * supports one of them accepts it and compresses the frames it sends after the accept frame, and
+ * the client compresses the frames it sends after the start frame. The frames are flagged to be
+ * ignored by peers which do not understand them.
+ *
+ * @since 1.1.1
+ */
+public class PayloadCompressionFrameCodec {
+
+  /** The extended type of payload compression frames. */
+  public static final int EXTENDED_TYPE = 0x0B_C0_00_03;
+
+  public static final byte OFFER = 1;
+  public static final byte ACCEPT = 2;
+  public static final byte START = 3;
+
+  private PayloadCompressionFrameCodec() {}
+
+  /** Encode an offer of the given compressor names, separated by commas. */
+  public static ByteBuf encodeOffer(ByteBufAllocator allocator, CharSequence names) {
+    return encode(allocator, OFFER, names);
+  }
+
+  public static ByteBuf encodeAccept(ByteBufAllocator allocator, CharSequence name) {
+    return encode(allocator, ACCEPT, name);
+  }
+
+  public static ByteBuf encodeStart(ByteBufAllocator allocator) {
+    return encode(allocator, START, "");
+  }
+
+  private static ByteBuf encode(ByteBufAllocator allocator, byte kind, CharSequence names) {
+    final ByteBuf data = allocator.buffer(1 + ByteBufUtil.utf8MaxBytes(names)).writeByte(kind);
+    ByteBufUtil.writeUtf8(data, names);
+    return ExtensionFrameCodec.encode(allocator, 0, EXTENDED_TYPE, null, data);
+  }
+
+  public static boolean isPayloadCompression(ByteBuf byteBuf) {
+    return FrameHeaderCodec.streamId(byteBuf) == 0
+        && FrameHeaderCodec.frameType(byteBuf) == FrameType.EXT
+        && ExtensionFrameCodec.extendedType(byteBuf) == EXTENDED_TYPE;
+  }
+
+  public static byte kind(ByteBuf byteBuf) {
+    final ByteBuf data = ExtensionFrameCodec.data(byteBuf);
+    return data.isReadable() ? data.getByte(data.readerIndex()) : 0;
+  }
+
+  /** Return the compressor names of an offer, separated by commas, or the accepted name. */
+  public static String names(ByteBuf byteBuf) {
+    final ByteBuf data = ExtensionFrameCodec.data(byteBuf);
+    return data.toString(
+        data.readerIndex() + 1, Math.max(0, data.readableBytes() - 1), StandardCharsets.UTF_8);
+  }
+}
@@ -23,6 +23,16 @@ public void sendFrame(int streamId, ByteBuf frame) {
     }
   }
 
+  /**
+   * Return the number of bytes of the frames queued for sending which the transport has not yet
+   * taken.
+   *
+   * @since 1.1.1
+   */
+  public long getQueuedBytes() {
+    return sender.getQueuedBytes();
+  }
+
   protected abstract void doOnClose();
 
   @Override
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.internal;
+
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Coarse-grained hashed wheel timer which drives large numbers of timers from a single periodic
+ * task. Timers are represented by {@link Task} instances which are linked into the wheel directly,
+ * so that scheduling, rescheduling and cancelling a task does not allocate. All tasks that expire
+ * on the same tick are run in one batch on the thread of the underlying {@link Scheduler}.
+ *
+ * <p>Tasks are run at the earliest on the tick following their deadline, so the precision is
+ * bounded by the tick duration. The wheel also exposes the time of the last tick via {@link
+ * #now()}, which is a cheap alternative to {@link Scheduler#now(TimeUnit)} when tick precision is
+ * sufficient.
+ */
+public final class TimerWheel {
+
+  static final Logger LOGGER = LoggerFactory.getLogger(TimerWheel.class);
+
+  static final long DEFAULT_TICK_MILLIS = 10;
+  static final int DEFAULT_WHEEL_SIZE = 512;
+
+  @Nullable static volatile TimerWheel shared;
+
+  final Scheduler scheduler;
+  final long tickMillis;
+  final int mask;
+  final Task[] buckets;
+
+  volatile long now;
+
+  // guarded by this
+  long tick;
+  int size;
+  Disposable ticker;
+
+  public TimerWheel(Scheduler scheduler, long tickMillis, int wheelSize) {
+    if (tickMillis <= 0) {
+      throw new IllegalArgumentException("tickMillis must be positive");
+    }
+    if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+      throw new IllegalArgumentException("wheelSize must be a positive power of two");
+    }
+    this.scheduler = scheduler;
+    this.tickMillis = tickMillis;
+    this.mask = wheelSize - 1;
+    this.buckets = new Task[wheelSize];
+    this.now = scheduler.now(TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Return the {@link TimerWheel} shared by all connections in this JVM. It ticks every 10
+   * milliseconds on {@link Schedulers#parallel()}, and only while there are scheduled tasks.
+   */
+  public static TimerWheel shared() {
+    TimerWheel timerWheel = shared;
+    if (timerWheel == null) {
+      synchronized (TimerWheel.class) {
+        timerWheel = shared;
+        if (timerWheel == null) {
+          timerWheel =
+              new TimerWheel(Schedulers.parallel(), DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+          shared = timerWheel;
+        }
+      }
+    }
+    return timerWheel;
+  }
+
+  /** Return the time of the last tick in milliseconds, as given by the scheduler. */
+  public long now() {
+    return now;
+  }
+
+  /** Return the current time in milliseconds, as given by the scheduler. */
+  public long currentTimeMillis() {
+    return scheduler.now(TimeUnit.MILLISECONDS);
+  }
+
+  /** Return the duration of one tick in milliseconds. */
+  public long tickMillis() {
+    return tickMillis;
+  }
+
+  /**
+   * Schedule the given task to run after the given delay. If the task is already scheduled, it is
+   * rescheduled.
+   *
+   * @param task the task to schedule
+   * @param delayMillis the delay in milliseconds
+   */
+  public synchronized void schedule(Task task, long delayMillis) {
+    if (task.wheel == this) {
+      unlink(task);
+      size--;
+    } else if (task.wheel != null) {
+      throw new IllegalStateException("Task is scheduled on another TimerWheel");
+    }
+
+    // +1 since the current tick may be about to expire
+    final long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis) + 1;
+    final long deadline = tick + ticks;
+    task.wheel = this;
+    task.deadline = deadline;
+    link(task, (int) (deadline & mask));
+
+    if (size++ == 0 && ticker == null) {
+      now = scheduler.now(TimeUnit.MILLISECONDS);
+      ticker =
+          scheduler.schedulePeriodically(
+              this::onTick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Cancel the given task if it is scheduled.
+   *
+   * @param task the task to cancel
+   * @return {@code true} if the task was scheduled
+   */
+  public synchronized boolean cancel(Task task) {
+    if (task.wheel != this) {
+      return false;
+    }
+    unlink(task);
+    if (--size == 0) {
+      stopTicker();
+    }
+    return true;
+  }
+
+  /** Return the number of scheduled tasks. */
+  public synchronized int size() {
+    return size;
+  }
+
+  void onTick() {
+    this.now = scheduler.now(TimeUnit.MILLISECONDS);
+
+    Task expired = null;
+    synchronized (this) {
+      final long tick = ++this.tick;
+      final int index = (int) (tick & mask);
+      Task task = buckets[index];
+      while (task != null) {
+        final Task next = task.next;
+        if (task.deadline <= tick) {
+          unlink(task);
+          size--;
+          task.nextExpired = expired;
+          expired = task;
+        }
+        task = next;
+      }
+      if (size == 0) {
+        stopTicker();
+      }
+    }
+
+    while (expired != null) {
+      final Task task = expired;
+      expired = task.nextExpired;
+      task.nextExpired = null;
+      try {
+        task.run();
+      } catch (Throwable t) {
+        LOGGER.error("Unexpected error while running timer task", t);
+      }
+    }
+  }
+
+  void link(Task task, int index) {
+    final Task head = buckets[index];
+    task.bucket = index;
+    task.prev = null;
+    task.next = head;
+    if (head != null) {
+      head.prev = task;
+    }
+    buckets[index] = task;
+  }
+
+  void unlink(Task task) {
+    final Task prev = task.prev;
+    final Task next = task.next;
+    if (prev != null) {
+      prev.next = next;
+    } else {
+      buckets[task.bucket] = next;
+    }
+    if (next != null) {
+      next.prev = prev;
+    }
+    task.prev = null;
+    task.next = null;
+    task.wheel = null;
+  }
+
+  void stopTicker() {
+    final Disposable ticker = this.ticker;
+    if (ticker != null) {
+      this.ticker = null;
+      ticker.dispose();
+    }
+  }
+
+  /**
+   * A timer that can be scheduled on a {@link TimerWheel}. Instances are reusable: once run or
+   * cancelled they can be scheduled again.
+   */
+  public abstract static class Task implements Runnable {
+
+    // guarded by the wheel
+    @Nullable volatile TimerWheel wheel;
+    @Nullable Task prev;
+    @Nullable Task next;
+    @Nullable Task nextExpired;
+    long deadline;
+    int bucket;
+
+    /** Return whether the task is currently scheduled. */
+    public final boolean isScheduled() {
+      final TimerWheel wheel = this.wheel;
+      if (wheel == null) {
+        return false;
+      }
+      synchronized (wheel) {
+        return this.wheel != null;
+      }
+    }
+  }
+}
@@ -72,6 +72,11 @@ public final class UnboundedProcessor extends FluxProcessor<ByteBuf, ByteBuf>
   static final AtomicLongFieldUpdater<UnboundedProcessor> REQUESTED =
       AtomicLongFieldUpdater.newUpdater(UnboundedProcessor.class, "requested");
 
+  volatile long queuedBytes;
+
+  static final AtomicLongFieldUpdater<UnboundedProcessor> QUEUED_BYTES =
+      AtomicLongFieldUpdater.newUpdater(UnboundedProcessor.class, "queuedBytes");
+
   boolean outputFused;
 
   public UnboundedProcessor() {
@@ -97,7 +102,9 @@ public void onNextPrioritized(ByteBuf t) {
       return;
     }
 
+    QUEUED_BYTES.addAndGet(this, t.readableBytes());
     if (!priorityQueue.offer(t)) {
+      QUEUED_BYTES.addAndGet(this, -t.readableBytes());
       Throwable ex =
           Operators.onOperatorError(null, Exceptions.failWithOverflow(), t, currentContext());
       onError(Operators.onOperatorError(null, ex, t, currentContext()));
@@ -115,7 +122,9 @@ public void onNext(ByteBuf t) {
       return;
     }
 
+    QUEUED_BYTES.addAndGet(this, t.readableBytes());
     if (!queue.offer(t)) {
+      QUEUED_BYTES.addAndGet(this, -t.readableBytes());
       Throwable ex =
           Operators.onOperatorError(null, Exceptions.failWithOverflow(), t, currentContext());
       onError(Operators.onOperatorError(null, ex, t, currentContext()));
@@ -219,11 +228,14 @@ void drainRegular(long expectedState, Subscriber<? super ByteBuf> a) {
         boolean empty;
 
         if (!pq.isEmpty()) {
-          t = pq.poll();
+          t = dequeued(pq.poll());
           empty = false;
         } else {
           t = q.poll();
           empty = t == null;
+          if (!empty) {
+            dequeued(t);
+          }
         }
 
         if (checkTerminated(empty, a)) {
@@ -366,9 +378,25 @@ public void cancel() {
   public ByteBuf poll() {
     Queue<ByteBuf> pq = this.priorityQueue;
     if (!pq.isEmpty()) {
-      return pq.poll();
+      return dequeued(pq.poll());
     }
-    return queue.poll();
+    final ByteBuf t = queue.poll();
+    return t != null ? dequeued(t) : null;
+  }
+
+  ByteBuf dequeued(ByteBuf t) {
+    QUEUED_BYTES.addAndGet(this, -t.readableBytes());
+    return t;
+  }
+
+  /**
+   * Return the number of readable bytes of the frames which have been queued but not yet taken by
+   * the subscriber.
+   *
+   * @since 1.1.1
+   */
+  public long getQueuedBytes() {
+    return queuedBytes;
   }
 
   @Override
@@ -398,11 +426,11 @@ void clearUnsafely() {
 
     ByteBuf byteBuf;
     while ((byteBuf = queue.poll()) != null) {
-      release(byteBuf);
+      release(dequeued(byteBuf));
     }
 
     while ((byteBuf = priorityQueue.poll()) != null) {
-      release(byteBuf);
+      release(dequeued(byteBuf));
     }
   }
 
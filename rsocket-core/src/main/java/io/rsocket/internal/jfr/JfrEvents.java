@@ -0,0 +1,272 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.internal.jfr;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.rsocket.DuplexConnection;
+import io.rsocket.frame.FrameHeaderCodec;
+import io.rsocket.frame.FrameType;
+import java.net.SocketAddress;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import reactor.util.annotation.Nullable;
+
+/**
+ * The JDK Flight Recorder events, only loaded by {@link RSocketFlightRecorder} when the {@code
+ * jdk.jfr} module is available. Events are allocated before checking whether they are enabled, as
+ * JFR recommends, so that the JIT can eliminate the allocation while they are disabled.
+ */
+final class JfrEvents {
+
+  private JfrEvents() {}
+
+  @Nullable
+  static Object beginConnection(DuplexConnection connection) {
+    final ConnectionEvent event = new ConnectionEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    final SocketAddress remoteAddress = connection.remoteAddress();
+    event.remoteAddress = remoteAddress != null ? remoteAddress.toString() : null;
+    event.begin();
+    return event;
+  }
+
+  static void endConnection(Object event) {
+    final ConnectionEvent connectionEvent = (ConnectionEvent) event;
+    connectionEvent.end();
+    connectionEvent.commit();
+  }
+
+  @Nullable
+  static Object beginStream(int streamId, Object frameHandler, boolean requester) {
+    final StreamEvent event = new StreamEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.streamId = streamId;
+    event.interactionModel = interactionModel(frameHandler);
+    event.side = requester ? "requester" : "responder";
+    event.begin();
+    return event;
+  }
+
+  static void endStream(Object event) {
+    final StreamEvent streamEvent = (StreamEvent) event;
+    streamEvent.end();
+    streamEvent.commit();
+  }
+
+  @Nullable
+  static Object beginFragmentation(int streamId, FrameType frameType, int mtu, int payloadSize) {
+    final FragmentationEvent event = new FragmentationEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.streamId = streamId;
+    event.frameType = frameType.name();
+    event.mtu = mtu;
+    event.payloadSize = payloadSize;
+    event.begin();
+    return event;
+  }
+
+  static void endFragmentation(Object event, int fragments) {
+    final FragmentationEvent fragmentationEvent = (FragmentationEvent) event;
+    fragmentationEvent.end();
+    fragmentationEvent.fragments = fragments;
+    fragmentationEvent.commit();
+  }
+
+  static void reassembled(ByteBuf frames) {
+    final ReassemblyEvent event = new ReassemblyEvent();
+    if (!event.isEnabled()) {
+      return;
+    }
+    event.streamId = FrameHeaderCodec.streamId(frames);
+    event.frameType = FrameHeaderCodec.frameType(frames).name();
+    event.payloadSize = frames.readableBytes();
+    event.fragments =
+        frames instanceof CompositeByteBuf ? ((CompositeByteBuf) frames).numComponents() : 1;
+    event.commit();
+  }
+
+  static void leaseRejected(int streamId, boolean requester, Throwable leaseError) {
+    final LeaseRejectionEvent event = new LeaseRejectionEvent();
+    if (!event.isEnabled()) {
+      return;
+    }
+    event.streamId = streamId;
+    event.side = requester ? "requester" : "responder";
+    event.message = leaseError.getMessage();
+    event.commit();
+  }
+
+  static void resumed(
+      String sessionTag,
+      int connectionIndex,
+      long downtimeNanos,
+      long framePosition,
+      long frameImpliedPosition) {
+    final ResumeEvent event = new ResumeEvent();
+    if (!event.isEnabled()) {
+      return;
+    }
+    event.sessionTag = sessionTag;
+    event.connectionIndex = connectionIndex;
+    event.downtime = downtimeNanos;
+    event.framePosition = framePosition;
+    event.frameImpliedPosition = frameImpliedPosition;
+    event.commit();
+  }
+
+  /** Return the interaction model of a stream from the type of its handler. */
+  static String interactionModel(Object frameHandler) {
+    final String type = frameHandler.getClass().getSimpleName();
+    if (type.startsWith("RequestResponse")) {
+      return FrameType.REQUEST_RESPONSE.name();
+    } else if (type.startsWith("RequestStream")) {
+      return FrameType.REQUEST_STREAM.name();
+    } else if (type.startsWith("RequestChannel")) {
+      return FrameType.REQUEST_CHANNEL.name();
+    } else if (type.startsWith("FireAndForget")) {
+      return FrameType.REQUEST_FNF.name();
+    }
+    return type;
+  }
+
+  @Name("io.rsocket.Connection")
+  @Label("RSocket Connection")
+  @Category("RSocket")
+  @Description("An RSocket connection, from its establishment to its close")
+  @StackTrace(false)
+  static final class ConnectionEvent extends Event {
+
+    @Label("Remote Address")
+    String remoteAddress;
+  }
+
+  @Name("io.rsocket.Stream")
+  @Label("RSocket Stream")
+  @Category("RSocket")
+  @Description("An RSocket stream, from its start to its termination")
+  @StackTrace(false)
+  static final class StreamEvent extends Event {
+
+    @Label("Stream Id")
+    int streamId;
+
+    @Label("Interaction Model")
+    String interactionModel;
+
+    @Label("Side")
+    String side;
+  }
+
+  @Name("io.rsocket.Fragmentation")
+  @Label("RSocket Fragmentation")
+  @Category("RSocket")
+  @Description("The fragmentation of a payload larger than the MTU, until all fragments are sent")
+  @StackTrace(false)
+  static final class FragmentationEvent extends Event {
+
+    @Label("Stream Id")
+    int streamId;
+
+    @Label("Frame Type")
+    String frameType;
+
+    @Label("MTU")
+    @DataAmount
+    int mtu;
+
+    @Label("Payload Size")
+    @DataAmount
+    int payloadSize;
+
+    @Label("Fragments")
+    int fragments;
+  }
+
+  @Name("io.rsocket.Reassembly")
+  @Label("RSocket Reassembly")
+  @Category("RSocket")
+  @Description("The reassembly of a fragmented payload, once its last fragment is received")
+  @StackTrace(false)
+  static final class ReassemblyEvent extends Event {
+
+    @Label("Stream Id")
+    int streamId;
+
+    @Label("Frame Type")
+    String frameType;
+
+    @Label("Payload Size")
+    @DataAmount
+    int payloadSize;
+
+    @Label("Fragments")
+    int fragments;
+  }
+
+  @Name("io.rsocket.LeaseRejection")
+  @Label("RSocket Lease Rejection")
+  @Category("RSocket")
+  @Description("A request rejected for lack of lease")
+  @StackTrace(false)
+  static final class LeaseRejectionEvent extends Event {
+
+    @Label("Stream Id")
+    int streamId;
+
+    @Label("Side")
+    String side;
+
+    @Label("Message")
+    String message;
+  }
+
+  @Name("io.rsocket.Resume")
+  @Label("RSocket Resume")
+  @Category("RSocket")
+  @Description("The resumption of a session on a new connection")
+  @StackTrace(false)
+  static final class ResumeEvent extends Event {
+
+    @Label("Session")
+    String sessionTag;
+
+    @Label("Connection Index")
+    int connectionIndex;
+
+    @Label("Downtime")
+    @Timespan
+    long downtime;
+
+    @Label("Frame Position")
+    long framePosition;
+
+    @Label("Frame Implied Position")
+    long frameImpliedPosition;
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.internal.jfr;
+
+import io.netty.buffer.ByteBuf;
+import io.rsocket.DuplexConnection;
+import io.rsocket.frame.FrameType;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Entry point of the JDK Flight Recorder events of RSocket, for connections, streams,
+ * fragmentation and reassembly of large payloads, lease rejections and resumption.
+ *
+ * <p>Events are only recorded when the JVM provides the {@code jdk.jfr} module, unless disabled
+ * with the {@value #DISABLE_EVENTS} system property, and while a recording enables them. Otherwise
+ * each method returns right away, and the {@code begin} methods return {@code null}, so that
+ * callers only keep an event around while it is being recorded. Events are passed as {@code Object}
+ * so that callers do not depend on {@code jdk.jfr} classes.
+ */
+public final class RSocketFlightRecorder {
+
+  public static final String DISABLE_EVENTS = "io.rsocket.jfr.disableEvents";
+
+  static final boolean AVAILABLE = isAvailable();
+
+  private RSocketFlightRecorder() {}
+
+  /**
+   * Begin the event of a connection, which ends when the connection is closed.
+   *
+   * @return the begun event, or {@code null} if not recorded
+   */
+  @Nullable
+  public static Object beginConnection(DuplexConnection connection) {
+    return AVAILABLE ? JfrEvents.beginConnection(connection) : null;
+  }
+
+  public static void endConnection(@Nullable Object event) {
+    if (event != null) {
+      JfrEvents.endConnection(event);
+    }
+  }
+
+  /**
+   * Begin the event of a stream, which ends when its handler is removed.
+   *
+   * @param frameHandler the handler of the stream, whose type tells the interaction model
+   * @return the begun event, or {@code null} if not recorded
+   */
+  @Nullable
+  public static Object beginStream(int streamId, Object frameHandler, boolean requester) {
+    return AVAILABLE ? JfrEvents.beginStream(streamId, frameHandler, requester) : null;
+  }
+
+  public static void endStream(@Nullable Object event) {
+    if (event != null) {
+      JfrEvents.endStream(event);
+    }
+  }
+
+  /**
+   * Begin the event of the fragmentation of a payload, which ends once all its fragments have been
+   * sent.
+   *
+   * @return the begun event, or {@code null} if not recorded
+   */
+  @Nullable
+  public static Object beginFragmentation(
+      int streamId, FrameType frameType, int mtu, int payloadSize) {
+    return AVAILABLE ? JfrEvents.beginFragmentation(streamId, frameType, mtu, payloadSize) : null;
+  }
+
+  public static void endFragmentation(@Nullable Object event, int fragments) {
+    if (event != null) {
+      JfrEvents.endFragmentation(event, fragments);
+    }
+  }
+
+  /** Record the reassembly of the given fragments, once the last one has been added. */
+  public static void reassembled(ByteBuf frames) {
+    if (AVAILABLE) {
+      JfrEvents.reassembled(frames);
+    }
+  }
+
+  /** Record the rejection of a request for lack of lease. */
+  public static void leaseRejected(int streamId, boolean requester, Throwable leaseError) {
+    if (AVAILABLE) {
+      JfrEvents.leaseRejected(streamId, requester, leaseError);
+    }
+  }
+
+  /** Record the resumption of a session on a new connection. */
+  public static void resumed(
+      String sessionTag,
+      int connectionIndex,
+      long downtimeNanos,
+      long framePosition,
+      long frameImpliedPosition) {
+    if (AVAILABLE) {
+      JfrEvents.resumed(
+          sessionTag, connectionIndex, downtimeNanos, framePosition, frameImpliedPosition);
+    }
+  }
+
+  private static boolean isAvailable() {
+    if (Boolean.getBoolean(DISABLE_EVENTS)) {
+      return false;
+    }
+    try {
+      Class.forName("jdk.jfr.Event", false, RSocketFlightRecorder.class.getClassLoader());
+      return true;
+    } catch (Throwable t) {
+      return false;
+    }
+  }
+}
@@ -6,7 +6,9 @@
 import io.rsocket.resume.RSocketSession;
 import io.rsocket.resume.ResumableDuplexConnection;
 import io.rsocket.resume.ResumeStateHolder;
+import java.time.Duration;
 import java.util.function.Consumer;
+import reactor.util.annotation.Nullable;
 
 public interface KeepAliveHandler {
 
@@ -40,14 +42,34 @@ class ResumableKeepAliveHandler implements KeepAliveHandler {
     private final ResumableDuplexConnection resumableDuplexConnection;
     private final RSocketSession rSocketSession;
     private final ResumeStateHolder resumeStateHolder;
+    private final long positionAckBytes;
+    @Nullable private final Duration positionAckDelay;
 
     public ResumableKeepAliveHandler(
         ResumableDuplexConnection resumableDuplexConnection,
         RSocketSession rSocketSession,
         ResumeStateHolder resumeStateHolder) {
+      this(resumableDuplexConnection, rSocketSession, resumeStateHolder, 0, null);
+    }
+
+    /**
+     * Variant of {@link #ResumableKeepAliveHandler(ResumableDuplexConnection, RSocketSession,
+     * ResumeStateHolder)} that also acknowledges received positions as configured with {@link
+     * KeepAliveSupport#positionAck(long, Duration)}.
+     *
+     * @since 1.1.1
+     */
+    public ResumableKeepAliveHandler(
+        ResumableDuplexConnection resumableDuplexConnection,
+        RSocketSession rSocketSession,
+        ResumeStateHolder resumeStateHolder,
+        long positionAckBytes,
+        @Nullable Duration positionAckDelay) {
       this.resumableDuplexConnection = resumableDuplexConnection;
       this.rSocketSession = rSocketSession;
       this.resumeStateHolder = resumeStateHolder;
+      this.positionAckBytes = positionAckBytes;
+      this.positionAckDelay = positionAckDelay;
     }
 
     @Override
@@ -58,6 +80,12 @@ public KeepAliveFramesAcceptor start(
 
       rSocketSession.setKeepAliveSupport(keepAliveSupport);
 
+      if (positionAckBytes > 0 || positionAckDelay != null) {
+        keepAliveSupport.positionAck(positionAckBytes, positionAckDelay);
+        resumableDuplexConnection.onResumableFrameReceived(
+            keepAliveSupport::onResumableFrameReceived);
+      }
+
       return keepAliveSupport
           .resumeState(resumeStateHolder)
           .onSendKeepAliveFrame(onSendKeepAliveFrame)
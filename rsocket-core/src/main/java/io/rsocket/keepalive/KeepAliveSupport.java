@@ -20,15 +20,18 @@
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.rsocket.frame.KeepAliveFrameCodec;
+import io.rsocket.internal.TimerWheel;
 import io.rsocket.resume.ResumeStateHolder;
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import reactor.util.annotation.Nullable;
 
 public abstract class KeepAliveSupport implements KeepAliveFramesAcceptor {
 
@@ -37,49 +40,79 @@ public abstract class KeepAliveSupport implements KeepAliveFramesAcceptor {
   final Duration keepAliveInterval;
   final Duration keepAliveTimeout;
   final long keepAliveTimeoutMillis;
+  @Nullable final TimerWheel timerWheel;
+  @Nullable final TickTask tickTask;
 
   final AtomicBoolean started = new AtomicBoolean();
 
   volatile Consumer<KeepAlive> onTimeout;
   volatile Consumer<ByteBuf> onFrameSent;
+  volatile LongConsumer onRoundTripTime;
   volatile Disposable ticksDisposable;
 
   volatile ResumeStateHolder resumeStateHolder;
   volatile long lastReceivedMillis;
 
+  static final long NO_PENDING_PING = Long.MIN_VALUE;
+
+  volatile long pingSentNanos = NO_PENDING_PING;
+  volatile long roundTripTimeNanos = -1;
+
+  long positionAckBytes;
+  @Nullable PositionAckTask positionAckTask;
+  volatile long lastAckedPosition;
+
   private KeepAliveSupport(
-      ByteBufAllocator allocator, int keepAliveInterval, int keepAliveTimeout) {
+      ByteBufAllocator allocator,
+      int keepAliveInterval,
+      int keepAliveTimeout,
+      @Nullable TimerWheel timerWheel) {
     this.allocator = allocator;
     this.scheduler = Schedulers.parallel();
     this.keepAliveInterval = Duration.ofMillis(keepAliveInterval);
     this.keepAliveTimeout = Duration.ofMillis(keepAliveTimeout);
     this.keepAliveTimeoutMillis = keepAliveTimeout;
+    this.timerWheel = timerWheel;
+    this.tickTask = timerWheel != null ? new TickTask(this) : null;
   }
 
   public KeepAliveSupport start() {
-    this.lastReceivedMillis = scheduler.now(TimeUnit.MILLISECONDS);
     if (started.compareAndSet(false, true)) {
-      ticksDisposable =
-          Flux.interval(keepAliveInterval, scheduler).subscribe(v -> onIntervalTick());
+      final TimerWheel timerWheel = this.timerWheel;
+      if (timerWheel != null) {
+        timerWheel.schedule(tickTask, keepAliveInterval.toMillis());
+      } else {
+        ticksDisposable =
+            Flux.interval(keepAliveInterval, scheduler).subscribe(v -> onIntervalTick());
+      }
     }
+    this.lastReceivedMillis = now();
     return this;
   }
 
   public void stop() {
     if (started.compareAndSet(true, false)) {
-      ticksDisposable.dispose();
+      final TimerWheel timerWheel = this.timerWheel;
+      if (timerWheel != null) {
+        timerWheel.cancel(tickTask);
+      } else {
+        ticksDisposable.dispose();
+      }
     }
   }
 
   @Override
   public void receive(ByteBuf keepAliveFrame) {
-    this.lastReceivedMillis = scheduler.now(TimeUnit.MILLISECONDS);
+    this.lastReceivedMillis = now();
     if (resumeStateHolder != null) {
       long remoteLastReceivedPos = remoteLastReceivedPosition(keepAliveFrame);
       resumeStateHolder.onImpliedPosition(remoteLastReceivedPos);
     }
-    if (KeepAliveFrameCodec.respondFlag(keepAliveFrame)) {
+    if (!KeepAliveFrameCodec.respondFlag(keepAliveFrame)) {
+      onPong(keepAliveFrame);
+    } else {
       long localLastReceivedPos = localLastReceivedPosition();
+      this.lastAckedPosition = localLastReceivedPos;
       send(
           KeepAliveFrameCodec.encode(
               allocator,
@@ -104,6 +137,71 @@ public KeepAliveSupport onTimeout(Consumer<KeepAlive> onTimeout) {
     return this;
   }
 
+  /**
+   * Acknowledge the received position to the remote peer independently of the keepalive interval,
+   * so that it can release frames from its resume store sooner. The position is acknowledged with a
+   * {@code KEEPALIVE} frame without the respond flag once the given number of bytes has been
+   * received since the last acknowledgement, or once the given delay has elapsed since the first
+   * unacknowledged frame, whichever comes first.
+   *
+   * @param bytesThreshold the number of unacknowledged bytes that triggers an acknowledgement, or
+   *     {@code 0} to disable the byte based trigger
+   * @param maxDelay the maximum delay of an acknowledgement, or {@code null} to disable the time
+   *     based trigger
+   * @since 1.1.1
+   */
+  public KeepAliveSupport positionAck(long bytesThreshold, @Nullable Duration maxDelay) {
+    this.positionAckBytes = bytesThreshold;
+    this.positionAckTask = maxDelay != null ? new PositionAckTask(this, maxDelay.toMillis()) : null;
+    return this;
+  }
+
+  /**
+   * Notify that a resumable frame has been received, which may trigger a position acknowledgement
+   * as configured with {@link #positionAck(long, Duration)}.
+   *
+   * @since 1.1.1
+   */
+  public void onResumableFrameReceived() {
+    final ResumeStateHolder resumeStateHolder = this.resumeStateHolder;
+    if (resumeStateHolder == null || !started.get()) {
+      return;
+    }
+    final long position = resumeStateHolder.impliedPosition();
+    final long unacknowledged = position - lastAckedPosition;
+    if (unacknowledged <= 0) {
+      return;
+    }
+    if (positionAckBytes > 0 && unacknowledged >= positionAckBytes) {
+      sendPositionAck(position);
+      return;
+    }
+    final PositionAckTask positionAckTask = this.positionAckTask;
+    if (positionAckTask != null && !positionAckTask.pending) {
+      positionAckTask.pending = true;
+      final TimerWheel timerWheel = this.timerWheel;
+      (timerWheel != null ? timerWheel : TimerWheel.shared())
+          .schedule(positionAckTask, positionAckTask.delayMillis);
+    }
+  }
+
+  /**
+   * Callback invoked with the round-trip time in nanoseconds every time a KEEPALIVE frame sent
+   * with the respond flag is acknowledged by the remote peer.
+   */
+  public KeepAliveSupport onRoundTripTime(LongConsumer onRoundTripTime) {
+    this.onRoundTripTime = onRoundTripTime;
+    return this;
+  }
+
+  /**
+   * Return the last measured KEEPALIVE round-trip time in nanoseconds, or {@code -1} if there has
+   * been no measurement yet.
+   */
+  public long roundTripTimeNanos() {
+    return roundTripTimeNanos;
+  }
+
   abstract void onIntervalTick();
 
   void send(ByteBuf frame) {
@@ -112,8 +210,49 @@ void send(ByteBuf frame) {
     }
   }
 
+  void sendPing() {
+    final long sentNanos = System.nanoTime();
+    final long position = localLastReceivedPosition();
+    this.pingSentNanos = sentNanos;
+    this.lastAckedPosition = position;
+    // the remote echoes the data back, which tells its response apart from position acks
+    send(
+        KeepAliveFrameCodec.encode(
+            allocator, true, position, allocator.buffer(Long.BYTES).writeLong(sentNanos)));
+  }
+
+  void sendPositionAck(long position) {
+    this.lastAckedPosition = position;
+    send(KeepAliveFrameCodec.encode(allocator, false, position, Unpooled.EMPTY_BUFFER));
+  }
+
+  void onPong(ByteBuf keepAliveFrame) {
+    final long sentNanos = this.pingSentNanos;
+    if (sentNanos == NO_PENDING_PING) {
+      return;
+    }
+    final ByteBuf data = KeepAliveFrameCodec.data(keepAliveFrame);
+    if (data.readableBytes() != Long.BYTES || data.getLong(data.readerIndex()) != sentNanos) {
+      return;
+    }
+    this.pingSentNanos = NO_PENDING_PING;
+
+    final long roundTripTimeNanos = System.nanoTime() - sentNanos;
+    this.roundTripTimeNanos = roundTripTimeNanos;
+
+    final LongConsumer onRoundTripTime = this.onRoundTripTime;
+    if (onRoundTripTime != null) {
+      onRoundTripTime.accept(roundTripTimeNanos);
+    }
+  }
+
+  long now() {
+    final TimerWheel timerWheel = this.timerWheel;
+    return timerWheel != null ? timerWheel.now() : scheduler.now(TimeUnit.MILLISECONDS);
+  }
+
   void tryTimeout() {
-    long now = scheduler.now(TimeUnit.MILLISECONDS);
+    long now = now();
     if (now - lastReceivedMillis >= keepAliveTimeoutMillis) {
       if (onTimeout != null) {
         onTimeout.accept(new KeepAlive(keepAliveInterval, keepAliveTimeout));
@@ -137,22 +276,86 @@ public void dispose() {
 
   @Override
   public boolean isDisposed() {
+    if (timerWheel != null) {
+      return !started.get();
+    }
     return ticksDisposable.isDisposed();
   }
 
+  static final class TickTask extends TimerWheel.Task {
+
+    final KeepAliveSupport parent;
+
+    TickTask(KeepAliveSupport parent) {
+      this.parent = parent;
+    }
+
+    @Override
+    public void run() {
+      final KeepAliveSupport parent = this.parent;
+      if (!parent.started.get()) {
+        return;
+      }
+      parent.onIntervalTick();
+      if (parent.started.get()) {
+        parent.timerWheel.schedule(this, parent.keepAliveInterval.toMillis());
+      }
+    }
+  }
+
+  static final class PositionAckTask extends TimerWheel.Task {
+
+    final KeepAliveSupport parent;
+    final long delayMillis;
+
+    volatile boolean pending;
+
+    PositionAckTask(KeepAliveSupport parent, long delayMillis) {
+      this.parent = parent;
+      this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public void run() {
+      pending = false;
+      final KeepAliveSupport parent = this.parent;
+      final ResumeStateHolder resumeStateHolder = parent.resumeStateHolder;
+      if (resumeStateHolder == null || !parent.started.get()) {
+        return;
+      }
+      final long position = resumeStateHolder.impliedPosition();
+      if (position > parent.lastAckedPosition) {
+        parent.sendPositionAck(position);
+      }
+    }
+  }
+
   public static final class ClientKeepAliveSupport extends KeepAliveSupport {
 
     public ClientKeepAliveSupport(
         ByteBufAllocator allocator, int keepAliveInterval, int keepAliveTimeout) {
-      super(allocator, keepAliveInterval, keepAliveTimeout);
+      super(allocator, keepAliveInterval, keepAliveTimeout, null);
+    }
+
+    /**
+     * Variant of {@link #ClientKeepAliveSupport(ByteBufAllocator, int, int)} that drives the ticks
+     * and timeout checks from the given {@link TimerWheel} instead of a dedicated periodic task per
+     * connection.
+     *
+     * @since 1.1.1
+     */
+    public ClientKeepAliveSupport(
+        ByteBufAllocator allocator,
+        int keepAliveInterval,
+        int keepAliveTimeout,
+        @Nullable TimerWheel timerWheel) {
+      super(allocator, keepAliveInterval, keepAliveTimeout, timerWheel);
     }
 
     @Override
     void onIntervalTick() {
       tryTimeout();
-      send(
-          KeepAliveFrameCodec.encode(
-              allocator, true, localLastReceivedPosition(), Unpooled.EMPTY_BUFFER));
+      sendPing();
     }
   }
 
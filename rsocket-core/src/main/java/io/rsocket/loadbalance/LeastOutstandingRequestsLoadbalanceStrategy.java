@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.loadbalance;
+
+import io.netty.buffer.ByteBuf;
+import io.rsocket.RSocket;
+import io.rsocket.core.RSocketConnector;
+import io.rsocket.frame.FrameType;
+import io.rsocket.plugins.RSocketInterceptor;
+import io.rsocket.plugins.RequestInterceptor;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Function;
+import reactor.util.annotation.Nullable;
+
+/**
+ * {@link LoadbalanceStrategy} that selects the {@code RSocket} with the least number of outstanding
+ * requests and streams. The counters are kept up to date by a {@link RequestInterceptor} installed
+ * on every connection. Selection picks two of the given {@code RSocket}s at random and returns the
+ * one with fewer outstanding requests, so it costs O(1) regardless of the pool size, and every
+ * request start or termination costs a single atomic update.
+ *
+ * <p>Unlike {@link WeightedLoadbalanceStrategy} this strategy does not take latency or error rates
+ * into account, which makes it a better fit for very large pools of similar targets.
+ *
+ * @since 1.1.1
+ */
+public class LeastOutstandingRequestsLoadbalanceStrategy implements ClientLoadbalanceStrategy {
+
+  final Map<RSocket, Tracker> trackers = new ConcurrentHashMap<>();
+
+  /**
+   * Hands the tracker over from the {@link RequestInterceptor} factory to the {@link
+   * RSocketInterceptor} of this strategy, which are called one after the other on the same thread
+   * when a requester is created. It is not shared with other strategies, which may create
+   * requesters on the same thread.
+   */
+  final ThreadLocal<Tracker> createdTracker = new ThreadLocal<>();
+
+  @Override
+  public void initialize(RSocketConnector connector) {
+    connector.interceptors(
+        registry ->
+            registry
+                .forRequestsInRequester(
+                    (Function<RSocket, ? extends RequestInterceptor>) this::onRequesterCreated)
+                // registered last so that it sees the fully decorated requester
+                .forRequester((RSocketInterceptor) this::onRequesterDecorated));
+  }
+
+  Tracker onRequesterCreated(RSocket rSocket) {
+    final Tracker stale = createdTracker.get();
+    if (stale != null) {
+      // the previous requester failed before it was decorated
+      stale.dispose();
+    }
+    final Tracker tracker = track(rSocket);
+    createdTracker.set(tracker);
+    return tracker;
+  }
+
+  RSocket onRequesterDecorated(RSocket rSocket) {
+    final Tracker tracker = createdTracker.get();
+    if (tracker != null) {
+      createdTracker.remove();
+      tracker.select(rSocket);
+    }
+    return rSocket;
+  }
+
+  Tracker track(RSocket rSocket) {
+    final Tracker tracker = new Tracker(trackers, rSocket);
+    trackers.put(rSocket, tracker);
+    return tracker;
+  }
+
+  @Override
+  public RSocket select(List<RSocket> sockets) {
+    final int size = sockets.size();
+    if (size == 1) {
+      return sockets.get(0);
+    }
+
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    final int i1 = random.nextInt(size);
+    int i2 = random.nextInt(size - 1);
+    if (i2 >= i1) {
+      i2++;
+    }
+
+    final RSocket rsc1 = sockets.get(i1);
+    final RSocket rsc2 = sockets.get(i2);
+    return pending(rsc2) < pending(rsc1) ? rsc2 : rsc1;
+  }
+
+  /**
+   * Return the number of outstanding requests of the given {@code RSocket}, or {@link
+   * Integer#MAX_VALUE} if it is not available, so that the other one is preferred.
+   */
+  int pending(RSocket rSocket) {
+    final RSocket selectable =
+        rSocket instanceof PooledRSocket ? ((PooledRSocket) rSocket).valueIfResolved() : rSocket;
+    if (selectable == null) {
+      // not connected yet, so give it a chance to connect
+      return 0;
+    }
+    if (selectable.isDisposed() || selectable.availability() <= 0.0) {
+      return Integer.MAX_VALUE;
+    }
+
+    final Tracker tracker = trackers.get(selectable);
+    return tracker != null ? tracker.pending : 0;
+  }
+
+  /** Create an instance of {@link LeastOutstandingRequestsLoadbalanceStrategy}. */
+  public static LeastOutstandingRequestsLoadbalanceStrategy create() {
+    return new LeastOutstandingRequestsLoadbalanceStrategy();
+  }
+
+  static final class Tracker implements RequestInterceptor {
+
+    final Map<RSocket, Tracker> trackers;
+
+    volatile RSocket selectable;
+
+    volatile int pending;
+
+    static final AtomicIntegerFieldUpdater<Tracker> PENDING =
+        AtomicIntegerFieldUpdater.newUpdater(Tracker.class, "pending");
+
+    Tracker(Map<RSocket, Tracker> trackers, RSocket rSocket) {
+      this.trackers = trackers;
+      this.selectable = rSocket;
+    }
+
+    /** Register the tracker under the requester as it is handed to the pool. */
+    void select(RSocket rSocket) {
+      trackers.remove(selectable, this);
+      selectable = rSocket;
+      trackers.put(rSocket, this);
+    }
+
+    @Override
+    public void onStart(int streamId, FrameType requestType, @Nullable ByteBuf metadata) {
+      PENDING.incrementAndGet(this);
+    }
+
+    @Override
+    public void onTerminate(int streamId, FrameType requestType, @Nullable Throwable t) {
+      PENDING.decrementAndGet(this);
+    }
+
+    @Override
+    public void onCancel(int streamId, FrameType requestType) {
+      PENDING.decrementAndGet(this);
+    }
+
+    @Override
+    public void onReject(
+        Throwable rejectionReason, FrameType requestType, @Nullable ByteBuf metadata) {}
+
+    @Override
+    public void dispose() {
+      trackers.remove(selectable, this);
+    }
+  }
+}
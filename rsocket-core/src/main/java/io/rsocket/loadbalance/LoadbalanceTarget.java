@@ -16,11 +16,16 @@
 package io.rsocket.loadbalance;
 
 import io.rsocket.transport.ClientTransport;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import reactor.util.annotation.Nullable;
 
 /**
  * Simple container for a key and a {@link ClientTransport}, representing a specific target for
  * loadbalancing purposes. The key is used to compare previous and new targets when refreshing the
- * list of target to use. The transport is used to connect to the target.
+ * list of target to use. The transport is used to connect to the target. Optional attributes
+ * describe the target, e.g. its locality, and can be used by a {@link LoadbalanceStrategy}.
  *
  * @since 1.1
  */
@@ -28,10 +33,13 @@ public class LoadbalanceTarget {
 
   final String key;
   final ClientTransport transport;
+  final Map<String, String> attributes;
 
-  private LoadbalanceTarget(String key, ClientTransport transport) {
+  private LoadbalanceTarget(
+      String key, ClientTransport transport, Map<String, String> attributes) {
     this.key = key;
     this.transport = transport;
+    this.attributes = attributes;
   }
 
   /** Return the key for this target. */
@@ -44,6 +52,22 @@ public ClientTransport getTransport() {
     return transport;
   }
 
+  /** Return the read-only attributes of the target, e.g. its region or zone. */
+  public Map<String, String> getAttributes() {
+    return attributes;
+  }
+
+  /**
+   * Return the value of the given attribute, or {@code null} if not present.
+   *
+   * @param name the name of the attribute
+   * @since 1.1.1
+   */
+  @Nullable
+  public String getAttribute(String name) {
+    return attributes.get(name);
+  }
+
   /**
    * Create a an instance of {@link LoadbalanceTarget} with the given key and {@link
    * ClientTransport}. The key can be anything that can be used to identify identical targets, e.g.
@@ -54,7 +78,28 @@ public ClientTransport getTransport() {
    * @return the created instance
    */
   public static LoadbalanceTarget from(String key, ClientTransport transport) {
-    return new LoadbalanceTarget(key, transport);
+    return new LoadbalanceTarget(key, transport, Collections.emptyMap());
+  }
+
+  /**
+   * Variant of {@link #from(String, ClientTransport)} that also associates attributes with the
+   * target, e.g. the zone it is located in as used by {@link
+   * LocalityAwareLoadbalanceStrategy}. Attributes do not take part in {@link #equals(Object)}.
+   *
+   * @param key the key to use to identify identical targets
+   * @param transport the transport to use for connecting to the target
+   * @param attributes the attributes describing the target
+   * @return the created instance
+   * @since 1.1.1
+   */
+  public static LoadbalanceTarget from(
+      String key, ClientTransport transport, Map<String, String> attributes) {
+    return new LoadbalanceTarget(
+        key,
+        transport,
+        attributes.isEmpty()
+            ? Collections.emptyMap()
+            : Collections.unmodifiableMap(new HashMap<>(attributes)));
   }
 
   @Override
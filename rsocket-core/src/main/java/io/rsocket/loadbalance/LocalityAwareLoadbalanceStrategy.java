@@ -0,0 +1,221 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.loadbalance;
+
+import io.rsocket.RSocket;
+import io.rsocket.core.RSocketConnector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link LoadbalanceStrategy} that keeps traffic within the local zone for as long as the zone is
+ * healthy and has enough capacity, and otherwise spills over to other zones in proportion to the
+ * missing local capacity. The locality of a target is taken from its {@link
+ * LoadbalanceTarget#getAttribute(String) attributes}. The choice among targets within the selected
+ * zone(s) is made by a delegate strategy.
+ *
+ * <p>The local zone is considered to have full capacity when the ratio of available local targets
+ * to all local targets is at least {@link Builder#minHealthyRatio(double)} and there are at least
+ * {@link Builder#minLocalTargets(int)} available local targets. Below that, the share of requests
+ * routed locally is reduced linearly and the remainder goes to the other zones.
+ *
+ * @since 1.1.1
+ */
+public class LocalityAwareLoadbalanceStrategy implements ClientLoadbalanceStrategy {
+
+  /** The default name of the {@link LoadbalanceTarget} attribute that holds the zone. */
+  public static final String DEFAULT_LOCALITY_ATTRIBUTE = "zone";
+
+  static final ThreadLocal<Partition> PARTITION = ThreadLocal.withInitial(Partition::new);
+
+  final String localZone;
+  final String localityAttribute;
+  final LoadbalanceStrategy delegate;
+  final double minHealthyRatio;
+  final int minLocalTargets;
+
+  private LocalityAwareLoadbalanceStrategy(
+      String localZone,
+      String localityAttribute,
+      LoadbalanceStrategy delegate,
+      double minHealthyRatio,
+      int minLocalTargets) {
+    this.localZone = localZone;
+    this.localityAttribute = localityAttribute;
+    this.delegate = delegate;
+    this.minHealthyRatio = minHealthyRatio;
+    this.minLocalTargets = minLocalTargets;
+  }
+
+  @Override
+  public void initialize(RSocketConnector connector) {
+    if (delegate instanceof ClientLoadbalanceStrategy) {
+      ((ClientLoadbalanceStrategy) delegate).initialize(connector);
+    }
+  }
+
+  @Override
+  public RSocket select(List<RSocket> sockets) {
+    if (!(sockets instanceof RSocketPool.WrappingList)) {
+      // targets are unknown, e.g. when used outside of the pool
+      return delegate.select(sockets);
+    }
+
+    final RSocketPool.WrappingList targets = (RSocketPool.WrappingList) sockets;
+    final Partition partition = PARTITION.get();
+    final List<RSocket> local = partition.local;
+    final List<RSocket> remote = partition.remote;
+
+    try {
+      int localTotal = 0;
+      for (int i = 0; i < targets.size(); i++) {
+        final RSocket rSocket = targets.get(i);
+        if (localZone.equals(targets.target(i).getAttribute(localityAttribute))) {
+          localTotal++;
+          // a target which is still connecting counts as available, otherwise the local zone
+          // would never get connected to as long as other zones are reachable
+          if (!rSocket.isDisposed()
+              && (rSocket.availability() > 0.0 || rSocket instanceof PooledRSocket)) {
+            local.add(rSocket);
+          }
+        } else {
+          remote.add(rSocket);
+        }
+      }
+
+      final int localAvailable = local.size();
+      if (localAvailable == 0) {
+        return delegate.select(remote.isEmpty() ? sockets : remote);
+      }
+      if (remote.isEmpty()) {
+        return delegate.select(local);
+      }
+
+      final double localCapacity =
+          Math.min(
+              localAvailable / (minHealthyRatio * localTotal),
+              (double) localAvailable / minLocalTargets);
+
+      if (localCapacity >= 1.0 || ThreadLocalRandom.current().nextDouble() < localCapacity) {
+        return delegate.select(local);
+      }
+
+      return delegate.select(remote);
+    } finally {
+      local.clear();
+      remote.clear();
+    }
+  }
+
+  /**
+   * Return a builder to create a {@link LocalityAwareLoadbalanceStrategy} with.
+   *
+   * @param localZone the zone the client is located in
+   */
+  public static Builder builder(String localZone) {
+    return new Builder(localZone);
+  }
+
+  /** Builder for {@link LocalityAwareLoadbalanceStrategy}. */
+  public static class Builder {
+
+    private final String localZone;
+
+    private String localityAttribute = DEFAULT_LOCALITY_ATTRIBUTE;
+
+    private LoadbalanceStrategy delegate;
+
+    private double minHealthyRatio = 0.7;
+
+    private int minLocalTargets = 1;
+
+    private Builder(String localZone) {
+      this.localZone = Objects.requireNonNull(localZone, "localZone");
+    }
+
+    /**
+     * The name of the {@link LoadbalanceTarget} attribute that holds the zone of a target.
+     *
+     * <p>By default this is set to {@link
+     * LocalityAwareLoadbalanceStrategy#DEFAULT_LOCALITY_ATTRIBUTE}.
+     *
+     * @param attributeName the attribute name
+     */
+    public Builder localityAttribute(String attributeName) {
+      this.localityAttribute = Objects.requireNonNull(attributeName, "attributeName");
+      return this;
+    }
+
+    /**
+     * The strategy to use to select among the targets of the chosen zone(s).
+     *
+     * <p>By default this is {@link WeightedLoadbalanceStrategy}.
+     *
+     * @param strategy the delegate strategy
+     */
+    public Builder delegate(LoadbalanceStrategy strategy) {
+      this.delegate = Objects.requireNonNull(strategy, "strategy");
+      return this;
+    }
+
+    /**
+     * The ratio of available to all local targets at or above which the local zone is considered
+     * healthy and receives all traffic.
+     *
+     * <p>By default this is set to 0.7.
+     *
+     * @param ratio a value in the range {@code (0, 1]}
+     */
+    public Builder minHealthyRatio(double ratio) {
+      if (ratio <= 0 || ratio > 1) {
+        throw new IllegalArgumentException("ratio must be in the range (0, 1]");
+      }
+      this.minHealthyRatio = ratio;
+      return this;
+    }
+
+    /**
+     * The number of available local targets required for the local zone to receive all traffic.
+     *
+     * <p>By default this is set to 1.
+     *
+     * @param count a positive number of targets
+     */
+    public Builder minLocalTargets(int count) {
+      if (count < 1) {
+        throw new IllegalArgumentException("count must be positive");
+      }
+      this.minLocalTargets = count;
+      return this;
+    }
+
+    public LocalityAwareLoadbalanceStrategy build() {
+      return new LocalityAwareLoadbalanceStrategy(
+          this.localZone,
+          this.localityAttribute,
+          this.delegate != null ? this.delegate : WeightedLoadbalanceStrategy.create(),
+          this.minHealthyRatio,
+          this.minLocalTargets);
+    }
+  }
+
+  static final class Partition {
+    final List<RSocket> local = new ArrayList<>();
+    final List<RSocket> remote = new ArrayList<>();
+  }
+}
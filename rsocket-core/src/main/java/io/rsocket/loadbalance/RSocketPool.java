@@ -406,6 +406,10 @@ public RSocket get(int index) {
       return socket;
     }
 
+    LoadbalanceTarget target(int index) {
+      return activeSockets[index].target();
+    }
+
     @Override
     public int size() {
       return activeSockets.length;
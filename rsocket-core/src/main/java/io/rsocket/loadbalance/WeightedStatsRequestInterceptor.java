@@ -3,6 +3,8 @@
 import io.netty.buffer.ByteBuf;
 import io.rsocket.frame.FrameType;
 import io.rsocket.plugins.RequestInterceptor;
+import io.rsocket.util.Clock;
+import java.util.concurrent.TimeUnit;
 import reactor.util.annotation.Nullable;
 
 /**
@@ -86,6 +88,12 @@ public final void onCancel(int streamId, FrameType requestType) {
   @Override
   public final void onReject(Throwable rejectionReason, FrameType requestType, ByteBuf metadata) {}
 
+  @Override
+  public final void onKeepAliveRoundTrip(long roundTripTimeNanos) {
+    // keeps the latency estimation fresh for connections which see little or no traffic
+    record(Clock.unit().convert(roundTripTimeNanos, TimeUnit.NANOSECONDS));
+  }
+
   @Override
   public void dispose() {}
 }
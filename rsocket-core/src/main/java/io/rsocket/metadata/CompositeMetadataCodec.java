@@ -27,7 +27,8 @@
 /**
  * A flyweight class that can be used to encode/decode composite metadata information to/from {@link
  * ByteBuf}. This is intended for low-level efficient manipulation of such buffers. See {@link
- * CompositeMetadata} for an Iterator-like approach to decoding entries.
+ * CompositeMetadata} for an Iterator-like approach to decoding entries, and {@link
+ * CompositeMetadataReader} for an allocation-free one.
  */
 public class CompositeMetadataCodec {
 
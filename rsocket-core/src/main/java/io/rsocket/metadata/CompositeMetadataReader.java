@@ -0,0 +1,224 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.metadata;
+
+import static io.rsocket.metadata.CompositeMetadataCodec.STREAM_METADATA_KNOWN_MASK;
+import static io.rsocket.metadata.CompositeMetadataCodec.STREAM_METADATA_LENGTH_MASK;
+
+import io.netty.buffer.ByteBuf;
+import reactor.util.annotation.Nullable;
+
+/**
+ * A cursor-style flyweight reader of composite metadata, as an allocation-free alternative to
+ * {@link CompositeMetadata}. A single instance can be {@link #reset(ByteBuf) reset} to read one
+ * buffer after another, and exposes the mime type and the content of the current entry as offsets
+ * into the source buffer rather than as slices, arrays or strings. The reader index of the source
+ * buffer is never moved.
+ *
+ * <pre>{@code
+ * CompositeMetadataReader reader = new CompositeMetadataReader();
+ * reader.reset(metadata);
+ * while (reader.next()) {
+ *   if (reader.mimeId() == WellKnownMimeType.MESSAGE_RSOCKET_ROUTING.getIdentifier()) {
+ *     ByteBuf source = reader.source();
+ *     int index = reader.contentIndex();
+ *     int length = reader.contentLength();
+ *     // ...
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>Instances are not thread-safe and are meant to be reused by a single thread, for example
+ * with a {@link io.netty.util.concurrent.FastThreadLocal}.
+ *
+ * @since 1.1.1
+ */
+public final class CompositeMetadataReader {
+
+  @Nullable private ByteBuf source;
+  private int nextIndex;
+  private int endIndex;
+
+  private byte mimeId;
+  private int mimeIndex;
+  private int mimeLength;
+  private int contentIndex;
+  private int contentLength;
+
+  public CompositeMetadataReader() {}
+
+  /**
+   * Start reading the readable bytes of the given buffer, forgetting the buffer read before.
+   *
+   * @param compositeMetadata the composite metadata to read
+   * @return the same instance for method chaining
+   */
+  public CompositeMetadataReader reset(ByteBuf compositeMetadata) {
+    this.source = compositeMetadata;
+    this.nextIndex = compositeMetadata.readerIndex();
+    this.endIndex = compositeMetadata.writerIndex();
+    this.mimeId = -1;
+    this.mimeIndex = 0;
+    this.mimeLength = 0;
+    this.contentIndex = 0;
+    this.contentLength = 0;
+    return this;
+  }
+
+  /**
+   * Move to the next entry.
+   *
+   * @return {@code true} if there is a next entry, or {@code false} once all entries have been
+   *     read
+   * @throws IllegalStateException if the remaining bytes are not enough to read an entry
+   */
+  public boolean next() {
+    final ByteBuf source = this.source;
+    if (source == null) {
+      throw new IllegalStateException("reader has not been reset to a buffer");
+    }
+
+    int index = this.nextIndex;
+    final int endIndex = this.endIndex;
+    if (index >= endIndex) {
+      return false;
+    }
+
+    final byte mimeIdOrLength = source.getByte(index++);
+    if ((mimeIdOrLength & STREAM_METADATA_KNOWN_MASK) == STREAM_METADATA_KNOWN_MASK) {
+      this.mimeId = (byte) (mimeIdOrLength & STREAM_METADATA_LENGTH_MASK);
+      this.mimeIndex = 0;
+      this.mimeLength = 0;
+    } else {
+      // M flag unset, remaining 7 bits are the length of the mime
+      final int mimeLength = Byte.toUnsignedInt(mimeIdOrLength) + 1;
+      if (endIndex - index < mimeLength) {
+        throw malformed();
+      }
+      this.mimeId = -1;
+      this.mimeIndex = index;
+      this.mimeLength = mimeLength;
+      index += mimeLength;
+    }
+
+    if (endIndex - index < 3) {
+      throw malformed();
+    }
+    final int contentLength = source.getUnsignedMedium(index);
+    index += 3;
+    if (endIndex - index < contentLength) {
+      throw malformed();
+    }
+
+    this.contentIndex = index;
+    this.contentLength = contentLength;
+    this.nextIndex = index + contentLength;
+    return true;
+  }
+
+  /** Return the buffer being read, to which the indices of the current entry refer. */
+  public ByteBuf source() {
+    final ByteBuf source = this.source;
+    if (source == null) {
+      throw new IllegalStateException("reader has not been reset to a buffer");
+    }
+    return source;
+  }
+
+  /** Whether the mime type of the current entry is encoded as a well known mime id. */
+  public boolean hasMimeId() {
+    return mimeId >= 0;
+  }
+
+  /**
+   * Return the well known mime id of the current entry, between 0 and 127, or {@code -1} if the
+   * mime type is encoded explicitly.
+   */
+  public byte mimeId() {
+    return mimeId;
+  }
+
+  /**
+   * Return the {@link WellKnownMimeType} of the current entry, which may be {@link
+   * WellKnownMimeType#UNKNOWN_RESERVED_MIME_TYPE} for an id this implementation does not know, or
+   * {@code null} if the mime type is encoded explicitly.
+   */
+  @Nullable
+  public WellKnownMimeType wellKnownMimeType() {
+    return mimeId >= 0 ? WellKnownMimeType.fromIdentifier(mimeId) : null;
+  }
+
+  /** Return the index of the explicit US-ASCII mime type of the current entry, if it has one. */
+  public int mimeIndex() {
+    return mimeIndex;
+  }
+
+  /** Return the length of the explicit mime type of the current entry, or 0 if it has none. */
+  public int mimeLength() {
+    return mimeLength;
+  }
+
+  /**
+   * Whether the mime type of the current entry is the given one, whether it is encoded as a well
+   * known mime id or explicitly, compared without decoding it.
+   *
+   * @param mimeType the mime type to compare with
+   * @return {@code true} if the mime type of the current entry is equal to the given one
+   */
+  public boolean isMimeType(CharSequence mimeType) {
+    if (mimeId >= 0) {
+      final WellKnownMimeType wellKnownMimeType = WellKnownMimeType.fromIdentifier(mimeId);
+      return wellKnownMimeType.getIdentifier() >= 0
+          && wellKnownMimeType.getString().contentEquals(mimeType);
+    }
+
+    final int mimeLength = this.mimeLength;
+    if (mimeType.length() != mimeLength) {
+      return false;
+    }
+    final ByteBuf source = source();
+    final int mimeIndex = this.mimeIndex;
+    for (int i = 0; i < mimeLength; i++) {
+      if (source.getByte(mimeIndex + i) != mimeType.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Return the index of the content of the current entry in the {@link #source()} buffer. */
+  public int contentIndex() {
+    return contentIndex;
+  }
+
+  /** Return the length of the content of the current entry. */
+  public int contentLength() {
+    return contentLength;
+  }
+
+  /**
+   * Return a slice of the content of the current entry. Unlike the other accessors, this allocates
+   * a new {@link ByteBuf} instance, though not a copy of the content.
+   */
+  public ByteBuf contentSlice() {
+    return source().slice(contentIndex, contentLength);
+  }
+
+  private static IllegalStateException malformed() {
+    return new IllegalStateException("metadata is malformed");
+  }
+}
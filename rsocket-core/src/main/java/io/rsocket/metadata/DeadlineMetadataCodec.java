@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.metadata;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.util.CharsetUtil;
+import java.time.Duration;
+
+/**
+ * Codec for the request deadline metadata entry of composite metadata. The entry carries the time
+ * budget in milliseconds that the requester allows for the request, encoded as an 8 byte
+ * non-negative number. A relative budget rather than an absolute point in time is used so that the
+ * deadline does not depend on the clocks of the requester and the responder being synchronized,
+ * which is why the budget must be updated to what is left of it whenever the request is sent.
+ *
+ * @since 1.1.1
+ */
+public final class DeadlineMetadataCodec {
+
+  /** The mime type of the deadline entry. */
+  public static final String MIME_TYPE = "message/x.rsocket.deadline.v0";
+
+  /** Returned by {@link #findTimeoutMillis(ByteBuf)} when there is no deadline entry. */
+  public static final long NO_DEADLINE = -1;
+
+  static final byte[] MIME_TYPE_BYTES = MIME_TYPE.getBytes(CharsetUtil.US_ASCII);
+
+  static final int STREAM_METADATA_KNOWN_MASK = 0x80; // 1000 0000
+  static final byte STREAM_METADATA_LENGTH_MASK = 0x7F; // 0111 1111
+
+  private DeadlineMetadataCodec() {}
+
+  /**
+   * Encode the content of a deadline entry.
+   *
+   * @param allocator the {@link ByteBufAllocator} to use to create the buffer
+   * @param timeoutMillis the time budget of the request in milliseconds
+   * @return the encoded content
+   */
+  public static ByteBuf encode(ByteBufAllocator allocator, long timeoutMillis) {
+    if (timeoutMillis < 0) {
+      throw new IllegalArgumentException("timeoutMillis must not be negative");
+    }
+    return allocator.buffer(Long.BYTES, Long.BYTES).writeLong(timeoutMillis);
+  }
+
+  /**
+   * Encode a deadline entry and add it to the given composite metadata.
+   *
+   * @param compositeMetadata the buffer that holds all composite metadata entries
+   * @param allocator the {@link ByteBufAllocator} to use to create intermediate buffers
+   * @param timeout the time budget of the request
+   */
+  public static void encodeAndAddDeadline(
+      CompositeByteBuf compositeMetadata, ByteBufAllocator allocator, Duration timeout) {
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        compositeMetadata, allocator, MIME_TYPE, encode(allocator, timeout.toMillis()));
+  }
+
+  /**
+   * Decode the content of a deadline entry.
+   *
+   * @param content the content of the entry
+   * @return the time budget of the request in milliseconds
+   */
+  public static long decode(ByteBuf content) {
+    return content.getLong(content.readerIndex());
+  }
+
+  /**
+   * Find the deadline entry in the given composite metadata and decode its content, without
+   * allocating. Malformed composite metadata, for example metadata of a different mime type, is
+   * treated as not having a deadline entry.
+   *
+   * @param compositeMetadata the composite metadata to look into
+   * @return the time budget of the request in milliseconds, or {@link #NO_DEADLINE}
+   */
+  public static long findTimeoutMillis(ByteBuf compositeMetadata) {
+    final int index = findTimeoutIndex(compositeMetadata);
+    if (index < 0) {
+      return NO_DEADLINE;
+    }
+    final long timeoutMillis = compositeMetadata.getLong(index);
+    return timeoutMillis < 0 ? NO_DEADLINE : timeoutMillis;
+  }
+
+  /**
+   * Find the deadline entry in the given composite metadata, without allocating. The time budget
+   * can then be read or updated in place with {@link ByteBuf#getLong(int)} and {@link
+   * ByteBuf#setLong(int, long)} at the returned index.
+   *
+   * @param compositeMetadata the composite metadata to look into
+   * @return the absolute index of the content of the deadline entry, or {@code -1}
+   */
+  public static int findTimeoutIndex(ByteBuf compositeMetadata) {
+    int index = compositeMetadata.readerIndex();
+    final int end = compositeMetadata.writerIndex();
+
+    while (index < end) {
+      final byte mimeIdOrLength = compositeMetadata.getByte(index++);
+      boolean matches = false;
+      if ((mimeIdOrLength & STREAM_METADATA_KNOWN_MASK) != STREAM_METADATA_KNOWN_MASK) {
+        final int mimeLength = (mimeIdOrLength & STREAM_METADATA_LENGTH_MASK) + 1;
+        if (index + mimeLength > end) {
+          return -1;
+        }
+        matches = mimeLength == MIME_TYPE_BYTES.length && equalsMimeType(compositeMetadata, index);
+        index += mimeLength;
+      }
+
+      if (index + 3 > end) {
+        return -1;
+      }
+      final int contentLength = compositeMetadata.getUnsignedMedium(index);
+      index += 3;
+      if (index + contentLength > end) {
+        return -1;
+      }
+
+      if (matches && contentLength == Long.BYTES) {
+        return index;
+      }
+      index += contentLength;
+    }
+
+    return -1;
+  }
+
+  static boolean equalsMimeType(ByteBuf buffer, int index) {
+    final byte[] mimeType = MIME_TYPE_BYTES;
+    for (int i = 0; i < mimeType.length; i++) {
+      if (buffer.getByte(index + i) != mimeType[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
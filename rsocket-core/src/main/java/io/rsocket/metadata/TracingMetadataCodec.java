@@ -163,6 +163,203 @@ public static TracingMetadata decode(ByteBuf byteBuf) {
     }
   }
 
+  /**
+   * Encode tracing metadata for a child span of the span of the given tracing metadata, reading the
+   * parent directly from its buffer. The trace id and sampling decision are kept, and the span id
+   * of the parent becomes the parent id.
+   *
+   * @param allocator the allocator to create the buffer with
+   * @param parent the encoded tracing metadata of the parent span
+   * @param spanId the id of the child span
+   * @return the encoded tracing metadata of the child span
+   * @since 1.1.1
+   */
+  public static ByteBuf encodeChild(ByteBufAllocator allocator, ByteBuf parent, long spanId) {
+    return encodeChild(allocator, parent, parent.readerIndex(), spanId);
+  }
+
+  /**
+   * Encode tracing metadata for a child span of the span of the tracing metadata at the given index
+   * of a buffer, such as an entry of composite metadata, without changing its reader index.
+   *
+   * @param allocator the allocator to create the buffer with
+   * @param parent the buffer holding the encoded tracing metadata of the parent span
+   * @param index the index at which the tracing metadata of the parent span starts
+   * @param spanId the id of the child span
+   * @return the encoded tracing metadata of the child span
+   * @since 1.1.1
+   */
+  public static ByteBuf encodeChild(
+      ByteBufAllocator allocator, ByteBuf parent, int index, long spanId) {
+    final int flags = parent.getByte(index);
+    if ((flags & FLAG_IDS_SET) == 0) {
+      return allocator.buffer(1).writeByte(flags);
+    }
+    final boolean extendedTraceId = (flags & FLAG_EXTENDED_TRACE_ID_SIZE) != 0;
+    final ByteBuf buffer = allocator.buffer(1 + Long.BYTES * (extendedTraceId ? 4 : 3));
+    buffer.writeByte(flags | FLAG_INCLUDE_PARENT_ID);
+    if (extendedTraceId) {
+      buffer.writeLong(traceIdHigh(parent, index));
+    }
+    return buffer
+        .writeLong(traceId(parent, index))
+        .writeLong(spanId)
+        .writeLong(spanId(parent, index));
+  }
+
+  /**
+   * Return whether the given tracing metadata carries trace and span ids, without decoding it.
+   *
+   * @since 1.1.1
+   */
+  public static boolean hasIds(ByteBuf byteBuf) {
+    return hasIds(byteBuf, byteBuf.readerIndex());
+  }
+
+  /**
+   * Return whether the tracing metadata at the given index carries trace and span ids.
+   *
+   * @since 1.1.1
+   */
+  public static boolean hasIds(ByteBuf byteBuf, int index) {
+    return (byteBuf.getByte(index) & FLAG_IDS_SET) != 0;
+  }
+
+  /**
+   * Return the sampling decision of the given tracing metadata, without decoding it.
+   *
+   * @since 1.1.1
+   */
+  public static Flags flags(ByteBuf byteBuf) {
+    return flags(byteBuf, byteBuf.readerIndex());
+  }
+
+  /**
+   * Return the sampling decision of the tracing metadata at the given index.
+   *
+   * @since 1.1.1
+   */
+  public static Flags flags(ByteBuf byteBuf, int index) {
+    final int flags = byteBuf.getByte(index);
+    if ((flags & FLAG_DEBUG) != 0) {
+      return Flags.DEBUG;
+    } else if ((flags & FLAG_SAMPLED) != 0) {
+      return Flags.SAMPLE;
+    } else if ((flags & FLAG_NOT_SAMPLED) != 0) {
+      return Flags.NOT_SAMPLE;
+    }
+    return Flags.UNDECIDED;
+  }
+
+  /**
+   * Return the high 64 bits of the trace id of the given tracing metadata, or {@code 0} for 64 bits
+   * trace ids, without decoding it.
+   *
+   * @since 1.1.1
+   */
+  public static long traceIdHigh(ByteBuf byteBuf) {
+    return traceIdHigh(byteBuf, byteBuf.readerIndex());
+  }
+
+  /**
+   * Return the high 64 bits of the trace id of the tracing metadata at the given index, or {@code
+   * 0} for 64 bits trace ids.
+   *
+   * @since 1.1.1
+   */
+  public static long traceIdHigh(ByteBuf byteBuf, int index) {
+    return (byteBuf.getByte(index) & FLAG_EXTENDED_TRACE_ID_SIZE) != 0
+        ? byteBuf.getLong(index + 1)
+        : 0;
+  }
+
+  /**
+   * Return the trace id, or the low 64 bits of a 128 bits trace id, of the given tracing metadata
+   * with ids, without decoding it.
+   *
+   * @since 1.1.1
+   */
+  public static long traceId(ByteBuf byteBuf) {
+    return traceId(byteBuf, byteBuf.readerIndex());
+  }
+
+  /**
+   * Return the trace id, or the low 64 bits of a 128 bits trace id, of the tracing metadata with
+   * ids at the given index.
+   *
+   * @since 1.1.1
+   */
+  public static long traceId(ByteBuf byteBuf, int index) {
+    return byteBuf.getLong(idsIndex(byteBuf, index));
+  }
+
+  /**
+   * Return the span id of the given tracing metadata with ids, without decoding it.
+   *
+   * @since 1.1.1
+   */
+  public static long spanId(ByteBuf byteBuf) {
+    return spanId(byteBuf, byteBuf.readerIndex());
+  }
+
+  /**
+   * Return the span id of the tracing metadata with ids at the given index.
+   *
+   * @since 1.1.1
+   */
+  public static long spanId(ByteBuf byteBuf, int index) {
+    return byteBuf.getLong(idsIndex(byteBuf, index) + Long.BYTES);
+  }
+
+  /**
+   * Return the parent id of the given tracing metadata with ids, or {@code 0} if it has no parent,
+   * without decoding it.
+   *
+   * @since 1.1.1
+   */
+  public static long parentId(ByteBuf byteBuf) {
+    return parentId(byteBuf, byteBuf.readerIndex());
+  }
+
+  /**
+   * Return the parent id of the tracing metadata with ids at the given index, or {@code 0} if it
+   * has no parent.
+   *
+   * @since 1.1.1
+   */
+  public static long parentId(ByteBuf byteBuf, int index) {
+    return (byteBuf.getByte(index) & FLAG_INCLUDE_PARENT_ID) != 0
+        ? byteBuf.getLong(idsIndex(byteBuf, index) + Long.BYTES * 2)
+        : 0;
+  }
+
+  /**
+   * Return the length in bytes that the tracing metadata at the given index should have according
+   * to its flags.
+   *
+   * @since 1.1.1
+   */
+  public static int length(ByteBuf byteBuf, int index) {
+    final int flags = byteBuf.getByte(index);
+    if ((flags & FLAG_IDS_SET) == 0) {
+      return 1;
+    }
+    int length = 1 + Long.BYTES * 2;
+    if ((flags & FLAG_EXTENDED_TRACE_ID_SIZE) != 0) {
+      length += Long.BYTES;
+    }
+    if ((flags & FLAG_INCLUDE_PARENT_ID) != 0) {
+      length += Long.BYTES;
+    }
+    return length;
+  }
+
+  private static int idsIndex(ByteBuf byteBuf, int index) {
+    return (byteBuf.getByte(index) & FLAG_EXTENDED_TRACE_ID_SIZE) != 0
+        ? index + 1 + Long.BYTES
+        : index + 1;
+  }
+
   public enum Flags {
     UNDECIDED,
     NOT_SAMPLE,
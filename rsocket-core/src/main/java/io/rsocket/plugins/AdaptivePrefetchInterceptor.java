@@ -0,0 +1,461 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.plugins;
+
+import io.netty.util.ReferenceCountUtil;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.util.RSocketProxy;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxOperator;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+import reactor.util.context.Context;
+
+/**
+ * Interceptor that sizes the {@code REQUEST_N} windows of inbound streams per stream, rather than
+ * with the fixed values of {@link LimitRateInterceptor}. Similar to the receive window auto-tuning
+ * of TCP, each stream prefetches about twice as many payloads as its consumer drains within one
+ * round trip, so that a fast consumer on a high-latency link is not starved, while a slow consumer
+ * does not buffer more than it needs.
+ *
+ * <p>The round trip time is sampled per stream, from every {@code REQUEST_N} sent for a refill to
+ * the arrival of the first payload it brings, and the drain rate is measured between refills. A
+ * refill is sent once three quarters of the window have been consumed. The window stays within the
+ * configured minimum and maximum number of payloads, and is further bounded so that the prefetched
+ * payloads, at their average size, do not exceed the configured number of bytes.
+ *
+ * <p>On the requester side, the responses of request-stream and request-channel interactions are
+ * prefetched. On the responder side, the inbound payloads of request-channel interactions are.
+ * See static factory methods to create an instance for a requester or for a responder.
+ *
+ * @since 1.1.1
+ */
+public class AdaptivePrefetchInterceptor implements RSocketInterceptor {
+
+  static final int DEFAULT_MIN_PREFETCH = 8;
+  static final int DEFAULT_MAX_PREFETCH = 1024;
+  static final long DEFAULT_MAX_BUFFERED_BYTES = 8 * 1024 * 1024;
+
+  private final int minPrefetch;
+  private final int maxPrefetch;
+  private final long maxBufferedBytes;
+  private final Scheduler clock;
+  private final boolean requesterProxy;
+
+  AdaptivePrefetchInterceptor(
+      int minPrefetch,
+      int maxPrefetch,
+      long maxBufferedBytes,
+      Scheduler clock,
+      boolean requesterProxy) {
+    if (minPrefetch <= 0 || maxPrefetch < minPrefetch) {
+      throw new IllegalArgumentException(
+          "minPrefetch must be positive and maxPrefetch must not be less than minPrefetch");
+    }
+    if (maxBufferedBytes <= 0) {
+      throw new IllegalArgumentException("maxBufferedBytes must be positive");
+    }
+    this.minPrefetch = minPrefetch;
+    this.maxPrefetch = maxPrefetch;
+    this.maxBufferedBytes = maxBufferedBytes;
+    this.clock = clock;
+    this.requesterProxy = requesterProxy;
+  }
+
+  @Override
+  public RSocket apply(RSocket socket) {
+    return requesterProxy ? new RequesterProxy(socket) : new ResponderProxy(socket);
+  }
+
+  /**
+   * Create an interceptor for an {@code RSocket} that performs request-stream and/or
+   * request-channel interactions, with windows of 8 to 1024 payloads and at most 8 MiB.
+   *
+   * @return the created interceptor
+   */
+  public static AdaptivePrefetchInterceptor forRequester() {
+    return forRequester(DEFAULT_MIN_PREFETCH, DEFAULT_MAX_PREFETCH, DEFAULT_MAX_BUFFERED_BYTES);
+  }
+
+  /**
+   * Create an interceptor for an {@code RSocket} that performs request-stream and/or
+   * request-channel interactions.
+   *
+   * @param minPrefetch the min number of payloads to prefetch per stream, also the initial one
+   * @param maxPrefetch the max number of payloads to prefetch per stream
+   * @param maxBufferedBytes the max number of bytes to prefetch per stream
+   * @return the created interceptor
+   */
+  public static AdaptivePrefetchInterceptor forRequester(
+      int minPrefetch, int maxPrefetch, long maxBufferedBytes) {
+    return new AdaptivePrefetchInterceptor(
+        minPrefetch, maxPrefetch, maxBufferedBytes, Schedulers.parallel(), true);
+  }
+
+  /**
+   * Create an interceptor for an {@code RSocket} that handles request-channel interactions, with
+   * windows of 8 to 1024 payloads and at most 8 MiB.
+   *
+   * @return the created interceptor
+   */
+  public static AdaptivePrefetchInterceptor forResponder() {
+    return forResponder(DEFAULT_MIN_PREFETCH, DEFAULT_MAX_PREFETCH, DEFAULT_MAX_BUFFERED_BYTES);
+  }
+
+  /**
+   * Create an interceptor for an {@code RSocket} that handles request-channel interactions.
+   *
+   * @param minPrefetch the min number of payloads to prefetch per stream, also the initial one
+   * @param maxPrefetch the max number of payloads to prefetch per stream
+   * @param maxBufferedBytes the max number of bytes to prefetch per stream
+   * @return the created interceptor
+   */
+  public static AdaptivePrefetchInterceptor forResponder(
+      int minPrefetch, int maxPrefetch, long maxBufferedBytes) {
+    return new AdaptivePrefetchInterceptor(
+        minPrefetch, maxPrefetch, maxBufferedBytes, Schedulers.parallel(), false);
+  }
+
+  Flux<Payload> prefetch(Publisher<Payload> source) {
+    return new FluxAdaptivePrefetch(Flux.from(source), this);
+  }
+
+  /** Responder side proxy, prefetches inbound channel payloads. */
+  private class ResponderProxy extends RSocketProxy {
+
+    ResponderProxy(RSocket source) {
+      super(source);
+    }
+
+    @Override
+    public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+      return super.requestChannel(prefetch(payloads));
+    }
+  }
+
+  /** Requester side proxy, prefetches response streams. */
+  private class RequesterProxy extends RSocketProxy {
+
+    RequesterProxy(RSocket source) {
+      super(source);
+    }
+
+    @Override
+    public Flux<Payload> requestStream(Payload payload) {
+      return prefetch(super.requestStream(payload));
+    }
+
+    @Override
+    public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+      return prefetch(super.requestChannel(payloads));
+    }
+  }
+
+  static final class FluxAdaptivePrefetch extends FluxOperator<Payload, Payload> {
+
+    final AdaptivePrefetchInterceptor parent;
+
+    FluxAdaptivePrefetch(Flux<Payload> source, AdaptivePrefetchInterceptor parent) {
+      super(source);
+      this.parent = parent;
+    }
+
+    @Override
+    public void subscribe(CoreSubscriber<? super Payload> actual) {
+      source.subscribe(new AdaptivePrefetchSubscriber(actual, parent));
+    }
+  }
+
+  static final class AdaptivePrefetchSubscriber implements CoreSubscriber<Payload>, Subscription {
+
+    final CoreSubscriber<? super Payload> actual;
+    final int minPrefetch;
+    final int maxPrefetch;
+    final long maxBufferedBytes;
+    final Scheduler clock;
+    final Queue<Payload> queue;
+
+    Subscription s;
+
+    volatile boolean done;
+    Throwable error;
+
+    volatile boolean cancelled;
+
+    volatile int wip;
+    static final AtomicIntegerFieldUpdater<AdaptivePrefetchSubscriber> WIP =
+        AtomicIntegerFieldUpdater.newUpdater(AdaptivePrefetchSubscriber.class, "wip");
+
+    volatile long requested;
+    static final AtomicLongFieldUpdater<AdaptivePrefetchSubscriber> REQUESTED =
+        AtomicLongFieldUpdater.newUpdater(AdaptivePrefetchSubscriber.class, "requested");
+
+    // the number of the first payload that the last REQUEST_N brings until it arrives, or -1
+    volatile long probeSequence = -1;
+    static final AtomicLongFieldUpdater<AdaptivePrefetchSubscriber> PROBE_SEQUENCE =
+        AtomicLongFieldUpdater.newUpdater(AdaptivePrefetchSubscriber.class, "probeSequence");
+
+    // the time at which the last REQUEST_N was sent, published by probeSequence
+    long probeNanos;
+
+    // accessed by the receiving thread only
+    long received;
+
+    // written by the receiving thread only
+    volatile double smoothedRttNanos;
+
+    // accessed by the draining thread only
+    int window;
+    long credit;
+    long requestedUpstream;
+    long consumedSinceRefill;
+    long lastRefillNanos;
+    double drainRatePerNano;
+    double averagePayloadBytes;
+
+    AdaptivePrefetchSubscriber(
+        CoreSubscriber<? super Payload> actual, AdaptivePrefetchInterceptor parent) {
+      this.actual = actual;
+      this.minPrefetch = parent.minPrefetch;
+      this.maxPrefetch = parent.maxPrefetch;
+      this.maxBufferedBytes = parent.maxBufferedBytes;
+      this.clock = parent.clock;
+      this.queue = Queues.<Payload>unbounded(Queues.SMALL_BUFFER_SIZE).get();
+    }
+
+    @Override
+    public Context currentContext() {
+      return actual.currentContext();
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      if (Operators.validate(this.s, s)) {
+        this.s = s;
+        actual.onSubscribe(this);
+
+        final long now = clock.now(TimeUnit.NANOSECONDS);
+        window = minPrefetch;
+        credit = minPrefetch;
+        requestedUpstream = minPrefetch;
+        lastRefillNanos = now;
+        probe(now, 1);
+        s.request(minPrefetch);
+      }
+    }
+
+    @Override
+    public void onNext(Payload payload) {
+      if (done || cancelled) {
+        ReferenceCountUtil.safeRelease(payload);
+        return;
+      }
+      sampleRoundTrip();
+      queue.offer(payload);
+      drain();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      if (done) {
+        Operators.onErrorDropped(t, actual.currentContext());
+        return;
+      }
+      error = t;
+      done = true;
+      drain();
+    }
+
+    @Override
+    public void onComplete() {
+      if (done) {
+        return;
+      }
+      done = true;
+      drain();
+    }
+
+    @Override
+    public void request(long n) {
+      if (Operators.validate(n)) {
+        Operators.addCap(REQUESTED, this, n);
+        drain();
+      }
+    }
+
+    @Override
+    public void cancel() {
+      if (cancelled) {
+        return;
+      }
+      cancelled = true;
+      s.cancel();
+      if (WIP.getAndIncrement(this) == 0) {
+        clear();
+      }
+    }
+
+    void drain() {
+      if (WIP.getAndIncrement(this) != 0) {
+        return;
+      }
+
+      int missed = 1;
+      for (; ; ) {
+        final long r = requested;
+        long e = 0;
+
+        while (e != r) {
+          if (cancelled) {
+            clear();
+            return;
+          }
+
+          final boolean d = done;
+          final Payload payload = queue.poll();
+          final boolean empty = payload == null;
+
+          if (d && empty) {
+            terminate();
+            return;
+          }
+
+          if (empty) {
+            break;
+          }
+
+          sample(payload);
+          actual.onNext(payload);
+          e++;
+
+          credit--;
+          consumedSinceRefill++;
+          if (credit <= window >> 2) {
+            refill();
+          }
+        }
+
+        if (e == r) {
+          if (cancelled) {
+            clear();
+            return;
+          }
+          if (done && queue.isEmpty()) {
+            terminate();
+            return;
+          }
+        }
+
+        if (e != 0) {
+          Operators.produced(REQUESTED, this, e);
+        }
+
+        missed = WIP.addAndGet(this, -missed);
+        if (missed == 0) {
+          break;
+        }
+      }
+    }
+
+    void probe(long now, long sequence) {
+      probeNanos = now;
+      probeSequence = sequence;
+    }
+
+    void sampleRoundTrip() {
+      final long sequence = ++received;
+      if (probeSequence == sequence && PROBE_SEQUENCE.compareAndSet(this, sequence, -1)) {
+        final long rtt = clock.now(TimeUnit.NANOSECONDS) - probeNanos;
+        final double smoothedRttNanos = this.smoothedRttNanos;
+        this.smoothedRttNanos =
+            smoothedRttNanos == 0 ? rtt : smoothedRttNanos * 0.875 + rtt * 0.125;
+      }
+    }
+
+    void sample(Payload payload) {
+      final int size =
+          payload.data().readableBytes()
+              + (payload.hasMetadata() ? payload.metadata().readableBytes() : 0);
+      averagePayloadBytes =
+          averagePayloadBytes == 0 ? size : averagePayloadBytes * 0.875 + size * 0.125;
+    }
+
+    void refill() {
+      final long now = clock.now(TimeUnit.NANOSECONDS);
+      final long elapsed = now - lastRefillNanos;
+      if (elapsed > 0) {
+        final double rate = (double) consumedSinceRefill / elapsed;
+        drainRatePerNano = drainRatePerNano == 0 ? rate : drainRatePerNano * 0.75 + rate * 0.25;
+      }
+      lastRefillNanos = now;
+      consumedSinceRefill = 0;
+
+      window = nextWindow();
+
+      final long credit = this.credit;
+      if (credit < window) {
+        // the first payload brought by this request samples its round trip, rather than the
+        // payloads which were already on their way
+        probe(now, requestedUpstream + 1);
+        this.credit = window;
+        requestedUpstream += window - credit;
+        s.request(window - credit);
+      }
+    }
+
+    int nextWindow() {
+      final int window = this.window;
+      long next = window;
+      final double smoothedRttNanos = this.smoothedRttNanos;
+      if (smoothedRttNanos > 0 && drainRatePerNano > 0) {
+        // twice the bandwidth-delay product, growing or shrinking by at most a factor of two
+        final long target = (long) (2 * drainRatePerNano * smoothedRttNanos);
+        next = Math.max(window >> 1, Math.min((long) window << 1, target));
+      }
+      next = Math.max(minPrefetch, Math.min(maxPrefetch, next));
+      if (averagePayloadBytes > 0) {
+        next = Math.min(next, (long) (maxBufferedBytes / averagePayloadBytes));
+      }
+      return (int) Math.max(1, next);
+    }
+
+    void terminate() {
+      final Throwable t = error;
+      if (t != null) {
+        actual.onError(t);
+      } else {
+        actual.onComplete();
+      }
+    }
+
+    void clear() {
+      Payload payload;
+      while ((payload = queue.poll()) != null) {
+        ReferenceCountUtil.safeRelease(payload);
+      }
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.plugins;
+
+import io.netty.buffer.ByteBuf;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.LongSupplier;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Bounded cache of the principals authenticated by an {@link Authenticator}, keyed by the bytes of
+ * the authentication metadata, typically shared by all the connections of a server. Entries expire
+ * after a fixed time to live, and least recently used entries are evicted once the cache is full.
+ * The cache is split into segments, each guarded by its own lock, so that lookups from different
+ * connections rarely contend. The maximum size is enforced across all segments, while the order of
+ * eviction is only least recently used within a segment.
+ *
+ * @param <P> the type of cached principals
+ * @since 1.1.1
+ */
+public final class AuthCache<P> {
+
+  static final int SEGMENTS = 16;
+
+  final Segment<P>[] segments;
+  final int maxSize;
+  final long ttlNanos;
+  final LongSupplier nanoClock;
+
+  volatile int size;
+
+  @SuppressWarnings("rawtypes")
+  static final AtomicIntegerFieldUpdater<AuthCache> SIZE =
+      AtomicIntegerFieldUpdater.newUpdater(AuthCache.class, "size");
+
+  /**
+   * Create a cache.
+   *
+   * @param maxSize the maximum number of cached principals
+   * @param ttl how long a principal is cached after it has been authenticated, which should not
+   *     exceed how long its credentials remain valid
+   */
+  public AuthCache(int maxSize, Duration ttl) {
+    this(maxSize, ttl, System::nanoTime);
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  AuthCache(int maxSize, Duration ttl, LongSupplier nanoClock) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be positive");
+    }
+    if (ttl.isNegative() || ttl.isZero()) {
+      throw new IllegalArgumentException("ttl must be positive");
+    }
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+    this.nanoClock = Objects.requireNonNull(nanoClock);
+    this.segments = new Segment[SEGMENTS];
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment<>();
+    }
+  }
+
+  /** Return the number of cached principals, including expired ones not evicted yet. */
+  public int size() {
+    return size;
+  }
+
+  /** Evict the principal authenticated with the given authentication metadata, if cached. */
+  public void invalidate(ByteBuf authMetadata) {
+    final Segment<P> segment = segment(authMetadata);
+    synchronized (segment) {
+      if (segment.remove(authMetadata) != null) {
+        SIZE.decrementAndGet(this);
+      }
+    }
+  }
+
+  /** Evict all cached principals. */
+  public void invalidateAll() {
+    for (Segment<P> segment : segments) {
+      synchronized (segment) {
+        SIZE.addAndGet(this, -segment.size());
+        segment.clear();
+      }
+    }
+  }
+
+  long nanoTime() {
+    return nanoClock.getAsLong();
+  }
+
+  @Nullable
+  Entry<P> get(ByteBuf authMetadata, long nowNanos) {
+    final Segment<P> segment = segment(authMetadata);
+    synchronized (segment) {
+      final Entry<P> entry = segment.get(authMetadata);
+      if (entry == null) {
+        return null;
+      }
+      if (entry.isExpired(nowNanos)) {
+        segment.remove(authMetadata);
+        SIZE.decrementAndGet(this);
+        return null;
+      }
+      return entry;
+    }
+  }
+
+  Entry<P> put(ByteBuf authMetadata, P principal, long nowNanos) {
+    final Entry<P> entry = new Entry<>(authMetadata, principal, nowNanos + ttlNanos);
+    final int index = segmentIndex(authMetadata);
+    final Segment<P> segment = segments[index];
+    final boolean added;
+    synchronized (segment) {
+      added = segment.put(authMetadata, entry) == null;
+    }
+    if (added && SIZE.incrementAndGet(this) > maxSize) {
+      evictOne(index);
+    }
+    return entry;
+  }
+
+  /**
+   * Evict the least recently used entry of the segment at the given index, or of the next segment
+   * holding another entry than the one just added, if that is its only entry.
+   */
+  void evictOne(int index) {
+    for (int i = 0; i < SEGMENTS; i++) {
+      final Segment<P> segment = segments[(index + i) & (SEGMENTS - 1)];
+      synchronized (segment) {
+        if (segment.size() > (i == 0 ? 1 : 0)) {
+          final Iterator<Entry<P>> eldest = segment.values().iterator();
+          eldest.next();
+          eldest.remove();
+          SIZE.decrementAndGet(this);
+          return;
+        }
+      }
+    }
+  }
+
+  Segment<P> segment(ByteBuf authMetadata) {
+    return segments[segmentIndex(authMetadata)];
+  }
+
+  static int segmentIndex(ByteBuf authMetadata) {
+    // ByteBuf#hashCode depends on the readable bytes only, as does equals
+    final int h = authMetadata.hashCode();
+    return (h ^ (h >>> 16)) & (SEGMENTS - 1);
+  }
+
+  static final class Entry<P> {
+    final ByteBuf authMetadata;
+    final P principal;
+    final long expiresAtNanos;
+
+    Entry(ByteBuf authMetadata, P principal, long expiresAtNanos) {
+      this.authMetadata = authMetadata;
+      this.principal = principal;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+
+    boolean isExpired(long nowNanos) {
+      return nowNanos - expiresAtNanos >= 0;
+    }
+  }
+
+  static final class Segment<P> extends LinkedHashMap<ByteBuf, Entry<P>> {
+
+    private static final long serialVersionUID = 1L;
+
+    Segment() {
+      super(16, 0.75f, true);
+    }
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.plugins;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.metadata.CompositeMetadataReader;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.util.RSocketProxy;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+import reactor.util.context.Context;
+
+/**
+ * Responder interceptor that authenticates each request with the {@link
+ * io.rsocket.metadata.AuthMetadataCodec authentication entry} of its composite metadata. Requests
+ * without valid credentials are rejected with a {@link RejectedException} without invoking the
+ * handler, and the principal of authenticated requests is available to the handler in the Reactor
+ * {@code Context} under {@link #PRINCIPAL_KEY}.
+ *
+ * <p>Since requesters typically send the same token with every request, verifying it each time,
+ * e.g. checking a signature, would dominate the cost of small requests. Principals are therefore
+ * cached in the given {@link AuthCache}, usually shared by all connections, and each connection
+ * also remembers the last token it has authenticated, so that a request with the same token as the
+ * previous one is only compared byte by byte. Only successful authentications are cached.
+ *
+ * <p>For request-channel interactions only the first payload is authenticated.
+ *
+ * @param <P> the type of authenticated principals
+ * @since 1.1.1
+ */
+public class AuthenticationInterceptor<P> implements RSocketInterceptor {
+
+  /** The key of the authenticated principal in the {@code Context} of handlers. */
+  public static final String PRINCIPAL_KEY =
+      AuthenticationInterceptor.class.getName() + ".principal";
+
+  static final byte AUTH_MIME_ID =
+      WellKnownMimeType.MESSAGE_RSOCKET_AUTHENTICATION.getIdentifier();
+  static final String AUTH_MIME_TYPE = WellKnownMimeType.MESSAGE_RSOCKET_AUTHENTICATION.getString();
+
+  static final FastThreadLocal<CompositeMetadataReader> READERS =
+      new FastThreadLocal<CompositeMetadataReader>() {
+        @Override
+        protected CompositeMetadataReader initialValue() {
+          return new CompositeMetadataReader();
+        }
+      };
+
+  private final Authenticator<P> authenticator;
+  private final AuthCache<P> cache;
+
+  /**
+   * Create an interceptor.
+   *
+   * @param authenticator verifies credentials which are not cached
+   * @param cache the cache of authenticated principals
+   */
+  public AuthenticationInterceptor(Authenticator<P> authenticator, AuthCache<P> cache) {
+    this.authenticator = Objects.requireNonNull(authenticator, "authenticator");
+    this.cache = Objects.requireNonNull(cache, "cache");
+  }
+
+  @Override
+  public RSocket apply(RSocket socket) {
+    return new ResponderProxy(socket);
+  }
+
+  /** Return a slice of the authentication entry of the given payload, or {@code null}. */
+  @Nullable
+  static ByteBuf authMetadata(Payload payload) {
+    if (!payload.hasMetadata()) {
+      return null;
+    }
+    final ByteBuf metadata = payload.metadata();
+    try {
+      final CompositeMetadataReader reader = READERS.get().reset(metadata);
+      while (reader.next()) {
+        if (reader.mimeId() == AUTH_MIME_ID
+            || (!reader.hasMimeId() && reader.isMimeType(AUTH_MIME_TYPE))) {
+          return metadata.slice(reader.contentIndex(), reader.contentLength());
+        }
+      }
+    } catch (IllegalStateException e) {
+      // malformed composite metadata carries no credentials
+    }
+    return null;
+  }
+
+  static Context principalContext(Object principal) {
+    return Context.of(PRINCIPAL_KEY, principal);
+  }
+
+  /** Per connection proxy, which remembers the last principal it has authenticated. */
+  private class ResponderProxy extends RSocketProxy {
+
+    @Nullable volatile AuthCache.Entry<P> last;
+
+    ResponderProxy(RSocket source) {
+      super(source);
+    }
+
+    @Override
+    public Mono<Void> fireAndForget(Payload payload) {
+      final Object principal = cachedPrincipal(payload);
+      if (principal != null) {
+        return super.fireAndForget(payload).contextWrite(principalContext(principal));
+      }
+      return authenticate(payload)
+          .flatMap(p -> super.fireAndForget(payload).contextWrite(principalContext(p)));
+    }
+
+    @Override
+    public Mono<Payload> requestResponse(Payload payload) {
+      final Object principal = cachedPrincipal(payload);
+      if (principal != null) {
+        return super.requestResponse(payload).contextWrite(principalContext(principal));
+      }
+      return authenticate(payload)
+          .flatMap(p -> super.requestResponse(payload).contextWrite(principalContext(p)));
+    }
+
+    @Override
+    public Flux<Payload> requestStream(Payload payload) {
+      final Object principal = cachedPrincipal(payload);
+      if (principal != null) {
+        return super.requestStream(payload).contextWrite(principalContext(principal));
+      }
+      return authenticate(payload)
+          .flatMapMany(p -> super.requestStream(payload).contextWrite(principalContext(p)));
+    }
+
+    @Override
+    public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+      return Flux.from(payloads)
+          .switchOnFirst(
+              (signal, payloadsFlux) -> {
+                final Payload firstPayload = signal.get();
+                if (firstPayload == null) {
+                  return payloadsFlux;
+                }
+                final Object principal = cachedPrincipal(firstPayload);
+                if (principal != null) {
+                  return super.requestChannel(payloadsFlux)
+                      .contextWrite(principalContext(principal));
+                }
+                final ByteBuf auth = authMetadata(firstPayload);
+                if (auth == null) {
+                  return reject(payloadsFlux, new RejectedException("Authentication required"));
+                }
+                return verify(auth)
+                    .map(p -> super.requestChannel(payloadsFlux).contextWrite(principalContext(p)))
+                    .onErrorResume(e -> Mono.just(reject(payloadsFlux, e)))
+                    .flatMapMany(Function.identity());
+              });
+    }
+
+    @Override
+    public Mono<Void> metadataPush(Payload payload) {
+      final Object principal = cachedPrincipal(payload);
+      if (principal != null) {
+        return super.metadataPush(payload).contextWrite(principalContext(principal));
+      }
+      return authenticate(payload)
+          .flatMap(p -> super.metadataPush(payload).contextWrite(principalContext(p)));
+    }
+
+    /** Return the cached principal for the credentials of the given payload, or {@code null}. */
+    @Nullable
+    Object cachedPrincipal(Payload payload) {
+      final ByteBuf auth = authMetadata(payload);
+      if (auth == null) {
+        return null;
+      }
+      final long now = cache.nanoTime();
+      AuthCache.Entry<P> entry = last;
+      if (entry != null && !entry.isExpired(now) && entry.authMetadata.equals(auth)) {
+        return entry.principal;
+      }
+      entry = cache.get(auth, now);
+      if (entry == null) {
+        return null;
+      }
+      last = entry;
+      return entry.principal;
+    }
+
+    /**
+     * Verify the credentials of the given payload, which is released unless the returned {@code
+     * Mono} emits the principal.
+     */
+    Mono<P> authenticate(Payload payload) {
+      final ByteBuf auth = authMetadata(payload);
+      if (auth == null) {
+        payload.release();
+        return Mono.error(new RejectedException("Authentication required"));
+      }
+      final AtomicBoolean claimed = new AtomicBoolean();
+      return verify(auth)
+          .filter(p -> claimed.compareAndSet(false, true))
+          .doFinally(
+              signalType -> {
+                if (claimed.compareAndSet(false, true)) {
+                  payload.release();
+                }
+              });
+    }
+
+    Mono<P> verify(ByteBuf auth) {
+      // the payload may be released before the authenticator completes
+      final ByteBuf copy = Unpooled.copiedBuffer(auth);
+      return Mono.defer(() -> authenticator.authenticate(copy.duplicate()))
+          .switchIfEmpty(Mono.error(() -> new RejectedException("Authentication failed")))
+          .onErrorMap(
+              e -> !(e instanceof RejectedException),
+              e -> new RejectedException("Authentication failed", e))
+          .doOnNext(principal -> last = cache.put(copy, principal, cache.nanoTime()));
+    }
+
+    Flux<Payload> reject(Flux<Payload> payloadsFlux, Throwable e) {
+      // release the first payload, held by switchOnFirst until it is consumed
+      return payloadsFlux.take(1).doOnNext(Payload::release).thenMany(Flux.error(e));
+    }
+  }
+}
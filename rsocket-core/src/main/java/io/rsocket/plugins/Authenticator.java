@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.plugins;
+
+import io.netty.buffer.ByteBuf;
+import reactor.core.publisher.Mono;
+
+/**
+ * Verifies the authentication entry of composite metadata for {@link AuthenticationInterceptor}.
+ *
+ * @param <P> the type of authenticated principals
+ * @since 1.1.1
+ */
+@FunctionalInterface
+public interface Authenticator<P> {
+
+  /**
+   * Verify the given authentication metadata, as encoded by {@link
+   * io.rsocket.metadata.AuthMetadataCodec}, e.g. by checking the signature of a bearer token.
+   *
+   * <p>The buffer holds the whole content of the authentication entry of the composite metadata,
+   * and its reader index is at the auth type, i.e. the well-known auth type id or the length of a
+   * custom auth type. Read it first, e.g. with {@link
+   * io.rsocket.metadata.AuthMetadataCodec#readWellKnownAuthType}, to then read the credentials that
+   * follow, e.g. with {@link io.rsocket.metadata.AuthMetadataCodec#readBearerTokenAsCharArray}.
+   *
+   * @param authMetadata the authentication metadata, a duplicate of a copy owned by the cache,
+   *     whose reader index may be moved but whose content must be neither modified nor released
+   * @return a {@code Mono} of the authenticated principal, which is empty or fails if the
+   *     credentials are not valid
+   */
+  Mono<P> authenticate(ByteBuf authMetadata);
+}
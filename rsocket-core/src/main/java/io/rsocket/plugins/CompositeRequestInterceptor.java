@@ -79,6 +79,19 @@ public void onReject(
     }
   }
 
+  @Override
+  public void onKeepAliveRoundTrip(long roundTripTimeNanos) {
+    final RequestInterceptor[] requestInterceptors = this.requestInterceptors;
+    for (int i = 0; i < requestInterceptors.length; i++) {
+      final RequestInterceptor requestInterceptor = requestInterceptors[i];
+      try {
+        requestInterceptor.onKeepAliveRoundTrip(roundTripTimeNanos);
+      } catch (Throwable t) {
+        Operators.onErrorDropped(t, Context.empty());
+      }
+    }
+  }
+
   @Nullable
   static RequestInterceptor create(
       RSocket rSocket, List<Function<RSocket, ? extends RequestInterceptor>> interceptors) {
@@ -147,5 +160,14 @@ public void onReject(
         Operators.onErrorDropped(t, Context.empty());
       }
     }
+
+    @Override
+    public void onKeepAliveRoundTrip(long roundTripTimeNanos) {
+      try {
+        requestInterceptor.onKeepAliveRoundTrip(roundTripTimeNanos);
+      } catch (Throwable t) {
+        Operators.onErrorDropped(t, Context.empty());
+      }
+    }
   }
 }
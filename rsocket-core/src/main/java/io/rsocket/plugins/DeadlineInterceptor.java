@@ -0,0 +1,393 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.plugins;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.internal.TimerWheel;
+import io.rsocket.metadata.DeadlineMetadataCodec;
+import io.rsocket.util.RSocketProxy;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoOperator;
+import reactor.core.publisher.Operators;
+import reactor.util.annotation.Nullable;
+import reactor.util.context.Context;
+
+/**
+ * Interceptor that enforces the deadline carried by the {@link DeadlineMetadataCodec deadline
+ * entry} of composite metadata. Deadlines are tracked on a {@link TimerWheel}, so that the cost of
+ * a deadline does not depend on the number of requests in flight.
+ *
+ * <p>On the requester side, a request-response or request-stream that has not completed within its
+ * deadline is cancelled and fails with a {@link TimeoutException}. The deadline starts when the
+ * request is created, and the deadline entry is updated in place to the budget that remains when
+ * the request is sent. A request made while handling a request with an earlier deadline, for
+ * example by a proxy forwarding it, gets the remaining budget of the latter. On the responder side,
+ * a request that arrives with an exhausted deadline is rejected with a {@link RejectedException}
+ * without invoking the handler, and the handler's work is cancelled once the deadline is exceeded,
+ * so that a server under load does not spend capacity on requests whose requester has already given
+ * up. Fire-and-forget requests with an exhausted deadline are dropped.
+ *
+ * <p>Requests without a deadline entry, and request-channel interactions, are passed through as
+ * they are. See static factory methods to create an instance for a requester or for a responder.
+ *
+ * @since 1.1.1
+ */
+public class DeadlineInterceptor implements RSocketInterceptor {
+
+  /**
+   * Key of the deadline of the request being handled in the subscriber {@link Context}, in
+   * milliseconds of the clock of the {@link TimerWheel}.
+   */
+  static final String DEADLINE_KEY = DeadlineInterceptor.class.getName() + ".deadline";
+
+  private final TimerWheel timerWheel;
+  private final boolean requesterProxy;
+
+  private DeadlineInterceptor(TimerWheel timerWheel, boolean requesterProxy) {
+    this.timerWheel = timerWheel;
+    this.requesterProxy = requesterProxy;
+  }
+
+  @Override
+  public RSocket apply(RSocket socket) {
+    return requesterProxy ? new RequesterProxy(socket) : new ResponderProxy(socket);
+  }
+
+  /**
+   * Create an interceptor for an {@code RSocket} that performs requests, using the {@link
+   * TimerWheel#shared() shared} timer wheel.
+   *
+   * @return the created interceptor
+   */
+  public static DeadlineInterceptor forRequester() {
+    return forRequester(TimerWheel.shared());
+  }
+
+  /**
+   * Create an interceptor for an {@code RSocket} that performs requests.
+   *
+   * @param timerWheel the timer wheel to track deadlines on
+   * @return the created interceptor
+   */
+  public static DeadlineInterceptor forRequester(TimerWheel timerWheel) {
+    return new DeadlineInterceptor(timerWheel, true);
+  }
+
+  /**
+   * Create an interceptor for an {@code RSocket} that handles requests, using the {@link
+   * TimerWheel#shared() shared} timer wheel.
+   *
+   * @return the created interceptor
+   */
+  public static DeadlineInterceptor forResponder() {
+    return forResponder(TimerWheel.shared());
+  }
+
+  /**
+   * Create an interceptor for an {@code RSocket} that handles requests.
+   *
+   * @param timerWheel the timer wheel to track deadlines on
+   * @return the created interceptor
+   */
+  public static DeadlineInterceptor forResponder(TimerWheel timerWheel) {
+    return new DeadlineInterceptor(timerWheel, false);
+  }
+
+  static long timeoutMillis(Payload payload) {
+    return payload.hasMetadata()
+        ? DeadlineMetadataCodec.findTimeoutMillis(payload.sliceMetadata())
+        : DeadlineMetadataCodec.NO_DEADLINE;
+  }
+
+  /** Responder side proxy, sheds expired requests and cancels overdue handlers. */
+  private class ResponderProxy extends RSocketProxy {
+
+    ResponderProxy(RSocket source) {
+      super(source);
+    }
+
+    @Override
+    public Mono<Void> fireAndForget(Payload payload) {
+      if (timeoutMillis(payload) == 0) {
+        payload.release();
+        return Mono.empty();
+      }
+      return super.fireAndForget(payload);
+    }
+
+    @Override
+    public Mono<Payload> requestResponse(Payload payload) {
+      final long timeoutMillis = timeoutMillis(payload);
+      if (timeoutMillis == DeadlineMetadataCodec.NO_DEADLINE) {
+        return super.requestResponse(payload);
+      }
+      if (timeoutMillis == 0) {
+        payload.release();
+        return Mono.error(new RejectedException("Deadline exceeded"));
+      }
+      return new MonoDeadline<>(
+          super.requestResponse(payload), new Deadline(timerWheel, timeoutMillis, null, -1));
+    }
+
+    @Override
+    public Flux<Payload> requestStream(Payload payload) {
+      final long timeoutMillis = timeoutMillis(payload);
+      if (timeoutMillis == DeadlineMetadataCodec.NO_DEADLINE) {
+        return super.requestStream(payload);
+      }
+      if (timeoutMillis == 0) {
+        payload.release();
+        return Flux.error(new RejectedException("Deadline exceeded"));
+      }
+      return new FluxDeadline<>(
+          super.requestStream(payload), new Deadline(timerWheel, timeoutMillis, null, -1));
+    }
+  }
+
+  /**
+   * Requester side proxy, cancels requests that do not complete within their deadline, and updates
+   * the deadline entry to the remaining budget when the request is sent.
+   */
+  private class RequesterProxy extends RSocketProxy {
+
+    RequesterProxy(RSocket source) {
+      super(source);
+    }
+
+    @Override
+    public Mono<Payload> requestResponse(Payload payload) {
+      final Deadline deadline = deadline(payload);
+      if (deadline == null) {
+        return super.requestResponse(payload);
+      }
+      return new MonoDeadline<>(super.requestResponse(payload), deadline);
+    }
+
+    @Override
+    public Flux<Payload> requestStream(Payload payload) {
+      final Deadline deadline = deadline(payload);
+      if (deadline == null) {
+        return super.requestStream(payload);
+      }
+      return new FluxDeadline<>(super.requestStream(payload), deadline);
+    }
+
+    @Nullable
+    Deadline deadline(Payload payload) {
+      if (!payload.hasMetadata()) {
+        return null;
+      }
+      final ByteBuf metadata = payload.sliceMetadata();
+      final int index = DeadlineMetadataCodec.findTimeoutIndex(metadata);
+      if (index < 0) {
+        return null;
+      }
+      final long timeoutMillis = metadata.getLong(index);
+      if (timeoutMillis < 0) {
+        return null;
+      }
+      return new Deadline(
+          timerWheel, timeoutMillis, metadata.isReadOnly() ? null : metadata, index);
+    }
+  }
+
+  /**
+   * The deadline of one request, which starts when the request is created. The deadline of a
+   * request made while handling another one is capped by the deadline of the latter, which is
+   * passed along in the subscriber {@link Context}.
+   */
+  static final class Deadline {
+
+    final TimerWheel timerWheel;
+    final long deadlineMillis;
+    @Nullable final ByteBuf metadata;
+    final int index;
+
+    Deadline(TimerWheel timerWheel, long timeoutMillis, @Nullable ByteBuf metadata, int index) {
+      this.timerWheel = timerWheel;
+      this.deadlineMillis = timerWheel.currentTimeMillis() + timeoutMillis;
+      this.metadata = metadata;
+      this.index = index;
+    }
+
+    <T> DeadlineSubscriber<T> subscribe(CoreSubscriber<? super T> actual, boolean single) {
+      final Long enclosingDeadlineMillis = actual.currentContext().getOrDefault(DEADLINE_KEY, null);
+      final long deadlineMillis =
+          enclosingDeadlineMillis != null
+              ? Math.min(this.deadlineMillis, enclosingDeadlineMillis)
+              : this.deadlineMillis;
+      final long remainingMillis = Math.max(0, deadlineMillis - timerWheel.currentTimeMillis());
+
+      // the request frame is sent once subscribed, so this is the budget the responder gets
+      final ByteBuf metadata = this.metadata;
+      if (metadata != null) {
+        metadata.setLong(index, remainingMillis);
+      }
+
+      return new DeadlineSubscriber<>(actual, timerWheel, deadlineMillis, remainingMillis, single);
+    }
+  }
+
+  static final class MonoDeadline<T> extends MonoOperator<T, T> {
+
+    final Deadline deadline;
+
+    MonoDeadline(Mono<? extends T> source, Deadline deadline) {
+      super(source);
+      this.deadline = deadline;
+    }
+
+    @Override
+    public void subscribe(CoreSubscriber<? super T> actual) {
+      source.subscribe(deadline.subscribe(actual, true));
+    }
+  }
+
+  static final class FluxDeadline<T> extends FluxOperator<T, T> {
+
+    final Deadline deadline;
+
+    FluxDeadline(Flux<? extends T> source, Deadline deadline) {
+      super(source);
+      this.deadline = deadline;
+    }
+
+    @Override
+    public void subscribe(CoreSubscriber<? super T> actual) {
+      source.subscribe(deadline.subscribe(actual, false));
+    }
+  }
+
+  /**
+   * Subscriber that is itself the timer task of its deadline, so that tracking a deadline only
+   * allocates the subscriber.
+   */
+  static final class DeadlineSubscriber<T> extends TimerWheel.Task
+      implements CoreSubscriber<T>, Subscription {
+
+    final CoreSubscriber<? super T> actual;
+    final Context context;
+    final TimerWheel timerWheel;
+    final long timeoutMillis;
+    final boolean single;
+
+    Subscription s;
+
+    volatile int terminated;
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<DeadlineSubscriber> TERMINATED =
+        AtomicIntegerFieldUpdater.newUpdater(DeadlineSubscriber.class, "terminated");
+
+    DeadlineSubscriber(
+        CoreSubscriber<? super T> actual,
+        TimerWheel timerWheel,
+        long deadlineMillis,
+        long timeoutMillis,
+        boolean single) {
+      // the deadline may expire concurrently with an element being delivered
+      this.actual = Operators.serialize(actual);
+      this.context = actual.currentContext().put(DEADLINE_KEY, deadlineMillis);
+      this.timerWheel = timerWheel;
+      this.timeoutMillis = timeoutMillis;
+      this.single = single;
+    }
+
+    @Override
+    public Context currentContext() {
+      return context;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      if (Operators.validate(this.s, s)) {
+        this.s = s;
+        actual.onSubscribe(this);
+        if (terminated == 0) {
+          timerWheel.schedule(this, timeoutMillis);
+        }
+      }
+    }
+
+    @Override
+    public void onNext(T t) {
+      if (single) {
+        // the element terminates a single valued source, and must not race with the deadline
+        if (TERMINATED.compareAndSet(this, 0, 1)) {
+          timerWheel.cancel(this);
+          actual.onNext(t);
+          actual.onComplete();
+        } else {
+          ReferenceCountUtil.safeRelease(t);
+        }
+        return;
+      }
+      if (terminated == 1) {
+        ReferenceCountUtil.safeRelease(t);
+        return;
+      }
+      actual.onNext(t);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      if (TERMINATED.compareAndSet(this, 0, 1)) {
+        timerWheel.cancel(this);
+        actual.onError(t);
+      } else {
+        Operators.onErrorDropped(t, context);
+      }
+    }
+
+    @Override
+    public void onComplete() {
+      if (TERMINATED.compareAndSet(this, 0, 1)) {
+        timerWheel.cancel(this);
+        actual.onComplete();
+      }
+    }
+
+    @Override
+    public void request(long n) {
+      s.request(n);
+    }
+
+    @Override
+    public void cancel() {
+      if (TERMINATED.compareAndSet(this, 0, 1)) {
+        timerWheel.cancel(this);
+        s.cancel();
+      }
+    }
+
+    @Override
+    public void run() {
+      if (TERMINATED.compareAndSet(this, 0, 1)) {
+        s.cancel();
+        actual.onError(new TimeoutException("Deadline of " + timeoutMillis + "ms exceeded"));
+      }
+    }
+  }
+}
@@ -76,4 +76,15 @@ public interface RequestInterceptor extends Disposable {
    * @param metadata taken from the initial frame
    */
   void onReject(Throwable rejectionReason, FrameType requestType, @Nullable ByteBuf metadata);
+
+  /**
+   * Method which is being invoked on the requester side every time a KEEPALIVE frame sent with the
+   * respond flag is acknowledged by the remote peer. This provides a connection-level latency
+   * sample that is independent of the request traffic, and is therefore available even for idle
+   * connections.
+   *
+   * @param roundTripTimeNanos the measured KEEPALIVE round-trip time in nanoseconds
+   * @since 1.1.1
+   */
+  default void onKeepAliveRoundTrip(long roundTripTimeNanos) {}
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.plugins;
+
+import io.rsocket.frame.FrameType;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, lock-free buffer of the spans recorded by {@link TracingRequestInterceptor}. Any number
+ * of threads record spans concurrently, and a single thread drains them periodically, e.g. to
+ * report them to a tracing system. Spans are stored in preallocated arrays of {@code long}s, so
+ * that recording a span does not allocate.
+ *
+ * <p>When spans are recorded faster than they are drained, the oldest ones are overwritten and
+ * counted as {@link #dropped() dropped}, rather than blocking the threads recording them.
+ *
+ * @since 1.1.1
+ */
+public final class SpanRingBuffer {
+
+  static final int TRACE_ID_HIGH = 0;
+  static final int TRACE_ID = 1;
+  static final int SPAN_ID = 2;
+  static final int PARENT_ID = 3;
+  static final int START_NANOS = 4;
+  static final int DURATION_NANOS = 5;
+  static final int STREAM = 6;
+  static final int FIELDS = 7;
+
+  static final FrameType[] FRAME_TYPES = FrameType.values();
+  static final Outcome[] OUTCOMES = Outcome.values();
+
+  final int mask;
+  // per slot, 2 * n + 1 while the n-th span is written into it and 2 * n + 2 once published
+  final AtomicLongArray sequences;
+  final AtomicLongArray fields;
+  final AtomicLong head = new AtomicLong();
+
+  // only accessed by the draining thread
+  final Span span = new Span();
+  long tail;
+  volatile long dropped;
+
+  /**
+   * Create a buffer holding up to the given number of spans.
+   *
+   * @param capacity the number of spans to hold, rounded up to a power of 2
+   */
+  public SpanRingBuffer(int capacity) {
+    if (capacity <= 0 || capacity > 1 << 24) {
+      throw new IllegalArgumentException("capacity must be between 1 and " + (1 << 24));
+    }
+    final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.mask = size - 1;
+    this.sequences = new AtomicLongArray(size);
+    this.fields = new AtomicLongArray(size * FIELDS);
+  }
+
+  /** Return the number of spans the buffer holds. */
+  public int capacity() {
+    return mask + 1;
+  }
+
+  void record(
+      long traceIdHigh,
+      long traceId,
+      long spanId,
+      long parentId,
+      int streamId,
+      FrameType requestType,
+      Outcome outcome,
+      long startNanos,
+      long durationNanos) {
+    final long n = head.getAndIncrement();
+    final int slot = (int) n & mask;
+    final int index = slot * FIELDS;
+
+    sequences.set(slot, 2 * n + 1);
+    fields.lazySet(index + TRACE_ID_HIGH, traceIdHigh);
+    fields.lazySet(index + TRACE_ID, traceId);
+    fields.lazySet(index + SPAN_ID, spanId);
+    fields.lazySet(index + PARENT_ID, parentId);
+    fields.lazySet(index + START_NANOS, startNanos);
+    fields.lazySet(index + DURATION_NANOS, durationNanos);
+    fields.lazySet(
+        index + STREAM,
+        ((long) streamId << 32) | (requestType.ordinal() << 8) | outcome.ordinal());
+    sequences.lazySet(slot, 2 * n + 2);
+  }
+
+  /**
+   * Hand the spans recorded since the last call to the given consumer, in the order they have been
+   * recorded. The {@link Span} handed to the consumer is a view which is only valid for the
+   * duration of the call. This method must not be called concurrently.
+   *
+   * @param consumer the consumer of recorded spans
+   * @return the number of spans handed to the consumer
+   */
+  public int drain(Consumer<? super Span> consumer) {
+    final long head = this.head.get();
+    final int capacity = mask + 1;
+    if (head - tail > capacity) {
+      dropped += head - tail - capacity;
+      tail = head - capacity;
+    }
+
+    int drained = 0;
+    final Span span = this.span;
+    for (; tail < head; tail++) {
+      final int slot = (int) tail & mask;
+      final long published = 2 * tail + 2;
+      final long sequence = sequences.get(slot);
+      if (sequence < published) {
+        // not published yet, resume from there on the next drain
+        break;
+      }
+      if (sequence == published) {
+        final int index = slot * FIELDS;
+        span.traceIdHigh = fields.get(index + TRACE_ID_HIGH);
+        span.traceId = fields.get(index + TRACE_ID);
+        span.spanId = fields.get(index + SPAN_ID);
+        span.parentId = fields.get(index + PARENT_ID);
+        span.startNanos = fields.get(index + START_NANOS);
+        span.durationNanos = fields.get(index + DURATION_NANOS);
+        span.stream = fields.get(index + STREAM);
+        if (sequences.get(slot) == published) {
+          consumer.accept(span);
+          drained++;
+          continue;
+        }
+      }
+      // overwritten by a span recorded after this one
+      dropped++;
+    }
+    return drained;
+  }
+
+  /** Return the number of spans overwritten before they could be drained. */
+  public long dropped() {
+    return dropped;
+  }
+
+  /** How a traced request has ended. */
+  public enum Outcome {
+    COMPLETE,
+    ERROR,
+    CANCEL
+  }
+
+  /** View of a recorded span, reused across the spans handed to a {@link #drain} consumer. */
+  public static final class Span {
+
+    long traceIdHigh;
+    long traceId;
+    long spanId;
+    long parentId;
+    long startNanos;
+    long durationNanos;
+    long stream;
+
+    Span() {}
+
+    /** Return the high 64 bits of the trace id, or {@code 0} for 64 bits trace ids. */
+    public long traceIdHigh() {
+      return traceIdHigh;
+    }
+
+    public long traceId() {
+      return traceId;
+    }
+
+    public long spanId() {
+      return spanId;
+    }
+
+    /** Return the id of the parent span, or {@code 0} if it has none. */
+    public long parentId() {
+      return parentId;
+    }
+
+    public int streamId() {
+      return (int) (stream >>> 32);
+    }
+
+    public FrameType requestType() {
+      return FRAME_TYPES[(int) (stream >>> 8) & 0xFF];
+    }
+
+    public Outcome outcome() {
+      return OUTCOMES[(int) stream & 0xFF];
+    }
+
+    /** Return the start of the request, as given by {@link System#nanoTime()}. */
+    public long startNanos() {
+      return startNanos;
+    }
+
+    public long durationNanos() {
+      return durationNanos;
+    }
+  }
+}
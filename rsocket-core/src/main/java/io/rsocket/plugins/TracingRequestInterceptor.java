@@ -0,0 +1,406 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.plugins;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.frame.FrameType;
+import io.rsocket.metadata.CompositeMetadataReader;
+import io.rsocket.metadata.TracingMetadata;
+import io.rsocket.metadata.TracingMetadataCodec;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.util.RSocketProxy;
+import java.util.Arrays;
+import java.util.Objects;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+import reactor.util.context.Context;
+
+/**
+ * {@link RequestInterceptor} which records the timing of the requests carrying a sampled {@link
+ * TracingMetadataCodec tracing entry} in their composite metadata into a {@link SpanRingBuffer}.
+ * The trace context is read directly from the metadata of the request, and the requests in flight
+ * are kept in preallocated arrays, so that tracing a request does not allocate. Requests which are
+ * not sampled are skipped after reading the sampling flags of their tracing entry.
+ *
+ * <p>The trace context of each request is made available to its handler by the responder
+ * interceptor returned from {@link #contextPropagation()}, which puts the decoded {@link
+ * TracingMetadata} in the Reactor {@code Context} under {@link #TRACING_METADATA_KEY}. A handler
+ * which makes requests of its own while handling a traced request can derive their tracing entry
+ * from the one of the request with {@link TracingMetadataCodec#encodeChild}.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * SpanRingBuffer spans = new SpanRingBuffer(8192);
+ *
+ * RSocketServer.create(acceptor)
+ *     .interceptors(
+ *         registry ->
+ *             registry
+ *                 .forRequestsInResponder(rsocket -> new TracingRequestInterceptor(spans))
+ *                 .forResponder(TracingRequestInterceptor.contextPropagation()))
+ *     .bind(transport);
+ *
+ * // periodically
+ * spans.drain(span -> reporter.report(span.traceId(), span.spanId(), span.durationNanos()));
+ * }</pre>
+ *
+ * @since 1.1.1
+ */
+public final class TracingRequestInterceptor implements RequestInterceptor {
+
+  /** The key of the {@link TracingMetadata} of a request in the {@code Context} of its handler. */
+  public static final String TRACING_METADATA_KEY =
+      TracingRequestInterceptor.class.getName() + ".tracingMetadata";
+
+  static final RSocketInterceptor CONTEXT_PROPAGATION = PropagatingProxy::new;
+
+  static final byte TRACING_MIME_ID =
+      WellKnownMimeType.MESSAGE_RSOCKET_TRACING_ZIPKIN.getIdentifier();
+
+  static final FastThreadLocal<CompositeMetadataReader> READERS =
+      new FastThreadLocal<CompositeMetadataReader>() {
+        @Override
+        protected CompositeMetadataReader initialValue() {
+          return new CompositeMetadataReader();
+        }
+      };
+
+  static final int TRACE_ID_HIGH = 0;
+  static final int TRACE_ID = 1;
+  static final int SPAN_ID = 2;
+  static final int PARENT_ID = 3;
+  static final int START_NANOS = 4;
+  static final int FIELDS = 5;
+
+  final SpanRingBuffer spans;
+  final boolean sampleUndecided;
+
+  // open addressing table of the traced requests in flight, guarded by this
+  int[] streamIds = new int[16];
+  long[] values = new long[16 * FIELDS];
+  volatile int size;
+
+  /**
+   * Create an interceptor recording the requests which are sampled or in debug mode.
+   *
+   * @param spans the buffer to record spans into, typically shared by all connections
+   */
+  public TracingRequestInterceptor(SpanRingBuffer spans) {
+    this(spans, false);
+  }
+
+  /**
+   * Create an interceptor recording the requests which are sampled or in debug mode, and also
+   * those without a sampling decision if so configured.
+   *
+   * @param spans the buffer to record spans into, typically shared by all connections
+   * @param sampleUndecided whether to record requests without a sampling decision
+   */
+  public TracingRequestInterceptor(SpanRingBuffer spans, boolean sampleUndecided) {
+    this.spans = Objects.requireNonNull(spans);
+    this.sampleUndecided = sampleUndecided;
+  }
+
+  /**
+   * Return a responder interceptor which puts the {@link TracingMetadata} of each request carrying
+   * a tracing entry in the Reactor {@code Context} of its handler under {@link
+   * #TRACING_METADATA_KEY}, whatever its sampling decision. Unlike recording spans, this decodes
+   * the entry of every traced request.
+   */
+  public static RSocketInterceptor contextPropagation() {
+    return CONTEXT_PROPAGATION;
+  }
+
+  @Override
+  public void onStart(int streamId, FrameType requestType, @Nullable ByteBuf metadata) {
+    if (metadata == null || !metadata.isReadable()) {
+      return;
+    }
+
+    try {
+      final CompositeMetadataReader reader = READERS.get().reset(metadata);
+      while (reader.next()) {
+        if (reader.hasMimeId() && reader.mimeId() == TRACING_MIME_ID) {
+          if (isComplete(metadata, reader.contentIndex(), reader.contentLength())) {
+            // read the entry in place rather than from a slice of it
+            onTracingEntry(streamId, metadata, reader.contentIndex());
+          }
+          return;
+        }
+      }
+    } catch (IllegalStateException | IndexOutOfBoundsException e) {
+      // malformed metadata is left to the handler of the request
+    }
+  }
+
+  /**
+   * Return whether the entry at the given index is long enough for the ids its flags announce, so
+   * that the ids of a truncated entry are not read from the following entries or out of bounds.
+   */
+  static boolean isComplete(ByteBuf metadata, int entryIndex, int entryLength) {
+    return entryLength > 0 && entryLength >= TracingMetadataCodec.length(metadata, entryIndex);
+  }
+
+  /** Return the decoded tracing entry of the given payload, or {@code null}. */
+  @Nullable
+  static TracingMetadata tracingMetadata(Payload payload) {
+    if (!payload.hasMetadata()) {
+      return null;
+    }
+    final ByteBuf metadata = payload.metadata();
+    try {
+      final CompositeMetadataReader reader = READERS.get().reset(metadata);
+      while (reader.next()) {
+        if (reader.hasMimeId() && reader.mimeId() == TRACING_MIME_ID) {
+          final int entryIndex = reader.contentIndex();
+          final int entryLength = reader.contentLength();
+          return isComplete(metadata, entryIndex, entryLength)
+              ? TracingMetadataCodec.decode(metadata.slice(entryIndex, entryLength))
+              : null;
+        }
+      }
+    } catch (IllegalStateException | IndexOutOfBoundsException e) {
+      // malformed metadata is left to the handler of the request
+    }
+    return null;
+  }
+
+  void onTracingEntry(int streamId, ByteBuf metadata, int entryIndex) {
+    switch (TracingMetadataCodec.flags(metadata, entryIndex)) {
+      case NOT_SAMPLE:
+        return;
+      case UNDECIDED:
+        if (!sampleUndecided) {
+          return;
+        }
+        break;
+      default:
+        break;
+    }
+    if (!TracingMetadataCodec.hasIds(metadata, entryIndex)) {
+      return;
+    }
+
+    final long traceIdHigh = TracingMetadataCodec.traceIdHigh(metadata, entryIndex);
+    final long traceId = TracingMetadataCodec.traceId(metadata, entryIndex);
+    final long spanId = TracingMetadataCodec.spanId(metadata, entryIndex);
+    final long parentId = TracingMetadataCodec.parentId(metadata, entryIndex);
+    final long startNanos = System.nanoTime();
+    synchronized (this) {
+      final int index = insert(streamId) * FIELDS;
+      final long[] values = this.values;
+      values[index + TRACE_ID_HIGH] = traceIdHigh;
+      values[index + TRACE_ID] = traceId;
+      values[index + SPAN_ID] = spanId;
+      values[index + PARENT_ID] = parentId;
+      values[index + START_NANOS] = startNanos;
+    }
+  }
+
+  @Override
+  public void onTerminate(int streamId, FrameType requestType, @Nullable Throwable t) {
+    onEnd(
+        streamId,
+        requestType,
+        t == null ? SpanRingBuffer.Outcome.COMPLETE : SpanRingBuffer.Outcome.ERROR);
+  }
+
+  @Override
+  public void onCancel(int streamId, FrameType requestType) {
+    onEnd(streamId, requestType, SpanRingBuffer.Outcome.CANCEL);
+  }
+
+  @Override
+  public void onReject(
+      Throwable rejectionReason, FrameType requestType, @Nullable ByteBuf metadata) {}
+
+  void onEnd(int streamId, FrameType requestType, SpanRingBuffer.Outcome outcome) {
+    if (size == 0) {
+      // nothing traced in flight
+      return;
+    }
+
+    final long endNanos = System.nanoTime();
+    final long traceIdHigh;
+    final long traceId;
+    final long spanId;
+    final long parentId;
+    final long startNanos;
+    synchronized (this) {
+      final int slot = find(streamId);
+      if (slot < 0) {
+        return;
+      }
+      final int index = slot * FIELDS;
+      final long[] values = this.values;
+      traceIdHigh = values[index + TRACE_ID_HIGH];
+      traceId = values[index + TRACE_ID];
+      spanId = values[index + SPAN_ID];
+      parentId = values[index + PARENT_ID];
+      startNanos = values[index + START_NANOS];
+      removeAt(slot);
+    }
+
+    spans.record(
+        traceIdHigh,
+        traceId,
+        spanId,
+        parentId,
+        streamId,
+        requestType,
+        outcome,
+        startNanos,
+        endNanos - startNanos);
+  }
+
+  @Override
+  public synchronized void dispose() {
+    Arrays.fill(streamIds, 0);
+    size = 0;
+  }
+
+  static int hash(int streamId) {
+    final int h = streamId * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  int find(int streamId) {
+    final int[] streamIds = this.streamIds;
+    final int mask = streamIds.length - 1;
+    for (int slot = hash(streamId) & mask; ; slot = (slot + 1) & mask) {
+      final int id = streamIds[slot];
+      if (id == streamId) {
+        return slot;
+      }
+      if (id == 0) {
+        return -1;
+      }
+    }
+  }
+
+  int insert(int streamId) {
+    if ((size + 1) * 2 > streamIds.length) {
+      resize(streamIds.length * 2);
+    }
+    final int[] streamIds = this.streamIds;
+    final int mask = streamIds.length - 1;
+    int slot = hash(streamId) & mask;
+    while (streamIds[slot] != 0 && streamIds[slot] != streamId) {
+      slot = (slot + 1) & mask;
+    }
+    if (streamIds[slot] == 0) {
+      streamIds[slot] = streamId;
+      size++;
+    }
+    return slot;
+  }
+
+  void removeAt(int slot) {
+    final int[] streamIds = this.streamIds;
+    final long[] values = this.values;
+    final int mask = streamIds.length - 1;
+    // shift back the entries of the same probe sequence, so that lookups find them without gaps
+    int gap = slot;
+    for (int i = (slot + 1) & mask; streamIds[i] != 0; i = (i + 1) & mask) {
+      final int home = hash(streamIds[i]) & mask;
+      if (((i - home) & mask) >= ((i - gap) & mask)) {
+        streamIds[gap] = streamIds[i];
+        System.arraycopy(values, i * FIELDS, values, gap * FIELDS, FIELDS);
+        gap = i;
+      }
+    }
+    streamIds[gap] = 0;
+    size--;
+  }
+
+  void resize(int capacity) {
+    final int[] oldStreamIds = streamIds;
+    final long[] oldValues = values;
+    streamIds = new int[capacity];
+    values = new long[capacity * FIELDS];
+    size = 0;
+    for (int i = 0; i < oldStreamIds.length; i++) {
+      if (oldStreamIds[i] != 0) {
+        System.arraycopy(oldValues, i * FIELDS, values, insert(oldStreamIds[i]) * FIELDS, FIELDS);
+      }
+    }
+  }
+
+  /** Responder proxy which puts the trace context of each request in the context of its handler. */
+  static final class PropagatingProxy extends RSocketProxy {
+
+    PropagatingProxy(RSocket source) {
+      super(source);
+    }
+
+    @Override
+    public Mono<Void> fireAndForget(Payload payload) {
+      final TracingMetadata tracingMetadata = tracingMetadata(payload);
+      final Mono<Void> result = super.fireAndForget(payload);
+      return tracingMetadata != null
+          ? result.contextWrite(Context.of(TRACING_METADATA_KEY, tracingMetadata))
+          : result;
+    }
+
+    @Override
+    public Mono<Payload> requestResponse(Payload payload) {
+      final TracingMetadata tracingMetadata = tracingMetadata(payload);
+      final Mono<Payload> result = super.requestResponse(payload);
+      return tracingMetadata != null
+          ? result.contextWrite(Context.of(TRACING_METADATA_KEY, tracingMetadata))
+          : result;
+    }
+
+    @Override
+    public Flux<Payload> requestStream(Payload payload) {
+      final TracingMetadata tracingMetadata = tracingMetadata(payload);
+      final Flux<Payload> result = super.requestStream(payload);
+      return tracingMetadata != null
+          ? result.contextWrite(Context.of(TRACING_METADATA_KEY, tracingMetadata))
+          : result;
+    }
+
+    @Override
+    public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+      return Flux.from(payloads)
+          .switchOnFirst(
+              (signal, payloadsFlux) -> {
+                final Payload firstPayload = signal.get();
+                final TracingMetadata tracingMetadata =
+                    firstPayload != null ? tracingMetadata(firstPayload) : null;
+                final Flux<Payload> result = super.requestChannel(payloadsFlux);
+                return tracingMetadata != null
+                    ? result.contextWrite(Context.of(TRACING_METADATA_KEY, tracingMetadata))
+                    : result;
+              });
+    }
+
+    @Override
+    public Mono<Void> metadataPush(Payload payload) {
+      final TracingMetadata tracingMetadata = tracingMetadata(payload);
+      final Mono<Void> result = super.metadataPush(payload);
+      return tracingMetadata != null
+          ? result.contextWrite(Context.of(TRACING_METADATA_KEY, tracingMetadata))
+          : result;
+    }
+  }
+}
@@ -126,10 +126,8 @@ public void releaseFrames(long remoteImpliedPos) {
           "Local and remote state disagreement: local and remote frame sizes are not equal");
     } else {
       POSITION.addAndGet(this, removedBytes);
-      if (cacheLimit != Integer.MAX_VALUE) {
-        CACHE_SIZE.addAndGet(this, -removedBytes);
-        logger.debug("{} Removed frames. Current cache size: {}", tag, cacheSize);
-      }
+      CACHE_SIZE.addAndGet(this, -removedBytes);
+      logger.debug("{} Removed frames. Current cache size: {}", tag, cacheSize);
     }
   }
 
@@ -187,6 +185,16 @@ void resumeImplied() {
     }
   }
 
+  /**
+   * Return the number of bytes of the frames which are kept until the remote peer acknowledges
+   * them.
+   *
+   * @since 1.1.1
+   */
+  public long getCachedBytes() {
+    return cacheSize;
+  }
+
   @Override
   public Mono<Void> onClose() {
     return disposed;
@@ -265,9 +273,7 @@ public void onNext(ByteBuf frame) {
           frames.add(frame);
         }
       }
-      if (cacheLimit != Integer.MAX_VALUE) {
-        CACHE_SIZE.addAndGet(this, incomingFrameSize);
-      }
+      CACHE_SIZE.addAndGet(this, incomingFrameSize);
     } else {
       state = this.state;
     }
@@ -21,7 +21,9 @@
 import io.rsocket.DuplexConnection;
 import io.rsocket.RSocketErrorException;
 import io.rsocket.frame.FrameHeaderCodec;
+import io.rsocket.internal.BaseDuplexConnection;
 import io.rsocket.internal.UnboundedProcessor;
+import io.rsocket.internal.jfr.RSocketFlightRecorder;
 import java.net.SocketAddress;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
@@ -35,6 +37,7 @@
 import reactor.core.publisher.MonoProcessor;
 import reactor.core.publisher.Operators;
 import reactor.core.publisher.Sinks;
+import reactor.util.annotation.Nullable;
 
 public class ResumableDuplexConnection extends Flux<ByteBuf>
     implements DuplexConnection, Subscription {
@@ -65,6 +68,11 @@ public class ResumableDuplexConnection extends Flux<ByteBuf>
 
   int connectionIndex = 0;
 
+  // System#nanoTime of the last close of a connection, for resume flight recorder events
+  volatile long disconnectedAtNanos;
+
+  @Nullable volatile Runnable onResumableFrameReceived;
+
   public ResumableDuplexConnection(
       String tag, DuplexConnection initialConnection, ResumableFramesStore resumableFramesStore) {
     this.tag = tag;
@@ -85,8 +93,17 @@ public boolean connect(DuplexConnection nextConnection) {
 
       activeConnection.dispose();
 
+      final int nextConnectionIndex = connectionIndex;
       initConnection(nextConnection);
 
+      final long disconnectedAtNanos = this.disconnectedAtNanos;
+      RSocketFlightRecorder.resumed(
+          tag,
+          nextConnectionIndex,
+          disconnectedAtNanos != 0 ? System.nanoTime() - disconnectedAtNanos : 0,
+          resumableFramesStore.framePosition(),
+          resumableFramesStore.frameImpliedPosition());
+
       return true;
     } else {
       return false;
@@ -98,7 +115,7 @@ void initConnection(DuplexConnection nextConnection) {
 
     final int currentConnectionIndex = connectionIndex;
     final FrameReceivingSubscriber frameReceivingSubscriber =
-        new FrameReceivingSubscriber(tag, resumableFramesStore, receiveSubscriber);
+        new FrameReceivingSubscriber(this, tag, resumableFramesStore, receiveSubscriber);
 
     this.connectionIndex = currentConnectionIndex + 1;
     this.activeReceivingSubscriber = frameReceivingSubscriber;
@@ -112,6 +129,7 @@ void initConnection(DuplexConnection nextConnection) {
         .onClose()
         .doFinally(
             __ -> {
+              disconnectedAtNanos = System.nanoTime();
               frameReceivingSubscriber.dispose();
               disposable.dispose();
               Sinks.EmitResult result = onConnectionClosedSink.tryEmitNext(currentConnectionIndex);
@@ -122,6 +140,44 @@ void initConnection(DuplexConnection nextConnection) {
         .subscribe();
   }
 
+  /**
+   * Register a callback invoked every time a resumable frame has been received and accounted for in
+   * the implied position of the {@link ResumableFramesStore}.
+   *
+   * @since 1.1.1
+   */
+  public void onResumableFrameReceived(@Nullable Runnable onResumableFrameReceived) {
+    this.onResumableFrameReceived = onResumableFrameReceived;
+  }
+
+  /**
+   * Return the number of bytes of the frames queued for sending, both those waiting to be saved in
+   * the {@link ResumableFramesStore} and those queued by the active transport connection, if it is
+   * a {@link BaseDuplexConnection}.
+   *
+   * @since 1.1.1
+   */
+  public long getQueuedBytes() {
+    final DuplexConnection activeConnection = this.activeConnection;
+    final long queuedBytes = savableFramesSender.getQueuedBytes();
+    return activeConnection instanceof BaseDuplexConnection
+        ? queuedBytes + ((BaseDuplexConnection) activeConnection).getQueuedBytes()
+        : queuedBytes;
+  }
+
+  /**
+   * Return the number of bytes of the frames kept for resumption, if the {@link
+   * ResumableFramesStore} is an {@link InMemoryResumableFramesStore}.
+   *
+   * @since 1.1.1
+   */
+  public long getCachedBytes() {
+    final ResumableFramesStore resumableFramesStore = this.resumableFramesStore;
+    return resumableFramesStore instanceof InMemoryResumableFramesStore
+        ? ((InMemoryResumableFramesStore) resumableFramesStore).getCachedBytes()
+        : 0;
+  }
+
   public void disconnect() {
     final DuplexConnection activeConnection = this.activeConnection;
     if (activeConnection != DisposedConnection.INSTANCE) {
@@ -287,6 +343,7 @@ public SocketAddress remoteAddress() {
   private static final class FrameReceivingSubscriber
       implements CoreSubscriber<ByteBuf>, Disposable {
 
+    final ResumableDuplexConnection parent;
     final ResumableFramesStore resumableFramesStore;
     final CoreSubscriber<? super ByteBuf> actual;
     final String tag;
@@ -299,7 +356,11 @@ public SocketAddress remoteAddress() {
     boolean cancelled;
 
     private FrameReceivingSubscriber(
-        String tag, ResumableFramesStore store, CoreSubscriber<? super ByteBuf> actual) {
+        ResumableDuplexConnection parent,
+        String tag,
+        ResumableFramesStore store,
+        CoreSubscriber<? super ByteBuf> actual) {
+      this.parent = parent;
       this.tag = tag;
       this.resumableFramesStore = store;
       this.actual = actual;
@@ -320,6 +381,10 @@ public void onNext(ByteBuf frame) {
 
       if (isResumableFrame(frame)) {
         if (resumableFramesStore.resumableFrameReceived(frame)) {
+          final Runnable onResumableFrameReceived = parent.onResumableFrameReceived;
+          if (onResumableFrameReceived != null) {
+            onResumableFrameReceived.run();
+          }
           actual.onNext(frame);
         }
         return;
@@ -17,54 +17,256 @@
 package io.rsocket.resume;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.util.CharsetUtil;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import io.rsocket.internal.TimerWheel;
+import java.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.util.annotation.Nullable;
 
+/**
+ * Index of the resumable sessions of a server, keyed by resume token. The index is split into
+ * shards, each guarded by its own lock, and looks up tokens by their bytes, so that resolving a
+ * {@code RESUME} frame neither allocates nor contends on a single map during reconnect storms.
+ *
+ * <p>Entries of closed sessions are swept by a task on a {@link TimerWheel} which checks each entry
+ * once per session duration, so that no subscription needs to be kept per session.
+ */
 public class SessionManager {
   static final Logger logger = LoggerFactory.getLogger(SessionManager.class);
 
+  static final Duration DEFAULT_SESSION_DURATION = Duration.ofMinutes(2);
+  static final int SHARDS = 32;
+  static final int SHARD_MASK = SHARDS - 1;
+  static final int SHARD_BITS = Integer.numberOfTrailingZeros(SHARDS);
+
   private volatile boolean isDisposed;
-  private final Map<String, ServerRSocketSession> sessions = new ConcurrentHashMap<>();
+  private final Shard[] shards;
+  private final TimerWheel timerWheel;
+  private final long sweepIntervalMillis;
+
+  public SessionManager() {
+    this(DEFAULT_SESSION_DURATION);
+  }
+
+  /**
+   * Create a {@link SessionManager} that sweeps closed sessions on the {@link TimerWheel#shared()
+   * shared} timer wheel.
+   *
+   * @param sessionDuration the max duration of a session, used as the sweep interval
+   * @since 1.1.1
+   */
+  public SessionManager(Duration sessionDuration) {
+    this(sessionDuration, TimerWheel.shared());
+  }
+
+  /**
+   * Create a {@link SessionManager} that sweeps closed sessions on the given timer wheel.
+   *
+   * @param sessionDuration the max duration of a session, used as the sweep interval
+   * @param timerWheel the timer wheel to sweep sessions on
+   * @since 1.1.1
+   */
+  public SessionManager(Duration sessionDuration, TimerWheel timerWheel) {
+    this.timerWheel = timerWheel;
+    this.sweepIntervalMillis = Math.max(sessionDuration.toMillis(), timerWheel.tickMillis());
+    this.shards = new Shard[SHARDS];
+    for (int i = 0; i < SHARDS; i++) {
+      shards[i] = new Shard();
+    }
+  }
 
   public ServerRSocketSession save(ServerRSocketSession session, ByteBuf resumeToken) {
     if (isDisposed) {
       session.dispose();
     } else {
-      final String token = resumeToken.toString(CharsetUtil.UTF_8);
-      session
-          .resumableConnection
-          .onClose()
-          .doFinally(
-              __ -> {
-                logger.debug(
-                    "ResumableConnection has been closed. Removing associated session {"
-                        + token
-                        + "}");
-                if (isDisposed || sessions.get(token) == session) {
-                  sessions.remove(token);
-                }
-              })
-          .subscribe();
-      ServerRSocketSession prevSession = sessions.remove(token);
+      final int hash = hash(resumeToken);
+      final ServerRSocketSession prevSession =
+          shards[hash & SHARD_MASK].put(resumeToken, hash, session);
       if (prevSession != null) {
         prevSession.dispose();
       }
-      sessions.put(token, session);
+      if (isDisposed) {
+        session.dispose();
+      }
     }
     return session;
   }
 
   @Nullable
   public ServerRSocketSession get(ByteBuf resumeToken) {
-    return sessions.get(resumeToken.toString(CharsetUtil.UTF_8));
+    final int hash = hash(resumeToken);
+    final ServerRSocketSession session = shards[hash & SHARD_MASK].get(resumeToken, hash);
+    return session == null || session.isDisposed() ? null : session;
   }
 
   public void dispose() {
     isDisposed = true;
-    sessions.values().forEach(ServerRSocketSession::dispose);
+    for (Shard shard : shards) {
+      shard.dispose();
+    }
+  }
+
+  /** Return the number of sessions in the index, including closed ones not swept yet. */
+  int size() {
+    int size = 0;
+    for (Shard shard : shards) {
+      size += shard.size();
+    }
+    return size;
+  }
+
+  static int hash(ByteBuf token) {
+    int h = 1;
+    for (int i = token.readerIndex(), end = token.writerIndex(); i < end; i++) {
+      h = 31 * h + token.getByte(i);
+    }
+    return h ^ (h >>> 16);
+  }
+
+  static boolean tokenEquals(byte[] bytes, ByteBuf token) {
+    final int index = token.readerIndex();
+    if (bytes.length != token.writerIndex() - index) {
+      return false;
+    }
+    for (int i = 0; i < bytes.length; i++) {
+      if (bytes[i] != token.getByte(index + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Chained hash table of the entries whose token hash maps to this shard. */
+  final class Shard {
+
+    // guarded by this
+    Entry[] table = new Entry[16];
+    int size;
+
+    synchronized ServerRSocketSession put(ByteBuf token, int hash, ServerRSocketSession session) {
+      final Entry[] table = this.table;
+      final int index = (hash >>> SHARD_BITS) & (table.length - 1);
+      for (Entry entry = table[index]; entry != null; entry = entry.next) {
+        if (entry.hash == hash && tokenEquals(entry.token, token)) {
+          final ServerRSocketSession prevSession = entry.session;
+          entry.session = session;
+          return prevSession;
+        }
+      }
+
+      final byte[] bytes = new byte[token.readableBytes()];
+      token.getBytes(token.readerIndex(), bytes);
+      final Entry entry = new Entry(this, bytes, hash, session);
+      entry.next = table[index];
+      table[index] = entry;
+      if (++size > (table.length >> 1) + (table.length >> 2)) {
+        resize();
+      }
+      timerWheel.schedule(entry, sweepIntervalMillis);
+      return null;
+    }
+
+    @Nullable
+    synchronized ServerRSocketSession get(ByteBuf token, int hash) {
+      final Entry[] table = this.table;
+      for (Entry entry = table[(hash >>> SHARD_BITS) & (table.length - 1)];
+          entry != null;
+          entry = entry.next) {
+        if (entry.hash == hash && tokenEquals(entry.token, token)) {
+          return entry.session;
+        }
+      }
+      return null;
+    }
+
+    synchronized int size() {
+      return size;
+    }
+
+    void sweep(Entry entry) {
+      synchronized (this) {
+        if (entry.removed) {
+          return;
+        }
+        if (!isDisposed && !entry.session.isDisposed()) {
+          timerWheel.schedule(entry, sweepIntervalMillis);
+          return;
+        }
+        remove(entry);
+      }
+      logger.debug("ResumableConnection has been closed. Removing associated session");
+    }
+
+    void remove(Entry removed) {
+      final Entry[] table = this.table;
+      final int index = (removed.hash >>> SHARD_BITS) & (table.length - 1);
+      Entry prev = null;
+      for (Entry entry = table[index]; entry != null; prev = entry, entry = entry.next) {
+        if (entry == removed) {
+          if (prev == null) {
+            table[index] = entry.next;
+          } else {
+            prev.next = entry.next;
+          }
+          entry.removed = true;
+          size--;
+          return;
+        }
+      }
+    }
+
+    void resize() {
+      final Entry[] oldTable = this.table;
+      final Entry[] newTable = new Entry[oldTable.length << 1];
+      final int mask = newTable.length - 1;
+      for (Entry entry : oldTable) {
+        while (entry != null) {
+          final Entry next = entry.next;
+          final int index = (entry.hash >>> SHARD_BITS) & mask;
+          entry.next = newTable[index];
+          newTable[index] = entry;
+          entry = next;
+        }
+      }
+      this.table = newTable;
+    }
+
+    synchronized void dispose() {
+      final Entry[] table = this.table;
+      this.table = new Entry[16];
+      this.size = 0;
+      for (Entry entry : table) {
+        for (; entry != null; entry = entry.next) {
+          entry.removed = true;
+          timerWheel.cancel(entry);
+          entry.session.dispose();
+        }
+      }
+    }
+  }
+
+  /** Index entry which is also the task that sweeps it once its session has been closed. */
+  static final class Entry extends TimerWheel.Task {
+
+    final Shard shard;
+    final byte[] token;
+    final int hash;
+
+    // guarded by the shard
+    ServerRSocketSession session;
+    Entry next;
+    boolean removed;
+
+    Entry(Shard shard, byte[] token, int hash, ServerRSocketSession session) {
+      this.shard = shard;
+      this.token = token;
+      this.hash = hash;
+      this.session = session;
+    }
+
+    @Override
+    public void run() {
+      shard.sweep(this);
+    }
   }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.routing;
+
+import io.netty.buffer.ByteBuf;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Immutable byte trie of routes, compiled from their UTF-8 encoding, which matches a route
+ * directly against the bytes of a buffer. Each node keeps the bytes leading to its children sorted,
+ * so that a lookup is a binary search per byte of the route and allocates nothing.
+ */
+final class RouteTrie<T> {
+
+  private static final byte[] NO_LABELS = new byte[0];
+  private static final Node<?>[] NO_CHILDREN = new Node<?>[0];
+
+  private final Node<T> root = new Node<>();
+
+  RouteTrie(Map<String, T> routes) {
+    routes.forEach(this::insert);
+  }
+
+  @Nullable
+  T get(ByteBuf buffer, int index, int length) {
+    Node<T> node = root;
+    for (int i = 0; i < length; i++) {
+      final int child = Arrays.binarySearch(node.labels, buffer.getByte(index + i));
+      if (child < 0) {
+        return null;
+      }
+      node = node.children[child];
+    }
+    return node.value;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void insert(String route, T value) {
+    Node<T> node = root;
+    for (byte b : route.getBytes(StandardCharsets.UTF_8)) {
+      int child = Arrays.binarySearch(node.labels, b);
+      if (child < 0) {
+        child = -child - 1;
+        node.labels = insertAt(node.labels, child, b);
+        final Node<T>[] children = (Node<T>[]) new Node<?>[node.children.length + 1];
+        System.arraycopy(node.children, 0, children, 0, child);
+        System.arraycopy(node.children, child, children, child + 1, node.children.length - child);
+        children[child] = new Node<>();
+        node.children = children;
+      }
+      node = node.children[child];
+    }
+    if (node.value != null) {
+      throw new IllegalArgumentException("Duplicate route: " + route);
+    }
+    node.value = value;
+  }
+
+  private static byte[] insertAt(byte[] labels, int index, byte label) {
+    final byte[] result = new byte[labels.length + 1];
+    System.arraycopy(labels, 0, result, 0, index);
+    result[index] = label;
+    System.arraycopy(labels, index, result, index + 1, labels.length - index);
+    return result;
+  }
+
+  private static final class Node<T> {
+    byte[] labels = NO_LABELS;
+
+    @SuppressWarnings("unchecked")
+    Node<T>[] children = (Node<T>[]) NO_CHILDREN;
+
+    @Nullable T value;
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.routing;
+
+import io.rsocket.ConnectionSetupPayload;
+import io.rsocket.RSocket;
+import io.rsocket.SocketAcceptor;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link SocketAcceptor} which dispatches requests to the responder {@code RSocket} registered for
+ * their route, i.e. the first tag of the {@link io.rsocket.metadata.RoutingMetadata routing
+ * metadata} of a request. Routes are compiled into a byte trie when the router is built and are
+ * matched directly against the bytes of the metadata, so that dispatching a request neither decodes
+ * the route into a {@code String} nor allocates for the lookup.
+ *
+ * <p>Example usage:
+ *
+ * <pre>{@code
+ * Router router =
+ *     Router.builder()
+ *         .route("orders.create", ordersHandler)
+ *         .route("orders.stream", ordersStreamHandler)
+ *         .build();
+ *
+ * RSocketServer.create(router).bind(transport);
+ * }</pre>
+ *
+ * <p>As a {@code SocketAcceptor}, the router reads routing metadata directly if it is the metadata
+ * mime type of the connection, and the routing entry of composite metadata otherwise. Requests
+ * without a known route are handed to the {@link Builder#fallback(RSocket) fallback} {@code
+ * RSocket}, which by default rejects them as not implemented.
+ *
+ * @since 1.1.1
+ */
+public final class Router implements SocketAcceptor {
+
+  private final RSocket compositeMetadataRouter;
+  private final RSocket routingMetadataRouter;
+
+  private Router(RouteTrie<RSocket> routes, RSocket fallback) {
+    this.compositeMetadataRouter = new RoutingRSocket(routes, fallback, true);
+    this.routingMetadataRouter = new RoutingRSocket(routes, fallback, false);
+  }
+
+  /** Return a builder to register the routes of a {@link Router} with. */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public Mono<RSocket> accept(ConnectionSetupPayload setup, RSocket sendingSocket) {
+    return Mono.just(
+        RoutingRSocket.ROUTING_MIME_TYPE.equals(setup.metadataMimeType())
+            ? routingMetadataRouter
+            : compositeMetadataRouter);
+  }
+
+  /** Return the responder {@code RSocket} routing requests with composite metadata. */
+  public RSocket forCompositeMetadata() {
+    return compositeMetadataRouter;
+  }
+
+  /** Return the responder {@code RSocket} routing requests with routing metadata. */
+  public RSocket forRoutingMetadata() {
+    return routingMetadataRouter;
+  }
+
+  /** Builder for a {@link Router}. */
+  public static final class Builder {
+
+    private final Map<String, RSocket> routes = new LinkedHashMap<>();
+    private RSocket fallback = new RSocket() {};
+
+    private Builder() {}
+
+    /**
+     * Register the responder {@code RSocket} handling the requests for the given route.
+     *
+     * @param route the route, at most 255 bytes long once encoded in UTF-8
+     * @param handler the handler of the requests for the route
+     * @return the same instance for method chaining
+     */
+    public Builder route(String route, RSocket handler) {
+      Objects.requireNonNull(route, "route");
+      Objects.requireNonNull(handler, "handler");
+      if (route.getBytes(StandardCharsets.UTF_8).length > 0xFF) {
+        throw new IllegalArgumentException("route is longer than 255 bytes: " + route);
+      }
+      if (routes.putIfAbsent(route, handler) != null) {
+        throw new IllegalArgumentException("Duplicate route: " + route);
+      }
+      return this;
+    }
+
+    /**
+     * Set the responder {@code RSocket} handling the requests without a registered route.
+     *
+     * <p>By default such requests are rejected as not implemented.
+     *
+     * @param fallback the handler of the requests without a registered route
+     * @return the same instance for method chaining
+     */
+    public Builder fallback(RSocket fallback) {
+      this.fallback = Objects.requireNonNull(fallback, "fallback");
+      return this;
+    }
+
+    /** Compile the registered routes into a {@link Router}. */
+    public Router build() {
+      return new Router(new RouteTrie<>(routes), fallback);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rsocket.routing;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.metadata.CompositeMetadataReader;
+import io.rsocket.metadata.WellKnownMimeType;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Responder {@code RSocket} which dispatches each request to the {@code RSocket} registered for the
+ * first tag of its routing metadata, looked up in a {@link RouteTrie} directly from the metadata
+ * bytes. The metadata is either composite metadata with a routing entry, or routing metadata.
+ */
+final class RoutingRSocket implements RSocket {
+
+  static final byte ROUTING_MIME_ID = WellKnownMimeType.MESSAGE_RSOCKET_ROUTING.getIdentifier();
+  static final String ROUTING_MIME_TYPE = WellKnownMimeType.MESSAGE_RSOCKET_ROUTING.getString();
+
+  static final FastThreadLocal<CompositeMetadataReader> READERS =
+      new FastThreadLocal<CompositeMetadataReader>() {
+        @Override
+        protected CompositeMetadataReader initialValue() {
+          return new CompositeMetadataReader();
+        }
+      };
+
+  final RouteTrie<RSocket> routes;
+  final RSocket fallback;
+  final boolean compositeMetadata;
+
+  RoutingRSocket(RouteTrie<RSocket> routes, RSocket fallback, boolean compositeMetadata) {
+    this.routes = routes;
+    this.fallback = fallback;
+    this.compositeMetadata = compositeMetadata;
+  }
+
+  @Override
+  public Mono<Void> fireAndForget(Payload payload) {
+    return select(payload).fireAndForget(payload);
+  }
+
+  @Override
+  public Mono<Payload> requestResponse(Payload payload) {
+    return select(payload).requestResponse(payload);
+  }
+
+  @Override
+  public Flux<Payload> requestStream(Payload payload) {
+    return select(payload).requestStream(payload);
+  }
+
+  @Override
+  public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+    return Flux.from(payloads)
+        .switchOnFirst(
+            (signal, payloadsFlux) -> {
+              final Payload firstPayload = signal.get();
+              if (firstPayload == null) {
+                return payloadsFlux;
+              }
+              return select(firstPayload).requestChannel(payloadsFlux);
+            });
+  }
+
+  @Override
+  public Mono<Void> metadataPush(Payload payload) {
+    return select(payload).metadataPush(payload);
+  }
+
+  RSocket select(Payload payload) {
+    if (!payload.hasMetadata()) {
+      return fallback;
+    }
+
+    final ByteBuf metadata = payload.metadata();
+    RSocket route = null;
+    if (compositeMetadata) {
+      final CompositeMetadataReader reader = READERS.get().reset(metadata);
+      while (reader.next()) {
+        if (reader.mimeId() == ROUTING_MIME_ID
+            || (!reader.hasMimeId() && reader.isMimeType(ROUTING_MIME_TYPE))) {
+          route = match(metadata, reader.contentIndex(), reader.contentLength());
+          break;
+        }
+      }
+    } else {
+      route = match(metadata, metadata.readerIndex(), metadata.readableBytes());
+    }
+
+    return route != null ? route : fallback;
+  }
+
+  @Nullable
+  RSocket match(ByteBuf routingMetadata, int index, int length) {
+    if (length < 1) {
+      return null;
+    }
+    // the route is the first tag, made of its length on one byte and its UTF-8 bytes
+    final int routeLength = routingMetadata.getUnsignedByte(index);
+    if (routeLength >= length) {
+      return null;
+    }
+    return routes.get(routingMetadata, index + 1, routeLength);
+  }
+}
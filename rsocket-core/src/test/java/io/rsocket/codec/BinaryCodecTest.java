@@ -0,0 +1,88 @@
+package io.rsocket.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.core.RSocketClient;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class BinaryCodecTest {
+
+  static final BinaryCodec<Order> ORDER_CODEC =
+      BinaryCodec.of(
+          (order, buf) -> {
+            BinaryCodec.writeVarLong(buf, order.id);
+            BinaryCodec.writeString(buf, order.item);
+          },
+          buf -> new Order(BinaryCodec.readVarLong(buf), BinaryCodec.readString(buf)));
+
+  @Test
+  public void shouldWriteAndReadFields() {
+    for (long id : new long[] {0, 1, -1, 63, -64, 64, Long.MAX_VALUE, Long.MIN_VALUE}) {
+      final ByteBuf encoded = ORDER_CODEC.encode(ByteBufAllocator.DEFAULT, new Order(id, "\u00e9"));
+      final Order decoded = ORDER_CODEC.decode(encoded);
+
+      Assertions.assertThat(decoded.id).isEqualTo(id);
+      Assertions.assertThat(decoded.item).isEqualTo("\u00e9");
+      Assertions.assertThat(encoded.readerIndex()).isZero();
+      encoded.release();
+    }
+  }
+
+  @Test
+  public void shouldRejectMalformedLength() {
+    final ByteBuf encoded = ByteBufAllocator.DEFAULT.buffer();
+    BinaryCodec.writeVarLong(encoded, 100);
+    encoded.writeByte('a');
+
+    Assertions.assertThatIllegalArgumentException()
+        .isThrownBy(() -> BinaryCodec.readString(encoded));
+    encoded.release();
+  }
+
+  @Test
+  public void shouldPerformTypedRequests() {
+    final RSocketClient client =
+        RSocketClient.from(
+            new RSocket() {
+              @Override
+              public Mono<Payload> requestResponse(Payload payload) {
+                return Mono.just(payload);
+              }
+
+              @Override
+              public Flux<Payload> requestStream(Payload payload) {
+                final Order order = ORDER_CODEC.decodePayload(payload);
+                return Flux.range(1, 3)
+                    .map(
+                        i ->
+                            ORDER_CODEC.encodePayload(
+                                ByteBufAllocator.DEFAULT, new Order(order.id + i, order.item)));
+              }
+            });
+
+    StepVerifier.create(client.requestResponse("echo", BinaryCodec.UTF8, BinaryCodec.UTF8))
+        .expectNext("echo")
+        .verifyComplete();
+    StepVerifier.create(client.requestStream(new Order(10, "tea"), ORDER_CODEC, ORDER_CODEC))
+        .expectNextMatches(order -> order.id == 11 && order.item.equals("tea"))
+        .expectNextMatches(order -> order.id == 12)
+        .expectNextMatches(order -> order.id == 13)
+        .verifyComplete();
+  }
+
+  static final class Order {
+    final long id;
+    final String item;
+
+    Order(long id, String item) {
+      this.id = id;
+      this.item = item;
+    }
+  }
+}
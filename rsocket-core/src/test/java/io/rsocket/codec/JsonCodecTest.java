@@ -0,0 +1,58 @@
+package io.rsocket.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class JsonCodecTest {
+
+  @Test
+  public void shouldEncodeAndDecodeValues() {
+    final Map<String, Object> order = new LinkedHashMap<>();
+    order.put("id", 42L);
+    order.put("item", "caf\u00e9 \"au lait\"\n");
+    order.put("price", 3.5);
+    order.put("tags", Arrays.asList("hot", null, true));
+    order.put("extras", new LinkedHashMap<>());
+
+    final ByteBuf encoded = JsonCodec.INSTANCE.encode(ByteBufAllocator.DEFAULT, order);
+    Assertions.assertThat(encoded.toString(StandardCharsets.UTF_8))
+        .isEqualTo(
+            "{\"id\":42,\"item\":\"caf\u00e9 \\\"au lait\\\"\\n\",\"price\":3.5,"
+                + "\"tags\":[\"hot\",null,true],\"extras\":{}}");
+
+    Assertions.assertThat(JsonCodec.INSTANCE.decode(encoded)).isEqualTo(order);
+    Assertions.assertThat(encoded.readerIndex()).isZero();
+    encoded.release();
+  }
+
+  @Test
+  public void shouldDecodeWhitespaceAndEscapes() {
+    final Object value =
+        JsonCodec.INSTANCE.decode(
+            json(" { \"a\" : [ 1 , -2.5e3 , \"\\u0041\\/\" ] , \"b\" : false } "));
+
+    final Map<String, Object> expected = new LinkedHashMap<>();
+    expected.put("a", Arrays.asList(1L, -2500.0, "A/"));
+    expected.put("b", false);
+    Assertions.assertThat(value).isEqualTo(expected);
+  }
+
+  @Test
+  public void shouldRejectMalformedJson() {
+    for (String malformed : new String[] {"", "{", "[1,]", "{\"a\" 1}", "tru", "1 2", "\"a"}) {
+      Assertions.assertThatIllegalArgumentException()
+          .isThrownBy(() -> JsonCodec.INSTANCE.decode(json(malformed)));
+    }
+  }
+
+  static ByteBuf json(String json) {
+    return Unpooled.copiedBuffer(json, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,64 @@
+package io.rsocket.core;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ByteCreditGateTest {
+
+  @Test
+  public void shouldHoldBackDemandUntilCreditsAreGranted() {
+    final ByteCreditGate gate = new ByteCreditGate();
+
+    Assertions.assertThat(gate.onRequestN(10)).isZero();
+    Assertions.assertThat(gate.onCredits(100)).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldPassOnDemandAffordableWithGrantedCredits() {
+    final ByteCreditGate gate = new ByteCreditGate();
+    gate.onRequestN(10);
+    gate.onCredits(100);
+
+    // a payload of 20 bytes leaves 80 bytes for 4 more payloads of the same size
+    Assertions.assertThat(gate.onSent(20)).isEqualTo(4);
+    Assertions.assertThat(gate.onSent(20)).isZero();
+    Assertions.assertThat(gate.onSent(20)).isZero();
+    Assertions.assertThat(gate.onSent(20)).isZero();
+    Assertions.assertThat(gate.onSent(20)).isZero();
+
+    // credits are exhausted until the receiver grants more
+    Assertions.assertThat(gate.onCredits(40)).isEqualTo(2);
+    Assertions.assertThat(gate.onCredits(1000)).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldOverrunCreditsByAtMostOnePayload() {
+    final ByteCreditGate gate = new ByteCreditGate();
+    gate.onRequestN(Long.MAX_VALUE);
+
+    Assertions.assertThat(gate.onCredits(10)).isEqualTo(1);
+    Assertions.assertThat(gate.onSent(50)).isZero();
+    Assertions.assertThat(gate.onCredits(40)).isZero();
+    Assertions.assertThat(gate.onCredits(1)).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldBoundConnectionWindowAcrossStreams() {
+    final ByteCreditBudget budget =
+        new ByteCreditBudget(new ByteFlowControl().streamWindow(100).connectionWindow(250));
+
+    final long first = budget.reserve();
+    final long second = budget.reserve();
+    final long third = budget.reserve();
+    final long fourth = budget.reserve();
+
+    Assertions.assertThat(first).isEqualTo(100);
+    Assertions.assertThat(second).isEqualTo(100);
+    Assertions.assertThat(third).isEqualTo(50);
+    Assertions.assertThat(fourth).isEqualTo(1);
+
+    budget.release(first);
+    budget.release(fourth);
+    Assertions.assertThat(budget.reserve()).isEqualTo(100);
+  }
+}
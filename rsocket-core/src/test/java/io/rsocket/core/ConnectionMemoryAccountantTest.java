@@ -0,0 +1,195 @@
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.DuplexConnection;
+import io.rsocket.RSocketErrorException;
+import io.rsocket.frame.PayloadFrameCodec;
+import io.rsocket.internal.BaseDuplexConnection;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+public class ConnectionMemoryAccountantTest {
+
+  static final FrameHandler NOOP_HANDLER =
+      new FrameHandler() {
+        @Override
+        public void handleNext(ByteBuf frame, boolean hasFollows, boolean isLastPayload) {}
+
+        @Override
+        public void handleError(Throwable t) {}
+
+        @Override
+        public void handleComplete() {}
+
+        @Override
+        public void handleCancel() {}
+
+        @Override
+        public void handleRequestN(long n) {}
+      };
+
+  @Test
+  public void shouldAccountFragmentsUntilTheLastOneIsReceived() {
+    final MemoryLimits limits = new MemoryLimits();
+    final ConnectionMemoryAccountant accountant =
+        new ConnectionMemoryAccountant(limits, new QueueingConnection());
+    final TestRequesterResponderSupport support = TestRequesterResponderSupport.client();
+    final int streamId = support.addAndGetNextStreamId(NOOP_HANDLER);
+
+    final ByteBuf first = fragment(streamId, true, 100);
+    final ByteBuf second = fragment(streamId, true, 50);
+    final ByteBuf last = fragment(streamId, false, 10);
+
+    Assertions.assertThat(accountant.onInboundFrame(streamId, first, support)).isTrue();
+    Assertions.assertThat(accountant.onInboundFrame(streamId, second, support)).isTrue();
+    final long expectedBytes = first.readableBytes() + second.readableBytes();
+    final ConnectionMemoryUsage usage = accountant;
+    Assertions.assertThat(usage.getStreamBytes(streamId)).isEqualTo(expectedBytes);
+    Assertions.assertThat(usage.getStreamBytes())
+        .containsOnly(Assertions.entry(streamId, expectedBytes));
+    Assertions.assertThat(accountant.getConnectionBytes()).isEqualTo(expectedBytes);
+    Assertions.assertThat(limits.getUsedBytes()).isEqualTo(expectedBytes);
+
+    Assertions.assertThat(accountant.onInboundFrame(streamId, last, support)).isTrue();
+    Assertions.assertThat(usage.getStreamBytes(streamId)).isZero();
+    Assertions.assertThat(usage.getStreamBytes()).isEmpty();
+    Assertions.assertThat(accountant.getConnectionBytes()).isZero();
+    Assertions.assertThat(limits.getUsedBytes()).isZero();
+
+    first.release();
+    second.release();
+    last.release();
+  }
+
+  @Test
+  public void shouldNotAccountFragmentsOfInactiveStreams() {
+    final MemoryLimits limits = new MemoryLimits();
+    final ConnectionMemoryAccountant accountant =
+        new ConnectionMemoryAccountant(limits, new QueueingConnection());
+    final TestRequesterResponderSupport support = TestRequesterResponderSupport.client();
+
+    final ByteBuf frame = fragment(1, true, 100);
+    Assertions.assertThat(accountant.onInboundFrame(1, frame, support)).isTrue();
+    Assertions.assertThat(accountant.getConnectionBytes()).isZero();
+
+    frame.release();
+  }
+
+  @Test
+  public void shouldReportConnectionAndGlobalLimits() {
+    final MemoryLimits limits = new MemoryLimits().maxConnectionBytes(100).maxGlobalBytes(150);
+    final ConnectionMemoryAccountant first =
+        new ConnectionMemoryAccountant(limits, new QueueingConnection());
+    final ConnectionMemoryAccountant second =
+        new ConnectionMemoryAccountant(limits, new QueueingConnection());
+
+    Assertions.assertThat(first.reserve(1, 80)).isTrue();
+    Assertions.assertThat(second.reserve(1, 60)).isTrue();
+    Assertions.assertThat(first.isGlobalLimitExceeded()).isFalse();
+
+    Assertions.assertThat(second.reserve(3, 60)).isFalse();
+    Assertions.assertThat(first.isGlobalLimitExceeded()).isTrue();
+    Assertions.assertThat(second.connectionLimitExceeded()).hasMessageContaining("120 bytes");
+    Assertions.assertThat(limits.getClosedConnectionCount()).isEqualTo(1);
+
+    second.releaseAll();
+    Assertions.assertThat(limits.getUsedBytes()).isEqualTo(80);
+    Assertions.assertThat(first.isGlobalLimitExceeded()).isFalse();
+
+    first.release(1);
+    Assertions.assertThat(limits.getUsedBytes()).isZero();
+  }
+
+  @Test
+  public void shouldAccountFramesQueuedForSending() {
+    final MemoryLimits limits = new MemoryLimits().maxConnectionBytes(100);
+    final QueueingConnection connection = new QueueingConnection();
+    final ConnectionMemoryAccountant accountant =
+        new ConnectionMemoryAccountant(limits, connection);
+    final TestRequesterResponderSupport support = TestRequesterResponderSupport.client();
+
+    Assertions.assertThat(limits.getConnections()).containsExactly(accountant);
+
+    final ByteBuf queued = fragment(1, false, 60);
+    connection.sendFrame(1, queued);
+    final ByteBuf frame = fragment(1, false, 10);
+    Assertions.assertThat(accountant.onInboundFrame(1, frame, support)).isTrue();
+    Assertions.assertThat(accountant.getQueuedBytes()).isEqualTo(queued.readableBytes());
+    Assertions.assertThat(accountant.getUsedBytes()).isEqualTo(queued.readableBytes());
+    Assertions.assertThat(limits.getUsedBytes()).isEqualTo(queued.readableBytes());
+
+    // the peer does not read what is sent to it
+    connection.sendFrame(1, fragment(1, false, 60));
+    Assertions.assertThat(accountant.onInboundFrame(1, frame, support)).isFalse();
+
+    accountant.releaseAll();
+    Assertions.assertThat(limits.getUsedBytes()).isZero();
+    Assertions.assertThat(limits.getConnections()).isEmpty();
+
+    connection.dispose();
+    frame.release();
+  }
+
+  @Test
+  public void shouldSampleFramesQueuedForSendingOnSend() {
+    final MemoryLimits limits = new MemoryLimits();
+    final QueueingConnection connection = new QueueingConnection();
+    final ConnectionMemoryAccountant accountant =
+        new ConnectionMemoryAccountant(limits, connection);
+    final DuplexConnection sendingConnection = accountant.sampleOnSend(connection);
+
+    final ByteBuf queued = fragment(1, false, 60);
+    final int queuedBytes = queued.readableBytes();
+    sendingConnection.sendFrame(1, queued);
+    Assertions.assertThat(accountant.getQueuedBytes()).isEqualTo(queuedBytes);
+    Assertions.assertThat(limits.getUsedBytes()).isEqualTo(queuedBytes);
+
+    accountant.releaseAll();
+    connection.dispose();
+  }
+
+  static ByteBuf fragment(int streamId, boolean follows, int size) {
+    return PayloadFrameCodec.encode(
+        ByteBufAllocator.DEFAULT,
+        streamId,
+        follows,
+        false,
+        true,
+        null,
+        Unpooled.wrappedBuffer(new byte[size]));
+  }
+
+  /** A connection whose transport never takes the frames queued for sending. */
+  static final class QueueingConnection extends BaseDuplexConnection {
+
+    @Override
+    protected void doOnClose() {
+      sender.dispose();
+    }
+
+    @Override
+    public void sendErrorAndClose(RSocketErrorException errorException) {
+      dispose();
+    }
+
+    @Override
+    public Flux<ByteBuf> receive() {
+      return Flux.never();
+    }
+
+    @Override
+    public ByteBufAllocator alloc() {
+      return ByteBufAllocator.DEFAULT;
+    }
+
+    @Override
+    public SocketAddress remoteAddress() {
+      return new InetSocketAddress(0);
+    }
+  }
+}
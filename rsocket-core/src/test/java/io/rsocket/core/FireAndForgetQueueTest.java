@@ -0,0 +1,110 @@
+package io.rsocket.core;
+
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.util.ByteBufPayload;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+public class FireAndForgetQueueTest {
+
+  final List<String> handled = new ArrayList<>();
+  final List<Sinks.Empty<Void>> pending = new ArrayList<>();
+  final RSocket handler =
+      new RSocket() {
+        @Override
+        public Mono<Void> fireAndForget(Payload payload) {
+          handled.add(payload.getDataUtf8());
+          payload.release();
+          final Sinks.Empty<Void> sink = Sinks.empty();
+          pending.add(sink);
+          return sink.asMono();
+        }
+      };
+
+  @Test
+  public void shouldDropNewestWhenFull() {
+    final FireAndForgetIntake intake = new FireAndForgetIntake().capacity(1);
+    final FireAndForgetQueue queue = new FireAndForgetQueue(intake, handler);
+
+    queue.enqueue(ByteBufPayload.create("a")).subscribe();
+    queue.enqueue(ByteBufPayload.create("b")).subscribe();
+    final Payload dropped = ByteBufPayload.create("c");
+    StepVerifier.create(queue.enqueue(dropped))
+        .expectErrorMatches(t -> t == FireAndForgetQueue.DROPPED)
+        .verify();
+
+    Assertions.assertThat(dropped.refCnt()).isZero();
+    Assertions.assertThat(handled).containsExactly("a");
+
+    pending.get(0).tryEmitEmpty();
+
+    Assertions.assertThat(handled).containsExactly("a", "b");
+    Assertions.assertThat(intake.getReceivedCount()).isEqualTo(3);
+    Assertions.assertThat(intake.getDroppedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldDropOldestWhenFull() {
+    final FireAndForgetIntake intake =
+        new FireAndForgetIntake()
+            .capacity(1)
+            .dropPolicy(FireAndForgetIntake.DropPolicy.DROP_OLDEST);
+    final FireAndForgetQueue queue = new FireAndForgetQueue(intake, handler);
+
+    queue.enqueue(ByteBufPayload.create("a")).subscribe();
+    final StepVerifier droppedVerifier =
+        StepVerifier.create(queue.enqueue(ByteBufPayload.create("b")))
+            .expectErrorMatches(t -> t == FireAndForgetQueue.DROPPED)
+            .verifyLater();
+    queue.enqueue(ByteBufPayload.create("c")).subscribe();
+
+    droppedVerifier.verify();
+
+    pending.get(0).tryEmitEmpty();
+
+    Assertions.assertThat(handled).containsExactly("a", "c");
+    Assertions.assertThat(intake.getDroppedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldBatchWaitingRequests() {
+    final List<List<String>> batches = new ArrayList<>();
+    final Sinks.Empty<Void> firstBatch = Sinks.empty();
+    final FireAndForgetIntake intake =
+        new FireAndForgetIntake()
+            .batching(
+                2,
+                payloads ->
+                    payloads
+                        .map(
+                            payload -> {
+                              final String data = payload.getDataUtf8();
+                              payload.release();
+                              return data;
+                            })
+                        .collectList()
+                        .flatMap(
+                            batch -> {
+                              batches.add(batch);
+                              return batches.size() == 1 ? firstBatch.asMono() : Mono.empty();
+                            }));
+    final FireAndForgetQueue queue = new FireAndForgetQueue(intake, handler);
+
+    queue.enqueue(ByteBufPayload.create("a")).subscribe();
+    queue.enqueue(ByteBufPayload.create("b")).subscribe();
+    queue.enqueue(ByteBufPayload.create("c")).subscribe();
+    queue.enqueue(ByteBufPayload.create("d")).subscribe();
+
+    firstBatch.tryEmitEmpty();
+
+    Assertions.assertThat(batches)
+        .containsExactly(Arrays.asList("a"), Arrays.asList("b", "c"), Arrays.asList("d"));
+  }
+}
@@ -0,0 +1,116 @@
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.frame.RequestResponseFrameCodec;
+import io.rsocket.frame.RequestStreamFrameCodec;
+import io.rsocket.metadata.CompositeMetadataCodec;
+import io.rsocket.metadata.TaggingMetadataCodec;
+import io.rsocket.metadata.WellKnownMimeType;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MetadataDictionaryCodecTest {
+
+  final ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+
+  @Test
+  public void shouldIndexRepeatedEntries() {
+    final MetadataDictionaryCodec.Encoder encoder = new MetadataDictionaryCodec.Encoder(4, 64);
+    final MetadataDictionaryCodec.Decoder decoder = new MetadataDictionaryCodec.Decoder(4, 64);
+
+    final ByteBuf metadata = metadata("orders.create");
+    final ByteBuf data = Unpooled.copiedBuffer("payload", StandardCharsets.UTF_8);
+
+    final ByteBuf first = roundTrip(encoder, decoder, 1, metadata, data);
+    final ByteBuf second = roundTrip(encoder, decoder, 3, metadata, data);
+
+    // each entry is replaced by its index the second time
+    Assertions.assertThat(RequestStreamFrameCodec.metadata(second).readableBytes()).isEqualTo(2);
+    Assertions.assertThat(second.readableBytes()).isLessThan(first.readableBytes());
+    first.release();
+    second.release();
+  }
+
+  @Test
+  public void shouldEvictOldestEntries() {
+    final MetadataDictionaryCodec.Encoder encoder = new MetadataDictionaryCodec.Encoder(2, 64);
+    final MetadataDictionaryCodec.Decoder decoder = new MetadataDictionaryCodec.Decoder(2, 64);
+
+    for (String route : new String[] {"a", "b", "c", "a", "c", "b"}) {
+      roundTrip(encoder, decoder, 1, metadata(route), Unpooled.EMPTY_BUFFER).release();
+    }
+  }
+
+  @Test
+  public void shouldNotIndexLargeEntries() {
+    final MetadataDictionaryCodec.Encoder encoder = new MetadataDictionaryCodec.Encoder(4, 8);
+    final MetadataDictionaryCodec.Decoder decoder = new MetadataDictionaryCodec.Decoder(4, 8);
+
+    final ByteBuf metadata = metadata("a.route.too.long.to.be.indexed");
+    final ByteBuf first = roundTrip(encoder, decoder, 1, metadata, Unpooled.EMPTY_BUFFER);
+    final ByteBuf second = roundTrip(encoder, decoder, 3, metadata, Unpooled.EMPTY_BUFFER);
+
+    Assertions.assertThat(second.readableBytes()).isEqualTo(first.readableBytes());
+    first.release();
+    second.release();
+  }
+
+  @Test
+  public void shouldRejectUnknownIndex() {
+    final MetadataDictionaryCodec.Decoder decoder = new MetadataDictionaryCodec.Decoder(4, 64);
+    final ByteBuf frame =
+        RequestResponseFrameCodec.encode(
+            allocator,
+            1,
+            false,
+            Unpooled.wrappedBuffer(new byte[] {(byte) (MetadataDictionaryCodec.INDEXED | 2)}),
+            Unpooled.EMPTY_BUFFER);
+
+    Assertions.assertThatIllegalStateException()
+        .isThrownBy(() -> decoder.decodeFrame(allocator, frame));
+    frame.release();
+  }
+
+  ByteBuf roundTrip(
+      MetadataDictionaryCodec.Encoder encoder,
+      MetadataDictionaryCodec.Decoder decoder,
+      int streamId,
+      ByteBuf metadata,
+      ByteBuf data) {
+    final ByteBuf frame =
+        RequestStreamFrameCodec.encode(
+            allocator, streamId, false, 5, metadata.retainedSlice(), data.retainedSlice());
+    Assertions.assertThat(MetadataDictionaryCodec.isCompressible(frame)).isTrue();
+
+    final ByteBuf encoded = encoder.encodeFrame(allocator, frame);
+    final ByteBuf decoded = decoder.decodeFrame(allocator, encoded);
+
+    Assertions.assertThat(RequestStreamFrameCodec.initialRequestN(decoded)).isEqualTo(5);
+    Assertions.assertThat(ByteBufUtil.equals(RequestStreamFrameCodec.metadata(decoded), metadata))
+        .isTrue();
+    Assertions.assertThat(ByteBufUtil.equals(RequestStreamFrameCodec.data(decoded), data)).isTrue();
+    decoded.release();
+    return encoded;
+  }
+
+  ByteBuf metadata(String route) {
+    final CompositeByteBuf metadata = allocator.compositeBuffer();
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        metadata,
+        allocator,
+        WellKnownMimeType.MESSAGE_RSOCKET_ROUTING,
+        TaggingMetadataCodec.createTaggingContent(allocator, Collections.singletonList(route)));
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        metadata,
+        allocator,
+        "application/x.trace",
+        Unpooled.copiedBuffer(new byte[] {1, 2, 3}));
+    return metadata;
+  }
+}
@@ -0,0 +1,113 @@
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.rsocket.Closeable;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.SocketAcceptor;
+import io.rsocket.metadata.CompositeMetadata;
+import io.rsocket.metadata.CompositeMetadataCodec;
+import io.rsocket.metadata.RoutingMetadata;
+import io.rsocket.metadata.TaggingMetadataCodec;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.transport.local.LocalClientTransport;
+import io.rsocket.transport.local.LocalServerTransport;
+import io.rsocket.util.ByteBufPayload;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class MetadataDictionaryTest {
+
+  Closeable server;
+  RSocket client;
+
+  @AfterEach
+  public void tearDown() {
+    if (client != null) {
+      client.dispose();
+    }
+    if (server != null) {
+      server.dispose();
+    }
+  }
+
+  @Test
+  public void shouldRouteRequestsWithDictionary() {
+    server =
+        RSocketServer.create(echoRoute())
+            .metadataDictionary(new MetadataDictionary())
+            .bindNow(LocalServerTransport.create("metadata-dictionary-enabled"));
+    client = connect("metadata-dictionary-enabled");
+
+    assertRequestsAreRouted();
+  }
+
+  @Test
+  public void shouldRouteRequestsWithServerWithoutDictionary() {
+    server =
+        RSocketServer.create(echoRoute())
+            .bindNow(LocalServerTransport.create("metadata-dictionary-disabled"));
+    client = connect("metadata-dictionary-disabled");
+
+    assertRequestsAreRouted();
+  }
+
+  void assertRequestsAreRouted() {
+    final List<String> routes =
+        Flux.range(0, 6)
+            .concatMap(i -> client.requestResponse(request("orders." + (i % 2))))
+            .map(
+                payload -> {
+                  final String route = payload.getDataUtf8();
+                  payload.release();
+                  return route;
+                })
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+    Assertions.assertThat(routes)
+        .containsExactly("orders.0", "orders.1", "orders.0", "orders.1", "orders.0", "orders.1");
+    Assertions.assertThat(client.isDisposed()).isFalse();
+  }
+
+  RSocket connect(String name) {
+    return RSocketConnector.create()
+        .metadataMimeType(WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString())
+        .metadataDictionary(new MetadataDictionary())
+        .connect(LocalClientTransport.create(name))
+        .block();
+  }
+
+  static SocketAcceptor echoRoute() {
+    return SocketAcceptor.forRequestResponse(
+        payload -> {
+          final CompositeMetadata metadata = new CompositeMetadata(payload.metadata(), false);
+          String route = null;
+          for (CompositeMetadata.Entry entry : metadata) {
+            if (WellKnownMimeType.MESSAGE_RSOCKET_ROUTING.getString().equals(entry.getMimeType())) {
+              route = new RoutingMetadata(entry.getContent()).iterator().next();
+            }
+          }
+          payload.release();
+          return Mono.justOrEmpty(route).map(ByteBufPayload::create);
+        });
+  }
+
+  static Payload request(String route) {
+    final ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+    final CompositeByteBuf metadata = allocator.compositeBuffer();
+    final ByteBuf routing =
+        TaggingMetadataCodec.createTaggingContent(allocator, Collections.singletonList(route));
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        metadata, allocator, WellKnownMimeType.MESSAGE_RSOCKET_ROUTING, routing);
+    return ByteBufPayload.create(allocator.buffer().writeBytes(new byte[] {1, 2, 3}), metadata);
+  }
+}
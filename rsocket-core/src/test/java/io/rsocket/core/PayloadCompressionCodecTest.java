@@ -0,0 +1,91 @@
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.rsocket.frame.PayloadFrameCodec;
+import io.rsocket.frame.RequestStreamFrameCodec;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PayloadCompressionCodecTest {
+
+  final ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+
+  @Test
+  public void shouldCompressLargeFrames() {
+    final ByteBuf metadata = text(2048);
+    final ByteBuf data = text(64 * 1024);
+    final ByteBuf frame =
+        RequestStreamFrameCodec.encode(
+            allocator, 1, false, 42, metadata.retainedSlice(), data.retainedSlice());
+    final int frameLength = frame.readableBytes();
+
+    final ByteBuf encoded =
+        PayloadCompressionCodec.encodeFrame(allocator, PayloadCompressor.DEFLATE, 1024, frame);
+    Assertions.assertThat(encoded.readableBytes()).isLessThan(frameLength / 4);
+
+    final ByteBuf decoded =
+        PayloadCompressionCodec.decodeFrame(allocator, PayloadCompressor.DEFLATE, encoded);
+    Assertions.assertThat(RequestStreamFrameCodec.initialRequestN(decoded)).isEqualTo(42);
+    Assertions.assertThat(ByteBufUtil.equals(RequestStreamFrameCodec.metadata(decoded), metadata))
+        .isTrue();
+    Assertions.assertThat(ByteBufUtil.equals(RequestStreamFrameCodec.data(decoded), data)).isTrue();
+
+    encoded.release();
+    decoded.release();
+  }
+
+  @Test
+  public void shouldSendSmallAndIncompressibleFramesAsIs() {
+    final byte[] random = new byte[4096];
+    ThreadLocalRandom.current().nextBytes(random);
+
+    for (ByteBuf data : new ByteBuf[] {text(100), Unpooled.wrappedBuffer(random)}) {
+      final ByteBuf frame =
+          PayloadFrameCodec.encode(allocator, 2, false, false, true, null, data.retainedSlice());
+      final int frameLength = frame.readableBytes();
+
+      final ByteBuf encoded =
+          PayloadCompressionCodec.encodeFrame(allocator, PayloadCompressor.DEFLATE, 1024, frame);
+      Assertions.assertThat(encoded.readableBytes()).isEqualTo(frameLength + 1);
+
+      final ByteBuf decoded =
+          PayloadCompressionCodec.decodeFrame(allocator, PayloadCompressor.DEFLATE, encoded);
+      Assertions.assertThat(ByteBufUtil.equals(PayloadFrameCodec.data(decoded), data)).isTrue();
+
+      encoded.release();
+      decoded.release();
+    }
+  }
+
+  @Test
+  public void shouldRejectMalformedFrames() {
+    final ByteBuf frame =
+        PayloadFrameCodec.encode(allocator, 2, false, false, true, null, text(2048));
+    final ByteBuf encoded =
+        PayloadCompressionCodec.encodeFrame(allocator, PayloadCompressor.DEFLATE, 0, frame);
+    // announce a longer body than the compressed one
+    final int lengthIndex = encoded.readerIndex() + 6 + 1;
+    encoded.setInt(lengthIndex, encoded.getInt(lengthIndex) + 1);
+
+    Assertions.assertThatIllegalStateException()
+        .isThrownBy(
+            () ->
+                PayloadCompressionCodec.decodeFrame(
+                    allocator, PayloadCompressor.DEFLATE, encoded));
+    encoded.release();
+  }
+
+  static ByteBuf text(int length) {
+    final StringBuilder text = new StringBuilder(length);
+    for (int i = 0; text.length() < length; i++) {
+      text.append("{\"id\":").append(i).append(",\"name\":\"order\"},");
+    }
+    text.setLength(length);
+    return Unpooled.copiedBuffer(text, StandardCharsets.UTF_8);
+  }
+}
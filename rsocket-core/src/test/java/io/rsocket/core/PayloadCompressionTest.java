@@ -0,0 +1,245 @@
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.Closeable;
+import io.rsocket.DuplexConnection;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.RSocketErrorException;
+import io.rsocket.SocketAcceptor;
+import io.rsocket.frame.FrameLengthCodec;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.plugins.DuplexConnectionInterceptor;
+import io.rsocket.transport.ClientTransport;
+import io.rsocket.transport.local.LocalClientTransport;
+import io.rsocket.transport.local.LocalServerTransport;
+import io.rsocket.util.DefaultPayload;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class PayloadCompressionTest {
+
+  static final String DATA = repeat("compressible payload ", 200);
+
+  Closeable server;
+  RSocket client;
+
+  @AfterEach
+  public void tearDown() {
+    if (client != null) {
+      client.dispose();
+    }
+    if (server != null) {
+      server.dispose();
+    }
+  }
+
+  @Test
+  public void shouldExchangeCompressedPayloads() {
+    server =
+        RSocketServer.create(echo())
+            .payloadCompression(new PayloadCompression())
+            .bindNow(LocalServerTransport.create("payload-compression-enabled"));
+    client = connect("payload-compression-enabled");
+
+    assertPayloadsAreEchoed();
+  }
+
+  @Test
+  public void shouldExchangePayloadsWithServerWithoutCompression() {
+    server =
+        RSocketServer.create(echo())
+            .bindNow(LocalServerTransport.create("payload-compression-disabled"));
+    client = connect("payload-compression-disabled");
+
+    assertPayloadsAreEchoed();
+  }
+
+  @Test
+  public void shouldExchangePayloadsWithServerWithOnlyMetadataDictionary() {
+    server =
+        RSocketServer.create(echo())
+            .metadataDictionary(new MetadataDictionary())
+            .bindNow(LocalServerTransport.create("payload-compression-dictionary-only"));
+    client = connect("payload-compression-dictionary-only");
+
+    assertPayloadsAreEchoed();
+  }
+
+  @Test
+  public void shouldFragmentUncompressedFramesToTheMtuIncludingTheMarker() {
+    final AtomicInteger maxFrameLength = new AtomicInteger();
+    // the frame of the request would be exactly the mtu long without the uncompressed marker
+    final String data = repeat("a", 64 - FragmentationUtils.FRAME_OFFSET);
+    server =
+        RSocketServer.create(echo())
+            .fragment(64)
+            .payloadCompression(new PayloadCompression().threshold(Integer.MAX_VALUE))
+            .interceptors(registry -> registry.forConnection(recording(maxFrameLength)))
+            .bindNow(LocalServerTransport.create("payload-compression-mtu"));
+    client =
+        RSocketConnector.create()
+            .fragment(64)
+            .payloadCompression(new PayloadCompression().threshold(Integer.MAX_VALUE))
+            .interceptors(registry -> registry.forConnection(recording(maxFrameLength)))
+            .connect(LocalClientTransport.create("payload-compression-mtu"))
+            .block();
+
+    final String echo = client.requestResponse(DefaultPayload.create(data)).map(dataUtf8()).block();
+
+    Assertions.assertThat(echo).isEqualTo(data);
+    Assertions.assertThat(maxFrameLength.get()).isEqualTo(64);
+  }
+
+  @Test
+  public void shouldCountTheMarkerInTheMaxFrameLength() {
+    final AtomicInteger maxFrameLength = new AtomicInteger();
+    server =
+        RSocketServer.create(echo())
+            .payloadCompression(new PayloadCompression().threshold(Integer.MAX_VALUE))
+            .bindNow(LocalServerTransport.create("payload-compression-max-frame-length"));
+    final ClientTransport transport =
+        LocalClientTransport.create("payload-compression-max-frame-length");
+    client =
+        RSocketConnector.create()
+            .payloadCompression(new PayloadCompression().threshold(Integer.MAX_VALUE))
+            .interceptors(registry -> registry.forConnection(recording(maxFrameLength)))
+            .connect(
+                new ClientTransport() {
+                  @Override
+                  public Mono<DuplexConnection> connect() {
+                    return transport.connect();
+                  }
+
+                  @Override
+                  public int maxFrameLength() {
+                    return 128;
+                  }
+                })
+            .block();
+
+    final String fitting = repeat("a", 128 - FragmentationUtils.FRAME_OFFSET - 1);
+    final String echo =
+        client.requestResponse(DefaultPayload.create(fitting)).map(dataUtf8()).block();
+    Assertions.assertThat(echo).isEqualTo(fitting);
+    Assertions.assertThat(maxFrameLength.get()).isEqualTo(128);
+
+    final String tooLong = repeat("a", 128 - FragmentationUtils.FRAME_OFFSET);
+    Assertions.assertThatThrownBy(
+            () -> client.requestResponse(DefaultPayload.create(tooLong)).block())
+        .isInstanceOf(IllegalArgumentException.class);
+    Assertions.assertThat(maxFrameLength.get()).isEqualTo(128);
+  }
+
+  void assertPayloadsAreEchoed() {
+    final List<String> echoes =
+        Flux.range(0, 4)
+            .concatMap(i -> client.requestResponse(DefaultPayload.create(i + DATA)))
+            .map(dataUtf8())
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+    Assertions.assertThat(echoes).containsExactly(0 + DATA, 1 + DATA, 2 + DATA, 3 + DATA);
+    Assertions.assertThat(client.isDisposed()).isFalse();
+  }
+
+  RSocket connect(String name) {
+    return RSocketConnector.create()
+        .metadataMimeType(WellKnownMimeType.MESSAGE_RSOCKET_COMPOSITE_METADATA.getString())
+        .payloadCompression(new PayloadCompression())
+        .connect(LocalClientTransport.create(name))
+        .block();
+  }
+
+  static Function<Payload, String> dataUtf8() {
+    return payload -> {
+      final String data = payload.getDataUtf8();
+      payload.release();
+      return data;
+    };
+  }
+
+  static DuplexConnectionInterceptor recording(AtomicInteger maxFrameLength) {
+    return (type, connection) ->
+        type == DuplexConnectionInterceptor.Type.SOURCE
+            ? new RecordingConnection(connection, maxFrameLength)
+            : connection;
+  }
+
+  static SocketAcceptor echo() {
+    return SocketAcceptor.forRequestResponse(Mono::just);
+  }
+
+  static String repeat(String value, int count) {
+    final StringBuilder builder = new StringBuilder(value.length() * count);
+    for (int i = 0; i < count; i++) {
+      builder.append(value);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Records the length of the longest frame sent through the connection, length prefix included.
+   */
+  static final class RecordingConnection implements DuplexConnection {
+
+    final DuplexConnection source;
+    final AtomicInteger maxFrameLength;
+
+    RecordingConnection(DuplexConnection source, AtomicInteger maxFrameLength) {
+      this.source = source;
+      this.maxFrameLength = maxFrameLength;
+    }
+
+    @Override
+    public void sendFrame(int streamId, ByteBuf frame) {
+      maxFrameLength.accumulateAndGet(
+          frame.readableBytes() + FrameLengthCodec.FRAME_LENGTH_SIZE, Math::max);
+      source.sendFrame(streamId, frame);
+    }
+
+    @Override
+    public void sendErrorAndClose(RSocketErrorException e) {
+      source.sendErrorAndClose(e);
+    }
+
+    @Override
+    public Flux<ByteBuf> receive() {
+      return source.receive();
+    }
+
+    @Override
+    public ByteBufAllocator alloc() {
+      return source.alloc();
+    }
+
+    @Override
+    public SocketAddress remoteAddress() {
+      return source.remoteAddress();
+    }
+
+    @Override
+    public Mono<Void> onClose() {
+      return source.onClose();
+    }
+
+    @Override
+    public void dispose() {
+      source.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return source.isDisposed();
+    }
+  }
+}
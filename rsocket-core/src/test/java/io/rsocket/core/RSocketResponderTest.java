@@ -165,6 +165,42 @@ public Mono<Payload> requestResponse(Payload payload) {
     testPublisher.assertWasNotCancelled();
   }
 
+  @Test
+  public void shouldRejectStreamsBeyondInFlightLimit() {
+    final InFlightStreamLimiter streamLimiter = new InFlightStreamLimiter(1, 10);
+    final TestPublisher<Payload> testPublisher = TestPublisher.create();
+    rule.setAcceptingSocket(
+        new RSocket() {
+          @Override
+          public Mono<Payload> requestResponse(Payload payload) {
+            payload.release();
+            return testPublisher.mono();
+          }
+        });
+    rule.setStreamLimiter(streamLimiter);
+
+    rule.sendRequest(1, REQUEST_RESPONSE);
+    Assertions.assertThat(rule.connection.getSent()).isEmpty();
+    Assertions.assertThat(streamLimiter.inFlight).hasValue(1);
+
+    rule.sendRequest(3, REQUEST_RESPONSE);
+    final ByteBuf rejection = rule.connection.getSent().poll();
+    FrameAssert.assertThat(rejection).typeOf(ERROR).hasStreamId(3);
+    Assertions.assertThat(ErrorFrameCodec.errorCode(rejection)).isEqualTo(ErrorFrameCodec.REJECTED);
+    rejection.release();
+
+    testPublisher.complete();
+    Assertions.assertThat(streamLimiter.inFlight).hasValue(0);
+
+    rule.connection.getSent().clear();
+    rule.sendRequest(5, REQUEST_RESPONSE);
+    Assertions.assertThat(rule.connection.getSent()).isEmpty();
+    Assertions.assertThat(streamLimiter.inFlight).hasValue(1);
+
+    rule.socket.dispose();
+    Assertions.assertThat(streamLimiter.inFlight).hasValue(0);
+  }
+
   @Test
   @Timeout(2_000)
   @Disabled
@@ -1215,6 +1251,7 @@ public static class ServerSocketRule extends AbstractSocketRule<RSocketResponder
     private RSocket acceptingSocket;
     private volatile int prefetch;
     private RequestInterceptor requestInterceptor;
+    private InFlightStreamLimiter streamLimiter;
 
     @Override
     protected void init() {
@@ -1241,6 +1278,11 @@ public void setRequestInterceptor(RequestInterceptor requestInterceptor) {
       super.init();
     }
 
+    public void setStreamLimiter(InFlightStreamLimiter streamLimiter) {
+      this.streamLimiter = streamLimiter;
+      super.init();
+    }
+
     public void setAcceptingSocket(RSocket acceptingSocket, int prefetch) {
       this.acceptingSocket = acceptingSocket;
       connection = new TestDuplexConnection(alloc());
@@ -1259,7 +1301,10 @@ protected RSocketResponder newRSocket() {
           0,
           maxFrameLength,
           maxInboundPayloadSize,
-          __ -> requestInterceptor);
+          __ -> requestInterceptor,
+          streamLimiter,
+          null,
+          null);
     }
 
     private void sendRequest(int streamId, FrameType frameType) {
@@ -3,20 +3,27 @@
 import static io.rsocket.frame.FrameLengthCodec.FRAME_LENGTH_MASK;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.rsocket.FrameAssert;
 import io.rsocket.RSocket;
+import io.rsocket.buffer.LeaksTrackingByteBufAllocator;
 import io.rsocket.frame.FrameType;
 import io.rsocket.frame.KeepAliveFrameCodec;
 import io.rsocket.frame.RequestResponseFrameCodec;
+import io.rsocket.frame.SetupFrameCodec;
 import io.rsocket.test.util.TestDuplexConnection;
 import io.rsocket.test.util.TestServerTransport;
+import io.rsocket.transport.ServerTransport;
+import io.rsocket.util.DefaultPayload;
 import java.time.Duration;
 import java.util.Random;
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.MonoProcessor;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
 public class RSocketServerTest {
@@ -108,4 +115,62 @@ public void unexpectedFramesBeforeSetup() {
     StepVerifier.create(connection.onClose()).expectComplete().verify(Duration.ofSeconds(30));
     assertThat(connectedMono.isTerminated()).as("Connection should not succeed").isFalse();
   }
+
+  @Test
+  public void queuedSetupFrameIsRetainedUntilAdmitted() {
+    final Sinks.Many<String> setups = Sinks.many().replay().all();
+    final LeaksTrackingByteBufAllocator allocator =
+        LeaksTrackingByteBufAllocator.instrument(ByteBufAllocator.DEFAULT);
+
+    final ServerTransport.ConnectionAcceptor acceptor =
+        RSocketServer.create()
+            .setupAdmission(
+                new SetupAdmission().maxSetupsPerSecond(1).pending(10, Duration.ofSeconds(10)))
+            .acceptor(
+                (setup, sendingSocket) -> {
+                  setups.tryEmitNext(setup.getDataUtf8());
+                  return Mono.just(new RSocket() {});
+                })
+            .asConnectionAcceptor();
+
+    final TestDuplexConnection first = new TestDuplexConnection(allocator);
+    acceptor.apply(first).subscribe();
+    first.addToReceivedBuffer(setupFrame());
+
+    // the bucket is exhausted, so the second setup waits in the queue
+    final TestDuplexConnection second = new TestDuplexConnection(allocator);
+    acceptor.apply(second).subscribe();
+    final ByteBuf queuedSetupFrame = setupFrame();
+    second.addToReceivedBuffer(queuedSetupFrame);
+
+    // the connection released the frame after delivering it, only the queued setup holds it
+    assertThat(queuedSetupFrame.refCnt()).isOne();
+
+    StepVerifier.create(setups.asFlux())
+        .expectNext("setup")
+        .expectNext("setup")
+        .thenCancel()
+        .verify(Duration.ofSeconds(5));
+
+    StepVerifier.create(
+            Flux.interval(Duration.ofMillis(10))
+                .map(__ -> queuedSetupFrame.refCnt())
+                .takeUntil(refCnt -> refCnt == 0)
+                .last())
+        .expectNext(0)
+        .expectComplete()
+        .verify(Duration.ofSeconds(5));
+    assertThat(second.getSent()).isEmpty();
+  }
+
+  private static ByteBuf setupFrame() {
+    return SetupFrameCodec.encode(
+        ByteBufAllocator.DEFAULT,
+        false,
+        1000,
+        30_000,
+        "application/octet-stream",
+        "application/octet-stream",
+        DefaultPayload.create("setup"));
+  }
 }
@@ -121,18 +121,9 @@ public void requestNFrameShouldBeSentOnSubscriptionAndThenSeparately(String comp
     Assertions.assertThat(sender.isEmpty()).isTrue();
 
     assertSubscriber.request(1);
-    final ByteBuf requestNFrame = sender.awaitFrame();
-    FrameAssert.assertThat(requestNFrame)
-        .isNotNull()
-        .hasRequestN(1)
-        .typeOf(FrameType.REQUEST_N)
-        .hasClientSideStreamId()
-        .hasStreamId(1)
-        .hasNoLeaks();
-
+    // a single credit is batched while the remote peer still has 10 of them
     Assertions.assertThat(sender.isEmpty()).isTrue();
 
-    // state machine check. Request N Frame should sent so request field should be 0
     // state machine check
     stateAssert.hasSubscribedFlag().hasRequestN(11).hasFirstFrameSentFlag();
 
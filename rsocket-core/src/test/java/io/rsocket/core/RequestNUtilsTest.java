@@ -0,0 +1,82 @@
+package io.rsocket.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.rsocket.buffer.LeaksTrackingByteBufAllocator;
+import io.rsocket.frame.RequestNFrameCodec;
+import io.rsocket.test.util.TestDuplexConnection;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RequestNUtilsTest {
+
+  volatile long requestNCredits;
+  static final AtomicLongFieldUpdater<RequestNUtilsTest> REQUEST_N_CREDITS =
+      AtomicLongFieldUpdater.newUpdater(RequestNUtilsTest.class, "requestNCredits");
+
+  final LeaksTrackingByteBufAllocator allocator =
+      LeaksTrackingByteBufAllocator.instrument(ByteBufAllocator.DEFAULT, Duration.ofSeconds(1), "");
+
+  @Test
+  public void shouldBatchCreditsUntilHalfTheWindow() {
+    final TestDuplexConnection connection = new TestDuplexConnection(allocator);
+    RequestNUtils.addOutstanding(REQUEST_N_CREDITS, this, 8);
+
+    // a consumer which requests one more element each time it receives one
+    for (int i = 0; i < 8; i++) {
+      RequestNUtils.onPayloadReceived(REQUEST_N_CREDITS, this, 1, allocator, connection);
+      RequestNUtils.sendRequestN(REQUEST_N_CREDITS, this, 1, 1, allocator, connection);
+    }
+
+    Assertions.assertThat(connection.getSent()).hasSize(2);
+    final ByteBuf first = connection.getSent().poll();
+    final ByteBuf second = connection.getSent().poll();
+    Assertions.assertThat(RequestNFrameCodec.requestN(first)).isEqualTo(4);
+    Assertions.assertThat(RequestNFrameCodec.requestN(second)).isEqualTo(4);
+    Assertions.assertThat(RequestNUtils.outstanding(requestNCredits)).isEqualTo(8);
+    Assertions.assertThat(RequestNUtils.pending(requestNCredits)).isZero();
+
+    first.release();
+    second.release();
+    allocator.assertHasNoLeaks();
+  }
+
+  @Test
+  public void shouldSendBatchedCreditsBeforeTheWindowIsUsedUp() {
+    final TestDuplexConnection connection = new TestDuplexConnection(allocator);
+    RequestNUtils.addOutstanding(REQUEST_N_CREDITS, this, 8);
+
+    RequestNUtils.sendRequestN(REQUEST_N_CREDITS, this, 2, 1, allocator, connection);
+    for (int i = 0; i < 5; i++) {
+      RequestNUtils.onPayloadReceived(REQUEST_N_CREDITS, this, 1, allocator, connection);
+    }
+    Assertions.assertThat(connection.getSent()).isEmpty();
+
+    RequestNUtils.onPayloadReceived(REQUEST_N_CREDITS, this, 1, allocator, connection);
+
+    Assertions.assertThat(connection.getSent()).hasSize(1);
+    final ByteBuf frame = connection.getSent().poll();
+    Assertions.assertThat(RequestNFrameCodec.requestN(frame)).isEqualTo(2);
+    Assertions.assertThat(RequestNUtils.outstanding(requestNCredits)).isEqualTo(4);
+
+    frame.release();
+    allocator.assertHasNoLeaks();
+  }
+
+  @Test
+  public void shouldStopSendingOnceDemandIsUnbounded() {
+    final TestDuplexConnection connection = new TestDuplexConnection(allocator);
+
+    RequestNUtils.sendRequestN(REQUEST_N_CREDITS, this, Long.MAX_VALUE, 1, allocator, connection);
+    RequestNUtils.sendRequestN(REQUEST_N_CREDITS, this, 5, 1, allocator, connection);
+
+    Assertions.assertThat(connection.getSent()).hasSize(1);
+    final ByteBuf frame = connection.getSent().poll();
+    Assertions.assertThat(RequestNFrameCodec.requestN(frame)).isEqualTo(Long.MAX_VALUE);
+
+    frame.release();
+    allocator.assertHasNoLeaks();
+  }
+}
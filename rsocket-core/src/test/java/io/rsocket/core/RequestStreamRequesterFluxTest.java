@@ -214,6 +214,48 @@ public void requestNFrameShouldBeSentOnSubscriptionAndThenSeparately() {
     allocator.assertHasNoLeaks();
   }
 
+  @Test
+  public void requestNFramesShouldBeBatchedForLimitRateConsumer() {
+    final TestRequesterResponderSupport activeStreams = TestRequesterResponderSupport.client();
+    final LeaksTrackingByteBufAllocator allocator = activeStreams.getAllocator();
+    final TestDuplexConnection sender = activeStreams.getDuplexConnection();
+    final Payload payload = TestRequesterResponderSupport.genericPayload(allocator);
+
+    final RequestStreamRequesterFlux requestStreamRequesterFlux =
+        new RequestStreamRequesterFlux(payload, activeStreams);
+
+    // requests one more element each time one has been consumed, all on the same thread
+    final AssertSubscriber<Payload> assertSubscriber =
+        requestStreamRequesterFlux.limitRate(8, 1).subscribeWith(AssertSubscriber.create());
+
+    final ByteBuf frame = sender.awaitFrame();
+    FrameAssert.assertThat(frame)
+        .isNotNull()
+        .hasRequestN(8)
+        .typeOf(FrameType.REQUEST_STREAM)
+        .hasNoLeaks();
+
+    for (int i = 0; i < 16; i++) {
+      requestStreamRequesterFlux.handlePayload(EmptyPayload.INSTANCE);
+    }
+
+    // a frame per half window instead of a frame per element
+    Assertions.assertThat(sender.getSent()).hasSize(4);
+    for (int i = 0; i < 4; i++) {
+      FrameAssert.assertThat(sender.awaitFrame())
+          .hasRequestN(4)
+          .typeOf(FrameType.REQUEST_N)
+          .hasStreamId(1)
+          .hasNoLeaks();
+    }
+
+    requestStreamRequesterFlux.handleComplete();
+    assertSubscriber.assertValueCount(16).assertComplete();
+
+    activeStreams.assertNoActiveStreams();
+    allocator.assertHasNoLeaks();
+  }
+
   /**
    * State Machine check. Ensure migration from
    *
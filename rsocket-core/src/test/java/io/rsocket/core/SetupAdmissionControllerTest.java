@@ -0,0 +1,143 @@
+package io.rsocket.core;
+
+import io.rsocket.exceptions.RejectedSetupException;
+import io.rsocket.internal.TimerWheel;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class SetupAdmissionControllerTest {
+
+  final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+  final TimerWheel timerWheel = new TimerWheel(scheduler, 10, 64);
+
+  @Test
+  public void shouldQueueSetupsBeyondConcurrencyLimit() {
+    final SetupAdmissionController controller =
+        new SetupAdmissionController(
+            new SetupAdmission().maxConcurrentSetups(1).pending(1, Duration.ofSeconds(1)),
+            scheduler,
+            timerWheel);
+    final AtomicInteger started = new AtomicInteger();
+    final Sinks.Empty<Void> first = Sinks.empty();
+
+    controller
+        .admit(() -> first.asMono().doOnSubscribe(__ -> started.incrementAndGet()))
+        .subscribe();
+    final StepVerifier secondVerifier =
+        StepVerifier.create(
+                controller.admit(
+                    () -> Mono.<Void>empty().doOnSubscribe(__ -> started.incrementAndGet())))
+            .expectComplete()
+            .verifyLater();
+
+    StepVerifier.create(controller.admit(Mono::empty))
+        .expectError(RejectedSetupException.class)
+        .verify();
+
+    Assertions.assertThat(started).hasValue(1);
+
+    first.tryEmitEmpty();
+
+    secondVerifier.verify(Duration.ofSeconds(1));
+    Assertions.assertThat(started).hasValue(2);
+  }
+
+  @Test
+  public void shouldRejectSetupsThatWaitTooLong() {
+    final SetupAdmissionController controller =
+        new SetupAdmissionController(
+            new SetupAdmission().maxConcurrentSetups(1).pending(10, Duration.ofMillis(100)),
+            scheduler,
+            timerWheel);
+
+    controller.admit(Mono::never).subscribe();
+
+    final StepVerifier verifier =
+        StepVerifier.create(controller.admit(Mono::empty))
+            .expectError(RejectedSetupException.class)
+            .verifyLater();
+
+    scheduler.advanceTimeBy(Duration.ofMillis(200));
+
+    verifier.verify(Duration.ofSeconds(1));
+  }
+
+  @Test
+  public void shouldLimitSetupRate() {
+    final SetupAdmissionController controller =
+        new SetupAdmissionController(
+            new SetupAdmission().maxSetupsPerSecond(10).pending(100, Duration.ofSeconds(10)),
+            scheduler,
+            timerWheel);
+    final AtomicInteger started = new AtomicInteger();
+
+    for (int i = 0; i < 20; i++) {
+      controller
+          .admit(() -> Mono.<Void>empty().doOnSubscribe(__ -> started.incrementAndGet()))
+          .subscribe();
+    }
+
+    // a burst of one second worth of setups is admitted right away
+    Assertions.assertThat(started).hasValue(10);
+
+    scheduler.advanceTimeBy(Duration.ofMillis(500));
+    Assertions.assertThat(started.get()).isBetween(13, 16);
+
+    scheduler.advanceTimeBy(Duration.ofMillis(600));
+    Assertions.assertThat(started).hasValue(20);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldReleasePermitOfSetupCancelledOnceAdmitted() {
+    final SetupAdmissionController controller =
+        new SetupAdmissionController(
+            new SetupAdmission().maxConcurrentSetups(1).pending(1, Duration.ofSeconds(1)),
+            scheduler,
+            timerWheel);
+    final Sinks.Empty<Void> first = Sinks.empty();
+    controller.admit(first::asMono).subscribe();
+
+    final MonoSink<SetupAdmissionController.Pending> sink = Mockito.mock(MonoSink.class);
+    final ArgumentCaptor<Disposable> onCancel = ArgumentCaptor.forClass(Disposable.class);
+    controller.onSetup(sink);
+    Mockito.verify(sink).onCancel(onCancel.capture());
+
+    // the second setup is admitted, and cancelled before the admission reaches it
+    first.tryEmitEmpty();
+    Mockito.verify(sink).success(Mockito.any());
+    Assertions.assertThat(controller.active).isOne();
+    onCancel.getValue().dispose();
+
+    Assertions.assertThat(controller.active).isZero();
+  }
+
+  @Test
+  public void shouldReleasePermitOfSetupThatFailsToStart() {
+    final SetupAdmissionController controller =
+        new SetupAdmissionController(
+            new SetupAdmission().maxConcurrentSetups(1).pending(1, Duration.ofSeconds(1)),
+            scheduler,
+            timerWheel);
+
+    StepVerifier.create(
+            controller.admit(
+                () -> {
+                  throw new IllegalStateException("setup failed");
+                }))
+        .expectError(IllegalStateException.class)
+        .verify(Duration.ofSeconds(1));
+
+    Assertions.assertThat(controller.active).isZero();
+  }
+}
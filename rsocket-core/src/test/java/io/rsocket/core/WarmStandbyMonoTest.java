@@ -0,0 +1,99 @@
+package io.rsocket.core;
+
+import io.rsocket.RSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class WarmStandbyMonoTest {
+
+  final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+  final List<TestRSocket> connected = new ArrayList<>();
+  final Mono<RSocket> source =
+      Mono.fromCallable(
+          () -> {
+            TestRSocket rSocket = new TestRSocket();
+            connected.add(rSocket);
+            return rSocket;
+          });
+
+  @Test
+  public void shouldSwapInStandbyWhenActiveIsLost() {
+    final WarmStandbyMono warmStandbyMono =
+        new WarmStandbyMono(source, Duration.ofSeconds(1), scheduler);
+    final ReconnectMono<RSocket> reconnectMono =
+        new ReconnectMono<>(
+            warmStandbyMono,
+            RSocket::dispose,
+            (r, i) -> r.onClose().subscribe(null, __ -> i.invalidate(), i::invalidate));
+
+    final RSocket first = reconnectMono.block();
+    Assertions.assertThat(connected).hasSize(1);
+    Assertions.assertThat(warmStandbyMono.standby()).isNull();
+
+    // the spare is connected after a jittered delay of at most one and a half times the delay
+    scheduler.advanceTimeBy(Duration.ofMillis(1500));
+    Assertions.assertThat(connected).hasSize(2);
+    Assertions.assertThat(warmStandbyMono.standby()).isSameAs(connected.get(1));
+
+    first.dispose();
+
+    final RSocket second = reconnectMono.block();
+    Assertions.assertThat(second).isSameAs(connected.get(1));
+    Assertions.assertThat(connected).hasSize(2);
+
+    scheduler.advanceTimeBy(Duration.ofMillis(1500));
+    Assertions.assertThat(connected).hasSize(3);
+    Assertions.assertThat(warmStandbyMono.standby()).isSameAs(connected.get(2));
+
+    reconnectMono.dispose();
+    Assertions.assertThat(connected.get(2).isDisposed()).isTrue();
+  }
+
+  @Test
+  public void shouldReplenishClosedStandby() {
+    final WarmStandbyMono warmStandbyMono =
+        new WarmStandbyMono(source, Duration.ofSeconds(1), scheduler);
+
+    warmStandbyMono.block();
+    scheduler.advanceTimeBy(Duration.ofMillis(1500));
+    final RSocket standby = warmStandbyMono.standby();
+    Assertions.assertThat(standby).isNotNull();
+
+    standby.dispose();
+    Assertions.assertThat(warmStandbyMono.standby()).isNull();
+
+    scheduler.advanceTimeBy(Duration.ofMillis(1500));
+    Assertions.assertThat(connected).hasSize(3);
+    Assertions.assertThat(warmStandbyMono.standby()).isSameAs(connected.get(2));
+
+    warmStandbyMono.dispose();
+  }
+
+  static final class TestRSocket implements RSocket {
+
+    final Sinks.Empty<Void> onClose = Sinks.empty();
+    volatile boolean disposed;
+
+    @Override
+    public void dispose() {
+      disposed = true;
+      onClose.tryEmitEmpty();
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return disposed;
+    }
+
+    @Override
+    public Mono<Void> onClose() {
+      return onClose.asMono();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package io.rsocket.internal;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class TimerWheelTest {
+
+  @Test
+  public void shouldRunTasksAfterTheirDelay() {
+    final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    final TimerWheel timerWheel = new TimerWheel(scheduler, 10, 8);
+    final CountingTask shortTask = new CountingTask();
+    final CountingTask longTask = new CountingTask();
+
+    timerWheel.schedule(shortTask, 50);
+    // longer than one full turn of the wheel
+    timerWheel.schedule(longTask, 500);
+
+    scheduler.advanceTimeBy(Duration.ofMillis(40));
+    Assertions.assertThat(shortTask.runs.get()).isZero();
+
+    scheduler.advanceTimeBy(Duration.ofMillis(30));
+    Assertions.assertThat(shortTask.runs.get()).isOne();
+    Assertions.assertThat(shortTask.isScheduled()).isFalse();
+    Assertions.assertThat(longTask.runs.get()).isZero();
+    Assertions.assertThat(timerWheel.size()).isOne();
+
+    scheduler.advanceTimeBy(Duration.ofMillis(500));
+    Assertions.assertThat(longTask.runs.get()).isOne();
+    Assertions.assertThat(timerWheel.size()).isZero();
+  }
+
+  @Test
+  public void shouldRescheduleAndCancelTasks() {
+    final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+    final TimerWheel timerWheel = new TimerWheel(scheduler, 10, 8);
+    final CountingTask task = new CountingTask();
+
+    timerWheel.schedule(task, 50);
+    scheduler.advanceTimeBy(Duration.ofMillis(40));
+    timerWheel.schedule(task, 50);
+    Assertions.assertThat(timerWheel.size()).isOne();
+
+    scheduler.advanceTimeBy(Duration.ofMillis(40));
+    Assertions.assertThat(task.runs.get()).isZero();
+
+    Assertions.assertThat(timerWheel.cancel(task)).isTrue();
+    Assertions.assertThat(timerWheel.cancel(task)).isFalse();
+
+    scheduler.advanceTimeBy(Duration.ofMillis(100));
+    Assertions.assertThat(task.runs.get()).isZero();
+
+    // reusable once cancelled
+    timerWheel.schedule(task, 10);
+    scheduler.advanceTimeBy(Duration.ofMillis(30));
+    Assertions.assertThat(task.runs.get()).isOne();
+  }
+
+  static final class CountingTask extends TimerWheel.Task {
+    final AtomicInteger runs = new AtomicInteger();
+
+    @Override
+    public void run() {
+      runs.incrementAndGet();
+    }
+  }
+}
@@ -113,6 +113,27 @@ public void testPrioritizedFused() {
     Assert.assertEquals(byteBuf.toString(CharsetUtil.UTF_8), "test");
   }
 
+  @Test
+  public void testQueuedBytes() {
+    UnboundedProcessor processor = new UnboundedProcessor();
+
+    processor.onNext(Unpooled.wrappedBuffer(new byte[10]));
+    processor.onNextPrioritized(Unpooled.wrappedBuffer(new byte[5]));
+    processor.onNext(Unpooled.wrappedBuffer(new byte[20]));
+
+    Assert.assertEquals(35, processor.getQueuedBytes());
+
+    ByteBuf byteBuf = processor.poll();
+
+    Assert.assertEquals(5, byteBuf.readableBytes());
+    Assert.assertEquals(30, processor.getQueuedBytes());
+
+    byteBuf.release();
+    processor.dispose();
+
+    Assert.assertEquals(0, processor.getQueuedBytes());
+  }
+
   public void testOnNextAfterSubscribeN(int n) throws Exception {
     CountDownLatch latch = new CountDownLatch(n);
     UnboundedProcessor processor = new UnboundedProcessor();
@@ -0,0 +1,86 @@
+package io.rsocket.internal.jfr;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.frame.FrameType;
+import io.rsocket.frame.PayloadFrameCodec;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RSocketFlightRecorderTest {
+
+  @Test
+  public void shouldNotBeginDisabledEvents() {
+    Assertions.assertThat(RSocketFlightRecorder.beginStream(1, this, true)).isNull();
+    Assertions.assertThat(RSocketFlightRecorder.beginFragmentation(1, FrameType.NEXT, 64, 1024))
+        .isNull();
+    RSocketFlightRecorder.endStream(null);
+    RSocketFlightRecorder.endFragmentation(null, 0);
+  }
+
+  @Test
+  public void shouldRecordEnabledEvents() throws Exception {
+    final List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable("io.rsocket.Fragmentation");
+      recording.enable("io.rsocket.Reassembly");
+      recording.enable("io.rsocket.LeaseRejection");
+      recording.start();
+
+      final Object fragmentation =
+          RSocketFlightRecorder.beginFragmentation(3, FrameType.NEXT, 64, 1024);
+      Assertions.assertThat(fragmentation).isNotNull();
+      RSocketFlightRecorder.endFragmentation(fragmentation, 17);
+
+      final ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+      final ByteBuf frame =
+          PayloadFrameCodec.encode(
+              allocator, 5, false, false, true, null, Unpooled.wrappedBuffer(new byte[16]));
+      final CompositeByteBuf frames = allocator.compositeBuffer().addComponent(true, frame);
+      RSocketFlightRecorder.reassembled(frames);
+      frames.release();
+
+      RSocketFlightRecorder.leaseRejected(7, false, new IllegalStateException("no lease"));
+
+      recording.stop();
+      final Path file = Files.createTempFile("rsocket", ".jfr");
+      try {
+        recording.dump(file);
+        events = RecordingFile.readAllEvents(file);
+      } finally {
+        Files.delete(file);
+      }
+    }
+
+    Assertions.assertThat(events)
+        .anySatisfy(
+            event -> {
+              Assertions.assertThat(event.getEventType().getName())
+                  .isEqualTo("io.rsocket.Fragmentation");
+              Assertions.assertThat(event.getInt("streamId")).isEqualTo(3);
+              Assertions.assertThat(event.getInt("fragments")).isEqualTo(17);
+              Assertions.assertThat(event.getString("frameType")).isEqualTo("NEXT");
+            })
+        .anySatisfy(
+            event -> {
+              Assertions.assertThat(event.getEventType().getName())
+                  .isEqualTo("io.rsocket.Reassembly");
+              Assertions.assertThat(event.getInt("streamId")).isEqualTo(5);
+              Assertions.assertThat(event.getInt("fragments")).isEqualTo(1);
+            })
+        .anySatisfy(
+            event -> {
+              Assertions.assertThat(event.getEventType().getName())
+                  .isEqualTo("io.rsocket.LeaseRejection");
+              Assertions.assertThat(event.getString("message")).isEqualTo("no lease");
+            });
+  }
+}
@@ -0,0 +1,96 @@
+package io.rsocket.keepalive;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.rsocket.frame.KeepAliveFrameCodec;
+import io.rsocket.resume.ResumeStateHolder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class KeepAliveSupportTest {
+
+  @Test
+  public void shouldMeasureRoundTripTimeOnKeepAliveAck() {
+    final List<ByteBuf> sentFrames = new ArrayList<>();
+    final AtomicLong measured = new AtomicLong(-1);
+    final KeepAliveSupport keepAliveSupport =
+        new KeepAliveSupport.ClientKeepAliveSupport(ByteBufAllocator.DEFAULT, 100_000, 100_000)
+            .onSendKeepAliveFrame(sentFrames::add)
+            .onRoundTripTime(measured::set);
+
+    Assertions.assertThat(keepAliveSupport.roundTripTimeNanos()).isEqualTo(-1);
+
+    keepAliveSupport.onIntervalTick();
+
+    Assertions.assertThat(sentFrames).hasSize(1);
+    Assertions.assertThat(KeepAliveFrameCodec.respondFlag(sentFrames.get(0))).isTrue();
+
+    // an unsolicited KEEPALIVE, e.g. a position ack, must not be mistaken for the response
+    final ByteBuf positionAck =
+        KeepAliveFrameCodec.encode(ByteBufAllocator.DEFAULT, false, 0, Unpooled.EMPTY_BUFFER);
+    keepAliveSupport.receive(positionAck);
+    Assertions.assertThat(measured.get()).isEqualTo(-1);
+
+    final ByteBuf ack =
+        KeepAliveFrameCodec.encode(
+            ByteBufAllocator.DEFAULT,
+            false,
+            0,
+            KeepAliveFrameCodec.data(sentFrames.get(0)).retain());
+    keepAliveSupport.receive(ack);
+
+    Assertions.assertThat(measured.get()).isNotNegative();
+    Assertions.assertThat(keepAliveSupport.roundTripTimeNanos()).isEqualTo(measured.get());
+
+    // a second ack without an outstanding KEEPALIVE must not produce a sample
+    measured.set(-1);
+    keepAliveSupport.receive(ack);
+    Assertions.assertThat(measured.get()).isEqualTo(-1);
+
+    ack.release();
+    positionAck.release();
+    sentFrames.forEach(ByteBuf::release);
+  }
+
+  @Test
+  public void shouldAcknowledgePositionOnceThresholdIsReached() {
+    final List<ByteBuf> sentFrames = new ArrayList<>();
+    final AtomicLong impliedPosition = new AtomicLong();
+    final KeepAliveSupport keepAliveSupport =
+        new KeepAliveSupport.ClientKeepAliveSupport(ByteBufAllocator.DEFAULT, 100_000, 100_000)
+            .resumeState(
+                new ResumeStateHolder() {
+                  @Override
+                  public long impliedPosition() {
+                    return impliedPosition.get();
+                  }
+
+                  @Override
+                  public void onImpliedPosition(long remoteImpliedPos) {}
+                })
+            .positionAck(1000, null)
+            .onSendKeepAliveFrame(sentFrames::add)
+            .start();
+
+    impliedPosition.set(600);
+    keepAliveSupport.onResumableFrameReceived();
+    Assertions.assertThat(sentFrames).isEmpty();
+
+    impliedPosition.set(1200);
+    keepAliveSupport.onResumableFrameReceived();
+    Assertions.assertThat(sentFrames).hasSize(1);
+    Assertions.assertThat(KeepAliveFrameCodec.respondFlag(sentFrames.get(0))).isFalse();
+    Assertions.assertThat(KeepAliveFrameCodec.lastPosition(sentFrames.get(0))).isEqualTo(1200);
+
+    impliedPosition.set(1800);
+    keepAliveSupport.onResumableFrameReceived();
+    Assertions.assertThat(sentFrames).hasSize(1);
+
+    keepAliveSupport.stop();
+    sentFrames.forEach(ByteBuf::release);
+  }
+}
@@ -0,0 +1,117 @@
+package io.rsocket.loadbalance;
+
+import io.rsocket.RSocket;
+import io.rsocket.frame.FrameType;
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LeastOutstandingRequestsLoadbalanceStrategyTest {
+
+  @Test
+  public void shouldSelectRSocketWithLeastOutstandingRequests() {
+    final LeastOutstandingRequestsLoadbalanceStrategy strategy =
+        LeastOutstandingRequestsLoadbalanceStrategy.create();
+    final List<RSocket> sockets = new ArrayList<>();
+    final List<LeastOutstandingRequestsLoadbalanceStrategy.Tracker> trackers = new ArrayList<>();
+
+    for (int i = 0; i < 2; i++) {
+      final RSocket rSocket = new RSocket() {};
+      sockets.add(rSocket);
+      trackers.add(strategy.track(rSocket));
+    }
+
+    trackers.get(0).onStart(1, FrameType.REQUEST_RESPONSE, null);
+    trackers.get(0).onStart(3, FrameType.REQUEST_RESPONSE, null);
+    trackers.get(1).onStart(1, FrameType.REQUEST_STREAM, null);
+
+    Assertions.assertThat(strategy.select(sockets)).isSameAs(sockets.get(1));
+
+    trackers.get(0).onTerminate(1, FrameType.REQUEST_RESPONSE, null);
+    trackers.get(0).onCancel(3, FrameType.REQUEST_RESPONSE);
+
+    Assertions.assertThat(strategy.select(sockets)).isSameAs(sockets.get(0));
+
+    trackers.get(1).onTerminate(1, FrameType.REQUEST_STREAM, new RuntimeException());
+    trackers.get(0).onStart(5, FrameType.REQUEST_CHANNEL, null);
+
+    Assertions.assertThat(strategy.select(sockets)).isSameAs(sockets.get(1));
+  }
+
+  @Test
+  public void shouldSelectOnlyAmongGivenSockets() {
+    final LeastOutstandingRequestsLoadbalanceStrategy strategy =
+        LeastOutstandingRequestsLoadbalanceStrategy.create();
+    final List<RSocket> all = new ArrayList<>();
+
+    for (int i = 0; i < 6; i++) {
+      final RSocket rSocket = new RSocket() {};
+      all.add(rSocket);
+      final LeastOutstandingRequestsLoadbalanceStrategy.Tracker tracker = strategy.track(rSocket);
+      // the sockets which are not offered have the fewest outstanding requests
+      for (int j = 0; j < (i < 3 ? i + 1 : 0); j++) {
+        tracker.onStart(j, FrameType.REQUEST_RESPONSE, null);
+      }
+    }
+
+    final List<RSocket> sockets = all.subList(0, 3);
+    for (int i = 0; i < 1_000; i++) {
+      final RSocket selected = strategy.select(sockets);
+      Assertions.assertThat(sockets).contains(selected);
+      // the most loaded of the given sockets never wins the comparison
+      Assertions.assertThat(selected).isNotSameAs(sockets.get(2));
+    }
+  }
+
+  @Test
+  public void shouldForgetDisposedTrackers() {
+    final LeastOutstandingRequestsLoadbalanceStrategy strategy =
+        LeastOutstandingRequestsLoadbalanceStrategy.create();
+    final RSocket rSocket = new RSocket() {};
+    final LeastOutstandingRequestsLoadbalanceStrategy.Tracker tracker = strategy.track(rSocket);
+
+    tracker.onStart(1, FrameType.REQUEST_RESPONSE, null);
+    Assertions.assertThat(strategy.pending(rSocket)).isOne();
+
+    tracker.dispose();
+    Assertions.assertThat(strategy.trackers).isEmpty();
+    Assertions.assertThat(strategy.pending(rSocket)).isZero();
+  }
+
+  @Test
+  public void shouldHandTrackersOverToTheDecoratedRequesterOfTheSameStrategy() {
+    final LeastOutstandingRequestsLoadbalanceStrategy first =
+        LeastOutstandingRequestsLoadbalanceStrategy.create();
+    final LeastOutstandingRequestsLoadbalanceStrategy second =
+        LeastOutstandingRequestsLoadbalanceStrategy.create();
+    final RSocket requester = new RSocket() {};
+    final RSocket decorated = new RSocket() {};
+
+    final LeastOutstandingRequestsLoadbalanceStrategy.Tracker tracker =
+        first.onRequesterCreated(requester);
+    // another strategy decorating a requester on the same thread does not take the tracker
+    Assertions.assertThat(second.onRequesterDecorated(new RSocket() {})).isNotNull();
+    Assertions.assertThat(second.trackers).isEmpty();
+
+    Assertions.assertThat(first.onRequesterDecorated(decorated)).isSameAs(decorated);
+    tracker.onStart(1, FrameType.REQUEST_RESPONSE, null);
+    Assertions.assertThat(first.trackers).containsOnlyKeys(decorated);
+    Assertions.assertThat(first.pending(decorated)).isOne();
+  }
+
+  @Test
+  public void shouldForgetTrackersOfRequestersWhichWereNotDecorated() {
+    final LeastOutstandingRequestsLoadbalanceStrategy strategy =
+        LeastOutstandingRequestsLoadbalanceStrategy.create();
+    final RSocket failed = new RSocket() {};
+    final RSocket requester = new RSocket() {};
+    final RSocket decorated = new RSocket() {};
+
+    strategy.onRequesterCreated(failed);
+    strategy.onRequesterCreated(requester);
+    strategy.onRequesterDecorated(decorated);
+
+    Assertions.assertThat(strategy.trackers).containsOnlyKeys(decorated);
+  }
+}
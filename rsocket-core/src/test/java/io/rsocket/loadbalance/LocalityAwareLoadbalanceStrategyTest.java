@@ -0,0 +1,131 @@
+package io.rsocket.loadbalance;
+
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.core.RSocketConnector;
+import io.rsocket.transport.ClientTransport;
+import io.rsocket.util.EmptyPayload;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Mono;
+import reactor.test.publisher.TestPublisher;
+
+public class LocalityAwareLoadbalanceStrategyTest {
+
+  @Test
+  public void shouldKeepTrafficInLocalZoneWhileHealthy() {
+    Hooks.onErrorDropped((__) -> {});
+
+    final AtomicInteger localCounter = new AtomicInteger();
+    final AtomicInteger remoteCounter = new AtomicInteger();
+    final ClientTransport localTransport = Mockito.mock(ClientTransport.class);
+    final ClientTransport remoteTransport = Mockito.mock(ClientTransport.class);
+    final RSocketConnector rSocketConnectorMock = Mockito.mock(RSocketConnector.class);
+
+    Mockito.when(rSocketConnectorMock.connect(Mockito.any(ClientTransport.class)))
+        .then(
+            im ->
+                Mono.just(
+                    new LoadbalanceTest.TestRSocket(
+                        countingRSocket(
+                            im.getArgument(0) == localTransport ? localCounter : remoteCounter,
+                            1.0))));
+
+    final TestPublisher<List<LoadbalanceTarget>> source = TestPublisher.create();
+    final RSocketPool rSocketPool =
+        new RSocketPool(
+            rSocketConnectorMock,
+            source,
+            LocalityAwareLoadbalanceStrategy.builder("zone-a")
+                .delegate(new RoundRobinLoadbalanceStrategy())
+                .build());
+
+    source.next(
+        Arrays.asList(
+            LoadbalanceTarget.from(
+                "1", localTransport, Collections.singletonMap("zone", "zone-a")),
+            LoadbalanceTarget.from(
+                "2", remoteTransport, Collections.singletonMap("zone", "zone-b"))));
+
+    for (int j = 0; j < 1000; j++) {
+      rSocketPool.select().fireAndForget(EmptyPayload.INSTANCE).subscribe();
+    }
+
+    Assertions.assertThat(localCounter.get()).isEqualTo(1000);
+    Assertions.assertThat(remoteCounter.get()).isZero();
+  }
+
+  @Test
+  public void shouldSpillOverProportionallyWhenLocalZoneIsDegraded() {
+    Hooks.onErrorDropped((__) -> {});
+
+    final AtomicInteger localCounter = new AtomicInteger();
+    final AtomicInteger remoteCounter = new AtomicInteger();
+    final ClientTransport healthyTransport = Mockito.mock(ClientTransport.class);
+    final ClientTransport unhealthyTransport = Mockito.mock(ClientTransport.class);
+    final ClientTransport remoteTransport = Mockito.mock(ClientTransport.class);
+    final RSocketConnector rSocketConnectorMock = Mockito.mock(RSocketConnector.class);
+
+    Mockito.when(rSocketConnectorMock.connect(Mockito.any(ClientTransport.class)))
+        .then(
+            im -> {
+              Object transport = im.getArgument(0);
+              if (transport == remoteTransport) {
+                return Mono.just(
+                    new LoadbalanceTest.TestRSocket(countingRSocket(remoteCounter, 1.0)));
+              }
+              return Mono.just(
+                  new LoadbalanceTest.TestRSocket(
+                      countingRSocket(localCounter, transport == healthyTransport ? 1.0 : 0.0)));
+            });
+
+    final TestPublisher<List<LoadbalanceTarget>> source = TestPublisher.create();
+    final RSocketPool rSocketPool =
+        new RSocketPool(
+            rSocketConnectorMock,
+            source,
+            LocalityAwareLoadbalanceStrategy.builder("zone-a")
+                .minHealthyRatio(1.0)
+                .delegate(new RoundRobinLoadbalanceStrategy())
+                .build());
+
+    source.next(
+        Arrays.asList(
+            LoadbalanceTarget.from(
+                "1", healthyTransport, Collections.singletonMap("zone", "zone-a")),
+            LoadbalanceTarget.from(
+                "2", unhealthyTransport, Collections.singletonMap("zone", "zone-a")),
+            LoadbalanceTarget.from(
+                "3", remoteTransport, Collections.singletonMap("zone", "zone-b"))));
+
+    for (int j = 0; j < 10000; j++) {
+      rSocketPool.select().fireAndForget(EmptyPayload.INSTANCE).subscribe();
+    }
+
+    // half of the local zone is available, so about half of the traffic spills over
+    Assertions.assertThat(localCounter.get()).isCloseTo(5000, Offset.offset(500));
+    Assertions.assertThat(remoteCounter.get()).isCloseTo(5000, Offset.offset(500));
+  }
+
+  static RSocket countingRSocket(AtomicInteger counter, double availability) {
+    return new RSocket() {
+      @Override
+      public Mono<Void> fireAndForget(Payload payload) {
+        counter.incrementAndGet();
+        return Mono.empty();
+      }
+
+      @Override
+      public double availability() {
+        return availability;
+      }
+    };
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.metadata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.jupiter.api.Test;
+
+class CompositeMetadataReaderTest {
+
+  @Test
+  void readsWellKnownExplicitAndReservedEntries() {
+    CompositeByteBuf compositeMetadata = ByteBufAllocator.DEFAULT.compositeBuffer();
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        compositeMetadata,
+        ByteBufAllocator.DEFAULT,
+        WellKnownMimeType.APPLICATION_PDF,
+        Unpooled.copiedBuffer("abcdefghijkl", CharsetUtil.UTF_8));
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        compositeMetadata,
+        ByteBufAllocator.DEFAULT,
+        "text/x-custom",
+        Unpooled.copiedBuffer("custom", CharsetUtil.UTF_8));
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        compositeMetadata, ByteBufAllocator.DEFAULT, (byte) 120, Unpooled.EMPTY_BUFFER);
+    final int readerIndex = compositeMetadata.readerIndex();
+
+    CompositeMetadataReader reader = new CompositeMetadataReader().reset(compositeMetadata);
+
+    assertThat(reader.next()).isTrue();
+    assertThat(reader.hasMimeId()).isTrue();
+    assertThat(reader.mimeId()).isEqualTo(WellKnownMimeType.APPLICATION_PDF.getIdentifier());
+    assertThat(reader.wellKnownMimeType()).isSameAs(WellKnownMimeType.APPLICATION_PDF);
+    assertThat(reader.isMimeType(WellKnownMimeType.APPLICATION_PDF.getString())).isTrue();
+    assertThat(contentOf(reader)).isEqualTo("abcdefghijkl");
+
+    assertThat(reader.next()).isTrue();
+    assertThat(reader.hasMimeId()).isFalse();
+    assertThat(reader.wellKnownMimeType()).isNull();
+    assertThat(reader.mimeLength()).isEqualTo("text/x-custom".length());
+    assertThat(reader.isMimeType("text/x-custom")).isTrue();
+    assertThat(reader.isMimeType("text/x-custon")).isFalse();
+    assertThat(contentOf(reader)).isEqualTo("custom");
+
+    assertThat(reader.next()).isTrue();
+    assertThat(reader.mimeId()).isEqualTo((byte) 120);
+    assertThat(reader.wellKnownMimeType()).isSameAs(WellKnownMimeType.UNKNOWN_RESERVED_MIME_TYPE);
+    assertThat(reader.isMimeType(WellKnownMimeType.UNKNOWN_RESERVED_MIME_TYPE.getString()))
+        .isFalse();
+    assertThat(reader.contentLength()).isZero();
+
+    assertThat(reader.next()).isFalse();
+    assertThat(compositeMetadata.readerIndex()).isEqualTo(readerIndex);
+
+    compositeMetadata.release();
+  }
+
+  @Test
+  void canBeResetToAnotherBuffer() {
+    CompositeByteBuf first = ByteBufAllocator.DEFAULT.compositeBuffer();
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        first,
+        ByteBufAllocator.DEFAULT,
+        WellKnownMimeType.TEXT_PLAIN,
+        Unpooled.copiedBuffer("first", CharsetUtil.UTF_8));
+    CompositeByteBuf second = ByteBufAllocator.DEFAULT.compositeBuffer();
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        second,
+        ByteBufAllocator.DEFAULT,
+        WellKnownMimeType.TEXT_PLAIN,
+        Unpooled.copiedBuffer("second", CharsetUtil.UTF_8));
+
+    CompositeMetadataReader reader = new CompositeMetadataReader().reset(first);
+    assertThat(reader.next()).isTrue();
+    assertThat(contentOf(reader)).isEqualTo("first");
+
+    reader.reset(second);
+    assertThat(reader.next()).isTrue();
+    assertThat(reader.source()).isSameAs(second);
+    assertThat(contentOf(reader)).isEqualTo("second");
+    assertThat(reader.next()).isFalse();
+
+    first.release();
+    second.release();
+  }
+
+  @Test
+  void failsOnTruncatedEntry() {
+    ByteBuf metadata = Unpooled.buffer();
+    metadata.writeByte(WellKnownMimeType.TEXT_PLAIN.getIdentifier() | 0x80);
+    metadata.writeMedium(10);
+    metadata.writeByte('a');
+
+    CompositeMetadataReader reader = new CompositeMetadataReader().reset(metadata);
+
+    assertThatIllegalStateException().isThrownBy(reader::next).withMessage("metadata is malformed");
+  }
+
+  private static String contentOf(CompositeMetadataReader reader) {
+    return reader
+        .source()
+        .toString(reader.contentIndex(), reader.contentLength(), CharsetUtil.UTF_8);
+  }
+}
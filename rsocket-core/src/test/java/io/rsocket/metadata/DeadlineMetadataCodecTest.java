@@ -0,0 +1,66 @@
+package io.rsocket.metadata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import java.time.Duration;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class DeadlineMetadataCodecTest {
+
+  @Test
+  void shouldFindDeadlineAmongOtherEntries() {
+    CompositeByteBuf metadata = ByteBufAllocator.DEFAULT.compositeBuffer();
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        metadata,
+        ByteBufAllocator.DEFAULT,
+        WellKnownMimeType.MESSAGE_RSOCKET_ROUTING,
+        TaggingMetadataCodec.createRoutingMetadata(
+                ByteBufAllocator.DEFAULT, Collections.singletonList("route"))
+            .getContent());
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        metadata,
+        ByteBufAllocator.DEFAULT,
+        "text/x.other",
+        Unpooled.wrappedBuffer(new byte[] {1, 2, 3}));
+    DeadlineMetadataCodec.encodeAndAddDeadline(
+        metadata, ByteBufAllocator.DEFAULT, Duration.ofMillis(1500));
+
+    assertThat(DeadlineMetadataCodec.findTimeoutMillis(metadata)).isEqualTo(1500);
+    metadata.release();
+  }
+
+  @Test
+  void shouldReturnNoDeadlineWhenAbsent() {
+    CompositeByteBuf metadata = ByteBufAllocator.DEFAULT.compositeBuffer();
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        metadata,
+        ByteBufAllocator.DEFAULT,
+        WellKnownMimeType.TEXT_PLAIN,
+        Unpooled.wrappedBuffer(new byte[] {1}));
+
+    assertThat(DeadlineMetadataCodec.findTimeoutMillis(metadata))
+        .isEqualTo(DeadlineMetadataCodec.NO_DEADLINE);
+    metadata.release();
+  }
+
+  @Test
+  void shouldReturnNoDeadlineForMalformedMetadata() {
+    ByteBuf metadata = Unpooled.wrappedBuffer(new byte[] {0x10, 'a', 'b'});
+
+    assertThat(DeadlineMetadataCodec.findTimeoutMillis(metadata))
+        .isEqualTo(DeadlineMetadataCodec.NO_DEADLINE);
+  }
+
+  @Test
+  void shouldEncodeAndDecode() {
+    ByteBuf content = DeadlineMetadataCodec.encode(ByteBufAllocator.DEFAULT, 42);
+
+    assertThat(DeadlineMetadataCodec.decode(content)).isEqualTo(42);
+    content.release();
+  }
+}
@@ -0,0 +1,106 @@
+package io.rsocket.plugins;
+
+import io.rsocket.Payload;
+import io.rsocket.util.ByteBufPayload;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class AdaptivePrefetchInterceptorTest {
+
+  final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+  final List<Long> requests = new ArrayList<>();
+
+  @Test
+  public void shouldGrowWindowWhenConsumerIsWaitingOnRoundTrips() {
+    final AdaptivePrefetchInterceptor interceptor =
+        new AdaptivePrefetchInterceptor(8, 1024, Long.MAX_VALUE, scheduler, true);
+    final Sinks.Many<Payload> sink = Sinks.many().unicast().onBackpressureBuffer();
+
+    interceptor.prefetch(sink.asFlux().doOnRequest(requests::add)).subscribe(Payload::release);
+
+    Assertions.assertThat(requests).containsExactly(8L);
+
+    long emitted = 0;
+    for (int round = 0; round < 20; round++) {
+      // every round trip delivers what has been requested so far
+      scheduler.advanceTimeBy(Duration.ofMillis(100));
+      final long outstanding = requests.stream().mapToLong(Long::longValue).sum() - emitted;
+      for (long i = 0; i < outstanding; i++) {
+        sink.tryEmitNext(ByteBufPayload.create("data"));
+      }
+      emitted += outstanding;
+    }
+
+    Assertions.assertThat(Collections.max(requests)).isGreaterThan(32L);
+    Assertions.assertThat(requests).allMatch(n -> n <= 1024);
+  }
+
+  @Test
+  public void shouldSampleRoundTripOfEveryRefill() {
+    final AdaptivePrefetchInterceptor interceptor =
+        new AdaptivePrefetchInterceptor(8, 1024, Long.MAX_VALUE, scheduler, true);
+    final Sinks.Many<Payload> sink = Sinks.many().unicast().onBackpressureBuffer();
+    final AdaptivePrefetchInterceptor.AdaptivePrefetchSubscriber subscriber =
+        new AdaptivePrefetchInterceptor.AdaptivePrefetchSubscriber(
+            new BaseSubscriber<Payload>() {
+              @Override
+              protected void hookOnNext(Payload payload) {
+                payload.release();
+              }
+            },
+            interceptor);
+
+    sink.asFlux().doOnRequest(requests::add).subscribe(subscriber);
+
+    scheduler.advanceTimeBy(Duration.ofMillis(50));
+    for (int i = 0; i < 6; i++) {
+      sink.tryEmitNext(ByteBufPayload.create("data"));
+    }
+
+    // the refill is sent while two payloads are still outstanding
+    Assertions.assertThat(requests).hasSize(2);
+    Assertions.assertThat(subscriber.smoothedRttNanos).isEqualTo(50_000_000d);
+
+    // the two payloads which were already on their way do not sample the round trip of the refill
+    scheduler.advanceTimeBy(Duration.ofMillis(200));
+    sink.tryEmitNext(ByteBufPayload.create("data"));
+    sink.tryEmitNext(ByteBufPayload.create("data"));
+    Assertions.assertThat(subscriber.smoothedRttNanos).isEqualTo(50_000_000d);
+
+    sink.tryEmitNext(ByteBufPayload.create("data"));
+    Assertions.assertThat(subscriber.smoothedRttNanos)
+        .isEqualTo(50_000_000d * 0.875 + 200_000_000d * 0.125);
+
+    subscriber.cancel();
+  }
+
+  @Test
+  public void shouldBoundWindowByBufferedBytes() {
+    final AdaptivePrefetchInterceptor interceptor =
+        new AdaptivePrefetchInterceptor(8, 1024, 4096, scheduler, true);
+
+    StepVerifier.create(
+            interceptor.prefetch(
+                Flux.range(0, 100)
+                    .map(i -> ByteBufPayload.create(new byte[1024]))
+                    .doOnRequest(requests::add)))
+        .thenConsumeWhile(
+            payload -> {
+              payload.release();
+              return true;
+            })
+        .verifyComplete();
+
+    Assertions.assertThat(requests.get(0)).isEqualTo(8L);
+    Assertions.assertThat(requests.subList(1, requests.size())).allMatch(n -> n <= 4);
+  }
+}
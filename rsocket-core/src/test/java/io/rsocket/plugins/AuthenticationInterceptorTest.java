@@ -0,0 +1,144 @@
+package io.rsocket.plugins;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.metadata.AuthMetadataCodec;
+import io.rsocket.metadata.CompositeMetadataCodec;
+import io.rsocket.metadata.WellKnownAuthType;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.util.ByteBufPayload;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class AuthenticationInterceptorTest {
+
+  final AtomicInteger verifications = new AtomicInteger();
+  final AtomicLong nanoTime = new AtomicLong();
+
+  final Authenticator<String> authenticator =
+      authMetadata -> {
+        verifications.incrementAndGet();
+        if (AuthMetadataCodec.readWellKnownAuthType(authMetadata) != WellKnownAuthType.BEARER) {
+          return Mono.empty();
+        }
+        final String token = new String(AuthMetadataCodec.readBearerTokenAsCharArray(authMetadata));
+        return token.startsWith("valid-") ? Mono.just(token.substring(6)) : Mono.empty();
+      };
+
+  final RSocket handler =
+      new RSocket() {
+        @Override
+        public Mono<Payload> requestResponse(Payload payload) {
+          payload.release();
+          return Mono.deferContextual(
+              context ->
+                  Mono.just(
+                      ByteBufPayload.create(
+                          context.<String>get(AuthenticationInterceptor.PRINCIPAL_KEY))));
+        }
+      };
+
+  @Test
+  public void shouldCachePrincipalsAcrossConnections() {
+    final AuthCache<String> cache = new AuthCache<>(16, Duration.ofMinutes(1), nanoTime::get);
+    final AuthenticationInterceptor<String> interceptor =
+        new AuthenticationInterceptor<>(authenticator, cache);
+    final RSocket first = interceptor.apply(handler);
+    final RSocket second = interceptor.apply(handler);
+
+    expectPrincipal(first, "valid-alice", "alice");
+    expectPrincipal(first, "valid-alice", "alice");
+    expectPrincipal(second, "valid-alice", "alice");
+
+    Assertions.assertThat(verifications).hasValue(1);
+    Assertions.assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldVerifyAgainOnceExpired() {
+    final AuthCache<String> cache = new AuthCache<>(16, Duration.ofSeconds(10), nanoTime::get);
+    final RSocket rSocket = new AuthenticationInterceptor<>(authenticator, cache).apply(handler);
+
+    expectPrincipal(rSocket, "valid-alice", "alice");
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(9));
+    expectPrincipal(rSocket, "valid-alice", "alice");
+    Assertions.assertThat(verifications).hasValue(1);
+
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    expectPrincipal(rSocket, "valid-alice", "alice");
+    Assertions.assertThat(verifications).hasValue(2);
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedPrincipals() {
+    final AuthCache<String> cache = new AuthCache<>(1, Duration.ofMinutes(1), nanoTime::get);
+
+    for (int i = 0; i < 100; i++) {
+      cache.put(Unpooled.copiedBuffer("token-" + i, StandardCharsets.UTF_8), "p" + i, 0);
+    }
+
+    Assertions.assertThat(cache.size()).isOne();
+    cache.invalidateAll();
+    Assertions.assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  public void shouldRejectInvalidOrMissingCredentials() {
+    final AuthCache<String> cache = new AuthCache<>(16, Duration.ofMinutes(1), nanoTime::get);
+    final RSocket rSocket = new AuthenticationInterceptor<>(authenticator, cache).apply(handler);
+
+    final Payload invalid = payload("forged");
+    StepVerifier.create(rSocket.requestResponse(invalid))
+        .expectErrorSatisfies(
+            e ->
+                Assertions.assertThat(e)
+                    .isInstanceOf(RejectedException.class)
+                    .hasMessage("Authentication failed"))
+        .verify();
+    Assertions.assertThat(invalid.refCnt()).isZero();
+
+    final Payload anonymous = ByteBufPayload.create("data");
+    StepVerifier.create(rSocket.requestResponse(anonymous))
+        .expectErrorMessage("Authentication required")
+        .verify();
+    Assertions.assertThat(anonymous.refCnt()).isZero();
+
+    // failures are not cached
+    StepVerifier.create(rSocket.requestResponse(payload("forged")))
+        .expectError(RejectedException.class)
+        .verify();
+    Assertions.assertThat(verifications).hasValue(2);
+    Assertions.assertThat(cache.size()).isZero();
+  }
+
+  void expectPrincipal(RSocket rSocket, String token, String principal) {
+    StepVerifier.create(rSocket.requestResponse(payload(token)))
+        .assertNext(
+            response -> {
+              Assertions.assertThat(response.getDataUtf8()).isEqualTo(principal);
+              response.release();
+            })
+        .verifyComplete();
+  }
+
+  Payload payload(String token) {
+    final ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+    final CompositeByteBuf metadata = allocator.compositeBuffer();
+    final ByteBuf auth = AuthMetadataCodec.encodeBearerMetadata(allocator, token.toCharArray());
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        metadata, allocator, WellKnownMimeType.MESSAGE_RSOCKET_AUTHENTICATION, auth);
+    return ByteBufPayload.create(Unpooled.copiedBuffer("data", StandardCharsets.UTF_8), metadata);
+  }
+}
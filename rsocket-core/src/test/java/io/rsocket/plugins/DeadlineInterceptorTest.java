@@ -0,0 +1,170 @@
+package io.rsocket.plugins;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.internal.TimerWheel;
+import io.rsocket.metadata.DeadlineMetadataCodec;
+import io.rsocket.util.ByteBufPayload;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class DeadlineInterceptorTest {
+
+  final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+  final TimerWheel timerWheel = new TimerWheel(scheduler, 10, 64);
+  final List<Long> budgets = new ArrayList<>();
+
+  @Test
+  public void requesterShouldSendRemainingBudget() {
+    final RSocket requester =
+        DeadlineInterceptor.forRequester(timerWheel).apply(recordBudget(Mono.never()));
+
+    final Mono<Payload> response = requester.requestResponse(payload(1000));
+    scheduler.advanceTimeBy(Duration.ofMillis(300));
+    response.subscribe();
+
+    Assertions.assertThat(budgets).containsExactly(700L);
+  }
+
+  @Test
+  public void requesterShouldTimeOutRequests() {
+    final RSocket requester =
+        DeadlineInterceptor.forRequester(timerWheel).apply(recordBudget(Mono.never()));
+
+    final StepVerifier verifier =
+        StepVerifier.create(requester.requestResponse(payload(100)))
+            .expectError(TimeoutException.class)
+            .verifyLater();
+
+    scheduler.advanceTimeBy(Duration.ofMillis(200));
+    verifier.verify(Duration.ofSeconds(1));
+  }
+
+  @Test
+  public void requesterShouldNotTimeOutAfterResponse() {
+    // a response which is followed by its completion only after the deadline
+    final Mono<Payload> response =
+        Mono.fromDirect(Flux.concat(Mono.just(ByteBufPayload.create("response")), Flux.never()));
+    final RSocket requester =
+        DeadlineInterceptor.forRequester(timerWheel).apply(recordBudget(response));
+
+    final StepVerifier verifier =
+        StepVerifier.create(requester.requestResponse(payload(100)))
+            .assertNext(Payload::release)
+            .expectComplete()
+            .verifyLater();
+
+    scheduler.advanceTimeBy(Duration.ofMillis(200));
+    verifier.verify(Duration.ofSeconds(1));
+  }
+
+  @Test
+  public void responderShouldRejectExpiredRequests() {
+    final AtomicBoolean invoked = new AtomicBoolean();
+    final RSocket responder =
+        DeadlineInterceptor.forResponder(timerWheel)
+            .apply(
+                new RSocket() {
+                  @Override
+                  public Mono<Payload> requestResponse(Payload payload) {
+                    invoked.set(true);
+                    return Mono.just(payload);
+                  }
+                });
+
+    final Payload payload = payload(0);
+    StepVerifier.create(responder.requestResponse(payload))
+        .expectError(RejectedException.class)
+        .verify(Duration.ofSeconds(1));
+
+    Assertions.assertThat(invoked).isFalse();
+    Assertions.assertThat(payload.refCnt()).isZero();
+  }
+
+  @Test
+  public void responderShouldCancelOverdueHandlers() {
+    final AtomicBoolean cancelled = new AtomicBoolean();
+    final RSocket responder =
+        DeadlineInterceptor.forResponder(timerWheel)
+            .apply(
+                new RSocket() {
+                  @Override
+                  public Flux<Payload> requestStream(Payload payload) {
+                    payload.release();
+                    return Flux.<Payload>never().doOnCancel(() -> cancelled.set(true));
+                  }
+                });
+
+    final StepVerifier verifier =
+        StepVerifier.create(responder.requestStream(payload(100)))
+            .expectError(TimeoutException.class)
+            .verifyLater();
+
+    scheduler.advanceTimeBy(Duration.ofMillis(200));
+    verifier.verify(Duration.ofSeconds(1));
+    Assertions.assertThat(cancelled).isTrue();
+  }
+
+  @Test
+  public void responderShouldPassRemainingBudgetToNestedRequests() {
+    final RSocket downstream =
+        DeadlineInterceptor.forRequester(timerWheel)
+            .apply(recordBudget(Mono.just(ByteBufPayload.create("response"))));
+    final RSocket responder =
+        DeadlineInterceptor.forResponder(timerWheel)
+            .apply(
+                new RSocket() {
+                  @Override
+                  public Mono<Payload> requestResponse(Payload payload) {
+                    payload.release();
+                    // forward with a larger budget than what is left of the incoming one
+                    return Mono.delay(Duration.ofMillis(150), scheduler)
+                        .then(downstream.requestResponse(payload(1000)));
+                  }
+                });
+
+    final StepVerifier verifier =
+        StepVerifier.create(responder.requestResponse(payload(500)))
+            .assertNext(Payload::release)
+            .expectComplete()
+            .verifyLater();
+
+    scheduler.advanceTimeBy(Duration.ofMillis(150));
+    verifier.verify(Duration.ofSeconds(1));
+    Assertions.assertThat(budgets).containsExactly(350L);
+  }
+
+  RSocket recordBudget(Mono<Payload> response) {
+    return new RSocket() {
+      @Override
+      public Mono<Payload> requestResponse(Payload payload) {
+        return Mono.defer(
+            () -> {
+              budgets.add(DeadlineMetadataCodec.findTimeoutMillis(payload.sliceMetadata()));
+              payload.release();
+              return response;
+            });
+      }
+    };
+  }
+
+  static Payload payload(long timeoutMillis) {
+    final CompositeByteBuf metadata = ByteBufAllocator.DEFAULT.compositeBuffer();
+    DeadlineMetadataCodec.encodeAndAddDeadline(
+        metadata, ByteBufAllocator.DEFAULT, Duration.ofMillis(timeoutMillis));
+    return ByteBufPayload.create(Unpooled.EMPTY_BUFFER, metadata);
+  }
+}
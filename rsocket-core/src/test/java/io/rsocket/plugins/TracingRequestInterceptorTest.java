@@ -0,0 +1,232 @@
+package io.rsocket.plugins;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.frame.FrameType;
+import io.rsocket.metadata.CompositeMetadataCodec;
+import io.rsocket.metadata.TracingMetadata;
+import io.rsocket.metadata.TracingMetadataCodec;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.util.ByteBufPayload;
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public class TracingRequestInterceptorTest {
+
+  final SpanRingBuffer spans = new SpanRingBuffer(64);
+  final TracingRequestInterceptor interceptor = new TracingRequestInterceptor(spans);
+
+  @Test
+  public void shouldRecordSampledRequests() {
+    final ByteBuf sampled =
+        metadata(
+            TracingMetadataCodec.encode128(
+                ByteBufAllocator.DEFAULT, 1, 2, 3, 4, TracingMetadataCodec.Flags.SAMPLE));
+    final ByteBuf notSampled =
+        metadata(
+            TracingMetadataCodec.encode64(
+                ByteBufAllocator.DEFAULT, 5, 6, TracingMetadataCodec.Flags.NOT_SAMPLE));
+
+    interceptor.onStart(1, FrameType.REQUEST_RESPONSE, sampled);
+    interceptor.onStart(3, FrameType.REQUEST_STREAM, notSampled);
+    interceptor.onStart(5, FrameType.REQUEST_STREAM, null);
+    interceptor.onTerminate(5, FrameType.REQUEST_STREAM, null);
+    interceptor.onCancel(3, FrameType.REQUEST_STREAM);
+    interceptor.onTerminate(1, FrameType.REQUEST_RESPONSE, new RuntimeException());
+
+    final List<String> recorded = drain();
+    Assertions.assertThat(recorded).containsExactly("1/2/3/4 1 REQUEST_RESPONSE ERROR");
+    Assertions.assertThat(sampled.readerIndex()).isZero();
+    sampled.release();
+    notSampled.release();
+  }
+
+  @Test
+  public void shouldTrackManyRequestsInFlight() {
+    for (int streamId = 1; streamId < 2000; streamId += 2) {
+      final ByteBuf metadata =
+          metadata(
+              TracingMetadataCodec.encode64(
+                  ByteBufAllocator.DEFAULT, streamId, streamId, TracingMetadataCodec.Flags.DEBUG));
+      interceptor.onStart(streamId, FrameType.REQUEST_FNF, metadata);
+      metadata.release();
+    }
+    // end them out of order, so that removals shift entries of colliding probe sequences
+    for (int streamId = 1999; streamId > 0; streamId -= 4) {
+      interceptor.onCancel(streamId, FrameType.REQUEST_FNF);
+    }
+    for (int streamId = 1; streamId < 2000; streamId += 4) {
+      interceptor.onTerminate(streamId, FrameType.REQUEST_FNF, null);
+    }
+
+    int total = 0;
+    int drained;
+    do {
+      drained =
+          spans.drain(span -> Assertions.assertThat(span.traceId()).isEqualTo(span.streamId()));
+      total += drained;
+    } while (drained > 0);
+
+    Assertions.assertThat(total + spans.dropped()).isEqualTo(1000);
+    Assertions.assertThat(total).isEqualTo(spans.capacity());
+    Assertions.assertThat(interceptor.size).isZero();
+  }
+
+  @Test
+  public void shouldSkipTruncatedEntries() {
+    final ByteBuf tracing =
+        TracingMetadataCodec.encode128(
+            ByteBufAllocator.DEFAULT, 1, 2, 3, 4, TracingMetadataCodec.Flags.SAMPLE);
+    // the ids of the truncated entry would otherwise be read from the entry after it
+    final CompositeByteBuf followed = (CompositeByteBuf) metadata(tracing.retainedSlice(0, 9));
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        followed,
+        ByteBufAllocator.DEFAULT,
+        WellKnownMimeType.TEXT_PLAIN,
+        ByteBufAllocator.DEFAULT.buffer().writeZero(64));
+    final ByteBuf last = metadata(tracing.retainedSlice(0, tracing.readableBytes() - 1));
+
+    interceptor.onStart(1, FrameType.REQUEST_RESPONSE, followed);
+    interceptor.onStart(3, FrameType.REQUEST_RESPONSE, last);
+
+    Assertions.assertThat(interceptor.size).isZero();
+    final Payload payload = ByteBufPayload.create(ByteBufAllocator.DEFAULT.buffer(), last);
+    Assertions.assertThat(TracingRequestInterceptor.tracingMetadata(payload)).isNull();
+    tracing.release();
+    followed.release();
+    payload.release();
+  }
+
+  @Test
+  public void shouldPropagateTraceContextToHandlers() {
+    final RSocket handler =
+        new RSocket() {
+          @Override
+          public Mono<Payload> requestResponse(Payload payload) {
+            payload.release();
+            return Mono.deferContextual(
+                context ->
+                    Mono.just(
+                        ByteBufPayload.create(
+                            String.valueOf(
+                                context
+                                    .<TracingMetadata>get(
+                                        TracingRequestInterceptor.TRACING_METADATA_KEY)
+                                    .spanId()))));
+          }
+
+          @Override
+          public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+            return Flux.from(payloads)
+                .doOnNext(Payload::release)
+                .thenMany(
+                    Flux.deferContextual(
+                        context ->
+                            Flux.just(
+                                ByteBufPayload.create(
+                                    String.valueOf(
+                                        context.hasKey(
+                                            TracingRequestInterceptor.TRACING_METADATA_KEY))))));
+          }
+        };
+    final RSocket rsocket = TracingRequestInterceptor.contextPropagation().apply(handler);
+
+    final Payload response =
+        rsocket
+            .requestResponse(
+                ByteBufPayload.create(
+                    ByteBufAllocator.DEFAULT.buffer(),
+                    metadata(
+                        TracingMetadataCodec.encode64(
+                            ByteBufAllocator.DEFAULT,
+                            5,
+                            6,
+                            TracingMetadataCodec.Flags.NOT_SAMPLE))))
+            .block();
+    Assertions.assertThat(response.getDataUtf8()).isEqualTo("6");
+    response.release();
+
+    final Payload untraced =
+        rsocket.requestChannel(Flux.just(ByteBufPayload.create("data"))).blockLast();
+    Assertions.assertThat(untraced.getDataUtf8()).isEqualTo("false");
+    untraced.release();
+  }
+
+  @Test
+  public void shouldEncodeChildSpans() {
+    final ByteBuf parent =
+        TracingMetadataCodec.encode128(
+            ByteBufAllocator.DEFAULT, 1, 2, 3, TracingMetadataCodec.Flags.SAMPLE);
+    final ByteBuf child = TracingMetadataCodec.encodeChild(ByteBufAllocator.DEFAULT, parent, 9);
+
+    final TracingMetadata decoded = TracingMetadataCodec.decode(child);
+    Assertions.assertThat(decoded.traceIdHigh()).isEqualTo(1);
+    Assertions.assertThat(decoded.traceId()).isEqualTo(2);
+    Assertions.assertThat(decoded.spanId()).isEqualTo(9);
+    Assertions.assertThat(decoded.parentId()).isEqualTo(3);
+    Assertions.assertThat(decoded.isSampled()).isTrue();
+    parent.release();
+    child.release();
+  }
+
+  @Test
+  public void shouldEncodeChildSpansOfEntriesInPlace() {
+    final ByteBuf parent =
+        TracingMetadataCodec.encode64(
+            ByteBufAllocator.DEFAULT, 2, 3, 4, TracingMetadataCodec.Flags.DEBUG);
+    final ByteBuf buffer = ByteBufAllocator.DEFAULT.buffer().writeInt(0).writeBytes(parent);
+    final ByteBuf child = TracingMetadataCodec.encodeChild(ByteBufAllocator.DEFAULT, buffer, 4, 9);
+
+    Assertions.assertThat(TracingMetadataCodec.traceId(buffer, 4)).isEqualTo(2);
+    Assertions.assertThat(TracingMetadataCodec.parentId(buffer, 4)).isEqualTo(4);
+    Assertions.assertThat(buffer.readerIndex()).isZero();
+    final TracingMetadata decoded = TracingMetadataCodec.decode(child);
+    Assertions.assertThat(decoded.traceIdHigh()).isZero();
+    Assertions.assertThat(decoded.traceId()).isEqualTo(2);
+    Assertions.assertThat(decoded.spanId()).isEqualTo(9);
+    Assertions.assertThat(decoded.parentId()).isEqualTo(3);
+    Assertions.assertThat(decoded.isDebug()).isTrue();
+    parent.release();
+    buffer.release();
+    child.release();
+  }
+
+  List<String> drain() {
+    final List<String> recorded = new ArrayList<>();
+    spans.drain(
+        span ->
+            recorded.add(
+                span.traceIdHigh()
+                    + "/"
+                    + span.traceId()
+                    + "/"
+                    + span.spanId()
+                    + "/"
+                    + span.parentId()
+                    + " "
+                    + span.streamId()
+                    + " "
+                    + span.requestType()
+                    + " "
+                    + span.outcome()));
+    return recorded;
+  }
+
+  static ByteBuf metadata(ByteBuf tracing) {
+    final CompositeByteBuf metadata = ByteBufAllocator.DEFAULT.compositeBuffer();
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        metadata,
+        ByteBufAllocator.DEFAULT,
+        WellKnownMimeType.MESSAGE_RSOCKET_TRACING_ZIPKIN,
+        tracing);
+    return metadata;
+  }
+}
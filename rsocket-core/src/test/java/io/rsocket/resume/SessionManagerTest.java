@@ -0,0 +1,84 @@
+package io.rsocket.resume;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import io.rsocket.internal.TimerWheel;
+import java.time.Duration;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+public class SessionManagerTest {
+
+  final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+  final SessionManager sessionManager =
+      new SessionManager(Duration.ofSeconds(10), new TimerWheel(scheduler, 10, 64));
+
+  @Test
+  public void shouldFindSessionByTokenBytes() {
+    ServerRSocketSession session = Mockito.mock(ServerRSocketSession.class);
+
+    sessionManager.save(session, token("token-1"));
+
+    Assertions.assertThat(sessionManager.get(token("token-1"))).isSameAs(session);
+    Assertions.assertThat(sessionManager.get(token("token-2"))).isNull();
+  }
+
+  @Test
+  public void shouldReplaceAndDisposePreviousSession() {
+    ServerRSocketSession first = Mockito.mock(ServerRSocketSession.class);
+    ServerRSocketSession second = Mockito.mock(ServerRSocketSession.class);
+
+    sessionManager.save(first, token("token"));
+    sessionManager.save(second, token("token"));
+
+    Mockito.verify(first).dispose();
+    Assertions.assertThat(sessionManager.get(token("token"))).isSameAs(second);
+    Assertions.assertThat(sessionManager.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldSweepClosedSessions() {
+    ServerRSocketSession open = Mockito.mock(ServerRSocketSession.class);
+    ServerRSocketSession closed = Mockito.mock(ServerRSocketSession.class);
+
+    sessionManager.save(open, token("open"));
+    sessionManager.save(closed, token("closed"));
+    Mockito.when(closed.isDisposed()).thenReturn(true);
+
+    Assertions.assertThat(sessionManager.get(token("closed"))).isNull();
+    Assertions.assertThat(sessionManager.size()).isEqualTo(2);
+
+    scheduler.advanceTimeBy(Duration.ofSeconds(11));
+
+    Assertions.assertThat(sessionManager.size()).isEqualTo(1);
+    Assertions.assertThat(sessionManager.get(token("open"))).isSameAs(open);
+  }
+
+  @Test
+  public void shouldGrowShards() {
+    for (int i = 0; i < 10_000; i++) {
+      sessionManager.save(Mockito.mock(ServerRSocketSession.class), token("token-" + i));
+    }
+
+    Assertions.assertThat(sessionManager.size()).isEqualTo(10_000);
+    Assertions.assertThat(sessionManager.get(token("token-4242"))).isNotNull();
+  }
+
+  @Test
+  public void shouldDisposeAllSessions() {
+    ServerRSocketSession session = Mockito.mock(ServerRSocketSession.class);
+    sessionManager.save(session, token("token"));
+
+    sessionManager.dispose();
+
+    Mockito.verify(session).dispose();
+    Assertions.assertThat(sessionManager.get(token("token"))).isNull();
+  }
+
+  static ByteBuf token(String token) {
+    return Unpooled.copiedBuffer(token, CharsetUtil.UTF_8);
+  }
+}
@@ -0,0 +1,121 @@
+package io.rsocket.routing;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.metadata.CompositeMetadataCodec;
+import io.rsocket.metadata.TaggingMetadataCodec;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.util.DefaultPayload;
+import java.util.Arrays;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class RouterTest {
+
+  final Router router =
+      Router.builder()
+          .route("orders", respondingWith("orders"))
+          .route("orders.create", respondingWith("orders.create"))
+          .route("orders.cancel", respondingWith("orders.cancel"))
+          .route("users", respondingWith("users"))
+          .fallback(respondingWith("fallback"))
+          .build();
+
+  @Test
+  public void shouldDispatchOnRoutingMetadata() {
+    final RSocket rsocket = router.forRoutingMetadata();
+
+    StepVerifier.create(rsocket.requestResponse(payload(routing("orders.create"))))
+        .expectNextMatches(p -> p.getDataUtf8().equals("orders.create"))
+        .verifyComplete();
+    StepVerifier.create(rsocket.requestResponse(payload(routing("orders"))))
+        .expectNextMatches(p -> p.getDataUtf8().equals("orders"))
+        .verifyComplete();
+    StepVerifier.create(rsocket.requestResponse(payload(routing("orders.c"))))
+        .expectNextMatches(p -> p.getDataUtf8().equals("fallback"))
+        .verifyComplete();
+  }
+
+  @Test
+  public void shouldDispatchOnRoutingEntryOfCompositeMetadata() {
+    final RSocket rsocket = router.forCompositeMetadata();
+
+    final CompositeByteBuf metadata = ByteBufAllocator.DEFAULT.compositeBuffer();
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        metadata,
+        ByteBufAllocator.DEFAULT,
+        WellKnownMimeType.APPLICATION_JSON,
+        Unpooled.wrappedBuffer(new byte[] {'{', '}'}));
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        metadata,
+        ByteBufAllocator.DEFAULT,
+        WellKnownMimeType.MESSAGE_RSOCKET_ROUTING,
+        routing("orders.cancel", "extra-tag"));
+
+    StepVerifier.create(rsocket.requestStream(payload(metadata)))
+        .expectNextMatches(p -> p.getDataUtf8().equals("orders.cancel"))
+        .verifyComplete();
+  }
+
+  @Test
+  public void shouldDispatchChannelOnFirstPayload() {
+    final RSocket rsocket = router.forRoutingMetadata();
+
+    StepVerifier.create(
+            rsocket.requestChannel(
+                Flux.just(payload(routing("users")), DefaultPayload.create("second"))))
+        .expectNextMatches(p -> p.getDataUtf8().equals("users"))
+        .verifyComplete();
+  }
+
+  @Test
+  public void shouldUseFallbackWithoutMetadata() {
+    StepVerifier.create(router.forCompositeMetadata().requestResponse(DefaultPayload.create("x")))
+        .expectNextMatches(p -> p.getDataUtf8().equals("fallback"))
+        .verifyComplete();
+  }
+
+  @Test
+  public void shouldRejectDuplicateRoutes() {
+    Assertions.assertThatIllegalArgumentException()
+        .isThrownBy(
+            () -> Router.builder().route("a", new RSocket() {}).route("a", new RSocket() {}));
+  }
+
+  static ByteBuf routing(String... tags) {
+    return TaggingMetadataCodec.createTaggingContent(ByteBufAllocator.DEFAULT, Arrays.asList(tags));
+  }
+
+  static Payload payload(ByteBuf metadata) {
+    return DefaultPayload.create(Unpooled.EMPTY_BUFFER, metadata);
+  }
+
+  static RSocket respondingWith(String name) {
+    return new RSocket() {
+      @Override
+      public Mono<Payload> requestResponse(Payload payload) {
+        payload.release();
+        return Mono.just(DefaultPayload.create(name));
+      }
+
+      @Override
+      public Flux<Payload> requestStream(Payload payload) {
+        payload.release();
+        return Flux.just(DefaultPayload.create(name));
+      }
+
+      @Override
+      public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+        return Flux.from(payloads).then(Mono.just(DefaultPayload.create(name))).flux();
+      }
+    };
+  }
+}
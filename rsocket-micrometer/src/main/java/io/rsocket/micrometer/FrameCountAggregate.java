@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.micrometer;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.netty.buffer.ByteBuf;
+import io.rsocket.frame.FrameHeaderCodec;
+import io.rsocket.frame.FrameType;
+import io.rsocket.plugins.DuplexConnectionInterceptor.Type;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Frame counts of all the connections instrumented by a {@link
+ * MicrometerDuplexConnectionInterceptor} in function counter mode, published as the function
+ * counters {@code rsocket.frame}.
+ *
+ * <p>Each connection counts the frames it receives into a plain {@code long} array indexed by
+ * {@link FrameType} ordinal, which is only written by the thread delivering received frames, and
+ * the frames it sends into an {@link AtomicLongArray}, since frames may be sent from any thread.
+ * Counting a frame thus never calls Micrometer. The counters sum up the counts of the open
+ * connections, which may lag slightly behind the latest frames, and the counts of the closed ones.
+ * Closing a connection hands its counts over under the same lock as reading a counter takes, so
+ * that a counter never goes down while they are moved.
+ */
+final class FrameCountAggregate {
+
+  private static final FrameType[] FRAME_TYPES = FrameType.values();
+
+  private static final Type[] CONNECTION_TYPES = Type.values();
+
+  // guarded by this
+  private final Set<Counts> open = new HashSet<>();
+
+  // guarded by this, indexed by connection type ordinal * frame types + frame type ordinal
+  private final long[] closed = new long[CONNECTION_TYPES.length * FRAME_TYPES.length];
+
+  FrameCountAggregate(MeterRegistry meterRegistry, Tag... tags) {
+    for (Type connectionType : CONNECTION_TYPES) {
+      for (FrameType frameType : FRAME_TYPES) {
+        final int index = index(connectionType, frameType.ordinal());
+        final String frameTypeName = frameType == FrameType.RESERVED ? "UNKNOWN" : frameType.name();
+        FunctionCounter.builder("rsocket.frame", this, a -> a.count(index))
+            .tags(
+                Tags.of(tags)
+                    .and("connection.type", connectionType.name())
+                    .and("frame.type", frameTypeName))
+            .register(meterRegistry);
+      }
+    }
+  }
+
+  /** Start counting the frames of a new connection. */
+  Counts open(Type connectionType) {
+    final Counts counts = new Counts(connectionType);
+    synchronized (this) {
+      open.add(counts);
+    }
+    return counts;
+  }
+
+  /** Stop counting the frames of a closed connection, adding its counts to the closed ones. */
+  synchronized void close(Counts counts) {
+    if (!open.remove(counts)) {
+      return;
+    }
+    final int offset = index(counts.connectionType, 0);
+    for (int i = 0; i < FRAME_TYPES.length; i++) {
+      closed[offset + i] += counts.received[i] + counts.sent.get(i);
+    }
+  }
+
+  private synchronized double count(int index) {
+    long count = closed[index];
+    final int connectionType = index / FRAME_TYPES.length;
+    final int frameType = index % FRAME_TYPES.length;
+    for (Counts counts : open) {
+      if (counts.connectionType.ordinal() == connectionType) {
+        count += counts.received[frameType] + counts.sent.get(frameType);
+      }
+    }
+    return count;
+  }
+
+  private static int index(Type connectionType, int frameType) {
+    return connectionType.ordinal() * FRAME_TYPES.length + frameType;
+  }
+
+  /** Frame counts of a connection, which counts received frames as a {@link Consumer}. */
+  static final class Counts implements Consumer<ByteBuf> {
+
+    private final Type connectionType;
+
+    private final long[] received = new long[FRAME_TYPES.length];
+
+    private final AtomicLongArray sent = new AtomicLongArray(FRAME_TYPES.length);
+
+    private Counts(Type connectionType) {
+      this.connectionType = connectionType;
+    }
+
+    @Override
+    public void accept(ByteBuf frame) {
+      received[FrameHeaderCodec.frameType(frame).ordinal()]++;
+    }
+
+    void sent(ByteBuf frame) {
+      sent.getAndIncrement(FrameHeaderCodec.frameType(frame).ordinal());
+    }
+  }
+}
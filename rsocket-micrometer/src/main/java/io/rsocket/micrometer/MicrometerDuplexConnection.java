@@ -33,6 +33,7 @@
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
 
 /**
  * An implementation of {@link DuplexConnection} that intercepts frames and gathers Micrometer
@@ -44,6 +45,9 @@
  * with {@code connection.type} ({@link Type}) and any additional configured tags are also
  * collected.
  *
+ * <p>When created with a {@link FrameCountAggregate}, frames are counted into plain arrays which
+ * are published as function counters, instead of incrementing a Micrometer counter per frame.
+ *
  * @see <a href="https://micrometer.io">Micrometer</a>
  */
 final class MicrometerDuplexConnection implements DuplexConnection {
@@ -54,7 +58,9 @@ final class MicrometerDuplexConnection implements DuplexConnection {
 
   private final Counter dispose;
 
-  private final FrameCounters frameCounters;
+  private final Consumer<ByteBuf> receivedFrames;
+
+  private final Consumer<ByteBuf> sentFrames;
 
   /**
    * Creates a new {@link DuplexConnection}.
@@ -68,6 +74,27 @@ final class MicrometerDuplexConnection implements DuplexConnection {
    */
   MicrometerDuplexConnection(
       Type connectionType, DuplexConnection delegate, MeterRegistry meterRegistry, Tag... tags) {
+    this(connectionType, delegate, meterRegistry, null, tags);
+  }
+
+  /**
+   * Creates a new {@link DuplexConnection}.
+   *
+   * @param connectionType the type of connection being monitored
+   * @param delegate the {@link DuplexConnection} to delegate to
+   * @param meterRegistry the {@link MeterRegistry} to use
+   * @param frameCounts the {@link FrameCountAggregate} to count frames into, or {@code null} to
+   *     count them with a {@link Counter} per frame type
+   * @param tags additional tags to attach to {@link Meter}s
+   * @throws NullPointerException if {@code connectionType}, {@code delegate}, or {@code
+   *     meterRegistry} is {@code null}
+   */
+  MicrometerDuplexConnection(
+      Type connectionType,
+      DuplexConnection delegate,
+      MeterRegistry meterRegistry,
+      @Nullable FrameCountAggregate frameCounts,
+      Tag... tags) {
 
     Objects.requireNonNull(connectionType, "connectionType must not be null");
     this.delegate = Objects.requireNonNull(delegate, "delegate must not be null");
@@ -81,7 +108,19 @@ final class MicrometerDuplexConnection implements DuplexConnection {
         meterRegistry.counter(
             "rsocket.duplex.connection.dispose",
             Tags.of(tags).and("connection.type", connectionType.name()));
-    this.frameCounters = new FrameCounters(connectionType, meterRegistry, tags);
+
+    if (frameCounts != null) {
+      final FrameCountAggregate.Counts counts = frameCounts.open(connectionType);
+      this.receivedFrames = counts;
+      this.sentFrames = counts::sent;
+      delegate
+          .onClose()
+          .subscribe(null, e -> frameCounts.close(counts), () -> frameCounts.close(counts));
+    } else {
+      final FrameCounters frameCounters = new FrameCounters(connectionType, meterRegistry, tags);
+      this.receivedFrames = frameCounters;
+      this.sentFrames = frameCounters;
+    }
   }
 
   @Override
@@ -107,12 +146,12 @@ public Mono<Void> onClose() {
 
   @Override
   public Flux<ByteBuf> receive() {
-    return delegate.receive().doOnNext(frameCounters);
+    return delegate.receive().doOnNext(receivedFrames);
   }
 
   @Override
   public void sendFrame(int streamId, ByteBuf frame) {
-    frameCounters.accept(frame);
+    sentFrames.accept(frame);
     delegate.sendFrame(streamId, frame);
   }
 
@@ -23,6 +23,7 @@
 import io.rsocket.frame.FrameType;
 import io.rsocket.plugins.DuplexConnectionInterceptor;
 import java.util.Objects;
+import reactor.util.annotation.Nullable;
 
 /**
  * An implementation of {@link DuplexConnectionInterceptor} that intercepts frames and gathers
@@ -34,6 +35,10 @@
  * with {@code connection.type} ({@link Type}) and any additional configured tags are also
  * collected.
  *
+ * <p>Instances created with {@link #withFunctionCounters(MeterRegistry, Tag...)} count frames into
+ * plain per-connection arrays published as function counters, so that counting a frame does not
+ * call Micrometer, which matters at high frame rates.
+ *
  * @see <a href="https://micrometer.io">Micrometer</a>
  */
 public final class MicrometerDuplexConnectionInterceptor implements DuplexConnectionInterceptor {
@@ -42,6 +47,8 @@ public final class MicrometerDuplexConnectionInterceptor implements DuplexConnec
 
   private final Tag[] tags;
 
+  @Nullable private final FrameCountAggregate frameCounts;
+
   /**
    * Creates a new {@link DuplexConnectionInterceptor}.
    *
@@ -50,15 +57,40 @@ public final class MicrometerDuplexConnectionInterceptor implements DuplexConnec
    * @throws NullPointerException if {@code meterRegistry} is {@code null}
    */
   public MicrometerDuplexConnectionInterceptor(MeterRegistry meterRegistry, Tag... tags) {
+    this(meterRegistry, null, tags);
+  }
+
+  private MicrometerDuplexConnectionInterceptor(
+      MeterRegistry meterRegistry, @Nullable FrameCountAggregate frameCounts, Tag... tags) {
     this.meterRegistry = Objects.requireNonNull(meterRegistry, "meterRegistry must not be null");
+    this.frameCounts = frameCounts;
     this.tags = tags;
   }
 
+  /**
+   * Creates a new {@link DuplexConnectionInterceptor} which counts frames into per-connection
+   * arrays, published as the function counters {@code rsocket.frame} with the same tags.
+   *
+   * @param meterRegistry the {@link MeterRegistry} to use to create {@link Meter}s.
+   * @param tags the additional tags to attach to each {@link Meter}
+   * @return the created interceptor
+   * @throws NullPointerException if {@code meterRegistry} is {@code null}
+   * @since 1.1.1
+   */
+  public static MicrometerDuplexConnectionInterceptor withFunctionCounters(
+      MeterRegistry meterRegistry, Tag... tags) {
+    Objects.requireNonNull(meterRegistry, "meterRegistry must not be null");
+
+    return new MicrometerDuplexConnectionInterceptor(
+        meterRegistry, new FrameCountAggregate(meterRegistry, tags), tags);
+  }
+
   @Override
   public MicrometerDuplexConnection apply(Type connectionType, DuplexConnection delegate) {
     Objects.requireNonNull(connectionType, "connectionType must not be null");
     Objects.requireNonNull(delegate, "delegate must not be null");
 
-    return new MicrometerDuplexConnection(connectionType, delegate, meterRegistry, tags);
+    return new MicrometerDuplexConnection(
+        connectionType, delegate, meterRegistry, frameCounts, tags);
   }
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.micrometer;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.micrometer.RouteLatencyRecorders.Interaction;
+import io.rsocket.micrometer.RouteLatencyRecorders.RouteRecorder;
+import io.rsocket.plugins.RSocketInterceptor;
+import io.rsocket.util.RSocketProxy;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * An implementation of {@link RSocketInterceptor} that records the latency of interactions by the
+ * route of their {@link io.rsocket.metadata.RoutingMetadata routing metadata}, so that slow routes
+ * can be told apart.
+ *
+ * <p>Latencies are recorded into lock-free HdrHistogram recorders, without any Micrometer lookup
+ * on the request path. They are published every {@code publishInterval} as the gauges {@code
+ * rsocket.[ request.channel | request.fnf | request.response | request.stream ].latency.percentile}
+ * and {@code rsocket.[ ... ].latency.max}, and the counter {@code rsocket.[ ... ].latency.count},
+ * tagged with {@code route}, with {@code phi} for percentiles, and with any additional configured
+ * tags. The gauges report the latencies of the last interval.
+ *
+ * <p>The route tag is bounded by {@code maxRoutes}: requests for routes beyond that limit are
+ * recorded with the route {@code other}, and requests without routing metadata with the route
+ * {@code none}. The route is read from the composite metadata of the first payload of each
+ * interaction, and the latency is measured until the interaction terminates or is cancelled.
+ *
+ * <p>The interceptor publishes periodically until it is {@link #dispose() disposed}.
+ *
+ * @see <a href="https://micrometer.io">Micrometer</a>
+ * @since 1.1.1
+ */
+public final class MicrometerRouteRSocketInterceptor implements RSocketInterceptor, Disposable {
+
+  private final RouteLatencyRecorders recorders;
+
+  private final Disposable publishing;
+
+  /**
+   * Creates a new {@link RSocketInterceptor} publishing on the {@link Schedulers#parallel()
+   * parallel} scheduler.
+   *
+   * @param meterRegistry the {@link MeterRegistry} to use to create {@link Meter}s.
+   * @param maxRoutes the maximum number of distinct route tags
+   * @param publishInterval the interval between the publications of recorded latencies
+   * @param tags the additional tags to attach to each {@link Meter}
+   * @throws NullPointerException if {@code meterRegistry} or {@code publishInterval} is {@code
+   *     null}
+   */
+  public MicrometerRouteRSocketInterceptor(
+      MeterRegistry meterRegistry, int maxRoutes, Duration publishInterval, Tag... tags) {
+    this(meterRegistry, maxRoutes, publishInterval, Schedulers.parallel(), tags);
+  }
+
+  /**
+   * Creates a new {@link RSocketInterceptor}.
+   *
+   * @param meterRegistry the {@link MeterRegistry} to use to create {@link Meter}s.
+   * @param maxRoutes the maximum number of distinct route tags
+   * @param publishInterval the interval between the publications of recorded latencies
+   * @param scheduler the {@link Scheduler} to publish recorded latencies on
+   * @param tags the additional tags to attach to each {@link Meter}
+   * @throws NullPointerException if {@code meterRegistry}, {@code publishInterval} or {@code
+   *     scheduler} is {@code null}
+   */
+  public MicrometerRouteRSocketInterceptor(
+      MeterRegistry meterRegistry,
+      int maxRoutes,
+      Duration publishInterval,
+      Scheduler scheduler,
+      Tag... tags) {
+    Objects.requireNonNull(meterRegistry, "meterRegistry must not be null");
+    Objects.requireNonNull(publishInterval, "publishInterval must not be null");
+    Objects.requireNonNull(scheduler, "scheduler must not be null");
+    if (maxRoutes < 0) {
+      throw new IllegalArgumentException("maxRoutes must not be negative");
+    }
+
+    this.recorders = new RouteLatencyRecorders(meterRegistry, maxRoutes, tags);
+    final long intervalMillis = publishInterval.toMillis();
+    this.publishing =
+        scheduler.schedulePeriodically(
+            recorders::publish, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public RSocket apply(RSocket delegate) {
+    Objects.requireNonNull(delegate, "delegate must not be null");
+
+    return new RouteRSocket(delegate);
+  }
+
+  /** Publishes the latencies recorded since the last publication. */
+  public void publish() {
+    recorders.publish();
+  }
+
+  @Override
+  public void dispose() {
+    publishing.dispose();
+  }
+
+  @Override
+  public boolean isDisposed() {
+    return publishing.isDisposed();
+  }
+
+  private final class RouteRSocket extends RSocketProxy {
+
+    private RouteRSocket(RSocket delegate) {
+      super(delegate);
+    }
+
+    @Override
+    public Mono<Void> fireAndForget(Payload payload) {
+      final RouteRecorder recorder = recorders.recorder(Interaction.FNF, payload);
+      return Mono.defer(
+          () -> {
+            final long startNanos = System.nanoTime();
+            return super.fireAndForget(payload).doFinally(s -> recorder.record(startNanos));
+          });
+    }
+
+    @Override
+    public Mono<Payload> requestResponse(Payload payload) {
+      final RouteRecorder recorder = recorders.recorder(Interaction.RESPONSE, payload);
+      return Mono.defer(
+          () -> {
+            final long startNanos = System.nanoTime();
+            return super.requestResponse(payload).doFinally(s -> recorder.record(startNanos));
+          });
+    }
+
+    @Override
+    public Flux<Payload> requestStream(Payload payload) {
+      final RouteRecorder recorder = recorders.recorder(Interaction.STREAM, payload);
+      return Flux.defer(
+          () -> {
+            final long startNanos = System.nanoTime();
+            return super.requestStream(payload).doFinally(s -> recorder.record(startNanos));
+          });
+    }
+
+    @Override
+    public Flux<Payload> requestChannel(Publisher<Payload> payloads) {
+      return Flux.from(payloads)
+          .switchOnFirst(
+              (signal, payloadsFlux) -> {
+                final Payload firstPayload = signal.get();
+                if (firstPayload == null) {
+                  return super.requestChannel(payloadsFlux);
+                }
+                final RouteRecorder recorder =
+                    recorders.recorder(Interaction.CHANNEL, firstPayload);
+                final long startNanos = System.nanoTime();
+                return super.requestChannel(payloadsFlux)
+                    .doFinally(s -> recorder.record(startNanos));
+              });
+    }
+  }
+}
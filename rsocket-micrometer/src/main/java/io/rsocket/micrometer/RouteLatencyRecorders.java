@@ -0,0 +1,257 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.micrometer;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.rsocket.Payload;
+import io.rsocket.metadata.CompositeMetadataReader;
+import io.rsocket.metadata.WellKnownMimeType;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Latency recorders of requests by interaction model and route, shared by all the connections
+ * instrumented by a {@link MicrometerRouteRSocketInterceptor}.
+ *
+ * <p>Requests only look up the recorder of their route, keyed by the bytes of the route, and
+ * record into it without locking. Meters are registered and updated by {@link #publish()}, which
+ * swaps the interval histogram of each recorder and publishes its percentiles as gauges.
+ */
+final class RouteLatencyRecorders {
+
+  static final String OTHER_ROUTE = "other";
+  static final String NO_ROUTE = "none";
+
+  static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.HOURS.toNanos(1);
+  static final int SIGNIFICANT_DIGITS = 2;
+  static final double[] PERCENTILES = {0.5, 0.9, 0.99, 0.999};
+
+  static final byte ROUTING_MIME_ID = WellKnownMimeType.MESSAGE_RSOCKET_ROUTING.getIdentifier();
+  static final String ROUTING_MIME_TYPE = WellKnownMimeType.MESSAGE_RSOCKET_ROUTING.getString();
+
+  static final FastThreadLocal<CompositeMetadataReader> READERS =
+      new FastThreadLocal<CompositeMetadataReader>() {
+        @Override
+        protected CompositeMetadataReader initialValue() {
+          return new CompositeMetadataReader();
+        }
+      };
+
+  enum Interaction {
+    FNF("request.fnf"),
+    RESPONSE("request.response"),
+    STREAM("request.stream"),
+    CHANNEL("request.channel");
+
+    final String metricName;
+
+    Interaction(String interactionModel) {
+      this.metricName = "rsocket." + interactionModel + ".latency";
+    }
+  }
+
+  private final MeterRegistry meterRegistry;
+
+  private final Tags tags;
+
+  private final int maxRoutes;
+
+  private final AtomicInteger routeCount = new AtomicInteger();
+
+  private final Map<ByteBuf, RouteRecorder>[] routes;
+
+  private final RouteRecorder[] otherRoutes;
+
+  private final RouteRecorder[] noRoutes;
+
+  @SuppressWarnings("unchecked")
+  RouteLatencyRecorders(MeterRegistry meterRegistry, int maxRoutes, Tag... tags) {
+    this.meterRegistry = meterRegistry;
+    this.maxRoutes = maxRoutes;
+    this.tags = Tags.of(tags);
+
+    final Interaction[] interactions = Interaction.values();
+    this.routes = new Map[interactions.length];
+    this.otherRoutes = new RouteRecorder[interactions.length];
+    this.noRoutes = new RouteRecorder[interactions.length];
+    for (Interaction interaction : interactions) {
+      routes[interaction.ordinal()] = new ConcurrentHashMap<>();
+      otherRoutes[interaction.ordinal()] = new RouteRecorder(interaction, OTHER_ROUTE);
+      noRoutes[interaction.ordinal()] = new RouteRecorder(interaction, NO_ROUTE);
+    }
+  }
+
+  /**
+   * Return the recorder for the route of the given request payload. Once {@code maxRoutes} distinct
+   * routes have been seen, requests for new routes are recorded under the {@code other} route.
+   */
+  RouteRecorder recorder(Interaction interaction, Payload payload) {
+    final ByteBuf route = route(payload);
+    if (route == null) {
+      return noRoutes[interaction.ordinal()];
+    }
+
+    final Map<ByteBuf, RouteRecorder> routes = this.routes[interaction.ordinal()];
+    final RouteRecorder recorder = routes.get(route);
+    if (recorder != null) {
+      return recorder;
+    }
+
+    if (routeCount.incrementAndGet() > maxRoutes) {
+      routeCount.decrementAndGet();
+      return otherRoutes[interaction.ordinal()];
+    }
+    final RouteRecorder created =
+        new RouteRecorder(interaction, route.toString(StandardCharsets.UTF_8));
+    final RouteRecorder existing = routes.putIfAbsent(Unpooled.copiedBuffer(route), created);
+    if (existing != null) {
+      routeCount.decrementAndGet();
+      return existing;
+    }
+    return created;
+  }
+
+  /** Publish the latencies recorded since the previous call, registering meters as needed. */
+  synchronized void publish() {
+    for (int i = 0; i < routes.length; i++) {
+      for (RouteRecorder recorder : routes[i].values()) {
+        recorder.publish();
+      }
+      otherRoutes[i].publish();
+      noRoutes[i].publish();
+    }
+  }
+
+  /** Return a slice of the route of the given payload, the first tag of its routing metadata. */
+  @Nullable
+  static ByteBuf route(Payload payload) {
+    if (!payload.hasMetadata()) {
+      return null;
+    }
+    final ByteBuf metadata = payload.metadata();
+    try {
+      final CompositeMetadataReader reader = READERS.get().reset(metadata);
+      while (reader.next()) {
+        if (reader.mimeId() == ROUTING_MIME_ID
+            || (!reader.hasMimeId() && reader.isMimeType(ROUTING_MIME_TYPE))) {
+          final int index = reader.contentIndex();
+          final int length = reader.contentLength();
+          if (length < 1) {
+            return null;
+          }
+          final int routeLength = metadata.getUnsignedByte(index);
+          return routeLength < length ? metadata.slice(index + 1, routeLength) : null;
+        }
+      }
+    } catch (IllegalStateException e) {
+      // metadata which is not composite metadata carries no route
+    }
+    return null;
+  }
+
+  final class RouteRecorder {
+
+    private final Interaction interaction;
+
+    private final String route;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+
+    // only accessed by publish, under the lock of the enclosing instance
+    @Nullable private Histogram intervalHistogram;
+
+    private boolean registered;
+
+    // written by publish, read by meters
+    private volatile long count;
+
+    private volatile long maxNanos;
+
+    private volatile long[] percentileNanos = new long[PERCENTILES.length];
+
+    private RouteRecorder(Interaction interaction, String route) {
+      this.interaction = interaction;
+      this.route = route;
+    }
+
+    /** Record the latency of a request started at the given {@link System#nanoTime()}. */
+    void record(long startNanos) {
+      final long nanos = System.nanoTime() - startNanos;
+      recorder.recordValue(Math.max(0, Math.min(nanos, HIGHEST_TRACKABLE_NANOS)));
+    }
+
+    private void publish() {
+      final Histogram histogram = recorder.getIntervalHistogram(intervalHistogram);
+      intervalHistogram = histogram;
+
+      final long intervalCount = histogram.getTotalCount();
+      if (intervalCount == 0 && !registered) {
+        return;
+      }
+      final long[] percentileNanos = new long[PERCENTILES.length];
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        percentileNanos[i] = histogram.getValueAtPercentile(PERCENTILES[i] * 100);
+      }
+      this.percentileNanos = percentileNanos;
+      maxNanos = histogram.getMaxValue();
+      count += intervalCount;
+
+      if (!registered) {
+        register();
+        registered = true;
+      }
+    }
+
+    private void register() {
+      final Tags routeTags = tags.and("route", route);
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        final int index = i;
+        Gauge.builder(
+                interaction.metricName + ".percentile",
+                this,
+                r -> nanosToSeconds(r.percentileNanos[index]))
+            .tags(routeTags.and("phi", String.valueOf(PERCENTILES[i])))
+            .baseUnit("seconds")
+            .register(meterRegistry);
+      }
+      Gauge.builder(interaction.metricName + ".max", this, r -> nanosToSeconds(r.maxNanos))
+          .tags(routeTags)
+          .baseUnit("seconds")
+          .register(meterRegistry);
+      FunctionCounter.builder(interaction.metricName + ".count", this, r -> r.count)
+          .tags(routeTags)
+          .register(meterRegistry);
+    }
+  }
+
+  static double nanosToSeconds(long nanos) {
+    return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+  }
+}
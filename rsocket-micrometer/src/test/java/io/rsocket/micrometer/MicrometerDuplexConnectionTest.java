@@ -25,12 +25,15 @@
 import static org.mockito.Mockito.*;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.netty.buffer.ByteBuf;
 import io.rsocket.DuplexConnection;
 import io.rsocket.frame.FrameType;
 import io.rsocket.plugins.DuplexConnectionInterceptor.Type;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -38,6 +41,7 @@
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Operators;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
 final class MicrometerDuplexConnectionTest {
@@ -190,6 +194,74 @@ void send() {
     assertThat(findCounter(SERVER, SETUP).count()).isEqualTo(1);
   }
 
+  @DisplayName("function counters gather metrics of open and closed connections")
+  @Test
+  void functionCounters() {
+    Sinks.Empty<Void> onClose = Sinks.empty();
+    when(delegate.onClose()).thenReturn(onClose.asMono());
+    when(delegate.receive())
+        .thenReturn(Flux.just(createTestRequestNFrame(), createTestRequestResponseFrame()));
+
+    final FrameCountAggregate frameCounts =
+        new FrameCountAggregate(meterRegistry, Tag.of("test-key", "test-value"));
+
+    final MicrometerDuplexConnection first =
+        new MicrometerDuplexConnection(
+            SERVER, delegate, meterRegistry, frameCounts, Tag.of("test-key", "test-value"));
+    first.receive().as(StepVerifier::create).expectNextCount(2).verifyComplete();
+    first.sendFrame(1, createTestRequestNFrame());
+
+    final DuplexConnection secondDelegate = mock(DuplexConnection.class, RETURNS_SMART_NULLS);
+    when(secondDelegate.onClose()).thenReturn(Mono.never());
+    final MicrometerDuplexConnection second =
+        new MicrometerDuplexConnection(SERVER, secondDelegate, meterRegistry, frameCounts);
+    second.sendFrame(1, createTestCancelFrame());
+
+    assertThat(findFunctionCounter(SERVER, REQUEST_N).count()).isEqualTo(2);
+    assertThat(findFunctionCounter(SERVER, REQUEST_RESPONSE).count()).isEqualTo(1);
+    assertThat(findFunctionCounter(SERVER, CANCEL).count()).isEqualTo(1);
+    assertThat(findFunctionCounter(CLIENT, REQUEST_N).count()).isEqualTo(0);
+
+    onClose.tryEmitEmpty();
+
+    assertThat(findFunctionCounter(SERVER, REQUEST_N).count()).isEqualTo(2);
+    assertThat(findFunctionCounter(SERVER, CANCEL).count()).isEqualTo(1);
+  }
+
+  @DisplayName("function counters do not go down while connections are closed")
+  @Test
+  void functionCountersAreMonotonic() throws InterruptedException {
+    final FrameCountAggregate frameCounts =
+        new FrameCountAggregate(meterRegistry, Tag.of("test-key", "test-value"));
+    final List<FrameCountAggregate.Counts> connections = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      final FrameCountAggregate.Counts counts = frameCounts.open(SERVER);
+      final ByteBuf frame = createTestRequestNFrame();
+      counts.sent(frame);
+      frame.release();
+      connections.add(counts);
+    }
+
+    final Thread closer = new Thread(() -> connections.forEach(frameCounts::close));
+    closer.start();
+
+    final FunctionCounter counter = findFunctionCounter(SERVER, REQUEST_N);
+    while (closer.isAlive()) {
+      assertThat(counter.count()).isEqualTo(1_000);
+    }
+    closer.join();
+    assertThat(counter.count()).isEqualTo(1_000);
+  }
+
+  private FunctionCounter findFunctionCounter(Type connectionType, FrameType frameType) {
+    return meterRegistry
+        .get("rsocket.frame")
+        .tag("connection.type", connectionType.name())
+        .tag("frame.type", frameType.name())
+        .tag("test-key", "test-value")
+        .functionCounter();
+  }
+
   private Counter findCounter(Type connectionType, FrameType frameType) {
     return meterRegistry
         .get("rsocket.frame")
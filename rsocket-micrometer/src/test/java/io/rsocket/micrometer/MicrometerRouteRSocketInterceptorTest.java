@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.rsocket.micrometer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.rsocket.Payload;
+import io.rsocket.RSocket;
+import io.rsocket.metadata.CompositeMetadataCodec;
+import io.rsocket.metadata.TaggingMetadataCodec;
+import io.rsocket.metadata.WellKnownMimeType;
+import io.rsocket.util.ByteBufPayload;
+import io.rsocket.util.DefaultPayload;
+import java.time.Duration;
+import java.util.Collections;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+final class MicrometerRouteRSocketInterceptorTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+  private final RSocket delegate =
+      new RSocket() {
+        @Override
+        public Mono<Payload> requestResponse(Payload payload) {
+          payload.release();
+          return Mono.just(DefaultPayload.create("response"));
+        }
+      };
+
+  private final MicrometerRouteRSocketInterceptor interceptor =
+      new MicrometerRouteRSocketInterceptor(
+          meterRegistry, 2, Duration.ofSeconds(10), scheduler, Tag.of("test-key", "test-value"));
+
+  @AfterEach
+  void dispose() {
+    interceptor.dispose();
+  }
+
+  @DisplayName("requestResponse records latencies by route")
+  @Test
+  void requestResponse() {
+    final RSocket rSocket = interceptor.apply(delegate);
+    requestResponse(rSocket, "orders");
+    requestResponse(rSocket, "orders");
+    requestResponse(rSocket, "users");
+
+    assertThat(meterRegistry.getMeters()).isEmpty();
+
+    scheduler.advanceTimeBy(Duration.ofSeconds(10));
+
+    assertThat(findCount("orders").count()).isEqualTo(2);
+    assertThat(findCount("users").count()).isEqualTo(1);
+    assertThat(
+            meterRegistry
+                .get("rsocket.request.response.latency.percentile")
+                .tag("route", "orders")
+                .tag("phi", "0.99")
+                .tag("test-key", "test-value")
+                .gauge()
+                .value())
+        .isPositive();
+    assertThat(
+            meterRegistry
+                .get("rsocket.request.response.latency.max")
+                .tag("route", "users")
+                .gauge()
+                .value())
+        .isPositive();
+  }
+
+  @DisplayName("routes beyond the limit are recorded as other")
+  @Test
+  void maxRoutes() {
+    final RSocket rSocket = interceptor.apply(delegate);
+    requestResponse(rSocket, "a");
+    requestResponse(rSocket, "b");
+    requestResponse(rSocket, "c");
+    requestResponse(rSocket, "d");
+    StepVerifier.create(rSocket.requestResponse(DefaultPayload.create("data")))
+        .expectNextCount(1)
+        .verifyComplete();
+
+    interceptor.publish();
+
+    assertThat(findCount("a").count()).isEqualTo(1);
+    assertThat(findCount("b").count()).isEqualTo(1);
+    assertThat(findCount(RouteLatencyRecorders.OTHER_ROUTE).count()).isEqualTo(2);
+    assertThat(findCount(RouteLatencyRecorders.NO_ROUTE).count()).isEqualTo(1);
+  }
+
+  @DisplayName("counts accumulate across publications")
+  @Test
+  void countsAccumulate() {
+    final RSocket rSocket = interceptor.apply(delegate);
+    requestResponse(rSocket, "orders");
+    interceptor.publish();
+    requestResponse(rSocket, "orders");
+    interceptor.publish();
+    interceptor.publish();
+
+    assertThat(findCount("orders").count()).isEqualTo(2);
+  }
+
+  private void requestResponse(RSocket rSocket, String route) {
+    final ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+    final CompositeByteBuf metadata = allocator.compositeBuffer();
+    CompositeMetadataCodec.encodeAndAddMetadata(
+        metadata,
+        allocator,
+        WellKnownMimeType.MESSAGE_RSOCKET_ROUTING,
+        TaggingMetadataCodec.createTaggingContent(allocator, Collections.singletonList(route)));
+
+    rSocket
+        .requestResponse(ByteBufPayload.create(Unpooled.EMPTY_BUFFER, metadata))
+        .as(StepVerifier::create)
+        .expectNextCount(1)
+        .verifyComplete();
+  }
+
+  private FunctionCounter findCount(String route) {
+    return meterRegistry
+        .get("rsocket.request.response.latency.count")
+        .tag("route", route)
+        .tag("test-key", "test-value")
+        .functionCounter();
+  }
+}